@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+
+import com.github.bwsoft.iris.message.SBEMessageSchema;
+import com.github.bwsoft.iris.message.sbe.SBEFlyweightGenerator;
+
+/**
+ * Generate typed flyweight codecs for all messages in the SBE schemas and add the
+ * generated sources to the compile source roots of the project.
+ *
+ * <pre>
+ * {@code
+ *     <plugin>
+ *         <groupId>com.github.bwsoft.iris</groupId>
+ *         <artifactId>iris-maven-plugin</artifactId>
+ *         <executions>
+ *             <execution>
+ *                 <goals><goal>generate</goal></goals>
+ *                 <configuration>
+ *                     <schemaFiles><schemaFile>src/main/resources/schema.xml</schemaFile></schemaFiles>
+ *                     <packageName>com.acme.codec</packageName>
+ *                 </configuration>
+ *             </execution>
+ *         </executions>
+ *     </plugin>
+ * }
+ * </pre>
+ *
+ * @see SBEFlyweightGenerator
+ *
+ * @author yzhou
+ *
+ */
+@Mojo(name = "generate", defaultPhase = LifecyclePhase.GENERATE_SOURCES, threadSafe = true)
+public class GenerateCodecMojo extends AbstractMojo {
+	/**
+	 * The SBE schema files.
+	 */
+	@Parameter(required = true)
+	private List<File> schemaFiles;
+
+	/**
+	 * The java package of the generated codecs. The codecs of all schemas share the package, 
+	 * so the build fails if two messages generate a codec of the same name.
+	 */
+	@Parameter(required = true)
+	private String packageName;
+
+	/**
+	 * The root directory of the generated sources.
+	 */
+	@Parameter(defaultValue = "${project.build.directory}/generated-sources/iris", required = true)
+	private File outputDirectory;
+
+	@Parameter(defaultValue = "${project}", readonly = true, required = true)
+	private MavenProject project;
+
+	@Override
+	public void execute() throws MojoExecutionException {
+		// the schema that generated each file, to detect a codec overwritten by another message
+		Map<File, File> generated = new HashMap<>();
+		for( File schemaFile : schemaFiles ) {
+			SBEMessageSchema schema;
+			try {
+				schema = SBEMessageSchema.createSBESchema(schemaFile.getPath());
+			} catch (Exception e) {
+				throw new MojoExecutionException("failed to load the SBE schema: "+schemaFile, e);
+			}
+
+			List<File> files;
+			try {
+				files = new SBEFlyweightGenerator(schema, packageName).generate(outputDirectory);
+			} catch (IOException e) {
+				throw new MojoExecutionException("failed to generate codecs from the SBE schema: "+schemaFile, e);
+			}
+			for( File file : files ) {
+				File previous = generated.put(file, schemaFile);
+				if( null != previous ) {
+					throw new MojoExecutionException("codec, "+file.getName()+", of the SBE schema, "+schemaFile+
+							", overwrites the codec of the same name generated from the SBE schema, "+previous+
+							". Generate the schemas into different packages in separate executions.");
+				}
+			}
+			getLog().info("generated "+files.size()+" codec(s) from "+schemaFile);
+		}
+		project.addCompileSourceRoot(outputDirectory.getPath());
+	}
+}
@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.buffer;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A pool of ByteBuffers in the sizes of power of two. A buffer is taken by {@link #acquire(int)} 
+ * and handed back by {@link #release(ByteBuffer)} to be reused by the next acquire of the same 
+ * size. A message created in a pooled buffer moves to a larger buffer of the pool when it 
+ * outgrows its buffer, which avoids the allocation of buffers for the largest possible message. 
+ * 
+ * <pre>
+ * {@code
+ *     BufferPool pool = new BufferPool(true);
+ *     SBEMessageContext context = new SBEMessageContext(pool);
+ *     GroupObject msgObj = schema.createSbeBuffer(context, templateId, 256);
+ *     ...
+ *     ByteBuffer buffer = context.getBuffer(schema.getMsgLookup().get(templateId));
+ *     ...
+ *     context.release();
+ * }
+ * </pre>
+ * 
+ * A pool is thread safe and can be shared by contexts in different threads. 
+ * 
+ * @author yzhou
+ *
+ */
+public final class BufferPool {
+	private static final int MIN_SIZE_SHIFT = 6;
+	private static final int MAX_SIZE_SHIFT = 30;
+	
+	private final boolean direct;
+	
+	// free buffers indexed by the power of two of their capacity
+	private final ConcurrentLinkedQueue<ByteBuffer>[] freeBuffers = newQueues(MAX_SIZE_SHIFT+1);
+	
+	/**
+	 * @param direct true to allocate direct buffers, false to allocate heap buffers
+	 */
+	public BufferPool(boolean direct) {
+		this.direct = direct;
+		for( int i = MIN_SIZE_SHIFT; i <= MAX_SIZE_SHIFT; i ++ ) {
+			freeBuffers[i] = new ConcurrentLinkedQueue<>();
+		}
+	}
+	
+	/**
+	 * @return true if the buffers of this pool are direct buffers
+	 */
+	public boolean isDirect() {
+		return direct;
+	}
+	
+	/**
+	 * Take a buffer out of the pool. A new buffer is allocated if there is no free buffer of 
+	 * the size. The returned buffer is cleared and its content is undefined. 
+	 * 
+	 * @param capacity the minimal capacity of the buffer
+	 * @return a buffer with a capacity of the smallest power of two that is no less than the capacity
+	 * @throws IllegalArgumentException if the capacity is negative or greater than 2^30
+	 */
+	public ByteBuffer acquire(int capacity) {
+		if( capacity < 0 || capacity > (1 << MAX_SIZE_SHIFT) ) {
+			throw new IllegalArgumentException("cannot allocate a buffer of "+capacity+" bytes from the pool");
+		}
+		int shift = 32 - Integer.numberOfLeadingZeros(Math.max(capacity, 1 << MIN_SIZE_SHIFT) - 1);
+		ByteBuffer buffer = freeBuffers[shift].poll();
+		if( null == buffer ) {
+			buffer = direct ? ByteBuffer.allocateDirect(1 << shift) : ByteBuffer.allocate(1 << shift);
+		}
+		return buffer;
+	}
+	
+	/**
+	 * Hand a buffer back to the pool. The buffer must not be used after it is released. A 
+	 * buffer that is not allocated by a pool of the same kind is ignored. 
+	 * 
+	 * @param buffer the buffer to be reused
+	 */
+	public void release(ByteBuffer buffer) {
+		int capacity = buffer.capacity();
+		if( buffer.isDirect() != direct || buffer.isReadOnly() || Integer.bitCount(capacity) != 1 ) {
+			return;
+		}
+		int shift = Integer.numberOfTrailingZeros(capacity);
+		if( shift >= MIN_SIZE_SHIFT && shift <= MAX_SIZE_SHIFT ) {
+			buffer.clear();
+			freeBuffers[shift].offer(buffer);
+		}
+	}
+	
+	@SuppressWarnings("unchecked")
+	private static <T> ConcurrentLinkedQueue<T>[] newQueues(int n) {
+		return (ConcurrentLinkedQueue<T>[]) new ConcurrentLinkedQueue<?>[n];
+	}
+}
@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.buffer;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A buffer with absolute get and put methods. It is the storage that SBE messages are read 
+ * from and written to. Two implementations are provided: 
+ *    1.) {@link NioBuffer} on top of a ByteBuffer with all the bounds checks of the ByteBuffer
+ *    2.) {@link UnsafeBuffer} on top of a heap array, a direct or memory-mapped ByteBuffer, or a
+ *    raw memory address. It does not check bounds.
+ * 
+ * Both implementations can be re-pointed to another memory region without creating a new object. 
+ * 
+ * @author yzhou
+ *
+ */
+public interface IrisBuffer {
+	/**
+	 * Create a buffer that uses the provided ByteBuffer as its storage. 
+	 * 
+	 * @param buffer the ByteBuffer to be wrapped
+	 * @return a bounds checked buffer
+	 */
+	public static IrisBuffer wrap(ByteBuffer buffer) {
+		return new NioBuffer(buffer);
+	}
+	
+	/**
+	 * @return the number of bytes in this buffer
+	 */
+	public int capacity();
+	
+	/**
+	 * @return the byte order used to read or write multi-byte values
+	 */
+	public ByteOrder order();
+	
+	/**
+	 * Change the byte order used to read or write multi-byte values.
+	 * 
+	 * @param order the new byte order
+	 * @return this buffer
+	 */
+	public IrisBuffer order(ByteOrder order);
+	
+	public byte get(int index);
+	
+	public void put(int index, byte value);
+	
+	public char getChar(int index);
+	
+	public void putChar(int index, char value);
+	
+	public short getShort(int index);
+	
+	public void putShort(int index, short value);
+	
+	public int getInt(int index);
+	
+	public void putInt(int index, int value);
+	
+	public long getLong(int index);
+	
+	public void putLong(int index, long value);
+	
+	public float getFloat(int index);
+	
+	public void putFloat(int index, float value);
+	
+	public double getDouble(int index);
+	
+	public void putDouble(int index, double value);
+	
+	/**
+	 * Copy bytes from this buffer into a byte array. 
+	 * 
+	 * @param index the starting position in this buffer
+	 * @param dest the destination array
+	 * @param destOffset the starting position in the destination array
+	 * @param length the number of bytes to copy
+	 */
+	public void getBytes(int index, byte[] dest, int destOffset, int length);
+	
+	/**
+	 * Copy bytes from a byte array into this buffer.
+	 * 
+	 * @param index the starting position in this buffer
+	 * @param src the source array
+	 * @param srcOffset the starting position in the source array
+	 * @param length the number of bytes to copy
+	 */
+	public void putBytes(int index, byte[] src, int srcOffset, int length);
+	
+	/**
+	 * Copy bytes from this buffer into another buffer. The bytes are copied as they are 
+	 * regardless of the byte orders of the two buffers. 
+	 * 
+	 * @param index the starting position in this buffer
+	 * @param dest the destination buffer
+	 * @param destIndex the starting position in the destination buffer
+	 * @param length the number of bytes to copy
+	 */
+	public void getBytes(int index, IrisBuffer dest, int destIndex, int length);
+	
+	/**
+	 * Move a region of this buffer to another position of this buffer. The source and 
+	 * the destination regions can overlap. 
+	 * 
+	 * @param srcIndex the starting position of the source region
+	 * @param destIndex the starting position of the destination region
+	 * @param length the number of bytes to move
+	 */
+	public void copy(int srcIndex, int destIndex, int length);
+	
+	/**
+	 * Set a region of this buffer to a value.
+	 * 
+	 * @param index the starting position of the region
+	 * @param length the number of bytes in the region
+	 * @param value the value of each byte
+	 */
+	public void setMemory(int index, int length, byte value);
+}
@@ -0,0 +1,203 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.buffer;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * An IrisBuffer on top of a ByteBuffer. All accesses are checked by the ByteBuffer. 
+ * 
+ * The bulk get and put methods alter the position of the ByteBuffer. A move within a
+ * direct ByteBuffer goes through a scratch array that is kept by this buffer for reuse.
+ * 
+ * @author yzhou
+ *
+ */
+public final class NioBuffer implements IrisBuffer {
+	private ByteBuffer buffer;
+	private byte[] scratch = new byte[0];
+	
+	/**
+	 * Create a buffer that needs to be pointed to a ByteBuffer by {@link #wrap(ByteBuffer)} before use.
+	 */
+	public NioBuffer() {
+	}
+	
+	public NioBuffer(ByteBuffer buffer) {
+		this.buffer = buffer;
+	}
+	
+	/**
+	 * Point this buffer to a ByteBuffer.
+	 * 
+	 * @param buffer the ByteBuffer to be used as the storage
+	 * @return this buffer
+	 */
+	public NioBuffer wrap(ByteBuffer buffer) {
+		this.buffer = buffer;
+		return this;
+	}
+	
+	/**
+	 * @return the ByteBuffer used as the storage
+	 */
+	public ByteBuffer byteBuffer() {
+		return buffer;
+	}
+
+	@Override
+	public int capacity() {
+		return buffer.capacity();
+	}
+
+	@Override
+	public ByteOrder order() {
+		return buffer.order();
+	}
+
+	@Override
+	public NioBuffer order(ByteOrder order) {
+		buffer.order(order);
+		return this;
+	}
+
+	@Override
+	public byte get(int index) {
+		return buffer.get(index);
+	}
+
+	@Override
+	public void put(int index, byte value) {
+		buffer.put(index, value);
+	}
+
+	@Override
+	public char getChar(int index) {
+		return buffer.getChar(index);
+	}
+
+	@Override
+	public void putChar(int index, char value) {
+		buffer.putChar(index, value);
+	}
+
+	@Override
+	public short getShort(int index) {
+		return buffer.getShort(index);
+	}
+
+	@Override
+	public void putShort(int index, short value) {
+		buffer.putShort(index, value);
+	}
+
+	@Override
+	public int getInt(int index) {
+		return buffer.getInt(index);
+	}
+
+	@Override
+	public void putInt(int index, int value) {
+		buffer.putInt(index, value);
+	}
+
+	@Override
+	public long getLong(int index) {
+		return buffer.getLong(index);
+	}
+
+	@Override
+	public void putLong(int index, long value) {
+		buffer.putLong(index, value);
+	}
+
+	@Override
+	public float getFloat(int index) {
+		return buffer.getFloat(index);
+	}
+
+	@Override
+	public void putFloat(int index, float value) {
+		buffer.putFloat(index, value);
+	}
+
+	@Override
+	public double getDouble(int index) {
+		return buffer.getDouble(index);
+	}
+
+	@Override
+	public void putDouble(int index, double value) {
+		buffer.putDouble(index, value);
+	}
+
+	@Override
+	public void getBytes(int index, byte[] dest, int destOffset, int length) {
+		buffer.position(index);
+		buffer.get(dest, destOffset, length);
+	}
+
+	@Override
+	public void putBytes(int index, byte[] src, int srcOffset, int length) {
+		buffer.position(index);
+		buffer.put(src, srcOffset, length);
+	}
+
+	@Override
+	public void getBytes(int index, IrisBuffer dest, int destIndex, int length) {
+		if( dest == this ) {
+			copy(index, destIndex, length);
+		} else if( dest instanceof NioBuffer && buffer.hasArray() && ((NioBuffer) dest).buffer.hasArray() ) {
+			ByteBuffer target = ((NioBuffer) dest).buffer;
+			System.arraycopy(buffer.array(), buffer.arrayOffset()+index, target.array(), target.arrayOffset()+destIndex, length);
+		} else {
+			if( scratch.length < length ) {
+				scratch = new byte[length];
+			}
+			getBytes(index, scratch, 0, length);
+			dest.putBytes(destIndex, scratch, 0, length);
+		}
+	}
+
+	@Override
+	public void copy(int srcIndex, int destIndex, int length) {
+		if( buffer.hasArray() ) {
+			byte[] array = buffer.array();
+			int arrayOffset = buffer.arrayOffset();
+			System.arraycopy(array, arrayOffset+srcIndex, array, arrayOffset+destIndex, length);
+		} else {
+			if( scratch.length < length ) {
+				scratch = new byte[length];
+			}
+			getBytes(srcIndex, scratch, 0, length);
+			putBytes(destIndex, scratch, 0, length);
+		}
+	}
+
+	@Override
+	public void setMemory(int index, int length, byte value) {
+		if( buffer.hasArray() ) {
+			int arrayOffset = buffer.arrayOffset();
+			Arrays.fill(buffer.array(), arrayOffset+index, arrayOffset+index+length, value);
+		} else {
+			for( int i = 0; i < length; i ++ ) {
+				buffer.put(index+i, value);
+			}
+		}
+	}
+}
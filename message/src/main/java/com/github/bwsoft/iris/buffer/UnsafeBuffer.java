@@ -0,0 +1,287 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.buffer;
+
+import java.lang.reflect.Field;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import sun.misc.Unsafe;
+
+/**
+ * An IrisBuffer that reads and writes the memory directly through sun.misc.Unsafe. The 
+ * memory can be a heap array, a direct or memory-mapped ByteBuffer, or a raw memory 
+ * address, e.g. a region shared with a NIC or another process. 
+ * 
+ * The accesses are not checked. A read or write outside of the buffer can corrupt the 
+ * memory or crash the JVM. It is meant to be used when the layout of a message has been 
+ * validated, e.g. with the safe mode turned off. 
+ * 
+ * Check {@link #isAvailable()} before use. Unsafe is not available on all JVMs. 
+ * 
+ * @author yzhou
+ *
+ */
+public final class UnsafeBuffer implements IrisBuffer {
+	private static final Unsafe UNSAFE;
+	private static final long BYTE_ARRAY_BASE_OFFSET;
+	private static final long ADDRESS_OFFSET;
+	private static final ByteOrder NATIVE_ORDER = ByteOrder.nativeOrder();
+	
+	static {
+		Unsafe unsafe = null;
+		long arrayBaseOffset = 0;
+		long addressOffset = 0;
+		try {
+			Field field = Unsafe.class.getDeclaredField("theUnsafe");
+			field.setAccessible(true);
+			unsafe = (Unsafe) field.get(null);
+			arrayBaseOffset = unsafe.arrayBaseOffset(byte[].class);
+			addressOffset = unsafe.objectFieldOffset(Buffer.class.getDeclaredField("address"));
+		} catch (Exception e) {
+			unsafe = null;
+		}
+		UNSAFE = unsafe;
+		BYTE_ARRAY_BASE_OFFSET = arrayBaseOffset;
+		ADDRESS_OFFSET = addressOffset;
+	}
+	
+	private Object base; // the array for a heap buffer or null for off-heap memory
+	private long address;
+	private int capacity;
+	private ByteBuffer attachment; // keeps the ByteBuffer reachable while its memory is in use
+	
+	private ByteOrder order = ByteOrder.BIG_ENDIAN;
+	private boolean swap = NATIVE_ORDER != ByteOrder.BIG_ENDIAN;
+	
+	/**
+	 * @return true if this buffer can be used in the current JVM
+	 */
+	public static boolean isAvailable() {
+		return null != UNSAFE;
+	}
+	
+	/**
+	 * @param buffer a ByteBuffer
+	 * @return true if this buffer can be pointed to the ByteBuffer
+	 */
+	public static boolean isSupported(ByteBuffer buffer) {
+		return null != UNSAFE && (buffer.isDirect() || buffer.hasArray());
+	}
+	
+	/**
+	 * Create a buffer that needs to be pointed to a memory region by one of the wrap 
+	 * methods before use.
+	 */
+	public UnsafeBuffer() {
+		if( null == UNSAFE ) {
+			throw new UnsupportedOperationException("sun.misc.Unsafe is not available");
+		}
+	}
+	
+	public UnsafeBuffer(byte[] array) {
+		this();
+		wrap(array);
+	}
+	
+	public UnsafeBuffer(ByteBuffer buffer) {
+		this();
+		wrap(buffer);
+	}
+	
+	public UnsafeBuffer(long address, int length) {
+		this();
+		wrap(address, length);
+	}
+	
+	/**
+	 * Point this buffer to a heap array.
+	 * 
+	 * @param array the array to be used as the storage
+	 * @return this buffer
+	 */
+	public UnsafeBuffer wrap(byte[] array) {
+		this.base = array;
+		this.address = BYTE_ARRAY_BASE_OFFSET;
+		this.capacity = array.length;
+		this.attachment = null;
+		return this;
+	}
+	
+	/**
+	 * Point this buffer to the memory of a ByteBuffer. The byte order of the ByteBuffer 
+	 * is taken as well. 
+	 * 
+	 * @param buffer a direct ByteBuffer or a ByteBuffer backed by an accessible array 
+	 * @return this buffer
+	 */
+	public UnsafeBuffer wrap(ByteBuffer buffer) {
+		if( buffer.isDirect() ) {
+			this.base = null;
+			this.address = UNSAFE.getLong(buffer, ADDRESS_OFFSET);
+		} else if( buffer.hasArray() ) {
+			this.base = buffer.array();
+			this.address = BYTE_ARRAY_BASE_OFFSET + buffer.arrayOffset();
+		} else {
+			throw new IllegalArgumentException("a read-only heap buffer is not supported");
+		}
+		this.capacity = buffer.capacity();
+		this.attachment = buffer;
+		return order(buffer.order());
+	}
+	
+	/**
+	 * Point this buffer to a memory region. The memory region is managed by the caller and 
+	 * has to stay valid while this buffer is in use. 
+	 * 
+	 * @param address the starting address of the memory region
+	 * @param length the size of the memory region in bytes
+	 * @return this buffer
+	 */
+	public UnsafeBuffer wrap(long address, int length) {
+		this.base = null;
+		this.address = address;
+		this.capacity = length;
+		this.attachment = null;
+		return this;
+	}
+	
+	@Override
+	public int capacity() {
+		return capacity;
+	}
+
+	@Override
+	public ByteOrder order() {
+		return order;
+	}
+
+	@Override
+	public UnsafeBuffer order(ByteOrder order) {
+		this.order = order;
+		this.swap = order != NATIVE_ORDER;
+		return this;
+	}
+
+	@Override
+	public byte get(int index) {
+		return UNSAFE.getByte(base, address+index);
+	}
+
+	@Override
+	public void put(int index, byte value) {
+		UNSAFE.putByte(base, address+index, value);
+	}
+
+	@Override
+	public char getChar(int index) {
+		char value = UNSAFE.getChar(base, address+index);
+		return swap ? Character.reverseBytes(value) : value;
+	}
+
+	@Override
+	public void putChar(int index, char value) {
+		UNSAFE.putChar(base, address+index, swap ? Character.reverseBytes(value) : value);
+	}
+
+	@Override
+	public short getShort(int index) {
+		short value = UNSAFE.getShort(base, address+index);
+		return swap ? Short.reverseBytes(value) : value;
+	}
+
+	@Override
+	public void putShort(int index, short value) {
+		UNSAFE.putShort(base, address+index, swap ? Short.reverseBytes(value) : value);
+	}
+
+	@Override
+	public int getInt(int index) {
+		int value = UNSAFE.getInt(base, address+index);
+		return swap ? Integer.reverseBytes(value) : value;
+	}
+
+	@Override
+	public void putInt(int index, int value) {
+		UNSAFE.putInt(base, address+index, swap ? Integer.reverseBytes(value) : value);
+	}
+
+	@Override
+	public long getLong(int index) {
+		long value = UNSAFE.getLong(base, address+index);
+		return swap ? Long.reverseBytes(value) : value;
+	}
+
+	@Override
+	public void putLong(int index, long value) {
+		UNSAFE.putLong(base, address+index, swap ? Long.reverseBytes(value) : value);
+	}
+
+	@Override
+	public float getFloat(int index) {
+		return Float.intBitsToFloat(getInt(index));
+	}
+
+	@Override
+	public void putFloat(int index, float value) {
+		putInt(index, Float.floatToRawIntBits(value));
+	}
+
+	@Override
+	public double getDouble(int index) {
+		return Double.longBitsToDouble(getLong(index));
+	}
+
+	@Override
+	public void putDouble(int index, double value) {
+		putLong(index, Double.doubleToRawLongBits(value));
+	}
+
+	@Override
+	public void getBytes(int index, byte[] dest, int destOffset, int length) {
+		UNSAFE.copyMemory(base, address+index, dest, BYTE_ARRAY_BASE_OFFSET+destOffset, length);
+	}
+
+	@Override
+	public void putBytes(int index, byte[] src, int srcOffset, int length) {
+		UNSAFE.copyMemory(src, BYTE_ARRAY_BASE_OFFSET+srcOffset, base, address+index, length);
+	}
+
+	@Override
+	public void getBytes(int index, IrisBuffer dest, int destIndex, int length) {
+		if( dest instanceof UnsafeBuffer ) {
+			UnsafeBuffer target = (UnsafeBuffer) dest;
+			UNSAFE.copyMemory(base, address+index, target.base, target.address+destIndex, length);
+		} else if( base instanceof byte[] ) {
+			dest.putBytes(destIndex, (byte[]) base, (int) (address-BYTE_ARRAY_BASE_OFFSET)+index, length);
+		} else {
+			for( int i = 0; i < length; i ++ ) {
+				dest.put(destIndex+i, get(index+i));
+			}
+		}
+	}
+
+	@Override
+	public void copy(int srcIndex, int destIndex, int length) {
+		UNSAFE.copyMemory(base, address+srcIndex, base, address+destIndex, length);
+	}
+
+	@Override
+	public void setMemory(int index, int length, byte value) {
+		UNSAFE.setMemory(base, address+index, length, value);
+	}
+}
@@ -0,0 +1,8 @@
+/**
+ * Byte buffers that SBE messages are read from and written to. A buffer can be backed by a heap
+ * array, a direct or memory-mapped ByteBuffer, or a raw memory address.
+ * 
+ * @author yzhou
+ *
+ */
+package com.github.bwsoft.iris.buffer;
\ No newline at end of file
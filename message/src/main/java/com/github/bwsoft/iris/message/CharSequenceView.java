@@ -0,0 +1,215 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.message;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+import com.github.bwsoft.iris.buffer.IrisBuffer;
+
+/**
+ * A reusable view of the character data of a char array or a variable length field. It 
+ * is pointed to a field by {@link GroupObject#getCharSequence(Field, CharSequenceView)} without 
+ * copying the data. 
+ * 
+ * Characters of a single byte encoding, ASCII or ISO-8859-1, are read from the buffer upon request. 
+ * Data in UTF-8, which encodes ASCII characters in single bytes, are read the same way if all bytes 
+ * are ASCII. Otherwise, e.g. UTF-8 with non ASCII characters or UTF-16, they are decoded into an 
+ * internal char array, which is reused by the next wrap. 
+ * 
+ * The view is valid until the underlying message is modified. {@link #toString()} and 
+ * {@link #subSequence(int, int)} create a String. A view is not thread safe. 
+ * 
+ * @author yzhou
+ *
+ */
+public final class CharSequenceView implements CharSequence {
+	private IrisBuffer buffer;
+	private int offset;
+	private int length;
+	
+	// the decoded characters of data not in ASCII
+	private boolean decoded;
+	private char[] chars = new char[0];
+	private byte[] bytes = new byte[0];
+	private CharsetDecoder decoder;
+	
+	/**
+	 * Point this view to the encoded characters in a buffer.
+	 * 
+	 * @param buffer the buffer
+	 * @param offset the start of the encoded characters
+	 * @param length the number of bytes of the encoded characters
+	 * @param charset the character encoding
+	 * @return this view
+	 */
+	public CharSequenceView wrap(IrisBuffer buffer, int offset, int length, Charset charset) {
+		this.buffer = buffer;
+		this.offset = offset;
+		this.length = length;
+		this.decoded = false;
+		if( ! isSingleByte(charset) && ! (StandardCharsets.UTF_8.equals(charset) && isAscii(buffer, offset, length)) ) {
+			decode(charset);
+		}
+		return this;
+	}
+	
+	/**
+	 * Point this view to nothing.
+	 * 
+	 * @return this empty view
+	 */
+	public CharSequenceView clear() {
+		this.buffer = null;
+		this.length = 0;
+		this.decoded = false;
+		return this;
+	}
+	
+	private static boolean isSingleByte(Charset charset) {
+		return StandardCharsets.US_ASCII.equals(charset) || StandardCharsets.ISO_8859_1.equals(charset);
+	}
+	
+	private static boolean isAscii(IrisBuffer buffer, int offset, int length) {
+		for( int i = 0; i < length; i ++ ) {
+			if( buffer.get(offset+i) < 0 ) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	private void decode(Charset charset) {
+		if( bytes.length < length ) {
+			bytes = new byte[length];
+		}
+		buffer.getBytes(offset, bytes, 0, length);
+		
+		if( null == decoder || ! decoder.charset().equals(charset) ) {
+			decoder = charset.newDecoder()
+					.onMalformedInput(CodingErrorAction.REPLACE)
+					.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		}
+		int maxChars = (int) Math.ceil(length * (double) decoder.maxCharsPerByte());
+		if( chars.length < maxChars ) {
+			chars = new char[maxChars];
+		}
+		
+		ByteBuffer in = ByteBuffer.wrap(bytes, 0, length);
+		CharBuffer out = CharBuffer.wrap(chars);
+		decoder.reset();
+		CoderResult result = decoder.decode(in, out, true);
+		if( ! result.isUnderflow() ) {
+			throw new IllegalStateException("failed to decode characters in "+charset.name());
+		}
+		decoder.flush(out);
+		this.length = out.position();
+		this.decoded = true;
+	}
+
+	@Override
+	public int length() {
+		return length;
+	}
+
+	@Override
+	public char charAt(int index) {
+		if( index < 0 || index >= length ) {
+			throw new IndexOutOfBoundsException("index, "+index+", is out of the range of length, "+length);
+		}
+		return decoded ? chars[index] : (char) (buffer.get(offset+index) & 0xff);
+	}
+
+	@Override
+	public CharSequence subSequence(int start, int end) {
+		StringBuilder sb = new StringBuilder(end-start);
+		for( int i = start; i < end; i ++ ) {
+			sb.append(charAt(i));
+		}
+		return sb.toString();
+	}
+	
+	/**
+	 * Copy characters into a char array in the same way as {@link String#getChars(int, int, char[], int)}.
+	 * 
+	 * @param srcBegin the index of the first character to copy
+	 * @param srcEnd the index after the last character to copy
+	 * @param dest the destination array
+	 * @param destBegin the start offset in the destination array
+	 */
+	public void getChars(int srcBegin, int srcEnd, char[] dest, int destBegin) {
+		if( srcBegin < 0 || srcBegin > srcEnd || srcEnd > length ) {
+			throw new IndexOutOfBoundsException("range, ["+srcBegin+","+srcEnd+"), is out of the range of length, "+length);
+		}
+		if( decoded ) {
+			System.arraycopy(chars, srcBegin, dest, destBegin, srcEnd-srcBegin);
+		} else {
+			for( int i = srcBegin; i < srcEnd; i ++ ) {
+				dest[destBegin++] = (char) (buffer.get(offset+i) & 0xff);
+			}
+		}
+	}
+	
+	/**
+	 * Append all characters to a StringBuilder.
+	 * 
+	 * @param dest the StringBuilder
+	 * @return the number of characters appended
+	 */
+	public int appendTo(StringBuilder dest) {
+		if( decoded ) {
+			dest.append(chars, 0, length);
+		} else {
+			for( int i = 0; i < length; i ++ ) {
+				dest.append((char) (buffer.get(offset+i) & 0xff));
+			}
+		}
+		return length;
+	}
+	
+	/**
+	 * Compare the characters to a CharSequence without creating a String.
+	 * 
+	 * @param cs the CharSequence to compare to
+	 * @return true if both contain the same characters
+	 */
+	public boolean contentEquals(CharSequence cs) {
+		if( null == cs || cs.length() != length ) {
+			return false;
+		}
+		for( int i = 0; i < length; i ++ ) {
+			if( charAt(i) != cs.charAt(i) ) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		if( decoded ) {
+			return new String(chars, 0, length);
+		}
+		char[] value = new char[length];
+		getChars(0, length, value, 0);
+		return new String(value);
+	}
+}
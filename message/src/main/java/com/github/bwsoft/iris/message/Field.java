@@ -64,6 +64,69 @@ public interface Field extends Serializable {
 		return null;
 	}
 	
+	/**
+	 * A field added in a later version of the schema is absent in a message encoded in 
+	 * an earlier version. 
+	 * 
+	 * @return the schema version in which the field is added, zero for a field since the first version
+	 */
+	public default int getSinceVersion() {
+		return 0;
+	}
+	
+	/**
+	 * An optional field holds the null value of its type when it is not set, see 
+	 * {@link GroupObject#isNull(Field)}. 
+	 * 
+	 * @return true if the presence of the field is optional
+	 */
+	public default boolean isOptional() {
+		return false;
+	}
+	
+	/**
+	 * The character encoding of a char array or a variable length field as defined by the 
+	 * characterEncoding attribute in the schema. 
+	 * 
+	 * @return the name of the character encoding or null if not defined
+	 */
+	public default String getCharacterEncoding() {
+		return null;
+	}
+	
+	/**
+	 * A decimal field is a composite of an integer mantissa and a constant or an integer 
+	 * exponent named "mantissa" and "exponent" in the schema. Its value is mantissa * 10^exponent, 
+	 * see {@link GroupObject#getDecimal(Field, int)}.
+	 * 
+	 * @return true if the field is a decimal composite
+	 */
+	public default boolean isDecimal() {
+		return false;
+	}
+	
+	/**
+	 * A timestamp field is an integer field of a timestamp semantic type or a composite of an integer 
+	 * "time" and a constant or an integer "unit" in the schema. Its value is converted to nanoseconds 
+	 * since the unix epoch by the epoch and the time unit of the schema, see {@link GroupObject#getEpochNanos(Field)}.
+	 * 
+	 * @return true if the field is a timestamp
+	 */
+	public default boolean isTimestamp() {
+		return false;
+	}
+	
+	/**
+	 * Resolve bit names of a choice field to a mask. The mask is to be resolved once and used by 
+	 * {@link GroupObject#isSet(Field, long)} and other mask based methods. 
+	 * 
+	 * @param bitNames the names of the bit positions defined in the SBE xml template
+	 * @return the mask with the bits of all bit names set
+	 */
+	public default long getChoiceMask(String... bitNames) {
+		throw new UnsupportedOperationException("no bit selection is supported for field: "+getName());
+	}
+	
 	/**
 	 * @return the length, aka the dimension, of the field
 	 */
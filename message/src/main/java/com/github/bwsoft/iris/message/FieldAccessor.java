@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.message;
+
+/**
+ * A FieldAccessor is a handle of a number field that is resolved once from a group 
+ * definition, e.g. by {@link Group#getFieldAccessor(String)}. The type and the offset of
+ * the field are resolved when the handle is created. A get or put through the handle 
+ * goes straight to the buffer without a field lookup and without boxing. 
+ * 
+ * <pre>
+ * {@code
+ *     // resolved once
+ *     FieldAccessor orderQty = schema.getMsgLookup().get(templateId).getFieldAccessor("OrderQty");
+ *     
+ *     // per message
+ *     GroupObject msgObj = schema.wrapSbeBuffer(buffer, offset);
+ *     long qty = orderQty.getLong(msgObj);
+ * }
+ * </pre>
+ * 
+ * A handle applies to the GroupObjects of its owner group. The ownership is checked in 
+ * the safe mode only. A getter of a field absent in a GroupObject, see {@link GroupObject#isPresent(Field)}, 
+ * returns the null value of the field and a setter throws an IllegalStateException. 
+ * 
+ * @author yzhou
+ *
+ */
+public interface FieldAccessor {
+	/**
+	 * @return the field of this handle
+	 */
+	public Field getField();
+	
+	/**
+	 * @return the group whose GroupObjects this handle applies to
+	 */
+	public Group getOwner();
+	
+	/**
+	 * Get the value of the field widened to a long. An unsigned value is returned as a 
+	 * positive number except for U64. A floating point value is truncated.
+	 * 
+	 * @param obj a GroupObject of the owner group
+	 * @return the value of the field
+	 */
+	public long getLong(GroupObject obj);
+	
+	/**
+	 * Set the value of the field. The value is narrowed to the type of the field. 
+	 * 
+	 * @param obj a GroupObject of the owner group
+	 * @param value the new value
+	 */
+	public void putLong(GroupObject obj, long value);
+	
+	/**
+	 * Get the value of the field narrowed to an int. 
+	 * 
+	 * @param obj a GroupObject of the owner group
+	 * @return the value of the field
+	 */
+	public default int getInt(GroupObject obj) {
+		return (int) getLong(obj);
+	}
+	
+	/**
+	 * Set the value of the field. The value is narrowed to the type of the field. 
+	 * 
+	 * @param obj a GroupObject of the owner group
+	 * @param value the new value
+	 */
+	public default void putInt(GroupObject obj, int value) {
+		putLong(obj, value);
+	}
+	
+	/**
+	 * @param obj a GroupObject of the owner group
+	 * @return the value of the field as a double
+	 */
+	public double getDouble(GroupObject obj);
+	
+	/**
+	 * Set the value of the field. The value is converted to the type of the field. 
+	 * 
+	 * @param obj a GroupObject of the owner group
+	 * @param value the new value
+	 */
+	public void putDouble(GroupObject obj, double value);
+	
+	/**
+	 * Check if the field holds its null value, which is the null value defined in the schema 
+	 * or else the null value of its type, e.g. NaN for a floating point 
+	 * number or the maximum value for an unsigned integer. A field absent in the message, 
+	 * see {@link GroupObject#isPresent(Field)}, is null as well.
+	 * 
+	 * @param obj a GroupObject of the owner group
+	 * @return true if the field holds the null value or it is absent
+	 */
+	public boolean isNull(GroupObject obj);
+	
+	/**
+	 * Set the field to its null value, see {@link #isNull(GroupObject)}. 
+	 * 
+	 * @param obj a GroupObject of the owner group
+	 */
+	public void setNull(GroupObject obj);
+}
@@ -0,0 +1,54 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.message;
+
+/**
+ * A compiled plan to copy fields from the rows of one group to the rows of another, e.g. 
+ * from a decoded order to an execution report. The two groups can be defined in different 
+ * schemas. A mapping is compiled once, e.g. by {@link com.github.bwsoft.iris.message.sbe.SBEFieldMappingBuilder}, 
+ * and applied to any number of messages.
+ * 
+ * Fields that are of the same type and at adjacent positions in both groups are copied 
+ * together as one block of bytes. Other fields are converted one by one. A mapped group 
+ * of the target is resized to the number of rows in the source before its rows are mapped. 
+ * 
+ * A mapping is immutable and can be shared by threads. 
+ * 
+ * @author yzhou
+ *
+ */
+public interface FieldMapping {
+	/**
+	 * @return the group the fields are copied from
+	 */
+	public Group getSource();
+	
+	/**
+	 * @return the group the fields are copied to
+	 */
+	public Group getTarget();
+	
+	/**
+	 * Copy the mapped fields from a row of the source group to a row of the target group.
+	 * 
+	 * @param source a row of the source group, e.g. a wrapped message
+	 * @param target a row of the target group
+	 * @throws IllegalArgumentException if a row is not of the group of the mapping
+	 * @throws ArithmeticException if a value cannot be converted to the type of its target field. 
+	 * The fields mapped before it have been copied. 
+	 */
+	public void apply(GroupObject source, GroupObject target);
+}
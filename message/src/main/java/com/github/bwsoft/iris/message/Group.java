@@ -88,6 +88,33 @@ public interface Group extends Field {
 		throw new UnsupportedOperationException();
 	}
 
+	/**
+	 * Resolve a handle to get or set a number field without a field lookup.
+	 * 
+	 * The field is identified by a path of names separated by a dot. The path can go
+	 * through composite fields and groups, e.g. engine.capacity or fuelFigures.speed. An array
+	 * element is identified by its index, e.g. someNumbers[2]. A handle through a group 
+	 * applies to the GroupObjects of that group.
+	 * 
+	 * @param path the name path of the field
+	 * @return the resolved handle
+	 * @throws IllegalArgumentException if the path cannot be resolved to a number field
+	 */
+	public default FieldAccessor getFieldAccessor(String path) {
+		throw new UnsupportedOperationException();
+	}
+	
+	/**
+	 * Resolve a handle to get or set a number field of this group.
+	 * 
+	 * @param id the id of the field
+	 * @return the resolved handle
+	 * @throws IllegalArgumentException if the id is not a number field of this group
+	 */
+	public default FieldAccessor getFieldAccessor(short id) {
+		throw new UnsupportedOperationException();
+	}
+
 	/* (non-Javadoc)
 	 * @see com.github.bwsoft.iris.message.Field#length()
 	 */
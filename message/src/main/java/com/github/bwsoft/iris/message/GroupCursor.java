@@ -0,0 +1,173 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.message;
+
+/**
+ * A GroupCursor is a flyweight view of the rows of a group. Unlike a {@link GroupObjectArray},
+ * which holds one {@link GroupObject} per row, there is only one cursor for each group definition.
+ * The cursor is re-pointed to the next row by {@link #next()}. Iterating a group, no matter
+ * how many rows it has, does not create any object.
+ *
+ * A cursor is read only. It is positioned before the first row after being obtained from
+ * its parent. A nested group is accessed through {@link #getGroupCursor(Field)} of the
+ * current row. The returned cursor is the same instance for the same group field and
+ * is re-pointed upon each call.
+ *
+ * <pre>
+ * {@code
+ *     MessageCursor car = schema.createCursor(templateId);
+ *     Field fuelFigures = car.getDefinition().getField("fuelFigures");
+ *     Field speed = ((Group) fuelFigures).getField("speed");
+ *
+ *     car.wrap(buffer, offset);
+ *     GroupCursor rows = car.getGroupCursor(fuelFigures);
+ *     while( rows.next() ) {
+ *         int value = rows.getU16(speed);
+ *         ...
+ *     }
+ * }
+ * </pre>
+ *
+ * The cursor is only valid until its parent cursor moves to another row.
+ *
+ * @author yzhou
+ *
+ */
+public interface GroupCursor {
+	/**
+	 * Obtain the definition of the group.
+	 *
+	 * @return the group definition
+	 */
+	public Group getDefinition();
+
+	/**
+	 * @return the total number of rows of the group
+	 */
+	public int getNumOfRows();
+
+	/**
+	 * @return the index of the current row or -1 if the cursor is positioned before the first row.
+	 */
+	public int getRowIndex();
+
+	/**
+	 * @return true if there is a row after the current row
+	 */
+	public boolean hasNext();
+
+	/**
+	 * Move the cursor to the next row.
+	 *
+	 * @return true if the cursor is moved or false if there is no more rows.
+	 */
+	public boolean next();
+
+	/**
+	 * Obtain the cursor of a nested group in the current row. The cursor is positioned before
+	 * the first row of the nested group.
+	 *
+	 * @param field a group field of this group
+	 * @return the cursor of the nested group
+	 */
+	public GroupCursor getGroupCursor(Field field);
+
+	/**
+	 * The storage size of a field in the current row. For a variable length field, it is
+	 * the length of the data excluding its header. For a fixed size field, it is the size
+	 * of the field type multiplied by its dimension.
+	 *
+	 * @param field a field of this group
+	 * @return the storage size of the field
+	 */
+	public int getSize(Field field);
+
+	/**
+	 * Copy the bytes of a fixed size field or a variable length field in the current row.
+	 *
+	 * @param field a field of this group
+	 * @param dest the destination buffer
+	 * @param destOffset the starting position in the destination buffer
+	 * @param length the maximum bytes to be copied
+	 * @return the number of bytes copied
+	 */
+	public int getBytes(Field field, byte[] dest, int destOffset, int length);
+
+	/**
+	 * This is an unprotected method to return a byte value of a field in the current row.
+	 * It can be used for fields of type CHAR, BYTE, U8 or I8.
+	 *
+	 * @param field a field of this group
+	 * @return the byte value
+	 */
+	public byte getByte(Field field);
+
+	/**
+	 * This is an unprotected method to return the value of a U16 field in the current row.
+	 *
+	 * @param field a field of this group
+	 * @return the value
+	 */
+	public int getU16(Field field);
+
+	/**
+	 * This is an unprotected method to return the value of an I16 field in the current row.
+	 *
+	 * @param field a field of this group
+	 * @return the value
+	 */
+	public short getI16(Field field);
+
+	/**
+	 * This is an unprotected method to return the value of an I32 field in the current row.
+	 *
+	 * @param field a field of this group
+	 * @return the value
+	 */
+	public int getInt(Field field);
+
+	/**
+	 * This is an unprotected method to return the value of a U32 field in the current row.
+	 *
+	 * @param field a field of this group
+	 * @return the value
+	 */
+	public long getU32(Field field);
+
+	/**
+	 * This is an unprotected method to return the value of an I64 or U64 field in the current row.
+	 *
+	 * @param field a field of this group
+	 * @return the value
+	 */
+	public long getLong(Field field);
+
+	/**
+	 * This is an unprotected method to return the value of a FLOAT field in the current row.
+	 *
+	 * @param field a field of this group
+	 * @return the value
+	 */
+	public float getFloat(Field field);
+
+	/**
+	 * This is an unprotected method to return the value of a DOUBLE field in the current row.
+	 *
+	 * @param field a field of this group
+	 * @return the value
+	 */
+	public double getDouble(Field field);
+}
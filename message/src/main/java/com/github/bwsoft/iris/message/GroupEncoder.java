@@ -0,0 +1,172 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.message;
+
+/**
+ * A GroupEncoder is the write counterpart of a {@link GroupCursor}. It appends the rows of a
+ * group to the end of a message being encoded. Nothing in the buffer is ever moved. Each row 
+ * is appended by {@link #next()} and becomes the current row. Its fixed size fields are 
+ * written at any time until the next row is appended. Its groups and variable length fields
+ * are appended in the order of their appearance in the schema.
+ * 
+ * A group or a variable length field that is skipped is encoded as empty. A group or a variable 
+ * length field that precedes one already appended can no longer be written.
+ *
+ * <pre>
+ * {@code
+ *     MessageEncoder car = schema.createEncoder(templateId);
+ *     Field fuelFigures = car.getDefinition().getField("fuelFigures");
+ *     Field speed = ((Group) fuelFigures).getField("speed");
+ *
+ *     car.wrap(buffer, offset);
+ *     car.setLong(serialNumber, 1234);
+ *     GroupEncoder rows = car.getGroupEncoder(fuelFigures);
+ *     for( ... ) {
+ *         rows.next().setU16(speed, value);
+ *     }
+ *     car.setBytes(make, value, 0, value.length);
+ *     int length = car.finish();
+ * }
+ * </pre>
+ *
+ * The encoder of a nested group is only valid until its parent encoder moves to another 
+ * row or appends a field after the group. Appending beyond the capacity of the buffer throws 
+ * a BufferOverflowException.
+ *
+ * @author yzhou
+ *
+ */
+public interface GroupEncoder {
+	/**
+	 * Obtain the definition of the group.
+	 *
+	 * @return the group definition
+	 */
+	public Group getDefinition();
+
+	/**
+	 * @return the number of rows appended to the group
+	 */
+	public int getNumOfRows();
+
+	/**
+	 * Append a row to the group. The fixed size fields of the row are initialized to 
+	 * zero or the null value of an optional field. 
+	 *
+	 * @return this encoder positioned at the new row
+	 */
+	public GroupEncoder next();
+
+	/**
+	 * Start a nested group in the current row. The group is empty until a row is appended 
+	 * through the returned encoder. The returned encoder is the same instance for the 
+	 * same group field.
+	 * 
+	 * An IllegalStateException will be thrown if a group or a variable length field after 
+	 * this group has been appended to the current row.
+	 *
+	 * @param field a group field of this group
+	 * @return the encoder of the nested group
+	 */
+	public GroupEncoder getGroupEncoder(Field field);
+
+	/**
+	 * Write the bytes of a fixed size field or append a variable length field in the current row. 
+	 * 
+	 * An IllegalStateException will be thrown if the field is a variable length field and a group 
+	 * or a variable length field after it has been appended to the current row.
+	 *
+	 * @param field a field of this group
+	 * @param src the source array
+	 * @param srcOffset the starting position in the source array
+	 * @param length the number of bytes. It is limited to the size of a fixed size field.
+	 * @return this encoder
+	 */
+	public GroupEncoder setBytes(Field field, byte[] src, int srcOffset, int length);
+
+	/**
+	 * This is an unprotected method to write a byte value of a field in the current row.
+	 * It can be used for fields of type CHAR, BYTE, U8 or I8.
+	 *
+	 * @param field a field of this group
+	 * @param value the value
+	 * @return this encoder
+	 */
+	public GroupEncoder setByte(Field field, byte value);
+
+	/**
+	 * This is an unprotected method to write the value of a U16 field in the current row.
+	 *
+	 * @param field a field of this group
+	 * @param value the value
+	 * @return this encoder
+	 */
+	public GroupEncoder setU16(Field field, int value);
+
+	/**
+	 * This is an unprotected method to write the value of an I16 field in the current row.
+	 *
+	 * @param field a field of this group
+	 * @param value the value
+	 * @return this encoder
+	 */
+	public GroupEncoder setI16(Field field, short value);
+
+	/**
+	 * This is an unprotected method to write the value of an I32 field in the current row.
+	 *
+	 * @param field a field of this group
+	 * @param value the value
+	 * @return this encoder
+	 */
+	public GroupEncoder setInt(Field field, int value);
+
+	/**
+	 * This is an unprotected method to write the value of a U32 field in the current row.
+	 *
+	 * @param field a field of this group
+	 * @param value the value
+	 * @return this encoder
+	 */
+	public GroupEncoder setU32(Field field, long value);
+
+	/**
+	 * This is an unprotected method to write the value of an I64 or U64 field in the current row.
+	 *
+	 * @param field a field of this group
+	 * @param value the value
+	 * @return this encoder
+	 */
+	public GroupEncoder setLong(Field field, long value);
+
+	/**
+	 * This is an unprotected method to write the value of a FLOAT field in the current row.
+	 *
+	 * @param field a field of this group
+	 * @param value the value
+	 * @return this encoder
+	 */
+	public GroupEncoder setFloat(Field field, float value);
+
+	/**
+	 * This is an unprotected method to write the value of a DOUBLE field in the current row.
+	 *
+	 * @param field a field of this group
+	 * @param value the value
+	 * @return this encoder
+	 */
+	public GroupEncoder setDouble(Field field, double value);
+}
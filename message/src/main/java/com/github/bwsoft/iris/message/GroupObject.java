@@ -78,6 +78,23 @@ public interface GroupObject {
 	 */
 	public Field getField(String name);
 	
+	/**
+	 * Check if a field is present in the message. A field added in a later version of the schema, 
+	 * see {@link Field#getSinceVersion()}, is absent in a message encoded in an earlier version. 
+	 * An absent group is returned as null by {@link #getGroupArray(Field)} and an absent number 
+	 * is returned as null by {@link #getNumber(Field)}. Other getters of an absent field return the null 
+	 * value of the field or retrieve no elements of an array. A setter of an absent field throws an 
+	 * IllegalStateException since the field is not in the block of the message. 
+	 * 
+	 * The default implementation treats all fields as present. 
+	 * 
+	 * @param field the field in this group
+	 * @return true if the field is present in the message
+	 */
+	public default boolean isPresent(Field field) {
+		return true;
+	}
+	
 	/**
 	 * The storage size of the current GroupObject. It does not include the size of 
 	 * header if there is.
@@ -163,6 +180,98 @@ public interface GroupObject {
 	 */
 	public void setByte(Field field, byte value);
 
+	/**
+	 * Check if a field holds its null value. The null value is the one defined in the schema 
+	 * or else the null value of the field type defined by SBE, e.g. NaN for a floating point number, 
+	 * the minimum value for a signed integer, the maximum value for an unsigned integer and 0 for a char. 
+	 * An array field is null if all its elements are null. An absent field, see {@link #isPresent(Field)}, 
+	 * is null as well. 
+	 * 
+	 * Apply this method to a constant, composite, group or variable length field results in an 
+	 * IllegalArgumentException.
+	 * 
+	 * @param field the field in this group
+	 * @return true if the field holds its null value
+	 */
+	public boolean isNull(Field field);
+	
+	/**
+	 * Set a field to its null value, see {@link #isNull(Field)}. All elements of an array field 
+	 * are set.
+	 * 
+	 * @param field the field in this group
+	 */
+	public void setNull(Field field);
+
+	/**
+	 * Read a decimal field, see {@link Field#isDecimal()}, as a mantissa of a target exponent 
+	 * without creating a BigDecimal, e.g. 12.345 is read as 1234 of the exponent -2. Digits beyond 
+	 * the target exponent are truncated toward zero. 
+	 * 
+	 * An IllegalArgumentException will be thrown if field does not belong to this group or 
+	 * if the field is not a decimal field.
+	 * 
+	 * A null decimal, whose optional mantissa holds its null value, and an absent decimal are 
+	 * returned as Long.MIN_VALUE regardless of the target exponent. 
+	 * 
+	 * @param field the decimal field in this group
+	 * @param exponent the target exponent
+	 * @return the mantissa of the target exponent or Long.MIN_VALUE if the decimal is null
+	 * @throws ArithmeticException if the result overflows a long
+	 */
+	public long getDecimal(Field field, int exponent);
+	
+	/**
+	 * Read a decimal field as a double, see {@link #getDecimal(Field, int)}. 
+	 * 
+	 * @param field the decimal field in this group
+	 * @return the value of the decimal field or NaN if the mantissa holds its null value
+	 */
+	public double getDecimalAsDouble(Field field);
+	
+	/**
+	 * Write a decimal field, see {@link Field#isDecimal()}, as a mantissa of an exponent. The 
+	 * exponent is written to the field if it is not a constant. Otherwise, the mantissa is converted 
+	 * to the constant exponent.  
+	 * 
+	 * An IllegalArgumentException will be thrown if field does not belong to this group or 
+	 * if the field is not a decimal field.
+	 * 
+	 * @param field the decimal field in this group
+	 * @param mantissa the mantissa
+	 * @param exponent the exponent of the mantissa
+	 * @throws ArithmeticException if the conversion to the constant exponent overflows or truncates digits, 
+	 * or if the mantissa or the exponent does not fit the type of its field
+	 */
+	public void setDecimal(Field field, long mantissa, int exponent);
+	
+	/**
+	 * Read a timestamp field, see {@link Field#isTimestamp()}, as nanoseconds since the unix epoch. 
+	 * An optional time that holds its null value and an absent field are returned as Long.MIN_VALUE.
+	 * 
+	 * An IllegalArgumentException will be thrown if field does not belong to this group or 
+	 * if the field is not a timestamp field.
+	 * 
+	 * @param field the timestamp field in this group
+	 * @return the nanoseconds since the unix epoch or Long.MIN_VALUE if the timestamp is null
+	 * @throws ArithmeticException if the nanoseconds overflow a long
+	 */
+	public long getEpochNanos(Field field);
+	
+	/**
+	 * Write a timestamp field, see {@link Field#isTimestamp()}, from nanoseconds since the unix epoch. 
+	 * The value is truncated to the time unit of the field. A time unit that is not a constant is 
+	 * written as nanosecond. Long.MIN_VALUE sets an optional time to its null value.
+	 * 
+	 * An IllegalArgumentException will be thrown if field does not belong to this group or 
+	 * if the field is not a timestamp field.
+	 * 
+	 * @param field the timestamp field in this group
+	 * @param epochNanos the nanoseconds since the unix epoch
+	 * @throws ArithmeticException if the time does not fit the type of the field
+	 */
+	public void setEpochNanos(Field field, long epochNanos);
+	
 	/**
 	 * Return a number of this field. 
 	 * 
@@ -172,7 +281,7 @@ public interface GroupObject {
 	 * Apply this method to other type of fields including constant field result in an IllegalArgumentException.
 	 * 
 	 * @param field the field in this group
-	 * @return the value of this field
+	 * @return the value of this field or null if the field is absent, see {@link #isPresent(Field)}
 	 */
 	public Number getNumber(Field field);
 	
@@ -563,17 +672,41 @@ public interface GroupObject {
 	 * a char. The method returns the corresponding enum name based upon the value contained in the 
 	 * SBE message.
 	 * 
-	 * This is a convenient method. For better performance, use a get method to obtain the 
-	 * value of the enum directly.
+	 * The name is looked up by the primitive value without creating a String. 
 	 *  
 	 * An IllegalArgumentException will be thrown if field does not belong to this group or
 	 * if the field is not an enum type.
 	 * 
 	 * @param field the field in this group
-	 * @return the enum name based upon the value in the sbe message.
+	 * @return the enum name based upon the value in the sbe message or null if an optional 
+	 * enum holds its null value or the field is absent.
 	 */
 	public String getEnumName(Field field);
 	
+	/**
+	 * Return the ordinal of the value of an enum field. The ordinals number the valid values 
+	 * of the enum in the order of their appearance in the schema. A java enum declared in the 
+	 * same order can be obtained by its values()[ordinal] without creating a String.
+	 * 
+	 * An IllegalArgumentException will be thrown if field does not belong to this group or
+	 * if the field is not an enum type.
+	 * 
+	 * @param field the field in this group
+	 * @return the ordinal of the value or -1 if the value is not a valid value of the enum
+	 */
+	public int getEnumOrdinal(Field field);
+	
+	/**
+	 * Set an enum field to the valid value of an ordinal, see {@link #getEnumOrdinal(Field)}.
+	 * 
+	 * An IllegalArgumentException will be thrown if field does not belong to this group or
+	 * if the field is not an enum type.
+	 * 
+	 * @param field the field in this group
+	 * @param ordinal the ordinal of a valid value of the enum
+	 */
+	public void setEnumOrdinal(Field field, int ordinal);
+	
 	/**
 	 * Test if a bitName is set. Bit name of a choice is defined in the SBE XML.
 	 *  
@@ -589,14 +722,62 @@ public interface GroupObject {
 	 */
 	public boolean isSet(Field field, String bitName);	
 	
+	/**
+	 * Read all bits of a choice field. Bit masks of the choices are resolved once by 
+	 * {@link Field#getChoiceMask(String...)}. 
+	 *  
+	 * An IllegalArgumentException will be thrown if field does not belong to this group or
+	 * if the field is not a choice type.
+	 * 
+	 * @param field the choice field
+	 * @return the bits of the choice field as an unsigned value
+	 */
+	public long getChoices(Field field);
+	
+	/**
+	 * Write all bits of a choice field, see {@link #getChoices(Field)}.
+	 * 
+	 * @param field the choice field
+	 * @param choices the bits of the choice field
+	 */
+	public void setChoices(Field field, long choices);
+	
+	/**
+	 * Test if all bits of a mask are set in a choice field, see {@link #getChoices(Field)}.
+	 * 
+	 * @param field the choice field
+	 * @param mask the bits to test
+	 * @return true if all bits of the mask are set
+	 */
+	public boolean isSet(Field field, long mask);
+	
+	/**
+	 * Test if any bit of a mask is set in a choice field, see {@link #getChoices(Field)}.
+	 * 
+	 * @param field the choice field
+	 * @param mask the bits to test
+	 * @return true if any bit of the mask is set
+	 */
+	public boolean isAnySet(Field field, long mask);
+	
+	/**
+	 * Set or clear the bits of a mask in a choice field, see {@link #getChoices(Field)}.
+	 * 
+	 * @param field the choice field
+	 * @param mask the bits to set or clear
+	 * @param value true to set the bits and false to clear them
+	 */
+	public void setChoice(Field field, long mask, boolean value);
+	
 	/**
 	 * This is applicable to all type of fields. If the field is a number/raw, it returns its 
-	 * string representation. 
+	 * string representation. The encoding type overrides the character encoding of the field 
+	 * defined in the schema, see {@link Field#getCharacterEncoding()}.
 	 * 
 	 * It is not designed for high performance usage. Use getBytes instead.
 	 * 
 	 * @param field the field in this group
-	 * @param encodingType the encoding type to convert byte array
+	 * @param encodingType the encoding type to convert byte array, which overrides the encoding in the schema
 	 * @return the string representation of this field
 	 * @throws UnsupportedEncodingException if the encoding type is not recognized or supported
 	 */
@@ -604,15 +785,41 @@ public interface GroupObject {
 	
 	/**
 	 * This is applicable to all type of fields. If the field is a number/raw, it returns its 
-	 * string representation. It uses the platform default charset encoding type.
+	 * string representation. It uses the character encoding of the field defined in the schema, 
+	 * see {@link Field#getCharacterEncoding()}, or the platform default charset if not defined.
 	 * 
-	 * It is not designed for high performance usage. Use getBytes instead.
+	 * It is not designed for high performance usage. Use getCharSequence or getBytes instead.
 	 * 
 	 * @param field the field in this group
 	 * @return the string representation of this field
 	 */
 	public String getString(Field field);
 	
+	/**
+	 * Point a reusable view to the characters of a char array or a variable length field without 
+	 * copying them. The characters are decoded by the character encoding of the field defined in the 
+	 * schema or the platform default charset if not defined. A char array ends at its first null 
+	 * character. 
+	 * 
+	 * An IllegalArgumentException will be thrown if field does not belong to this group or 
+	 * if the field is not a char array or a variable length field. 
+	 * 
+	 * @param field the field in this group
+	 * @param view the view to point to the field
+	 * @return the view, which is empty if the field is absent
+	 */
+	public CharSequenceView getCharSequence(Field field, CharSequenceView view);
+	
+	/**
+	 * Decode the characters of a char array or a variable length field and append them to a 
+	 * StringBuilder in the same way as {@link #getCharSequence(Field, CharSequenceView)}. 
+	 * 
+	 * @param field the field in this group
+	 * @param dest the StringBuilder to append to
+	 * @return the number of characters appended
+	 */
+	public int getChars(Field field, StringBuilder dest);
+	
 	/**
 	 * Obtain a GroupObjectArray. The field has to be a type of GROUP or an IllegalArgumentException
 	 * will be thrown.
@@ -15,6 +15,8 @@
  *******************************************************************************/
 package com.github.bwsoft.iris.message;
 
+import java.util.function.Predicate;
+
 /**
  * A GroupObjectArray is a section in a message that contains several repeated identical structures.
  * Use {@link #getDefinition()} to obtain the definition of each identical structure.
@@ -67,4 +69,159 @@ public interface GroupObjectArray {
 	 * @param n the row to be deleted
 	 */
 	public void deleteGroupObject(int n);
+
+	/**
+	 * Add a number of rows to the end of the existing group list. It is equivalent to but a lot
+	 * cheaper than calling {@link #addGroupObject()} repeatedly since the rest of the message 
+	 * is moved only once. 
+	 * 
+	 * @param count the number of rows to be added
+	 */
+	public void addGroupObjects(int count);
+
+	/**
+	 * Insert a number of rows at the specific position of the existing group list. The rest of
+	 * the message is moved only once. 
+	 * 
+	 * @param n the position of the first new row. It starts with zero and cannot be greater than the number of rows.
+	 * @param count the number of rows to be inserted
+	 */
+	public void insertGroupObjects(int n, int count);
+
+	/**
+	 * Delete the rows from a position, inclusive, to another position, exclusive. The rest of 
+	 * the message is moved only once.
+	 * 
+	 * @param from the first row to be deleted
+	 * @param to the row after the last row to be deleted. It cannot be greater than the number of rows.
+	 */
+	public void deleteGroupObjects(int from, int to);
+
+	/**
+	 * Delete all rows that satisfy a predicate. The predicate is evaluated once for each 
+	 * row in order and must not modify the message. The remaining rows are compacted in one 
+	 * pass after all rows are evaluated and the rest of the message is moved only once. If 
+	 * the predicate throws an exception, no row is deleted.
+	 * 
+	 * @param filter the predicate that returns true for a row to be deleted
+	 * @return the number of rows deleted
+	 */
+	public int deleteGroupObjectsIf(Predicate<? super GroupObject> filter);
+
+	/**
+	 * Copy the value of a number field of all rows, starting from the first row, into an array. 
+	 * The field has to be a field of the group or a field of a composite field of the group. 
+	 * It is equivalent to but a lot cheaper than calling {@link GroupObject#getNumber(Field)} 
+	 * row by row since there is neither a lookup nor a boxed value per row. 
+	 * 
+	 * An IllegalArgumentException will be thrown if field is not a number field. An IllegalStateException 
+	 * will be thrown if the field is absent in the message, see {@link GroupObject#isPresent(Field)}.
+	 * 
+	 * @param field the field in the rows of this group
+	 * @param dest the destination array to hold values
+	 * @param destOffset the destination array starting offset
+	 * @param length max attempted number of rows to be retrieved
+	 * @return the number of values retrieved. It is the minimal between the length and 
+	 * the number of rows.
+	 */
+	public int getLongs(Field field, long[] dest, int destOffset, int length);
+
+	/**
+	 * Copy the value of a number field of all rows into an array in the same way as 
+	 * {@link #getLongs(Field, long[], int, int)}. The value is truncated if it does not fit an int. 
+	 * 
+	 * @param field the field in the rows of this group
+	 * @param dest the destination array to hold values
+	 * @param destOffset the destination array starting offset
+	 * @param length max attempted number of rows to be retrieved
+	 * @return the number of values retrieved. It is the minimal between the length and 
+	 * the number of rows.
+	 */
+	public int getInts(Field field, int[] dest, int destOffset, int length);
+
+	/**
+	 * Copy the value of a number field of all rows into an array in the same way as 
+	 * {@link #getLongs(Field, long[], int, int)}.
+	 * 
+	 * @param field the field in the rows of this group
+	 * @param dest the destination array to hold values
+	 * @param destOffset the destination array starting offset
+	 * @param length max attempted number of rows to be retrieved
+	 * @return the number of values retrieved. It is the minimal between the length and 
+	 * the number of rows.
+	 */
+	public int getDoubles(Field field, double[] dest, int destOffset, int length);
+
+	/**
+	 * Set the value of a number field of all rows, starting from the first row, from an array. 
+	 * Rows are not added. Use {@link #addGroupObject()} to create the rows first.
+	 * 
+	 * An IllegalArgumentException will be thrown if field is not a number field. An IllegalStateException 
+	 * will be thrown if the field is absent in the message, see {@link GroupObject#isPresent(Field)}.
+	 * 
+	 * @param field the field in the rows of this group
+	 * @param src the source array of values
+	 * @param srcOffset the source array starting offset
+	 * @param length max attempted number of rows to be set
+	 * @return the number of values set. It is the minimal between the length and 
+	 * the number of rows.
+	 */
+	public int setLongs(Field field, long[] src, int srcOffset, int length);
+
+	/**
+	 * Set the value of a number field of all rows from an array in the same way as
+	 * {@link #setLongs(Field, long[], int, int)}.
+	 * 
+	 * @param field the field in the rows of this group
+	 * @param src the source array of values
+	 * @param srcOffset the source array starting offset
+	 * @param length max attempted number of rows to be set
+	 * @return the number of values set. It is the minimal between the length and 
+	 * the number of rows.
+	 */
+	public int setInts(Field field, int[] src, int srcOffset, int length);
+
+	/**
+	 * Set the value of a number field of all rows from an array in the same way as
+	 * {@link #setLongs(Field, long[], int, int)}.
+	 * 
+	 * @param field the field in the rows of this group
+	 * @param src the source array of values
+	 * @param srcOffset the source array starting offset
+	 * @param length max attempted number of rows to be set
+	 * @return the number of values set. It is the minimal between the length and 
+	 * the number of rows.
+	 */
+	public int setDoubles(Field field, double[] src, int srcOffset, int length);
+
+	/**
+	 * Copy the value of a timestamp field, see {@link Field#isTimestamp()}, of all rows, starting 
+	 * from the first row, into an array of nanoseconds since the unix epoch. A null timestamp is 
+	 * copied as Long.MIN_VALUE, see {@link GroupObject#getEpochNanos(Field)}. 
+	 * 
+	 * An IllegalArgumentException will be thrown if field is not a timestamp field. An ArithmeticException 
+	 * will be thrown if the nanoseconds of a row overflow a long.
+	 * 
+	 * @param field the timestamp field in the rows of this group
+	 * @param dest the destination array to hold values
+	 * @param destOffset the destination array starting offset
+	 * @param length max attempted number of rows to be retrieved
+	 * @return the number of values retrieved. It is the minimal between the length and 
+	 * the number of rows.
+	 */
+	public int getEpochNanos(Field field, long[] dest, int destOffset, int length);
+
+	/**
+	 * Set the value of a timestamp field of all rows, starting from the first row, from an 
+	 * array of nanoseconds since the unix epoch, see {@link GroupObject#setEpochNanos(Field, long)}. 
+	 * Rows are not added. 
+	 * 
+	 * @param field the timestamp field in the rows of this group
+	 * @param src the source array of values
+	 * @param srcOffset the source array starting offset
+	 * @param length max attempted number of rows to be set
+	 * @return the number of values set. It is the minimal between the length and 
+	 * the number of rows.
+	 */
+	public int setEpochNanos(Field field, long[] src, int srcOffset, int length);
 }
@@ -17,6 +17,9 @@ package com.github.bwsoft.iris.message;
 
 import java.nio.ByteBuffer;
 
+import com.github.bwsoft.iris.buffer.IrisBuffer;
+import com.github.bwsoft.iris.buffer.NioBuffer;
+
 /**
  * A message is a special Group without a parent.  It contains additional methods to wrap/create a messaqe buffer 
  * to return a GroupObject. The returned GroupObject can be used to get/set values of 
@@ -47,6 +50,25 @@ public interface Message extends Group {
 	 * @return a GroupObject or null if this buffer does not contain the current SBEMessage
 	 */
 	public GroupObject wrapSbeBuffer(ByteBuffer buffer, int offset);
+	/**
+	 * Wrap a buffer with SBE message the same way as {@link #wrapSbeBuffer(ByteBuffer, int)} except 
+	 * that the groups and variable length fields can be left unparsed until they are 
+	 * accessed. A lazy wrap only reads the message header. The root block is available 
+	 * immediately and a group or a variable length field is parsed upon its first access 
+	 * by calls such as {@link GroupObject#getGroupArray(Field)}, {@link GroupObject#getBytes(Field, byte[], int, int)}
+	 * or {@link GroupObject#getSize()}. 
+	 * 
+	 * It suits a consumer that reads a few fields of the root block and discards the rest of
+	 * the message. The default implementation ignores the lazy option and parses the whole message. 
+	 * 
+	 * @param buffer a buffer containing the SBE message
+	 * @param offset the starting position of the SBE message in the buffer
+	 * @param lazy true to defer the parsing of groups and variable length fields until they are accessed
+	 * @return a GroupObject or null if this buffer does not contain the current SBEMessage
+	 */
+	public default GroupObject wrapSbeBuffer(ByteBuffer buffer, int offset, boolean lazy) {
+		return wrapSbeBuffer(buffer, offset);
+	}
 	/**
 	 * Create a SBE buffer using the provided buffer. It returns a GroupObject for setting the 
 	 * field values. Typically this is not directly called. Instead 
@@ -66,4 +88,114 @@ public interface Message extends Group {
 	 * @return a GroupObject to set fields in the message
 	 */
 	public GroupObject createSbeBuffer(ByteBuffer buffer, int offset);
+	
+	/**
+	 * Wrap an IrisBuffer with SBE message the same way as {@link #wrapSbeBuffer(ByteBuffer, int)}. 
+	 * 
+	 * @param buffer a buffer containing the SBE message
+	 * @param offset the starting position of the SBE message in the buffer
+	 * @return a GroupObject or null if this buffer does not contain the current SBEMessage
+	 */
+	public default GroupObject wrapSbeBuffer(IrisBuffer buffer, int offset) {
+		return wrapSbeBuffer(buffer, offset, false);
+	}
+	
+	/**
+	 * Wrap an IrisBuffer with SBE message the same way as {@link #wrapSbeBuffer(ByteBuffer, int, boolean)}. 
+	 * The default implementation only supports a {@link NioBuffer}.
+	 * 
+	 * @param buffer a buffer containing the SBE message
+	 * @param offset the starting position of the SBE message in the buffer
+	 * @param lazy true to defer the parsing of groups and variable length fields until they are accessed
+	 * @return a GroupObject or null if this buffer does not contain the current SBEMessage
+	 */
+	public default GroupObject wrapSbeBuffer(IrisBuffer buffer, int offset, boolean lazy) {
+		if( buffer instanceof NioBuffer ) {
+			return wrapSbeBuffer(((NioBuffer) buffer).byteBuffer(), offset, lazy);
+		}
+		throw new UnsupportedOperationException("unsupported buffer type: "+buffer.getClass().getName());
+	}
+	
+	/**
+	 * Create a SBE message in an IrisBuffer the same way as {@link #createSbeBuffer(ByteBuffer, int)}.
+	 * The default implementation only supports a {@link NioBuffer}.
+	 * 
+	 * @param buffer a buffer to hold the SBE message
+	 * @param offset the starting position to create the SBE message in the buffer
+	 * @return a GroupObject to set fields in the message
+	 */
+	public default GroupObject createSbeBuffer(IrisBuffer buffer, int offset) {
+		if( buffer instanceof NioBuffer ) {
+			return createSbeBuffer(((NioBuffer) buffer).byteBuffer(), offset);
+		}
+		throw new UnsupportedOperationException("unsupported buffer type: "+buffer.getClass().getName());
+	}
+
+	/**
+	 * Compile a projection of the groups and variable length fields to be parsed by 
+	 * {@link #wrapSbeBuffer(ByteBuffer, int, Projection)}. A path is the dotted names 
+	 * of a group or a variable length field, e.g. "performanceFigures.acceleration". A group 
+	 * brings in all of its nested groups and variable length fields. 
+	 * 
+	 * An IllegalArgumentException will be thrown if a path does not point to a group or a 
+	 * variable length field. 
+	 * 
+	 * @param paths the groups and variable length fields to be parsed
+	 * @return the projection
+	 */
+	public default Projection createProjection(String... paths) {
+		throw new UnsupportedOperationException("projection is not supported by "+getClass().getName());
+	}
+	
+	/**
+	 * Wrap a buffer with SBE message the same way as {@link #wrapSbeBuffer(ByteBuffer, int)} except 
+	 * that the groups and variable length fields outside of the projection are skipped. The default 
+	 * implementation ignores the projection and parses the whole message. 
+	 * 
+	 * @param buffer a buffer containing the SBE message
+	 * @param offset the starting position of the SBE message in the buffer
+	 * @param projection the projection created by this message
+	 * @return a GroupObject or null if this buffer does not contain the current SBEMessage
+	 */
+	public default GroupObject wrapSbeBuffer(ByteBuffer buffer, int offset, Projection projection) {
+		return wrapSbeBuffer(buffer, offset);
+	}
+	
+	/**
+	 * Wrap an IrisBuffer with SBE message the same way as {@link #wrapSbeBuffer(ByteBuffer, int, Projection)}.
+	 * 
+	 * @param buffer a buffer containing the SBE message
+	 * @param offset the starting position of the SBE message in the buffer
+	 * @param projection the projection created by this message
+	 * @return a GroupObject or null if this buffer does not contain the current SBEMessage
+	 */
+	public default GroupObject wrapSbeBuffer(IrisBuffer buffer, int offset, Projection projection) {
+		return wrapSbeBuffer(buffer, offset);
+	}
+	
+	/**
+	 * Obtain the encoded length of the SBE message in a buffer, including the message header. 
+	 * It is the same as the size of the GroupObject returned by a wrap call plus the size 
+	 * of the message header. An implementation may obtain the length by walking the headers of 
+	 * the groups and the variable length fields without building a GroupObject. The default 
+	 * implementation wraps the message lazily. 
+	 * 
+	 * @param buffer a buffer containing the SBE message
+	 * @param offset the starting position of the SBE message in the buffer
+	 * @return the number of bytes of the message
+	 */
+	public default int measure(ByteBuffer buffer, int offset) {
+		return wrapSbeBuffer(buffer, offset, true).getSize() + getHeader().getSize();
+	}
+	
+	/**
+	 * Obtain the encoded length of the SBE message in an IrisBuffer the same way as {@link #measure(ByteBuffer, int)}.
+	 * 
+	 * @param buffer a buffer containing the SBE message
+	 * @param offset the starting position of the SBE message in the buffer
+	 * @return the number of bytes of the message
+	 */
+	public default int measure(IrisBuffer buffer, int offset) {
+		return wrapSbeBuffer(buffer, offset, true).getSize() + getHeader().getSize();
+	}
 }
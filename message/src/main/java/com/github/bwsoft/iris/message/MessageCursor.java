@@ -0,0 +1,58 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.message;
+
+import java.nio.ByteBuffer;
+
+import com.github.bwsoft.iris.buffer.IrisBuffer;
+
+/**
+ * A MessageCursor is a GroupCursor of a message. It has only one row. It is created once
+ * for a message definition, e.g. by {@link SBEMessageSchema#createCursor(int)}, and is
+ * re-pointed to a message in a buffer by {@link #wrap(ByteBuffer, int)}. The cursor and
+ * all its nested cursors are reused between wraps.
+ *
+ * A MessageCursor is not thread safe. Create one cursor for each thread.
+ *
+ * @see GroupCursor
+ *
+ * @author yzhou
+ *
+ */
+public interface MessageCursor extends GroupCursor {
+	/**
+	 * Point the cursor to a message in the buffer. The cursor is positioned at the only
+	 * row of the message after the call. The cursor does not measure the message upon the 
+	 * wrap. The ByteBuffer is read with bound checks so that a corrupt number of rows or length 
+	 * results in an IndexOutOfBoundsException instead of reading beyond the buffer. 
+	 *
+	 * @param buffer the buffer containing a SBE message
+	 * @param offset the starting position of the message
+	 * @return this cursor
+	 */
+	public MessageCursor wrap(ByteBuffer buffer, int offset);
+	
+	/**
+	 * Point the cursor to a message in an IrisBuffer the same way as {@link #wrap(ByteBuffer, int)}.
+	 * The buffer is read as it is. An unchecked buffer, e.g. UnsafeBuffer, has to be known to 
+	 * contain the whole message. 
+	 * 
+	 * @param buffer the buffer containing a SBE message
+	 * @param offset the starting position of the message
+	 * @return this cursor
+	 */
+	public MessageCursor wrap(IrisBuffer buffer, int offset);
+}
@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.message;
+
+import java.nio.ByteBuffer;
+
+import com.github.bwsoft.iris.buffer.IrisBuffer;
+
+/**
+ * A MessageEncoder is a GroupEncoder of a message. It has only one row. It is created once
+ * for a message definition, e.g. by {@link SBEMessageSchema#createEncoder(int)}, and is
+ * re-pointed to a new message in a buffer by {@link #wrap(ByteBuffer, int)}. The encoder and
+ * all its nested encoders are reused between messages.
+ * 
+ * Unlike {@link SBEMessageSchema#createSbeBuffer(int, ByteBuffer, int)}, which inserts rows 
+ * and variable length fields in place, the encoder appends bytes sequentially. It is the 
+ * cheap way to build a message with many rows.
+ *
+ * A MessageEncoder is not thread safe. Create one encoder for each thread.
+ *
+ * @see GroupEncoder
+ *
+ * @author yzhou
+ *
+ */
+public interface MessageEncoder extends GroupEncoder {
+	/**
+	 * Start a new message in the buffer. The message header is written and the encoder is 
+	 * positioned at the only row of the message.
+	 *
+	 * @param buffer the buffer to hold the message
+	 * @param offset the starting position of the message
+	 * @return this encoder
+	 */
+	public MessageEncoder wrap(ByteBuffer buffer, int offset);
+	
+	/**
+	 * Start a new message in an IrisBuffer the same way as {@link #wrap(ByteBuffer, int)}.
+	 * 
+	 * @param buffer the buffer to hold the message
+	 * @param offset the starting position of the message
+	 * @return this encoder
+	 */
+	public MessageEncoder wrap(IrisBuffer buffer, int offset);
+	
+	/**
+	 * Complete the message. Groups and variable length fields that have not been appended are 
+	 * encoded as empty. The message can be decoded after this call.
+	 * 
+	 * @return the number of bytes of the message including the message header
+	 */
+	public int finish();
+}
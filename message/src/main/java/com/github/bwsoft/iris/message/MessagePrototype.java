@@ -0,0 +1,74 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.message;
+
+import java.nio.ByteBuffer;
+
+import com.github.bwsoft.iris.buffer.IrisBuffer;
+
+/**
+ * A MessagePrototype is a fully built message, including its group rows and variable length
+ * fields, that is copied into a buffer to start a new message of the same layout. It is 
+ * created once for a template, e.g. by {@link SBEMessageSchema#createPrototype(ByteBuffer, int)}.
+ * A copy takes one bulk copy of the bytes. The structure of the message parsed from the 
+ * prototype is reused and only moved to the position of the copy, so that only the fields 
+ * that differ from the prototype need to be set.
+ * 
+ * <pre>
+ * {@code
+ *     MessagePrototype prototype = schema.createPrototype(templateBuffer, 0);
+ *     ...
+ *     GroupObject msgObj = prototype.copyTo(buffer, offset);
+ *     msgObj.setNumber(msgObj.getField("serialNumber"), serialNumber);
+ * }
+ * </pre>
+ * 
+ * The GroupObject of a copy is valid until the next copy of the same prototype. A copy can be 
+ * modified in any way, e.g. by adding a row. The structure is parsed again from the prototype 
+ * by the next copy after such a change. 
+ * 
+ * A MessagePrototype is not thread safe. Create one prototype for each thread.
+ *
+ * @author yzhou
+ *
+ */
+public interface MessagePrototype {
+	/**
+	 * @return the encoded length of the prototype including its message header
+	 */
+	public int getSize();
+	
+	/**
+	 * Copy the prototype into a buffer to start a new message.
+	 * 
+	 * @param buffer the buffer to hold the new message
+	 * @param offset the starting position of the new message
+	 * @return a GroupObject to access the fields of the new message
+	 * @throws java.nio.BufferOverflowException if the prototype does not fit in the buffer
+	 */
+	public GroupObject copyTo(ByteBuffer buffer, int offset);
+	
+	/**
+	 * Copy the prototype into an IrisBuffer the same way as {@link #copyTo(ByteBuffer, int)}. 
+	 * The structure is only reused when the same IrisBuffer is passed in. 
+	 * 
+	 * @param buffer the buffer to hold the new message
+	 * @param offset the starting position of the new message
+	 * @return a GroupObject to access the fields of the new message
+	 * @throws java.nio.BufferOverflowException if the prototype does not fit in the buffer
+	 */
+	public GroupObject copyTo(IrisBuffer buffer, int offset);
+}
@@ -0,0 +1,45 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.message;
+
+/**
+ * A projection declares the groups and variable length fields of a message that a consumer 
+ * reads. It is created by {@link Message#createProjection(String...)} and passed to a wrap call 
+ * such as {@link SBEMessageSchema#wrapSbeBuffer(java.nio.ByteBuffer, int, Projection)}. The groups
+ * and variable length fields outside of the projection are skipped by their headers without 
+ * being parsed. 
+ * 
+ * The fields in the root block of the message are always accessible. A field outside of the projection 
+ * is treated as absent, e.g. {@link GroupObject#getGroupArray(Field)} returns null. It shall not 
+ * be modified through the wrapped message. 
+ * 
+ * A projection is immutable and can be shared across threads. 
+ * 
+ * @author yzhou
+ *
+ */
+public interface Projection {
+	/**
+	 * @return the message definition this projection is compiled against
+	 */
+	public Message getMessage();
+	
+	/**
+	 * @param field a group or a variable length field of the message or of its groups
+	 * @return true if the field is parsed by a wrap call with this projection
+	 */
+	public boolean includes(Field field);
+}
@@ -19,7 +19,9 @@ import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.HashMap;
 
+import com.github.bwsoft.iris.buffer.IrisBuffer;
 import com.github.bwsoft.iris.message.sbe.SBEMessage;
+import com.github.bwsoft.iris.message.sbe.SBEMessageContext;
 import com.github.bwsoft.iris.message.sbe.SBEMessageHeader;
 import com.github.bwsoft.iris.message.sbe.SBEMessageSchemaHeader;
 import com.github.bwsoft.iris.message.sbe.SBESchemaLoader;
@@ -166,6 +168,63 @@ public class SBEMessageSchema {
 		return null;
 	}
 	
+	/**
+	 * Create a GroupObject based upon a buffer in the same way as {@link #wrapSbeBuffer(ByteBuffer, int)}
+	 * with an option to defer the parsing of groups and variable length fields. 
+	 * 
+	 * With a lazy wrap, only the message header is read. The root block is available immediately
+	 * while a group or a variable length field is parsed upon its first access. It avoids the cost
+	 * of building the whole message structure when only a few fields are read, e.g. a consumer 
+	 * that filters messages based upon the fields in the root block. 
+	 * 
+	 * The lazily parsed structure is only valid until the next wrap or create call of the same
+	 * message type in the same thread. 
+	 * 
+	 * If the safe mode is off, an eager wrap measures the message once by checked reads of its 
+	 * headers and then reads the message without checks. A lazy wrap does not measure the message,
+	 * which would walk the groups it defers. The ByteBuffer is read with checks instead. 
+	 * 
+	 * @param buffer containing a complete SBE message. 
+	 * @param offset the starting position of the message.
+	 * @param lazy true to defer the parsing of groups and variable length fields until they are accessed
+	 * @return GroupObject to access SBE fields
+	 */
+	public GroupObject wrapSbeBuffer(ByteBuffer buffer, int offset, boolean lazy) {
+		SBEMessage msg = this.getSBEMessage(buffer, offset);
+		if( null != msg ) {
+			return msg.wrapSbeBuffer(buffer, offset, lazy);
+		}
+		return null;
+	}
+	
+	/**
+	 * Create a GroupObject based upon a buffer in the same way as {@link #wrapSbeBuffer(ByteBuffer, int)}
+	 * with only the groups and variable length fields in a projection being parsed. The others are 
+	 * skipped by their headers. A message other than the one of the projection is wrapped 
+	 * as a whole. Like a lazy wrap, see {@link #wrapSbeBuffer(ByteBuffer, int, boolean)}, the 
+	 * message is not measured and the ByteBuffer is read with checks even if the safe mode is off. 
+	 * 
+	 * <pre>
+	 * {@code
+	 *     Projection projection = schema.getMsgLookup().get(templateId).createProjection("fuelFigures");
+	 *     ...
+	 *     GroupObject msgObj = schema.wrapSbeBuffer(buffer, offset, projection);
+	 * }
+	 * </pre>
+	 * 
+	 * @param buffer containing a complete SBE message. 
+	 * @param offset the starting position of the message.
+	 * @param projection the groups and variable length fields to be parsed
+	 * @return GroupObject to access SBE fields
+	 */
+	public GroupObject wrapSbeBuffer(ByteBuffer buffer, int offset, Projection projection) {
+		SBEMessage msg = this.getSBEMessage(buffer, offset);
+		if( null != msg ) {
+			return msg == projection.getMessage() ? msg.wrapSbeBuffer(buffer, offset, projection) : msg.wrapSbeBuffer(buffer, offset);
+		}
+		return null;
+	}
+	
 	/**
 	 * Create a SBE message using the provided buffer. 
 	 * 
@@ -191,7 +250,262 @@ public class SBEMessageSchema {
 		}
 	}
 	
-	private SBEMessage getSBEMessage(ByteBuffer buffer, int offset) {
+	/**
+	 * Create a GroupObject based upon an IrisBuffer in the same way as {@link #wrapSbeBuffer(ByteBuffer, int)}.
+	 * An IrisBuffer can be pointed to memory that is not managed by a ByteBuffer, e.g. a
+	 * region shared with another process.
+	 * 
+	 * @param buffer containing a complete SBE message. 
+	 * @param offset the starting position of the message.
+	 * @return GroupObject to access SBE fields
+	 */
+	public GroupObject wrapSbeBuffer(IrisBuffer buffer, int offset) {
+		return wrapSbeBuffer(buffer, offset, false);
+	}
+	
+	/**
+	 * Create a GroupObject based upon an IrisBuffer in the same way as {@link #wrapSbeBuffer(ByteBuffer, int, boolean)}.
+	 * 
+	 * @param buffer containing a complete SBE message. 
+	 * @param offset the starting position of the message.
+	 * @param lazy true to defer the parsing of groups and variable length fields until they are accessed
+	 * @return GroupObject to access SBE fields
+	 */
+	public GroupObject wrapSbeBuffer(IrisBuffer buffer, int offset, boolean lazy) {
+		SBEMessage msg = this.getSBEMessage(buffer, offset);
+		if( null != msg ) {
+			return msg.wrapSbeBuffer(buffer, offset, lazy);
+		}
+		return null;
+	}
+	
+	/**
+	 * Create a GroupObject based upon an IrisBuffer in the same way as {@link #wrapSbeBuffer(ByteBuffer, int, Projection)}.
+	 * 
+	 * @param buffer containing a complete SBE message. 
+	 * @param offset the starting position of the message.
+	 * @param projection the groups and variable length fields to be parsed
+	 * @return GroupObject to access SBE fields
+	 */
+	public GroupObject wrapSbeBuffer(IrisBuffer buffer, int offset, Projection projection) {
+		SBEMessage msg = this.getSBEMessage(buffer, offset);
+		if( null != msg ) {
+			return msg == projection.getMessage() ? msg.wrapSbeBuffer(buffer, offset, projection) : msg.wrapSbeBuffer(buffer, offset, false);
+		}
+		return null;
+	}
+	
+	/**
+	 * Create a SBE message in an IrisBuffer in the same way as {@link #createSbeBuffer(int, ByteBuffer, int)}.
+	 * 
+	 * @param templateId the target message template ID
+	 * @param buffer the buffer for building SBE message
+	 * @param offset the starting position of the message
+	 * @return a GroupObject to set values for fields in this message or null if the message cannot be created. 
+	 */
+	public GroupObject createSbeBuffer(int templateId, IrisBuffer buffer, int offset) {
+		SBEMessage message = this.lookupTable.get(templateId);
+		if( null != message ) {
+			return message.createSbeBuffer(buffer, offset);
+		} else {
+			return null;
+		}
+	}
+	
+	/**
+	 * Create a GroupObject based upon a buffer in a context. It is the same as {@link #wrapSbeBuffer(ByteBuffer, int)} 
+	 * except that the returned GroupObject stays valid until the next wrap or create call of the 
+	 * same message type in the same context rather than in the same thread. 
+	 * 
+	 * @param context the context to hold the parsed message
+	 * @param buffer containing a complete SBE message. 
+	 * @param offset the starting position of the message.
+	 * @return GroupObject to access SBE fields
+	 * @see SBEMessageContext
+	 */
+	public GroupObject wrapSbeBuffer(SBEMessageContext context, ByteBuffer buffer, int offset) {
+		return wrapSbeBuffer(context, buffer, offset, false);
+	}
+	
+	/**
+	 * Create a GroupObject based upon a buffer in a context the same way as {@link #wrapSbeBuffer(ByteBuffer, int, boolean)}.
+	 * 
+	 * @param context the context to hold the parsed message
+	 * @param buffer containing a complete SBE message. 
+	 * @param offset the starting position of the message.
+	 * @param lazy true to defer the parsing of groups and variable length fields until they are accessed
+	 * @return GroupObject to access SBE fields
+	 */
+	public GroupObject wrapSbeBuffer(SBEMessageContext context, ByteBuffer buffer, int offset, boolean lazy) {
+		SBEMessage msg = this.getSBEMessage(buffer, offset);
+		if( null != msg ) {
+			return msg.wrapSbeBuffer(context, buffer, offset, lazy);
+		}
+		return null;
+	}
+	
+	/**
+	 * Create a GroupObject based upon an IrisBuffer in a context the same way as {@link #wrapSbeBuffer(IrisBuffer, int, boolean)}.
+	 * 
+	 * @param context the context to hold the parsed message
+	 * @param buffer containing a complete SBE message. 
+	 * @param offset the starting position of the message.
+	 * @param lazy true to defer the parsing of groups and variable length fields until they are accessed
+	 * @return GroupObject to access SBE fields
+	 */
+	public GroupObject wrapSbeBuffer(SBEMessageContext context, IrisBuffer buffer, int offset, boolean lazy) {
+		SBEMessage msg = this.getSBEMessage(buffer, offset);
+		if( null != msg ) {
+			return msg.wrapSbeBuffer(context, buffer, offset, lazy);
+		}
+		return null;
+	}
+	
+	/**
+	 * Create a SBE message in a context the same way as {@link #createSbeBuffer(int, ByteBuffer, int)}.
+	 * 
+	 * @param context the context to hold the created message
+	 * @param templateId the target message template ID
+	 * @param buffer the buffer for building SBE message
+	 * @param offset the starting position of the message
+	 * @return a GroupObject to set values for fields in this message or null if the message cannot be created. 
+	 */
+	public GroupObject createSbeBuffer(SBEMessageContext context, int templateId, ByteBuffer buffer, int offset) {
+		SBEMessage message = this.lookupTable.get(templateId);
+		if( null != message ) {
+			return message.createSbeBuffer(context, buffer, offset);
+		} else {
+			return null;
+		}
+	}
+	
+	/**
+	 * Create a SBE message in an IrisBuffer in a context the same way as {@link #createSbeBuffer(int, IrisBuffer, int)}.
+	 * 
+	 * @param context the context to hold the created message
+	 * @param templateId the target message template ID
+	 * @param buffer the buffer for building SBE message
+	 * @param offset the starting position of the message
+	 * @return a GroupObject to set values for fields in this message or null if the message cannot be created. 
+	 */
+	public GroupObject createSbeBuffer(SBEMessageContext context, int templateId, IrisBuffer buffer, int offset) {
+		SBEMessage message = this.lookupTable.get(templateId);
+		if( null != message ) {
+			return message.createSbeBuffer(context, buffer, offset);
+		} else {
+			return null;
+		}
+	}
+	
+	/**
+	 * Create a SBE message in a buffer taken from the pool of a context. The message moves to 
+	 * a larger buffer of the pool when it grows beyond the buffer. 
+	 * 
+	 * @param context the context with a pool to hold the created message
+	 * @param templateId the target message template ID
+	 * @param capacity the initial capacity of the buffer
+	 * @return a GroupObject to set values for fields in this message or null if the message cannot be created. 
+	 * @see SBEMessage#createSbeBuffer(SBEMessageContext, int)
+	 */
+	public GroupObject createSbeBuffer(SBEMessageContext context, int templateId, int capacity) {
+		SBEMessage message = this.lookupTable.get(templateId);
+		if( null != message ) {
+			return message.createSbeBuffer(context, capacity);
+		} else {
+			return null;
+		}
+	}
+	
+	/**
+	 * Create a flyweight cursor to read messages of a template. A cursor is created once 
+	 * and re-pointed to a message by {@link MessageCursor#wrap(ByteBuffer, int)}. Reading 
+	 * a message through a cursor does not create any object regardless of the number 
+	 * of rows in its groups. 
+	 * 
+	 * @param templateId the target message template ID
+	 * @return a cursor or null if the template is not defined in this schema
+	 */
+	public MessageCursor createCursor(int templateId) {
+		SBEMessage message = this.lookupTable.get(templateId);
+		if( null != message ) {
+			return message.createCursor();
+		} else {
+			return null;
+		}
+	}
+	
+	/**
+	 * Create an append only encoder to build messages of a template. An encoder is created once 
+	 * and re-pointed to a new message by {@link MessageEncoder#wrap(ByteBuffer, int)}. Rows and 
+	 * variable length fields are appended in the schema order without moving any byte in 
+	 * the buffer. 
+	 * 
+	 * @param templateId the target message template ID
+	 * @return an encoder or null if the template is not defined in this schema
+	 */
+	public MessageEncoder createEncoder(int templateId) {
+		SBEMessage message = this.lookupTable.get(templateId);
+		if( null != message ) {
+			return message.createEncoder();
+		} else {
+			return null;
+		}
+	}
+	
+	/**
+	 * Create a prototype from a fully built message. A new message of the same layout is 
+	 * started by copying the prototype with {@link MessagePrototype#copyTo(ByteBuffer, int)}, 
+	 * which is cheaper than creating the message and building its groups. 
+	 * 
+	 * @param buffer the buffer containing the message
+	 * @param offset the starting position of the message
+	 * @return a prototype or null if the message is not defined in this schema
+	 */
+	public MessagePrototype createPrototype(ByteBuffer buffer, int offset) {
+		SBEMessage msg = this.getSBEMessage(buffer, offset);
+		if( null != msg ) {
+			return msg.createPrototype(buffer, offset);
+		}
+		return null;
+	}
+	
+	/**
+	 * Obtain the encoded length of a message in a buffer, including the message header, 
+	 * without wrapping the message. Only the message header and the headers of the groups and
+	 * variable length fields are read. It is a cheap way to skip a message. 
+	 * 
+	 * @param buffer containing a complete SBE message. 
+	 * @param offset the starting position of the message.
+	 * @return the number of bytes of the message or -1 if the message is not defined in this schema
+	 * @throws MsgCodecRuntimeException if a header of the message holds a malformed length
+	 */
+	public int measure(ByteBuffer buffer, int offset) {
+		return measure(IrisBuffer.wrap(buffer), offset);
+	}
+	
+	/**
+	 * Obtain the encoded length of a message in an IrisBuffer the same way as {@link #measure(ByteBuffer, int)}.
+	 * 
+	 * @param buffer containing a complete SBE message. 
+	 * @param offset the starting position of the message.
+	 * @return the number of bytes of the message or -1 if the message is not defined in this schema
+	 */
+	public int measure(IrisBuffer buffer, int offset) {
+		SBEMessage msg = this.getSBEMessage(buffer, offset);
+		if( null != msg ) {
+			return msg.measure(buffer, offset);
+		}
+		return -1;
+	}
+	
+	/**
+	 * Obtain the definition of a message in an IrisBuffer based upon its message header. 
+	 * 
+	 * @param buffer containing a SBE message
+	 * @param offset the starting position of the message
+	 * @return the message definition or null if the message is not defined in this schema
+	 */
+	public SBEMessage getSBEMessage(IrisBuffer buffer, int offset) {
 		buffer.order(order);
 		int schemaId = this.msgHeader.getSchemaId(buffer, offset);
 		int templateId = this.msgHeader.getTemplateId(buffer, offset);
@@ -202,6 +516,11 @@ public class SBEMessageSchema {
 		}
 	}
 	
+	private SBEMessage getSBEMessage(ByteBuffer buffer, int offset) {
+		buffer.order(order);
+		return getSBEMessage(IrisBuffer.wrap(buffer), offset);
+	}
+	
 	/**
 	 * Obtain a hash map contains all SBEMessage definitions found in the 
 	 * current schema. The message template ID is the key.
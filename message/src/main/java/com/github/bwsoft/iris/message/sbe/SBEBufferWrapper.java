@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.message.sbe;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import com.github.bwsoft.iris.buffer.IrisBuffer;
+import com.github.bwsoft.iris.buffer.NioBuffer;
+import com.github.bwsoft.iris.buffer.UnsafeBuffer;
+
+/**
+ * The reusable buffers to wrap a ByteBuffer of a message. A ByteBuffer is wrapped by the unchecked 
+ * UnsafeBuffer if the safe mode is off and the bytes to be accessed are known to be within the 
+ * ByteBuffer. Otherwise, it is wrapped by the checked NioBuffer. 
+ * 
+ * @author yzhou
+ *
+ */
+final class SBEBufferWrapper {
+	private final ByteOrder order;
+	private final NioBuffer nioBuffer = new NioBuffer();
+	private final UnsafeBuffer unsafeBuffer;
+	
+	SBEBufferWrapper(SBEMessage message) {
+		this.order = message.getByteOrder();
+		this.unsafeBuffer = ! message.safeMode() && UnsafeBuffer.isAvailable() ? new UnsafeBuffer() : null;
+	}
+	
+	/**
+	 * @return true if a ByteBuffer can be wrapped by the unchecked buffer
+	 */
+	boolean isUncheckedEnabled() {
+		return null != unsafeBuffer;
+	}
+	
+	/**
+	 * Wrap a ByteBuffer by the checked buffer.
+	 * 
+	 * @param buffer the ByteBuffer
+	 * @return the checked buffer pointing to the ByteBuffer
+	 */
+	IrisBuffer wrapChecked(ByteBuffer buffer) {
+		buffer.order(order);
+		return nioBuffer.wrap(buffer);
+	}
+	
+	/**
+	 * Wrap a ByteBuffer by the unchecked buffer if the bytes to be accessed are within the ByteBuffer. 
+	 * 
+	 * @param buffer the ByteBuffer
+	 * @param offset the start of the bytes to be accessed
+	 * @param length the number of bytes to be accessed or a negative number if it is unknown
+	 * @return one of the reusable buffers pointing to the ByteBuffer
+	 */
+	IrisBuffer wrap(ByteBuffer buffer, int offset, int length) {
+		buffer.order(order);
+		if( null != unsafeBuffer && offset >= 0 && length >= 0 && length <= buffer.capacity() - offset && 
+				UnsafeBuffer.isSupported(buffer) ) {
+			return unsafeBuffer.wrap(buffer);
+		} else {
+			return nioBuffer.wrap(buffer);
+		}
+	}
+	
+	/**
+	 * Point a buffer returned by this wrapper to another ByteBuffer, e.g. a larger copy of the 
+	 * message, so that the holders of the buffer stay valid. 
+	 * 
+	 * @param buffer a buffer returned by this wrapper
+	 * @param byteBuffer the new ByteBuffer
+	 */
+	void rewrap(IrisBuffer buffer, ByteBuffer byteBuffer) {
+		byteBuffer.order(order);
+		if( buffer == unsafeBuffer ) {
+			unsafeBuffer.wrap(byteBuffer);
+		} else {
+			nioBuffer.wrap(byteBuffer);
+		}
+	}
+}
@@ -46,10 +46,124 @@ class SBECompositeField extends SBEField implements Group {
 	private final List<Field> children = new ArrayList<>();
 	private final LinkedHashMap<String,Field> groupFieldLookupByName = new LinkedHashMap<>(); 
 
+	// the mantissa and the exponent of a decimal composite
+	private SBEField mantissa;
+	private SBEField exponent;
+	private int constantExponent;
+	
+	// powers of ten within the range of a long
+	private static final long[] POWERS_OF_TEN = new long[19];
+	static {
+		POWERS_OF_TEN[0] = 1;
+		for( int i = 1; i < POWERS_OF_TEN.length; i ++ ) {
+			POWERS_OF_TEN[i] = POWERS_OF_TEN[i-1]*10;
+		}
+	}
+	
 	SBECompositeField(SBEGroup parent, short dimension) {
 		super(parent, FieldType.COMPOSITE, dimension);
 	}
 	
+	/**
+	 * Recognize a decimal composite, which has an integer mantissa and a constant or an 
+	 * integer exponent. 
+	 */
+	void compileDecimal() {
+		SBEField mantissa = (SBEField) getField("mantissa");
+		SBEField exponent = (SBEField) getField("exponent");
+		if( null == mantissa || null == exponent || ! isInteger(mantissa.getType()) || mantissa.length() != 1 ) {
+			return;
+		}
+		if( FieldType.CONSTANT == exponent.getType() && null != exponent.getConstantValue() ) {
+			this.constantExponent = Integer.parseInt(exponent.getConstantValue().trim());
+			this.exponent = null;
+		} else if( isInteger(exponent.getType()) && exponent.length() == 1 ) {
+			this.exponent = exponent;
+		} else {
+			return;
+		}
+		this.mantissa = mantissa;
+	}
+	
+	private static boolean isInteger(FieldType type) {
+		switch( type ) {
+		case U8:
+		case U16:
+		case U32:
+		case U64:
+		case I8:
+		case I16:
+		case I32:
+		case I64:
+			return true;
+		default:
+			return false;
+		}
+	}
+	
+	@Override
+	public boolean isDecimal() {
+		return null != mantissa;
+	}
+	
+	SBEField getMantissa() {
+		return mantissa;
+	}
+	
+	/**
+	 * @return the exponent field or null if the exponent is a constant
+	 */
+	SBEField getExponent() {
+		return exponent;
+	}
+	
+	int getConstantExponent() {
+		return constantExponent;
+	}
+	
+	/**
+	 * Convert a mantissa from one exponent to another. Digits beyond the target exponent 
+	 * are truncated toward zero.
+	 * 
+	 * @param mantissa the mantissa
+	 * @param from the exponent of the mantissa
+	 * @param to the target exponent
+	 * @param exact true to throw an ArithmeticException if digits are truncated
+	 * @return the mantissa of the target exponent
+	 * @throws ArithmeticException if the result overflows a long or digits are truncated in an exact conversion 
+	 */
+	static long rescale(long mantissa, int from, int to, boolean exact) {
+		int diff = from - to;
+		if( diff == 0 || mantissa == 0 ) {
+			return mantissa;
+		} else if( diff > 0 ) {
+			if( diff >= POWERS_OF_TEN.length ) {
+				throw new ArithmeticException("long overflow");
+			}
+			return Math.multiplyExact(mantissa, POWERS_OF_TEN[diff]);
+		} else if( -diff >= POWERS_OF_TEN.length || ( exact && mantissa % POWERS_OF_TEN[-diff] != 0 ) ) {
+			if( exact ) {
+				throw new ArithmeticException("digits are truncated in converting exponent "+from+" to "+to);
+			}
+			return 0;
+		} else {
+			return mantissa / POWERS_OF_TEN[-diff];
+		}
+	}
+	
+	/**
+	 * @return the double value of a mantissa and an exponent
+	 */
+	static double toDouble(long mantissa, int exponent) {
+		if( exponent >= 0 ) {
+			return mantissa * Math.pow(10, exponent);
+		} else if( -exponent < POWERS_OF_TEN.length ) {
+			return mantissa / (double) POWERS_OF_TEN[-exponent];
+		} else {
+			return mantissa / Math.pow(10, -exponent);
+		}
+	}
+	
 	void buildNameIndex(String name, Field field) {
 		if( groupFieldLookupByName.containsKey(name) ) {
 			throw new IllegalArgumentException("cannot have fields of the same name in a group");
@@ -0,0 +1,157 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.message.sbe;
+
+import java.io.Serializable;
+import java.util.List;
+
+import com.github.bwsoft.iris.message.FieldType;
+
+/**
+ * A lookup table of an enum type keyed by the primitive value of the enum. The valid values 
+ * are numbered by ordinals in the order of their appearance in the schema. 
+ * 
+ * Values in a small range are looked up in an array indexed by the value. Others are 
+ * looked up in an open addressed hash table of primitive keys. Neither allocates upon a lookup. 
+ * 
+ * @author yzhou
+ *
+ */
+final class SBEEnumTable implements Serializable {
+	private static final long serialVersionUID = -3470912567418256351L;
+
+	// the maximal range of values looked up by an array
+	private static final int MAX_DENSE_RANGE = 256;
+	
+	private final String[] names;
+	private final long[] values;
+	
+	// dense table: ordinal+1 indexed by value-minValue, 0 for an undefined value
+	private final long minValue;
+	private final byte[] denseOrdinals;
+	
+	// sparse table: open addressed by linear probing, ordinal+1 of the key, 0 for an empty slot
+	private final long[] keys;
+	private final int[] sparseOrdinals;
+	private final int mask;
+	
+	/**
+	 * @param type the primitive type of the enum
+	 * @param validValues the values of the enum in the schema
+	 * @param validNames the names of the enum in the schema
+	 */
+	SBEEnumTable(FieldType type, List<String> validValues, List<String> validNames) {
+		int size = validValues.size();
+		this.names = validNames.toArray(new String[size]);
+		this.values = new long[size];
+		long min = Long.MAX_VALUE, max = Long.MIN_VALUE;
+		for( int i = 0; i < size; i ++ ) {
+			values[i] = parseValue(type, validValues.get(i));
+			min = Math.min(min, values[i]);
+			max = Math.max(max, values[i]);
+		}
+		
+		if( size > 0 && size < Byte.MAX_VALUE && max - min >= 0 && max - min < MAX_DENSE_RANGE ) {
+			this.minValue = min;
+			this.denseOrdinals = new byte[(int) (max - min + 1)];
+			for( int i = 0; i < size; i ++ ) {
+				denseOrdinals[(int) (values[i] - min)] = (byte) (i+1);
+			}
+			this.keys = null;
+			this.sparseOrdinals = null;
+			this.mask = 0;
+		} else {
+			this.minValue = 0;
+			this.denseOrdinals = null;
+			int capacity = Integer.highestOneBit(Math.max(size, 1)*2-1) << 1;
+			this.keys = new long[capacity];
+			this.sparseOrdinals = new int[capacity];
+			this.mask = capacity - 1;
+			for( int i = 0; i < size; i ++ ) {
+				int slot = hash(values[i]) & mask;
+				while( 0 != sparseOrdinals[slot] ) {
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = values[i];
+				sparseOrdinals[slot] = i+1;
+			}
+		}
+	}
+	
+	/**
+	 * Convert a valid value in the schema to its primitive value, which is the char code for a char enum.
+	 */
+	private static long parseValue(FieldType type, String value) {
+		if( FieldType.CHAR == type ) {
+			if( value.length() != 1 ) {
+				throw new IllegalArgumentException("invalid char value of an enum: "+value);
+			}
+			return value.charAt(0);
+		} else {
+			return Long.parseLong(value.trim());
+		}
+	}
+	
+	private static int hash(long value) {
+		long h = value * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+	
+	/**
+	 * @param value the primitive value of the enum
+	 * @return the ordinal of the value or -1 if the value is not defined in the schema
+	 */
+	int getOrdinal(long value) {
+		if( null != denseOrdinals ) {
+			long index = value - minValue;
+			return index >= 0 && index < denseOrdinals.length ? denseOrdinals[(int) index] - 1 : -1;
+		}
+		int slot = hash(value) & mask;
+		int ordinal;
+		while( 0 != (ordinal = sparseOrdinals[slot]) ) {
+			if( keys[slot] == value ) {
+				return ordinal - 1;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+	
+	/**
+	 * @param name the name of a valid value
+	 * @return its ordinal or -1 if the name is not defined
+	 */
+	int getOrdinal(String name) {
+		for( int i = 0; i < names.length; i ++ ) {
+			if( names[i].equals(name) ) {
+				return i;
+			}
+		}
+		return -1;
+	}
+	
+	String getName(int ordinal) {
+		return names[ordinal];
+	}
+	
+	long getValue(int ordinal) {
+		return values[ordinal];
+	}
+	
+	int size() {
+		return names.length;
+	}
+}
@@ -15,8 +15,11 @@
  *******************************************************************************/
 package com.github.bwsoft.iris.message.sbe;
 
+import java.nio.charset.Charset;
 import java.util.HashMap;
 
+import com.github.bwsoft.iris.buffer.IrisBuffer;
+
 import com.github.bwsoft.iris.message.Field;
 import com.github.bwsoft.iris.message.FieldType;
 import com.github.bwsoft.iris.message.Group;
@@ -41,8 +44,10 @@ public class SBEField implements Field {
 	private short arrayLength = 1;
 	
 	private int offset; 
+	private transient SBEPrimitiveAccessor accessor;
 	
 	private HashMap<String, String> enumLookup;
+	private SBEEnumTable enumTable;
 	private HashMap<String, Integer> bitLookup;
 
 	private SBEMessage message;
@@ -50,6 +55,18 @@ public class SBEField implements Field {
 	
 	private String constValue;
 	private FieldType constType;
+	
+	private int sinceVersion;
+	
+	// the null value as returned by the accessor of this field
+	private boolean optional;
+	private long nullValue;
+	private double nullDoubleValue = Double.NaN;
+	
+	private String characterEncoding;
+	private transient Charset charset;
+	
+	private SBETimestamp timestamp;
 
 	// can only be created by its parent and hence package scope
 	SBEField(Group parent, FieldType type, short arrayLength) {
@@ -58,6 +75,7 @@ public class SBEField implements Field {
 		this.arrayLength = arrayLength;
 		this.blockSize = type.size();
 		this.constValue = null;
+		this.nullValue = nullValueOf(type);
 		
 		if( parent == null ) {
 			this.message = (SBEMessage) this;
@@ -94,6 +112,223 @@ public class SBEField implements Field {
 		return this.constType;
 	}
 	
+	SBEField setSinceVersion(int sinceVersion) {
+		this.sinceVersion = sinceVersion;
+		return this;
+	}
+	
+	@Override
+	public int getSinceVersion() {
+		return this.sinceVersion;
+	}
+	
+	/**
+	 * Mark this field optional with the null value defined in the schema or the default 
+	 * null value of its type if not defined. 
+	 * 
+	 * @param nullValue the null value in the schema or null
+	 * @return this field
+	 */
+	SBEField setOptional(String nullValue) {
+		this.optional = true;
+		if( null != nullValue ) {
+			nullValue = nullValue.trim();
+			switch( type ) {
+			case FLOAT:
+			case DOUBLE:
+				this.nullDoubleValue = Double.parseDouble(nullValue);
+				break;
+			case CHAR:
+				this.nullValue = nullValue.length() == 1 && ! Character.isDigit(nullValue.charAt(0)) ? 
+						nullValue.charAt(0) : Long.decode(nullValue);
+				break;
+			case U64:
+				this.nullValue = Long.parseUnsignedLong(nullValue);
+				break;
+			default:
+				this.nullValue = Long.decode(nullValue);
+			}
+		}
+		return this;
+	}
+	
+	@Override
+	public boolean isOptional() {
+		return this.optional;
+	}
+	
+	SBEField setCharacterEncoding(String characterEncoding) {
+		this.characterEncoding = characterEncoding;
+		this.charset = null;
+		return this;
+	}
+	
+	@Override
+	public String getCharacterEncoding() {
+		return this.characterEncoding;
+	}
+	
+	/**
+	 * The charset of the character encoding defined in the schema. It is resolved upon 
+	 * the first request. 
+	 * 
+	 * @return the charset of this field or the default charset if no encoding is defined
+	 */
+	Charset getCharset() {
+		Charset charset = this.charset;
+		if( null == charset ) {
+			charset = null == characterEncoding ? Charset.defaultCharset() : Charset.forName(characterEncoding);
+			this.charset = charset;
+		}
+		return charset;
+	}
+	
+	/**
+	 * @return the null value of an integer field as returned by {@link SBEPrimitiveAccessor#getLong(IrisBuffer, int)}
+	 */
+	long getNullValue() {
+		return this.nullValue;
+	}
+	
+	/**
+	 * @return the null value of a floating point field
+	 */
+	double getNullDoubleValue() {
+		return this.nullDoubleValue;
+	}
+	
+	/**
+	 * The default null value of a type defined by SBE. 
+	 */
+	private static long nullValueOf(FieldType type) {
+		switch( type ) {
+		case BYTE:
+		case U8:
+			return 0xff;
+		case I8:
+			return Byte.MIN_VALUE;
+		case U16:
+			return 0xffff;
+		case I16:
+			return Short.MIN_VALUE;
+		case U32:
+			return 0xffffffffL;
+		case I32:
+			return Integer.MIN_VALUE;
+		case U64:
+			return -1L;
+		case CHAR:
+			return 0;
+		default:
+			return Long.MIN_VALUE;
+		}
+	}
+	
+	/**
+	 * Check if an integer value can be written to this field without being narrowed. A U64 
+	 * field takes any long as the bits of an unsigned value. 
+	 * 
+	 * @param value the value as returned by {@link SBEPrimitiveAccessor#getLong(IrisBuffer, int)}
+	 * @return true if the value is in the range of the type of this field
+	 */
+	boolean isInRange(long value) {
+		switch( type ) {
+		case I8:
+			return value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE;
+		case BYTE:
+		case CHAR:
+		case U8:
+			return value >= 0 && value <= 0xff;
+		case I16:
+			return value >= Short.MIN_VALUE && value <= Short.MAX_VALUE;
+		case U16:
+			return value >= 0 && value <= 0xffff;
+		case I32:
+			return value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE;
+		case U32:
+			return value >= 0 && value <= 0xffffffffL;
+		default:
+			return true;
+		}
+	}
+	
+	/**
+	 * Check if all elements of this field hold the null value. 
+	 * 
+	 * @param buffer the buffer of the row
+	 * @param valueOffset the value offset of the row
+	 * @return true if all elements hold the null value
+	 */
+	boolean isNull(IrisBuffer buffer, int valueOffset) {
+		SBEPrimitiveAccessor accessor = getAccessor();
+		for( int i = 0; i < arrayLength; i ++ ) {
+			int elementOffset = valueOffset + i*blockSize;
+			switch( type ) {
+			case CHAR:
+				if( (byte) nullValue != buffer.get(elementOffset+offset) ) {
+					return false;
+				}
+				break;
+			case FLOAT:
+			case DOUBLE:
+				double value = accessor.getDouble(buffer, elementOffset);
+				if( Double.isNaN(nullDoubleValue) ? ! Double.isNaN(value) : value != nullDoubleValue ) {
+					return false;
+				}
+				break;
+			default:
+				if( nullValue != accessor.getLong(buffer, elementOffset) ) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Set all elements of this field to the null value. 
+	 * 
+	 * @param buffer the buffer of the row
+	 * @param valueOffset the value offset of the row
+	 */
+	void putNull(IrisBuffer buffer, int valueOffset) {
+		SBEPrimitiveAccessor accessor = getAccessor();
+		for( int i = 0; i < arrayLength; i ++ ) {
+			int elementOffset = valueOffset + i*blockSize;
+			switch( type ) {
+			case CHAR:
+				buffer.put(elementOffset+offset, (byte) nullValue);
+				break;
+			case FLOAT:
+			case DOUBLE:
+				accessor.putDouble(buffer, elementOffset, nullDoubleValue);
+				break;
+			default:
+				accessor.putLong(buffer, elementOffset, nullValue);
+			}
+		}
+	}
+	
+	/**
+	 * A group or a variable length field is present in a message if it is defined in the acting version 
+	 * of the message. A field in a block has to be in the block as well since a block can be 
+	 * shorter than the one defined in the schema. 
+	 * 
+	 * @param actingVersion the schema version of the message
+	 * @param blockSize the size of the block containing the field
+	 * @return true if the field is present in the message
+	 */
+	boolean isPresent(int actingVersion, int blockSize) {
+		switch( type ) {
+		case GROUP:
+		case RAW:
+		case CONSTANT:
+			return sinceVersion <= actingVersion;
+		default:
+			return sinceVersion <= actingVersion && offset + this.blockSize*arrayLength <= blockSize;
+		}
+	}
+	
 	/**
 	 * It is the size to contain one element of this object. The total storage size of this 
 	 * object is its block size multiplied by its array length.  
@@ -124,6 +359,7 @@ public class SBEField implements Field {
 	 */
 	SBEField setRelativeOffset(int offset) {
 		this.offset = offset;
+		this.accessor = null;
 		return this;
 	}
 	
@@ -136,6 +372,21 @@ public class SBEField implements Field {
 		return offset;
 	}
 	
+	/**
+	 * The accessor specialized for the type and the offset of this field. It is 
+	 * compiled upon the first request, typically when the schema is loaded. 
+	 * 
+	 * @return the accessor of this field
+	 */
+	SBEPrimitiveAccessor getAccessor() {
+		SBEPrimitiveAccessor accessor = this.accessor;
+		if( null == accessor ) {
+			accessor = SBEPrimitiveAccessor.compile(this);
+			this.accessor = accessor;
+		}
+		return accessor;
+	}
+	
 	/**
 	 * Obtain the message definition.
 	 * 
@@ -145,8 +396,26 @@ public class SBEField implements Field {
 		return this.message;
 	}
 	
-	void setEnumLookupTable(HashMap<String, String> lookupTable) {
+	void setEnumLookupTable(HashMap<String, String> lookupTable, SBEEnumTable enumTable) {
 		this.enumLookup = lookupTable;
+		this.enumTable = enumTable;
+	}
+	
+	SBEEnumTable getEnumTable() {
+		return this.enumTable;
+	}
+	
+	void setTimestamp(SBETimestamp timestamp) {
+		this.timestamp = timestamp;
+	}
+	
+	SBETimestamp getTimestamp() {
+		return this.timestamp;
+	}
+	
+	@Override
+	public boolean isTimestamp() {
+		return null != this.timestamp;
 	}
 	
 	/**
@@ -174,6 +443,33 @@ public class SBEField implements Field {
 			return this.constValue;
 	}
 	
+	/**
+	 * Return the enum name of an ordinal or throw an UnsupportedOperationException if the 
+	 * field is not an enum field. The ordinals number the valid values of the enum in the 
+	 * order of their appearance in the schema. 
+	 * 
+	 * @param ordinal the ordinal of a valid value
+	 * @return the enum name
+	 */
+	public String getEnumName(int ordinal) {
+		if( this.enumTable == null ) 
+			throw new UnsupportedOperationException("no enum conversion for type: "+this.getType());
+		return this.enumTable.getName(ordinal);
+	}
+	
+	/**
+	 * Return the ordinal of an enum name or throw an UnsupportedOperationException if the 
+	 * field is not an enum field. 
+	 * 
+	 * @param name the enum name
+	 * @return the ordinal of the enum name or -1 if the name is not defined
+	 */
+	public int getEnumOrdinal(String name) {
+		if( this.enumTable == null ) 
+			throw new UnsupportedOperationException("no enum conversion for type: "+this.getType());
+		return this.enumTable.getOrdinal(name);
+	}
+	
 	void setSetLookupTable(HashMap<String, Integer> lookupTable) {
 		this.bitLookup = lookupTable;
 	}
@@ -193,6 +489,15 @@ public class SBEField implements Field {
 		return this.bitLookup.get(bitName);
 	}
 
+	@Override
+	public long getChoiceMask(String... bitNames) {
+		long mask = 0;
+		for( String bitName : bitNames ) {
+			mask |= 1L << getSetBit(bitName);
+		}
+		return mask;
+	}
+
 	/**
 	 * Test if the field is a BitSet field
 	 * @return true if it is
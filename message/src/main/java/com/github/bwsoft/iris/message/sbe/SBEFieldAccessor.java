@@ -0,0 +1,420 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.message.sbe;
+
+import com.github.bwsoft.iris.buffer.IrisBuffer;
+import com.github.bwsoft.iris.message.Field;
+import com.github.bwsoft.iris.message.FieldAccessor;
+import com.github.bwsoft.iris.message.FieldType;
+import com.github.bwsoft.iris.message.Group;
+import com.github.bwsoft.iris.message.GroupObject;
+
+/**
+ * A resolved handle of a number field in the block of a SBE group. 
+ * 
+ * A subclass is created per number type with the offset of the field folded in. The call 
+ * site of an application usually applies one handle, so it sees one class and the JIT 
+ * inlines the get/put into straight-line code without a switch on the field type. 
+ * 
+ * @author yzhou
+ *
+ */
+abstract class SBEFieldAccessor implements FieldAccessor {
+	private final SBEField field;
+	private final SBEGroup owner;
+	private final boolean floatingPoint;
+	private final boolean safeMode;
+	protected final int offset;
+	
+	/**
+	 * Create a handle specialized for the type of a field.
+	 * 
+	 * @param owner the group whose rows contain the field
+	 * @param field the field, which can be a field of a composite field of the owner
+	 * @param index the array index
+	 * @return the handle
+	 */
+	static SBEFieldAccessor create(SBEGroup owner, SBEField field, int index) {
+		if( index < 0 || index >= field.length() ) {
+			throw new IllegalArgumentException("index, "+index+", is out of the array length of field, "+field.getID());
+		}
+		int offset = field.getRelativeOffset()+index*field.getBlockSize();
+		switch( field.getType() ) {
+		case BYTE:
+		case U8:
+			return new U8Accessor(owner, field, offset);
+		case I8:
+			return new I8Accessor(owner, field, offset);
+		case I16:
+			return new I16Accessor(owner, field, offset);
+		case U16:
+			return new U16Accessor(owner, field, offset);
+		case I32:
+			return new I32Accessor(owner, field, offset);
+		case U32:
+			return new U32Accessor(owner, field, offset);
+		case I64:
+		case U64:
+			return new I64Accessor(owner, field, offset);
+		case FLOAT:
+			return new FloatAccessor(owner, field, offset);
+		case DOUBLE:
+			return new DoubleAccessor(owner, field, offset);
+		default:
+			throw new IllegalArgumentException("field, "+field.getName()+", is not a number field");
+		}
+	}
+	
+	private SBEFieldAccessor(SBEGroup owner, SBEField field, int offset) {
+		this.owner = owner;
+		this.field = field;
+		this.offset = offset;
+		this.floatingPoint = FieldType.FLOAT == field.getType() || FieldType.DOUBLE == field.getType();
+		this.safeMode = owner.getMessage().safeMode();
+	}
+	
+	/**
+	 * @return the value widened to a long. A floating point value is truncated.
+	 */
+	abstract long readLong(IrisBuffer buffer, int valueOffset);
+
+	/**
+	 * Set the value from a long. The value is narrowed to the field type.
+	 */
+	abstract void writeLong(IrisBuffer buffer, int valueOffset, long value);
+
+	abstract double readDouble(IrisBuffer buffer, int valueOffset);
+
+	abstract void writeDouble(IrisBuffer buffer, int valueOffset, double value);
+	
+	private SBEObject validate(GroupObject obj) {
+		SBEObject sobj = SBEMessageFlyweight.toSBEObject(obj);
+		if( safeMode && sobj.getDefinition() != owner ) {
+			throw new IllegalArgumentException("field, "+field.getID()+", does not belong to the group, "+sobj.getDefinition().getID());
+		}
+		return sobj;
+	}
+
+	private boolean isAbsent(SBEObject sobj) {
+		return ! field.isPresent(sobj.getArray().getParser().getActingVersion(), sobj.getBlockSize());
+	}
+	
+	private void checkPresent(SBEObject sobj) {
+		if( isAbsent(sobj) ) {
+			throw new IllegalStateException("field, "+field.getID()+", is absent in the acting version, "+sobj.getArray().getParser().getActingVersion()+", of the message");
+		}
+	}
+
+	@Override
+	public final Field getField() {
+		return field;
+	}
+
+	@Override
+	public final Group getOwner() {
+		return owner;
+	}
+
+	@Override
+	public final long getLong(GroupObject obj) {
+		SBEObject sobj = validate(obj);
+		if( isAbsent(sobj) ) {
+			return field.getNullValue();
+		}
+		return readLong(sobj.getArray().getBuffer(), sobj.getValueOffset());
+	}
+
+	@Override
+	public final void putLong(GroupObject obj, long value) {
+		SBEObject sobj = validate(obj);
+		checkPresent(sobj);
+		writeLong(sobj.getArray().getBuffer(), sobj.getValueOffset(), value);
+	}
+
+	@Override
+	public final double getDouble(GroupObject obj) {
+		SBEObject sobj = validate(obj);
+		if( isAbsent(sobj) ) {
+			return floatingPoint ? field.getNullDoubleValue() : field.getNullValue();
+		}
+		return readDouble(sobj.getArray().getBuffer(), sobj.getValueOffset());
+	}
+
+	@Override
+	public final void putDouble(GroupObject obj, double value) {
+		SBEObject sobj = validate(obj);
+		checkPresent(sobj);
+		writeDouble(sobj.getArray().getBuffer(), sobj.getValueOffset(), value);
+	}
+
+	@Override
+	public final boolean isNull(GroupObject obj) {
+		SBEObject sobj = validate(obj);
+		if( isAbsent(sobj) ) {
+			return true;
+		} else if( floatingPoint ) {
+			double value = readDouble(sobj.getArray().getBuffer(), sobj.getValueOffset());
+			return Double.isNaN(field.getNullDoubleValue()) ? Double.isNaN(value) : value == field.getNullDoubleValue();
+		} else {
+			return field.getNullValue() == readLong(sobj.getArray().getBuffer(), sobj.getValueOffset());
+		}
+	}
+
+	@Override
+	public final void setNull(GroupObject obj) {
+		SBEObject sobj = validate(obj);
+		checkPresent(sobj);
+		if( floatingPoint ) {
+			writeDouble(sobj.getArray().getBuffer(), sobj.getValueOffset(), field.getNullDoubleValue());
+		} else {
+			writeLong(sobj.getArray().getBuffer(), sobj.getValueOffset(), field.getNullValue());
+		}
+	}
+
+	static final class U8Accessor extends SBEFieldAccessor {
+		U8Accessor(SBEGroup owner, SBEField field, int offset) {
+			super(owner, field, offset);
+		}
+
+		@Override
+		long readLong(IrisBuffer buffer, int valueOffset) {
+			return 0xff & buffer.get(valueOffset+offset);
+		}
+
+		@Override
+		void writeLong(IrisBuffer buffer, int valueOffset, long value) {
+			buffer.put(valueOffset+offset, (byte) value);
+		}
+
+		@Override
+		double readDouble(IrisBuffer buffer, int valueOffset) {
+			return 0xff & buffer.get(valueOffset+offset);
+		}
+
+		@Override
+		void writeDouble(IrisBuffer buffer, int valueOffset, double value) {
+			buffer.put(valueOffset+offset, (byte) value);
+		}
+	}
+
+	static final class I8Accessor extends SBEFieldAccessor {
+		I8Accessor(SBEGroup owner, SBEField field, int offset) {
+			super(owner, field, offset);
+		}
+
+		@Override
+		long readLong(IrisBuffer buffer, int valueOffset) {
+			return buffer.get(valueOffset+offset);
+		}
+
+		@Override
+		void writeLong(IrisBuffer buffer, int valueOffset, long value) {
+			buffer.put(valueOffset+offset, (byte) value);
+		}
+
+		@Override
+		double readDouble(IrisBuffer buffer, int valueOffset) {
+			return buffer.get(valueOffset+offset);
+		}
+
+		@Override
+		void writeDouble(IrisBuffer buffer, int valueOffset, double value) {
+			buffer.put(valueOffset+offset, (byte) value);
+		}
+	}
+
+	static final class I16Accessor extends SBEFieldAccessor {
+		I16Accessor(SBEGroup owner, SBEField field, int offset) {
+			super(owner, field, offset);
+		}
+
+		@Override
+		long readLong(IrisBuffer buffer, int valueOffset) {
+			return buffer.getShort(valueOffset+offset);
+		}
+
+		@Override
+		void writeLong(IrisBuffer buffer, int valueOffset, long value) {
+			buffer.putShort(valueOffset+offset, (short) value);
+		}
+
+		@Override
+		double readDouble(IrisBuffer buffer, int valueOffset) {
+			return buffer.getShort(valueOffset+offset);
+		}
+
+		@Override
+		void writeDouble(IrisBuffer buffer, int valueOffset, double value) {
+			buffer.putShort(valueOffset+offset, (short) value);
+		}
+	}
+
+	static final class U16Accessor extends SBEFieldAccessor {
+		U16Accessor(SBEGroup owner, SBEField field, int offset) {
+			super(owner, field, offset);
+		}
+
+		@Override
+		long readLong(IrisBuffer buffer, int valueOffset) {
+			return 0xffff & buffer.getShort(valueOffset+offset);
+		}
+
+		@Override
+		void writeLong(IrisBuffer buffer, int valueOffset, long value) {
+			buffer.putShort(valueOffset+offset, (short) value);
+		}
+
+		@Override
+		double readDouble(IrisBuffer buffer, int valueOffset) {
+			return 0xffff & buffer.getShort(valueOffset+offset);
+		}
+
+		@Override
+		void writeDouble(IrisBuffer buffer, int valueOffset, double value) {
+			buffer.putShort(valueOffset+offset, (short) (int) value);
+		}
+	}
+
+	static final class I32Accessor extends SBEFieldAccessor {
+		I32Accessor(SBEGroup owner, SBEField field, int offset) {
+			super(owner, field, offset);
+		}
+
+		@Override
+		long readLong(IrisBuffer buffer, int valueOffset) {
+			return buffer.getInt(valueOffset+offset);
+		}
+
+		@Override
+		void writeLong(IrisBuffer buffer, int valueOffset, long value) {
+			buffer.putInt(valueOffset+offset, (int) value);
+		}
+
+		@Override
+		double readDouble(IrisBuffer buffer, int valueOffset) {
+			return buffer.getInt(valueOffset+offset);
+		}
+
+		@Override
+		void writeDouble(IrisBuffer buffer, int valueOffset, double value) {
+			buffer.putInt(valueOffset+offset, (int) value);
+		}
+	}
+
+	static final class U32Accessor extends SBEFieldAccessor {
+		U32Accessor(SBEGroup owner, SBEField field, int offset) {
+			super(owner, field, offset);
+		}
+
+		@Override
+		long readLong(IrisBuffer buffer, int valueOffset) {
+			return 0xffffffffL & buffer.getInt(valueOffset+offset);
+		}
+
+		@Override
+		void writeLong(IrisBuffer buffer, int valueOffset, long value) {
+			buffer.putInt(valueOffset+offset, (int) value);
+		}
+
+		@Override
+		double readDouble(IrisBuffer buffer, int valueOffset) {
+			return 0xffffffffL & buffer.getInt(valueOffset+offset);
+		}
+
+		@Override
+		void writeDouble(IrisBuffer buffer, int valueOffset, double value) {
+			buffer.putInt(valueOffset+offset, (int) (long) value);
+		}
+	}
+
+	static final class I64Accessor extends SBEFieldAccessor {
+		I64Accessor(SBEGroup owner, SBEField field, int offset) {
+			super(owner, field, offset);
+		}
+
+		@Override
+		long readLong(IrisBuffer buffer, int valueOffset) {
+			return buffer.getLong(valueOffset+offset);
+		}
+
+		@Override
+		void writeLong(IrisBuffer buffer, int valueOffset, long value) {
+			buffer.putLong(valueOffset+offset, value);
+		}
+
+		@Override
+		double readDouble(IrisBuffer buffer, int valueOffset) {
+			return buffer.getLong(valueOffset+offset);
+		}
+
+		@Override
+		void writeDouble(IrisBuffer buffer, int valueOffset, double value) {
+			buffer.putLong(valueOffset+offset, (long) value);
+		}
+	}
+
+	static final class FloatAccessor extends SBEFieldAccessor {
+		FloatAccessor(SBEGroup owner, SBEField field, int offset) {
+			super(owner, field, offset);
+		}
+
+		@Override
+		long readLong(IrisBuffer buffer, int valueOffset) {
+			return (long) buffer.getFloat(valueOffset+offset);
+		}
+
+		@Override
+		void writeLong(IrisBuffer buffer, int valueOffset, long value) {
+			buffer.putFloat(valueOffset+offset, value);
+		}
+
+		@Override
+		double readDouble(IrisBuffer buffer, int valueOffset) {
+			return buffer.getFloat(valueOffset+offset);
+		}
+
+		@Override
+		void writeDouble(IrisBuffer buffer, int valueOffset, double value) {
+			buffer.putFloat(valueOffset+offset, (float) value);
+		}
+	}
+
+	static final class DoubleAccessor extends SBEFieldAccessor {
+		DoubleAccessor(SBEGroup owner, SBEField field, int offset) {
+			super(owner, field, offset);
+		}
+
+		@Override
+		long readLong(IrisBuffer buffer, int valueOffset) {
+			return (long) buffer.getDouble(valueOffset+offset);
+		}
+
+		@Override
+		void writeLong(IrisBuffer buffer, int valueOffset, long value) {
+			buffer.putDouble(valueOffset+offset, value);
+		}
+
+		@Override
+		double readDouble(IrisBuffer buffer, int valueOffset) {
+			return buffer.getDouble(valueOffset+offset);
+		}
+
+		@Override
+		void writeDouble(IrisBuffer buffer, int valueOffset, double value) {
+			buffer.putDouble(valueOffset+offset, value);
+		}
+	}
+}
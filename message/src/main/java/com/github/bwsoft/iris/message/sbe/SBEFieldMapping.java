@@ -0,0 +1,300 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.message.sbe;
+
+import com.github.bwsoft.iris.buffer.IrisBuffer;
+import com.github.bwsoft.iris.message.Field;
+import com.github.bwsoft.iris.message.FieldMapping;
+import com.github.bwsoft.iris.message.FieldType;
+import com.github.bwsoft.iris.message.Group;
+import com.github.bwsoft.iris.message.GroupObject;
+import com.github.bwsoft.iris.message.GroupObjectArray;
+
+/**
+ * A mapping compiled into block copies, conversions and the mappings of nested groups. 
+ * 
+ * @author yzhou
+ *
+ */
+final class SBEFieldMapping implements FieldMapping {
+	private final SBEGroup source;
+	private final SBEGroup target;
+	private final BlockCopy[] copies;
+	private final Conversion[] conversions;
+	private final SBEVarLengthField[] sourceVars;
+	private final SBEVarLengthField[] targetVars;
+	private final SBEGroup[] sourceGroups;
+	private final SBEGroup[] targetGroups;
+	private final SBEFieldMapping[] groupMappings;
+	
+	/**
+	 * Copy a run of bytes in the block. The target fields are set to null when the source 
+	 * block does not contain the run, e.g. the source is encoded in an earlier version. 
+	 * A target that is not in the target block is skipped. 
+	 */
+	static final class BlockCopy {
+		final int sourceOffset;
+		final int targetOffset;
+		final int length;
+		final int fillLength;
+		final SBEField[] targets;
+		
+		/**
+		 * @param fillLength the number of bytes after the run in the target that are set to zero
+		 */
+		BlockCopy(int sourceOffset, int targetOffset, int length, int fillLength, SBEField[] targets) {
+			this.sourceOffset = sourceOffset;
+			this.targetOffset = targetOffset;
+			this.length = length;
+			this.fillLength = fillLength;
+			this.targets = targets;
+		}
+		
+		void apply(IrisBuffer sourceBuffer, int sourceValueOffset, int sourceBlockSize, IrisBuffer targetBuffer, int targetValueOffset, int targetBlockSize) {
+			if( targetOffset + length + fillLength > targetBlockSize ) {
+				return;
+			} else if( sourceOffset + length <= sourceBlockSize ) {
+				sourceBuffer.getBytes(sourceValueOffset+sourceOffset, targetBuffer, targetValueOffset+targetOffset, length);
+				if( fillLength > 0 ) {
+					targetBuffer.setMemory(targetValueOffset+targetOffset+length, fillLength, (byte) 0);
+				}
+			} else {
+				for( SBEField field : targets ) {
+					putNull(field, targetBuffer, targetValueOffset);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Convert a number field element by element. A null value of an optional source is converted 
+	 * to the null value of the target. A value that the target cannot hold, e.g. a fraction or 
+	 * a value out of the range of an integer target, fails the conversion with an ArithmeticException. 
+	 */
+	static final class Conversion {
+		// 2^63, the smallest U64 value whose bits are a negative long
+		private static final double TWO_POW_63 = 0x1p63;
+		private static final double TWO_POW_64 = 0x1p64;
+		
+		private final SBEField sourceField;
+		private final SBEField targetField;
+		private final SBEPrimitiveAccessor[] sourceAccessors;
+		private final SBEPrimitiveAccessor[] targetAccessors;
+		private final boolean sourceFloatingPoint;
+		private final boolean targetFloatingPoint;
+		private final boolean sourceOptional;
+		// a U64 holds the bits of an unsigned value in a long, which is out of the range of other types if negative
+		private final boolean signMismatch;
+		private final boolean sourceUnsigned64;
+		private final boolean targetUnsigned64;
+		private final int sourceEnd;
+		private final int targetEnd;
+		
+		Conversion(SBEField sourceField, SBEField targetField) {
+			this.sourceField = sourceField;
+			this.targetField = targetField;
+			int length = sourceField.length();
+			this.sourceAccessors = new SBEPrimitiveAccessor[length];
+			this.targetAccessors = new SBEPrimitiveAccessor[length];
+			for( int i = 0; i < length; i ++ ) {
+				sourceAccessors[i] = SBEPrimitiveAccessor.compile(sourceField.getType(), sourceField.getRelativeOffset()+i*sourceField.getBlockSize());
+				targetAccessors[i] = SBEPrimitiveAccessor.compile(targetField.getType(), targetField.getRelativeOffset()+i*targetField.getBlockSize());
+				if( sourceAccessors[i] instanceof SBEPrimitiveAccessor.NotANumberAccessor || 
+						targetAccessors[i] instanceof SBEPrimitiveAccessor.NotANumberAccessor ) {
+					throw new IllegalArgumentException("field, "+sourceField.getName()+", cannot be converted to field, "+targetField.getName());
+				}
+			}
+			this.sourceFloatingPoint = isFloatingPoint(sourceField.getType());
+			this.targetFloatingPoint = isFloatingPoint(targetField.getType());
+			this.sourceOptional = sourceField.isOptional();
+			this.sourceUnsigned64 = FieldType.U64 == sourceField.getType();
+			this.targetUnsigned64 = FieldType.U64 == targetField.getType();
+			this.signMismatch = sourceUnsigned64 != targetUnsigned64;
+			this.sourceEnd = sourceField.getRelativeOffset() + sourceField.getBlockSize()*length;
+			this.targetEnd = targetField.getRelativeOffset() + targetField.getBlockSize()*length;
+		}
+		
+		private static boolean isFloatingPoint(FieldType type) {
+			return FieldType.FLOAT == type || FieldType.DOUBLE == type;
+		}
+		
+		void apply(IrisBuffer sourceBuffer, int sourceValueOffset, int sourceBlockSize, IrisBuffer targetBuffer, int targetValueOffset, int targetBlockSize) {
+			if( targetEnd > targetBlockSize ) {
+				return;
+			} else if( sourceEnd > sourceBlockSize ) {
+				targetField.putNull(targetBuffer, targetValueOffset);
+				return;
+			}
+			
+			for( int i = 0; i < sourceAccessors.length; i ++ ) {
+				SBEPrimitiveAccessor targetAccessor = targetAccessors[i];
+				if( sourceFloatingPoint ) {
+					double value = sourceAccessors[i].getDouble(sourceBuffer, sourceValueOffset);
+					if( targetFloatingPoint ) {
+						if( FieldType.FLOAT == targetField.getType() && Math.abs(value) > Float.MAX_VALUE && ! Double.isInfinite(value) ) {
+							throw overflow(value);
+						}
+						targetAccessor.putDouble(targetBuffer, targetValueOffset, value);
+					} else if( sourceOptional && Double.isNaN(value) ) {
+						targetAccessor.putLong(targetBuffer, targetValueOffset, targetField.getNullValue());
+					} else if( targetUnsigned64 && value >= TWO_POW_63 ) {
+						// a cast to long saturates at 2^63-1. The value is shifted into the range of a long 
+						// and the sign bit is set for 2^63. A double of this magnitude has no fraction.
+						if( value >= TWO_POW_64 ) {
+							throw overflow(value);
+						}
+						targetAccessor.putLong(targetBuffer, targetValueOffset, (long) (value - TWO_POW_63) | Long.MIN_VALUE);
+					} else {
+						long integer = (long) value;
+						if( integer != value || value >= TWO_POW_63 || ! targetField.isInRange(integer) || (signMismatch && integer < 0) ) {
+							throw overflow(value);
+						}
+						targetAccessor.putLong(targetBuffer, targetValueOffset, integer);
+					}
+				} else {
+					long value = sourceAccessors[i].getLong(sourceBuffer, sourceValueOffset);
+					if( sourceOptional && value == sourceField.getNullValue() ) {
+						if( targetFloatingPoint ) {
+							targetAccessor.putDouble(targetBuffer, targetValueOffset, targetField.getNullDoubleValue());
+						} else {
+							targetAccessor.putLong(targetBuffer, targetValueOffset, targetField.getNullValue());
+						}
+					} else if( targetFloatingPoint ) {
+						// a U64 at or above 2^63 is a negative long. It is halved to convert without the sign.
+						double converted = sourceUnsigned64 && value < 0 ? (value >>> 1) * 2.0 + (value & 1) : value;
+						targetAccessor.putDouble(targetBuffer, targetValueOffset, converted);
+					} else if( ! targetField.isInRange(value) || (signMismatch && value < 0) ) {
+						throw overflow(FieldType.U64 == sourceField.getType() ? Long.toUnsignedString(value) : value);
+					} else {
+						targetAccessor.putLong(targetBuffer, targetValueOffset, value);
+					}
+				}
+			}
+		}
+		
+		private ArithmeticException overflow(Object value) {
+			return new ArithmeticException("value, "+value+", of field, "+sourceField.getName()+", cannot be converted to field, "+targetField.getName());
+		}
+	}
+	
+	SBEFieldMapping(SBEGroup source, SBEGroup target, BlockCopy[] copies, Conversion[] conversions, 
+			SBEVarLengthField[] sourceVars, SBEVarLengthField[] targetVars, 
+			SBEGroup[] sourceGroups, SBEGroup[] targetGroups, SBEFieldMapping[] groupMappings) {
+		this.source = source;
+		this.target = target;
+		this.copies = copies;
+		this.conversions = conversions;
+		this.sourceVars = sourceVars;
+		this.targetVars = targetVars;
+		this.sourceGroups = sourceGroups;
+		this.targetGroups = targetGroups;
+		this.groupMappings = groupMappings;
+	}
+	
+	/**
+	 * Set a field to null. The elements of a composite field are set to null one by one. 
+	 */
+	static void putNull(SBEField field, IrisBuffer buffer, int valueOffset) {
+		switch( field.getType() ) {
+		case COMPOSITE:
+			for( Field child : ((SBECompositeField) field).getFields() ) {
+				putNull((SBEField) child, buffer, valueOffset);
+			}
+			break;
+		case CONSTANT:
+			break;
+		default:
+			field.putNull(buffer, valueOffset);
+		}
+	}
+
+	@Override
+	public Group getSource() {
+		return source;
+	}
+
+	@Override
+	public Group getTarget() {
+		return target;
+	}
+	
+	/**
+	 * @return the number of block copies after adjacent fields are merged
+	 */
+	int getNumOfCopies() {
+		return copies.length;
+	}
+
+	@Override
+	public void apply(GroupObject source, GroupObject target) {
+		SBEObject sourceRow = SBEMessageFlyweight.toSBEObject(source);
+		SBEObject targetRow = SBEMessageFlyweight.toSBEObject(target);
+		if( sourceRow.getDefinition() != this.source || targetRow.getDefinition() != this.target ) {
+			throw new IllegalArgumentException("the mapping is compiled from group, "+this.source.getName()+", to group, "+this.target.getName());
+		}
+		apply(sourceRow, targetRow);
+	}
+	
+	private void apply(SBEObject sourceRow, SBEObject targetRow) {
+		IrisBuffer sourceBuffer = sourceRow.getArray().getBuffer();
+		int sourceValueOffset = sourceRow.getValueOffset();
+		int sourceBlockSize = sourceRow.getBlockSize();
+		IrisBuffer targetBuffer = targetRow.getArray().getBuffer();
+		int targetValueOffset = targetRow.getValueOffset();
+		int targetBlockSize = targetRow.getBlockSize();
+		
+		for( BlockCopy copy : copies ) {
+			copy.apply(sourceBuffer, sourceValueOffset, sourceBlockSize, targetBuffer, targetValueOffset, targetBlockSize);
+		}
+		for( Conversion conversion : conversions ) {
+			conversion.apply(sourceBuffer, sourceValueOffset, sourceBlockSize, targetBuffer, targetValueOffset, targetBlockSize);
+		}
+		
+		// resize the target groups before their rows are mapped
+		for( int i = 0; i < groupMappings.length; i ++ ) {
+			GroupObjectArray sourceRows = sourceRow.getChildObject(sourceGroups[i].getID());
+			GroupObjectArray targetRows = targetRow.getGroupArray(targetGroups[i]);
+			if( null == targetRows ) {
+				continue;
+			}
+			int n = null == sourceRows ? 0 : sourceRows.getNumOfGroups();
+			int m = targetRows.getNumOfGroups();
+			if( m < n ) {
+				targetRows.addGroupObjects(n-m);
+			} else if( m > n ) {
+				targetRows.deleteGroupObjects(n, m);
+			}
+			for( int j = 0; j < n; j ++ ) {
+				groupMappings[i].apply((SBEObject) sourceRows.getGroupObject(j), (SBEObject) targetRows.getGroupObject(j));
+			}
+		}
+		
+		// resize the target variable length fields and copy their bytes
+		for( int i = 0; i < sourceVars.length; i ++ ) {
+			SBEObjectArray sourceVar = sourceRow.getChildObject(sourceVars[i].getID());
+			SBEObjectArray targetVar = targetRow.getChildObject(targetVars[i].getID());
+			if( null == targetVar ) {
+				continue;
+			}
+			SBEObject sourceData = null == sourceVar ? null : (SBEObject) sourceVar.getGroupObject(0);
+			int length = null == sourceData ? 0 : sourceData.getSize();
+			SBEObject targetData = (SBEObject) targetVar.adjustRawGroupSize(length);
+			if( length > 0 ) {
+				sourceBuffer.getBytes(sourceData.getValueOffset(), targetBuffer, targetData.getValueOffset(), length);
+			}
+		}
+	}
+}
@@ -0,0 +1,382 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.message.sbe;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import com.github.bwsoft.iris.message.Field;
+import com.github.bwsoft.iris.message.FieldMapping;
+import com.github.bwsoft.iris.message.FieldType;
+import com.github.bwsoft.iris.message.Group;
+
+/**
+ * Declare the fields to be copied from one group to another and compile them into a {@link FieldMapping}. 
+ * A field is identified by its name path through groups and composite fields, e.g. price, 
+ * engine.capacity or fuelFigures.speed. A path through groups maps the rows of the source group 
+ * to the rows of the target group, which has to be at the same depth. A mapped group maps all 
+ * fields of the same name in the two groups. 
+ * 
+ * <pre>
+ * {@code
+ *     FieldMapping mapping = new SBEFieldMappingBuilder(newOrderSingle, executionReport)
+ *         .map("clOrdId")
+ *         .map("price", "lastPx")
+ *         .map("legs.quantity", "fills.lastQty")
+ *         .compile();
+ *     ...
+ *     mapping.apply(order, report);
+ * }
+ * </pre>
+ * 
+ * Two fields are copied as bytes if they are of the same type and the same length, and 
+ * their messages are of the same byte order. Fields copied as bytes are merged into one 
+ * copy if they are adjacent in both groups. A char or a byte array can be copied to an array 
+ * of another length. It is truncated or padded with zero. Number fields of different types 
+ * are converted. A value that does not fit the target type, e.g. a fraction mapped to an 
+ * integer or an int64 mapped to an uint8, fails the mapping with an ArithmeticException 
+ * when it is applied. Composite fields of different layouts are mapped element by element. 
+ * 
+ * @author yzhou
+ *
+ */
+public final class SBEFieldMappingBuilder {
+	private final Node root;
+	
+	/**
+	 * The fields mapped from the rows of a source group to the rows of a target group.
+	 */
+	private static final class Node {
+		final SBEGroup source;
+		final SBEGroup target;
+		final List<SBEField[]> pairs = new ArrayList<>();
+		final List<Node> children = new ArrayList<>();
+		final Set<Field> targets = Collections.newSetFromMap(new IdentityHashMap<Field, Boolean>());
+		
+		Node(SBEGroup source, SBEGroup target) {
+			this.source = source;
+			this.target = target;
+		}
+		
+		Node getChild(SBEGroup source, SBEGroup target) {
+			for( Node child : children ) {
+				if( child.source == source && child.target == target ) {
+					return child;
+				} else if( child.target == target ) {
+					throw new IllegalArgumentException("group, "+target.getName()+", is mapped from more than one group");
+				}
+			}
+			Node child = new Node(source, target);
+			children.add(child);
+			return child;
+		}
+		
+		void add(SBEField source, SBEField target) {
+			if( ! targets.add(target) ) {
+				throw new IllegalArgumentException("field, "+target.getName()+", is mapped more than once");
+			}
+			pairs.add(new SBEField[] {source, target});
+		}
+	}
+	
+	/**
+	 * A run of bytes to be copied. Adjacent runs are merged before they are compiled.
+	 */
+	private static final class Run {
+		final int sourceOffset;
+		final int targetOffset;
+		int length;
+		int fillLength;
+		final List<SBEField> targets = new ArrayList<>();
+		final int sourceVersion;
+		final int targetVersion;
+		
+		Run(SBEField source, SBEField target, int length, int fillLength) {
+			this.sourceOffset = source.getRelativeOffset();
+			this.targetOffset = target.getRelativeOffset();
+			this.length = length;
+			this.fillLength = fillLength;
+			this.targets.add(target);
+			this.sourceVersion = source.getSinceVersion();
+			this.targetVersion = target.getSinceVersion();
+		}
+		
+		boolean merge(Run next) {
+			if( fillLength == 0 && sourceOffset + length == next.sourceOffset && targetOffset + length == next.targetOffset &&
+					sourceVersion == next.sourceVersion && targetVersion == next.targetVersion ) {
+				length += next.length;
+				fillLength = next.fillLength;
+				targets.addAll(next.targets);
+				return true;
+			}
+			return false;
+		}
+	}
+	
+	/**
+	 * @param source the group to copy fields from, e.g. a message definition
+	 * @param target the group to copy fields to
+	 */
+	public SBEFieldMappingBuilder(Group source, Group target) {
+		if( ! (source instanceof SBEGroup) || ! (target instanceof SBEGroup) ) {
+			throw new IllegalArgumentException("a mapping can only be built between SBE groups");
+		}
+		this.root = new Node((SBEGroup) source, (SBEGroup) target);
+	}
+	
+	/**
+	 * Map a field to the field of the same path in the target group.
+	 * 
+	 * @param path the name path of the field
+	 * @return this builder
+	 * @throws IllegalArgumentException if the path cannot be resolved in either group
+	 */
+	public SBEFieldMappingBuilder map(String path) {
+		return map(path, path);
+	}
+	
+	/**
+	 * Map a field of the source group to a field of the target group.
+	 * 
+	 * @param sourcePath the name path of the field in the source group
+	 * @param targetPath the name path of the field in the target group
+	 * @return this builder
+	 * @throws IllegalArgumentException if a path cannot be resolved, if the paths go through 
+	 * different numbers of groups, or if the target is already mapped
+	 */
+	public SBEFieldMappingBuilder map(String sourcePath, String targetPath) {
+		List<SBEField> sourceFields = resolve(root.source, sourcePath);
+		List<SBEField> targetFields = resolve(root.target, targetPath);
+		if( sourceFields.size() != targetFields.size() ) {
+			throw new IllegalArgumentException("path, "+sourcePath+", and path, "+targetPath+", are not in groups of the same depth");
+		}
+		
+		Node node = root;
+		int last = sourceFields.size()-1;
+		for( int i = 0; i < last; i ++ ) {
+			node = node.getChild((SBEGroup) sourceFields.get(i), (SBEGroup) targetFields.get(i));
+		}
+		
+		SBEField source = sourceFields.get(last);
+		SBEField target = targetFields.get(last);
+		if( FieldType.GROUP == source.getType() && FieldType.GROUP == target.getType() ) {
+			mapByName(node.getChild((SBEGroup) source, (SBEGroup) target));
+		} else if( FieldType.GROUP == source.getType() || FieldType.GROUP == target.getType() ) {
+			throw new IllegalArgumentException("a group cannot be mapped to a field other than a group, "+sourcePath+" to "+targetPath);
+		} else {
+			node.add(source, target);
+		}
+		return this;
+	}
+	
+	/**
+	 * Map all fields of the same name in the groups of a node. 
+	 */
+	private static void mapByName(Node node) {
+		for( Field field : node.source.getFields() ) {
+			Field target = node.target.getField(field.getName());
+			if( null == target || FieldType.CONSTANT == field.getType() || FieldType.CONSTANT == target.getType() ) {
+				continue;
+			} else if( FieldType.GROUP == field.getType() && FieldType.GROUP == target.getType() ) {
+				mapByName(node.getChild((SBEGroup) field, (SBEGroup) target));
+			} else if( FieldType.GROUP != field.getType() && FieldType.GROUP != target.getType() && ! node.targets.contains(target) ) {
+				node.add((SBEField) field, (SBEField) target);
+			}
+		}
+	}
+	
+	/**
+	 * Resolve a path into the groups it goes through followed by the field. A composite child 
+	 * can have a dot in its name. The longest name is tried first. 
+	 */
+	private static List<SBEField> resolve(SBEGroup group, String path) {
+		List<SBEField> fields = new ArrayList<>();
+		Group container = group;
+		String remaining = path;
+		while( true ) {
+			Field field = null;
+			int end = remaining.length();
+			for( ; end > 0; end = remaining.lastIndexOf('.', end-1) ) {
+				field = container.getField(remaining.substring(0, end));
+				if( null != field ) 
+					break;
+			}
+			if( null == field ) {
+				throw new IllegalArgumentException("path, "+path+", cannot be resolved in group, "+group.getName());
+			}
+			
+			if( end == remaining.length() ) {
+				fields.add((SBEField) field);
+				return fields;
+			}
+			
+			remaining = remaining.substring(end+1);
+			if( FieldType.GROUP == field.getType() ) {
+				fields.add((SBEField) field);
+				container = (Group) field;
+			} else if( FieldType.COMPOSITE == field.getType() ) {
+				container = (Group) field;
+			} else {
+				throw new IllegalArgumentException("field, "+field.getName()+", in path, "+path+", is not a group or a composite field");
+			}
+		}
+	}
+	
+	/**
+	 * Compile the declared fields. 
+	 * 
+	 * @return the compiled mapping
+	 * @throws IllegalArgumentException if a pair of fields cannot be mapped
+	 */
+	public FieldMapping compile() {
+		return compile(root);
+	}
+	
+	private static SBEFieldMapping compile(Node node) {
+		List<Run> runs = new ArrayList<>();
+		List<SBEFieldMapping.Conversion> conversions = new ArrayList<>();
+		List<SBEVarLengthField> sourceVars = new ArrayList<>();
+		List<SBEVarLengthField> targetVars = new ArrayList<>();
+		for( SBEField[] pair : node.pairs ) {
+			if( FieldType.RAW == pair[0].getType() || FieldType.RAW == pair[1].getType() ) {
+				if( pair[0].getType() != pair[1].getType() ) {
+					throw incompatible(pair[0], pair[1]);
+				}
+				sourceVars.add((SBEVarLengthField) pair[0]);
+				targetVars.add((SBEVarLengthField) pair[1]);
+			} else {
+				compileField(pair[0], pair[1], runs, conversions);
+			}
+		}
+		
+		// merge the adjacent runs
+		Collections.sort(runs, Comparator.comparingInt((Run run) -> run.sourceOffset));
+		List<SBEFieldMapping.BlockCopy> copies = new ArrayList<>();
+		Run current = null;
+		for( Run run : runs ) {
+			if( null != current && current.merge(run) ) {
+				continue;
+			}
+			if( null != current ) {
+				copies.add(toBlockCopy(current));
+			}
+			current = run;
+		}
+		if( null != current ) {
+			copies.add(toBlockCopy(current));
+		}
+		
+		int n = node.children.size();
+		SBEGroup[] sourceGroups = new SBEGroup[n];
+		SBEGroup[] targetGroups = new SBEGroup[n];
+		SBEFieldMapping[] groupMappings = new SBEFieldMapping[n];
+		for( int i = 0; i < n; i ++ ) {
+			Node child = node.children.get(i);
+			sourceGroups[i] = child.source;
+			targetGroups[i] = child.target;
+			groupMappings[i] = compile(child);
+		}
+		
+		return new SBEFieldMapping(node.source, node.target, 
+				copies.toArray(new SBEFieldMapping.BlockCopy[copies.size()]), 
+				conversions.toArray(new SBEFieldMapping.Conversion[conversions.size()]), 
+				sourceVars.toArray(new SBEVarLengthField[sourceVars.size()]), 
+				targetVars.toArray(new SBEVarLengthField[targetVars.size()]), 
+				sourceGroups, targetGroups, groupMappings);
+	}
+	
+	private static SBEFieldMapping.BlockCopy toBlockCopy(Run run) {
+		return new SBEFieldMapping.BlockCopy(run.sourceOffset, run.targetOffset, run.length, run.fillLength, 
+				run.targets.toArray(new SBEField[run.targets.size()]));
+	}
+	
+	private static void compileField(SBEField source, SBEField target, List<Run> runs, List<SBEFieldMapping.Conversion> conversions) {
+		FieldType sourceType = source.getType();
+		FieldType targetType = target.getType();
+		if( FieldType.CONSTANT == sourceType || FieldType.CONSTANT == targetType ) {
+			throw new IllegalArgumentException("constant field cannot be mapped, "+source.getName()+" to "+target.getName());
+		}
+		boolean sameOrder = source.getMessage().getByteOrder() == target.getMessage().getByteOrder();
+		
+		if( FieldType.COMPOSITE == sourceType || FieldType.COMPOSITE == targetType ) {
+			if( sourceType != targetType ) {
+				throw incompatible(source, target);
+			} else if( sameOrder && sameLayout(source, target) ) {
+				runs.add(new Run(source, target, source.getBlockSize()*source.length(), 0));
+				return;
+			}
+			
+			// map the elements one by one
+			List<Field> sourceElements = ((SBECompositeField) source).getFields();
+			List<Field> targetElements = ((SBECompositeField) target).getFields();
+			if( source.length() != 1 || target.length() != 1 || sourceElements.size() != targetElements.size() ) {
+				throw incompatible(source, target);
+			}
+			for( int i = 0; i < sourceElements.size(); i ++ ) {
+				SBEField sourceElement = (SBEField) sourceElements.get(i);
+				SBEField targetElement = (SBEField) targetElements.get(i);
+				if( FieldType.CONSTANT != sourceElement.getType() || FieldType.CONSTANT != targetElement.getType() ) {
+					compileField(sourceElement, targetElement, runs, conversions);
+				}
+			}
+		} else if( sourceType == targetType && ( sameOrder || sourceType.size() == 1 ) ) {
+			if( source.length() == target.length() ) {
+				runs.add(new Run(source, target, source.getBlockSize()*source.length(), 0));
+			} else if( sourceType.size() == 1 ) {
+				int length = Math.min(source.length(), target.length());
+				runs.add(new Run(source, target, length, target.length()-length));
+			} else {
+				throw incompatible(source, target);
+			}
+		} else if( source.length() == target.length() ) {
+			conversions.add(new SBEFieldMapping.Conversion(source, target));
+		} else {
+			throw incompatible(source, target);
+		}
+	}
+	
+	/**
+	 * Two fields of the same layout can be copied as bytes. 
+	 */
+	private static boolean sameLayout(SBEField source, SBEField target) {
+		if( source.getType() != target.getType() || source.length() != target.length() || source.getBlockSize() != target.getBlockSize() ) {
+			return false;
+		} else if( FieldType.COMPOSITE == source.getType() ) {
+			List<Field> sourceElements = ((SBECompositeField) source).getFields();
+			List<Field> targetElements = ((SBECompositeField) target).getFields();
+			if( sourceElements.size() != targetElements.size() ) {
+				return false;
+			}
+			for( int i = 0; i < sourceElements.size(); i ++ ) {
+				SBEField sourceElement = (SBEField) sourceElements.get(i);
+				SBEField targetElement = (SBEField) targetElements.get(i);
+				if( ! sameLayout(sourceElement, targetElement) || 
+						sourceElement.getRelativeOffset() - source.getRelativeOffset() != targetElement.getRelativeOffset() - target.getRelativeOffset() ) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+	
+	private static IllegalArgumentException incompatible(SBEField source, SBEField target) {
+		return new IllegalArgumentException("field, "+source.getName()+", cannot be mapped to field, "+target.getName()+", of a different type or length");
+	}
+}
@@ -0,0 +1,630 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.message.sbe;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.TreeMap;
+
+import com.github.bwsoft.iris.message.Field;
+import com.github.bwsoft.iris.message.FieldType;
+import com.github.bwsoft.iris.message.Group;
+import com.github.bwsoft.iris.message.SBEMessageSchema;
+
+/**
+ * Generate the java source of typed flyweight codecs for all messages in a SBE schema.
+ * For each message, a decoder and an encoder are generated.
+ *
+ *    1.) The decoder, e.g. CarDecoder, has a typed getter for each field in the root block
+ *    and in the rows of the groups. The offset of each field is resolved at code generation
+ *    time. A group is iterated through a nested decoder class. A variable length field is
+ *    read through its length and getter methods.
+ *    2.) The encoder, e.g. CarEncoder, has a typed setter for each field in the root block
+ *    and in the rows of the groups. Rows of a group are added through a nested encoder class.
+ *    A variable length field is set through its put method. The encoder also implements the
+ *    {@link com.github.bwsoft.iris.message.GroupObject} methods for other modifications.
+ *
+ * A field added in a later version of the schema is checked against the acting version and
+ * the block size of the message. Its getter returns the null value of the field and its setter
+ * throws an IllegalStateException if the field is absent. The nested class of a group is named
+ * after the path of the group, e.g. PerformanceFiguresAccelerationDecoder.
+ *
+ * The generated classes are constructed with the schema they are generated from.
+ *
+ * <pre>
+ * {@code
+ *     SBEMessageSchema schema = SBEMessageSchema.createSBESchema("schema.xml");
+ *     new SBEFlyweightGenerator(schema, "com.acme.codec").generate(new File("target/generated-sources/iris"));
+ * }
+ * </pre>
+ *
+ * @author yzhou
+ *
+ */
+public class SBEFlyweightGenerator {
+	private static final HashSet<String> reservedNames = new HashSet<>(Arrays.asList(
+			"abstract", "assert", "boolean", "break", "byte", "case", "catch", "char", "class", "const",
+			"continue", "default", "do", "double", "else", "enum", "extends", "final", "finally", "float",
+			"for", "goto", "if", "implements", "import", "instanceof", "int", "interface", "long", "native",
+			"new", "package", "private", "protected", "public", "return", "short", "static", "strictfp", "super",
+			"switch", "synchronized", "this", "throw", "throws", "transient", "try", "void", "volatile", "while",
+			"true", "false", "null",
+			// methods of the base classes
+			"count", "hasNext", "next", "offset", "buffer", "wrap", "create", "cursor", "groupObject",
+			"add", "row", "addRow", "moveTo", "currentRow", "groupArray", "putBytes", "isPresentAt",
+			"getClass", "hashCode", "toString", "notify", "notifyAll", "wait", "clone", "finalize"
+			));
+
+	private static final String DECODER = "Decoder";
+	private static final String ENCODER = "Encoder";
+
+	private final SBEMessageSchema schema;
+	private final String packageName;
+
+	/**
+	 * @param schema the schema to generate codecs for
+	 * @param packageName the java package of the generated classes
+	 */
+	public SBEFlyweightGenerator(SBEMessageSchema schema, String packageName) {
+		this.schema = schema;
+		this.packageName = packageName;
+	}
+
+	/**
+	 * Generate the decoder and the encoder for each message in the schema.
+	 *
+	 * @param outputDirectory the root directory of the generated sources
+	 * @return the list of generated files
+	 * @throws IOException if a file cannot be written
+	 */
+	public List<File> generate(File outputDirectory) throws IOException {
+		File dir = new File(outputDirectory, packageName.replace('.', File.separatorChar));
+		if( ! dir.isDirectory() && ! dir.mkdirs() ) {
+			throw new IOException("failed to create directory: "+dir);
+		}
+
+		List<File> files = new ArrayList<>();
+		for( SBEMessage message : new TreeMap<>(schema.getMsgLookup()).values() ) {
+			files.add(write(new File(dir, decoderName(message)+".java"), generateDecoder(message)));
+			files.add(write(new File(dir, encoderName(message)+".java"), generateEncoder(message)));
+		}
+		return files;
+	}
+
+	private File write(File file, String source) throws IOException {
+		try( Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8) ) {
+			writer.write(source);
+		}
+		return file;
+	}
+
+	/**
+	 * @param message the message definition
+	 * @return the java source of the decoder of the message
+	 */
+	public String generateDecoder(SBEMessage message) {
+		String className = decoderName(message);
+		StringBuilder out = new StringBuilder();
+		appendPreamble(out, message);
+		out.append("/**\n * Decoder of message, ").append(message.getName()).append(", generated by SBEFlyweightGenerator.\n */\n");
+		out.append("public class ").append(className).append(" extends SBEMessageFlyweight {\n");
+		out.append("\tpublic static final int TEMPLATE_ID = ").append(message.getID()).append(";\n\n");
+		appendHandleDeclarations(out, message, DECODER, "\t");
+		out.append("\n\tpublic ").append(className).append("(SBEMessageSchema schema) {\n");
+		out.append("\t\tsuper(schema, TEMPLATE_ID);\n");
+		appendHandleInitialization(out, message, DECODER, "getDefinition()", "\t\t");
+		out.append("\t}\n");
+		for( String bufferType : new String[] {"ByteBuffer", "IrisBuffer"} ) {
+			out.append("\n\tpublic ").append(className).append(" wrap(").append(bufferType).append(" buffer, int offset) {\n");
+			out.append("\t\twrapForDecode(buffer, offset);\n");
+			out.append("\t\treturn this;\n");
+			out.append("\t}\n");
+		}
+		appendGroupBody(out, message, "\t");
+		out.append("}\n");
+		return out.toString();
+	}
+
+	/**
+	 * @param message the message definition
+	 * @return the java source of the encoder of the message
+	 */
+	public String generateEncoder(SBEMessage message) {
+		String className = encoderName(message);
+		StringBuilder out = new StringBuilder();
+		appendPreamble(out, message);
+		out.append("/**\n * Encoder of message, ").append(message.getName()).append(", generated by SBEFlyweightGenerator.\n */\n");
+		out.append("public class ").append(className).append(" extends SBEMessageFlyweight {\n");
+		out.append("\tpublic static final int TEMPLATE_ID = ").append(message.getID()).append(";\n\n");
+		appendHandleDeclarations(out, message, ENCODER, "\t");
+		out.append("\n\tpublic ").append(className).append("(SBEMessageSchema schema) {\n");
+		out.append("\t\tsuper(schema, TEMPLATE_ID);\n");
+		appendHandleInitialization(out, message, ENCODER, "getDefinition()", "\t\t");
+		out.append("\t}\n");
+		for( String bufferType : new String[] {"ByteBuffer", "IrisBuffer"} ) {
+			out.append("\n\tpublic ").append(className).append(" wrap(").append(bufferType).append(" buffer, int offset) {\n");
+			out.append("\t\twrapForEncode(buffer, offset);\n");
+			out.append("\t\treturn this;\n");
+			out.append("\t}\n");
+			out.append("\n\tpublic ").append(className).append(" create(").append(bufferType).append(" buffer, int offset) {\n");
+			out.append("\t\tcreateForEncode(buffer, offset);\n");
+			out.append("\t\treturn this;\n");
+			out.append("\t}\n");
+		}
+		appendEncoderBody(out, message, className, true, "\t");
+		out.append("}\n");
+		return out.toString();
+	}
+
+	private void appendPreamble(StringBuilder out, SBEMessage message) {
+		out.append("/* Generated by SBEFlyweightGenerator. Do not edit. */\n");
+		out.append("package ").append(packageName).append(";\n\n");
+		out.append("import java.nio.ByteBuffer;\n\n");
+		out.append("import com.github.bwsoft.iris.buffer.IrisBuffer;\n");
+		out.append("import com.github.bwsoft.iris.message.Field;\n");
+		out.append("import com.github.bwsoft.iris.message.Group;\n");
+		out.append("import com.github.bwsoft.iris.message.GroupCursor;\n");
+		out.append("import com.github.bwsoft.iris.message.GroupObjectArray;\n");
+		out.append("import com.github.bwsoft.iris.message.SBEMessageSchema;\n");
+		out.append("import com.github.bwsoft.iris.message.sbe.SBEGroupArrayFlyweight;\n");
+		out.append("import com.github.bwsoft.iris.message.sbe.SBEGroupFlyweight;\n");
+		out.append("import com.github.bwsoft.iris.message.sbe.SBEMessageFlyweight;\n\n");
+		out.append("@SuppressWarnings(\"unused\")\n");
+	}
+
+	private void appendHandleDeclarations(StringBuilder out, SBEGroup group, String suffix, String indent) {
+		for( SBEField field : group.getVariableFields() ) {
+			out.append(indent).append("private final Field ").append(javaName(field.getName())).append("Field;\n");
+			if( FieldType.GROUP == field.getType() ) {
+				out.append(indent).append("private final ").append(groupClassName(field, suffix)).append(" ").append(javaName(field.getName())).append(";\n");
+			}
+		}
+	}
+
+	private void appendHandleInitialization(StringBuilder out, SBEGroup group, String suffix, String definition, String indent) {
+		for( SBEField field : group.getVariableFields() ) {
+			String name = javaName(field.getName());
+			out.append(indent).append("this.").append(name).append("Field = ").append(definition).append(".getField((short) ").append(field.getID()).append(");\n");
+			if( FieldType.GROUP == field.getType() ) {
+				out.append(indent).append("this.").append(name).append(" = new ").append(groupClassName(field, suffix)).append("((Group) ").append(name).append("Field);\n");
+			}
+		}
+	}
+
+	private void appendGroupBody(StringBuilder out, SBEGroup group, String indent) {
+		for( FixedField field : fixedFields(group) ) {
+			appendGetters(out, field.field, field.name, indent);
+		}
+
+		for( SBEField field : group.getVariableFields() ) {
+			String name = javaName(field.getName());
+			if( FieldType.GROUP == field.getType() ) {
+				out.append("\n").append(indent).append("public ").append(groupClassName(field, DECODER)).append(" ").append(name).append("() {\n");
+				out.append(indent).append("\treturn ").append(name).append(".wrap(groupCursor(").append(name).append("Field));\n");
+				out.append(indent).append("}\n");
+			} else {
+				out.append("\n").append(indent).append("public int ").append(name).append("Length() {\n");
+				out.append(indent).append("\treturn sizeOf(").append(name).append("Field);\n");
+				out.append(indent).append("}\n");
+				out.append("\n").append(indent).append("public int get").append(capitalize(name)).append("(byte[] dest, int destOffset, int length) {\n");
+				out.append(indent).append("\treturn bytesOf(").append(name).append("Field, dest, destOffset, length);\n");
+				out.append(indent).append("}\n");
+			}
+		}
+
+		for( SBEField field : group.getVariableFields() ) {
+			if( FieldType.GROUP == field.getType() ) {
+				appendGroupDecoder(out, (SBEGroup) field, indent);
+			}
+		}
+	}
+
+	private void appendGroupDecoder(StringBuilder out, SBEGroup group, String indent) {
+		String className = groupClassName(group, DECODER);
+		out.append("\n").append(indent).append("public static class ").append(className).append(" extends SBEGroupFlyweight {\n");
+		String inner = indent + "\t";
+		appendHandleDeclarations(out, group, DECODER, inner);
+		out.append("\n").append(inner).append(className).append("(Group definition) {\n");
+		appendHandleInitialization(out, group, DECODER, "definition", inner + "\t");
+		out.append(inner).append("}\n\n");
+		out.append(inner).append(className).append(" wrap(GroupCursor cursor) {\n");
+		out.append(inner).append("\tpointTo(cursor);\n");
+		out.append(inner).append("\treturn this;\n");
+		out.append(inner).append("}\n");
+		appendGroupBody(out, group, inner);
+		out.append(indent).append("}\n");
+	}
+
+	/**
+	 * @param root true for a message, which sets groups and variable length fields through its GroupObject methods,
+	 * or false for a group encoder, which sets them through the current row
+	 */
+	private void appendEncoderBody(StringBuilder out, SBEGroup group, String className, boolean root, String indent) {
+		for( FixedField field : fixedFields(group) ) {
+			appendSetters(out, className, field.field, field.name, indent);
+		}
+
+		for( SBEField field : group.getVariableFields() ) {
+			String name = javaName(field.getName());
+			if( FieldType.GROUP == field.getType() ) {
+				out.append("\n").append(indent).append("public ").append(groupClassName(field, ENCODER)).append(" ").append(name).append("() {\n");
+				out.append(indent).append("\treturn ").append(name).append(".wrap(").append(root ? "getGroupArray(" : "groupArray(").append(name).append("Field));\n");
+				out.append(indent).append("}\n");
+			} else {
+				out.append("\n").append(indent).append("public ").append(className).append(" put").append(capitalize(name)).append("(byte[] src, int srcOffset, int length) {\n");
+				out.append(indent).append("\t").append(root ? "setBytes(" : "putBytes(").append(name).append("Field, src, srcOffset, length);\n");
+				out.append(indent).append("\treturn this;\n");
+				out.append(indent).append("}\n");
+			}
+		}
+
+		for( SBEField field : group.getVariableFields() ) {
+			if( FieldType.GROUP == field.getType() ) {
+				appendGroupEncoder(out, (SBEGroup) field, indent);
+			}
+		}
+	}
+
+	private void appendGroupEncoder(StringBuilder out, SBEGroup group, String indent) {
+		String className = groupClassName(group, ENCODER);
+		out.append("\n").append(indent).append("public static class ").append(className).append(" extends SBEGroupArrayFlyweight {\n");
+		String inner = indent + "\t";
+		appendHandleDeclarations(out, group, ENCODER, inner);
+		out.append("\n").append(inner).append(className).append("(Group definition) {\n");
+		appendHandleInitialization(out, group, ENCODER, "definition", inner + "\t");
+		out.append(inner).append("}\n\n");
+		out.append(inner).append(className).append(" wrap(GroupObjectArray array) {\n");
+		out.append(inner).append("\tpointTo(array);\n");
+		out.append(inner).append("\treturn this;\n");
+		out.append(inner).append("}\n\n");
+		out.append(inner).append("public ").append(className).append(" add() {\n");
+		out.append(inner).append("\taddRow();\n");
+		out.append(inner).append("\treturn this;\n");
+		out.append(inner).append("}\n\n");
+		out.append(inner).append("public ").append(className).append(" row(int n) {\n");
+		out.append(inner).append("\tmoveTo(n);\n");
+		out.append(inner).append("\treturn this;\n");
+		out.append(inner).append("}\n");
+		appendEncoderBody(out, group, className, false, inner);
+		out.append(indent).append("}\n");
+	}
+
+	private void appendGetters(StringBuilder out, SBEField sfield, String name, String indent) {
+		Field field = sfield;
+		if( FieldType.CONSTANT == field.getType() ) {
+			out.append("\n").append(indent).append("public String ").append(name).append("() {\n");
+			out.append(indent).append("\treturn \"").append(escape(sfield.getConstantValue())).append("\";\n");
+			out.append(indent).append("}\n");
+			return;
+		}
+
+		String type = javaType(field.getType());
+		String absent = "return "+nullValue(sfield)+";";
+		if( field.length() == 1 ) {
+			out.append("\n").append(indent).append("public ").append(type).append(" ").append(name).append("() {\n");
+			appendPresenceCheck(out, sfield, absent, indent);
+			out.append(indent).append("\treturn ").append(readExpression(field.getType(), String.valueOf(sfield.getRelativeOffset()))).append(";\n");
+			out.append(indent).append("}\n");
+			return;
+		}
+
+		appendLengthConstant(out, name, field, indent);
+		out.append("\n").append(indent).append("public ").append(type).append(" ").append(name).append("(int index) {\n");
+		appendIndexCheck(out, name, indent);
+		appendPresenceCheck(out, sfield, absent, indent);
+		String offset = sfield.getRelativeOffset()+" + index*"+sfield.getBlockSize();
+		out.append(indent).append("\treturn ").append(readExpression(field.getType(), offset)).append(";\n");
+		out.append(indent).append("}\n");
+		if( isByteArray(field) ) {
+			out.append("\n").append(indent).append("public int get").append(capitalize(name)).append("(byte[] dest, int destOffset, int length) {\n");
+			appendPresenceCheck(out, sfield, "return 0;", indent);
+			out.append(indent).append("\treturn getBytesAt(").append(sfield.getRelativeOffset()).append(", ").append(field.length()).append(", dest, destOffset, length);\n");
+			out.append(indent).append("}\n");
+		}
+	}
+
+	private void appendSetters(StringBuilder out, String className, SBEField sfield, String name, String indent) {
+		Field field = sfield;
+		if( FieldType.CONSTANT == field.getType() ) {
+			return;
+		}
+
+		String type = javaType(field.getType());
+		String absent = "throw new IllegalStateException(\"field, "+name+", is absent in the acting version of the message\");";
+		if( field.length() == 1 ) {
+			out.append("\n").append(indent).append("public ").append(className).append(" ").append(name).append("(").append(type).append(" value) {\n");
+			appendPresenceCheck(out, sfield, absent, indent);
+			out.append(indent).append("\t").append(writeStatement(field.getType(), String.valueOf(sfield.getRelativeOffset()))).append(";\n");
+			out.append(indent).append("\treturn this;\n");
+			out.append(indent).append("}\n");
+			return;
+		}
+
+		appendLengthConstant(out, name, field, indent);
+		out.append("\n").append(indent).append("public ").append(className).append(" ").append(name).append("(int index, ").append(type).append(" value) {\n");
+		appendIndexCheck(out, name, indent);
+		appendPresenceCheck(out, sfield, absent, indent);
+		String offset = sfield.getRelativeOffset()+" + index*"+sfield.getBlockSize();
+		out.append(indent).append("\t").append(writeStatement(field.getType(), offset)).append(";\n");
+		out.append(indent).append("\treturn this;\n");
+		out.append(indent).append("}\n");
+		if( isByteArray(field) ) {
+			out.append("\n").append(indent).append("public ").append(className).append(" put").append(capitalize(name)).append("(byte[] src, int srcOffset, int length) {\n");
+			appendPresenceCheck(out, sfield, absent, indent);
+			out.append(indent).append("\tputBytesAt(").append(sfield.getRelativeOffset()).append(", ").append(field.length()).append(", src, srcOffset, length);\n");
+			out.append(indent).append("\treturn this;\n");
+			out.append(indent).append("}\n");
+		}
+	}
+
+	private void appendLengthConstant(StringBuilder out, String name, Field field, String indent) {
+		out.append("\n").append(indent).append("public static final int ").append(constantName(name)).append(" = ").append(field.length()).append(";\n");
+	}
+
+	private void appendIndexCheck(StringBuilder out, String name, String indent) {
+		out.append(indent).append("\tif( index < 0 || index >= ").append(constantName(name)).append(" ) {\n");
+		out.append(indent).append("\t\tthrow new IndexOutOfBoundsException(\"index, \"+index+\", is out of the array length of ").append(name).append("\");\n");
+		out.append(indent).append("\t}\n");
+	}
+
+	/**
+	 * Check if a field added in a later version is in the block of the current row. Nothing is
+	 * generated for a field of the first version.
+	 */
+	private void appendPresenceCheck(StringBuilder out, SBEField field, String absent, String indent) {
+		int sinceVersion = field.getSinceVersion();
+		if( field.getParent() instanceof SBECompositeField ) {
+			sinceVersion = Math.max(sinceVersion, ((SBEField) field.getParent()).getSinceVersion());
+		}
+		if( sinceVersion > 0 ) {
+			int end = field.getRelativeOffset() + field.getBlockSize()*field.length();
+			out.append(indent).append("\tif( ! isPresentAt(").append(sinceVersion).append(", ").append(end).append(") ) {\n");
+			out.append(indent).append("\t\t").append(absent).append("\n");
+			out.append(indent).append("\t}\n");
+		}
+	}
+
+	/**
+	 * @param group a message or a group
+	 * @return fields in the block of the group with composite fields flattened. The name of
+	 * a composite child is prefixed with the name of the composite field.
+	 */
+	private List<FixedField> fixedFields(SBEGroup group) {
+		List<FixedField> fields = new ArrayList<>();
+		List<Field> allFields = group.getFields();
+		for( int i = 0; i < group.getNumFixedSizeFields(); i ++ ) {
+			Field field = allFields.get(i);
+			if( FieldType.COMPOSITE == field.getType() ) {
+				for( Field child : ((Group) field).getFields() ) {
+					fields.add(new FixedField((SBEField) child, field.getName()+"."+child.getName()));
+				}
+			} else {
+				fields.add(new FixedField((SBEField) field, field.getName()));
+			}
+		}
+		return fields;
+	}
+
+	private static boolean isByteArray(Field field) {
+		switch( field.getType() ) {
+		case CHAR:
+		case BYTE:
+		case U8:
+		case I8:
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	private static String javaType(FieldType type) {
+		switch( type ) {
+		case CHAR:
+			return "char";
+		case BYTE:
+		case I8:
+			return "byte";
+		case U8:
+		case I16:
+			return "short";
+		case U16:
+		case I32:
+			return "int";
+		case U32:
+		case I64:
+		case U64:
+			return "long";
+		case FLOAT:
+			return "float";
+		case DOUBLE:
+			return "double";
+		default:
+			throw new UnsupportedOperationException("type, "+type+", cannot be mapped to a java primitive type");
+		}
+	}
+
+	private static String readExpression(FieldType type, String offset) {
+		switch( type ) {
+		case CHAR:
+			return "(char) getByteAt("+offset+")";
+		case BYTE:
+		case I8:
+			return "getByteAt("+offset+")";
+		case U8:
+			return "(short) (0xff & getByteAt("+offset+"))";
+		case I16:
+			return "getShortAt("+offset+")";
+		case U16:
+			return "0xffff & getShortAt("+offset+")";
+		case I32:
+			return "getIntAt("+offset+")";
+		case U32:
+			return "0xffffffffL & getIntAt("+offset+")";
+		case I64:
+		case U64:
+			return "getLongAt("+offset+")";
+		case FLOAT:
+			return "getFloatAt("+offset+")";
+		case DOUBLE:
+			return "getDoubleAt("+offset+")";
+		default:
+			throw new UnsupportedOperationException("type, "+type+", cannot be mapped to a java primitive type");
+		}
+	}
+
+	/**
+	 * @return the null value of a field as a java expression of the type returned by its getter
+	 */
+	private static String nullValue(SBEField field) {
+		long value = field.getNullValue();
+		switch( field.getType() ) {
+		case FLOAT:
+			return Double.isNaN(field.getNullDoubleValue()) ? "Float.NaN" : "(float) "+field.getNullDoubleValue();
+		case DOUBLE:
+			return Double.isNaN(field.getNullDoubleValue()) ? "Double.NaN" : String.valueOf(field.getNullDoubleValue());
+		case U8:
+			value &= 0xff;
+			break;
+		case U16:
+			value &= 0xffff;
+			break;
+		case U32:
+			value &= 0xffffffffL;
+			break;
+		default:
+		}
+		return "("+javaType(field.getType())+") "+value+"L";
+	}
+
+	private static String writeStatement(FieldType type, String offset) {
+		switch( type ) {
+		case BYTE:
+		case I8:
+			return "putByteAt("+offset+", value)";
+		case CHAR:
+		case U8:
+			return "putByteAt("+offset+", (byte) value)";
+		case I16:
+			return "putShortAt("+offset+", value)";
+		case U16:
+			return "putShortAt("+offset+", (short) value)";
+		case I32:
+			return "putIntAt("+offset+", value)";
+		case U32:
+			return "putIntAt("+offset+", (int) value)";
+		case I64:
+		case U64:
+			return "putLongAt("+offset+", value)";
+		case FLOAT:
+			return "putFloatAt("+offset+", value)";
+		case DOUBLE:
+			return "putDoubleAt("+offset+", value)";
+		default:
+			throw new UnsupportedOperationException("type, "+type+", cannot be mapped to a java primitive type");
+		}
+	}
+
+	private static String decoderName(SBEMessage message) {
+		return capitalize(javaName(message.getName()))+"Decoder";
+	}
+
+	private static String encoderName(SBEMessage message) {
+		return capitalize(javaName(message.getName()))+"Encoder";
+	}
+
+	/**
+	 * The nested class of a group is named after the groups from the message to the group, e.g.
+	 * PerformanceFiguresAccelerationDecoder, so that groups of the same name in different parents
+	 * do not clash.
+	 */
+	private static String groupClassName(SBEField group, String suffix) {
+		StringBuilder sb = new StringBuilder();
+		for( Field field = group; ! (field instanceof SBEMessage); field = field.getParent() ) {
+			sb.insert(0, capitalize(javaName(field.getName())));
+		}
+		if( sb.toString().equals(capitalize(javaName(group.getMessage().getName()))) ) {
+			sb.append("Group");
+		}
+		return sb.append(suffix).toString();
+	}
+
+	/**
+	 * Convert a SBE name into a java identifier in camel case, e.g. booster.BoostType into boosterBoostType.
+	 */
+	static String javaName(String name) {
+		StringBuilder sb = new StringBuilder();
+		boolean upper = false;
+		for( int i = 0; i < name.length(); i ++ ) {
+			char c = name.charAt(i);
+			if( Character.isJavaIdentifierPart(c) && c != '$' ) {
+				if( sb.length() == 0 ) {
+					if( Character.isDigit(c) ) {
+						sb.append('_');
+					}
+					sb.append(Character.toLowerCase(c));
+				} else {
+					sb.append(upper ? Character.toUpperCase(c) : c);
+				}
+				upper = false;
+			} else {
+				upper = true;
+			}
+		}
+		String javaName = sb.toString();
+		return reservedNames.contains(javaName) ? javaName + "Value" : javaName;
+	}
+
+	private static String capitalize(String name) {
+		return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+	}
+
+	private static String constantName(String name) {
+		StringBuilder sb = new StringBuilder();
+		for( int i = 0; i < name.length(); i ++ ) {
+			char c = name.charAt(i);
+			if( Character.isUpperCase(c) && i > 0 ) {
+				sb.append('_');
+			}
+			sb.append(Character.toUpperCase(c));
+		}
+		return sb.append("_LENGTH").toString();
+	}
+
+	private static String escape(String value) {
+		return null == value ? "" : value.replace("\\", "\\\\").replace("\"", "\\\"");
+	}
+
+	/**
+	 * A field in the block of a group together with the name used in the generated code.
+	 */
+	private static class FixedField {
+		private final SBEField field;
+		private final String name;
+
+		FixedField(SBEField field, String name) {
+			this.field = field;
+			this.name = javaName(name);
+		}
+	}
+}
@@ -15,11 +15,14 @@
  *******************************************************************************/
 package com.github.bwsoft.iris.message.sbe;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 
+import com.github.bwsoft.iris.buffer.IrisBuffer;
 import com.github.bwsoft.iris.message.Field;
+import com.github.bwsoft.iris.message.FieldAccessor;
 import com.github.bwsoft.iris.message.FieldHeader;
 import com.github.bwsoft.iris.message.FieldType;
 import com.github.bwsoft.iris.message.Group;
@@ -39,6 +42,12 @@ class SBEGroup extends SBEField implements Group {
 	private short numRawFields;
 
 	private Integer sizeOfGroupAndVariableFieldHeaders;
+	private SBEField[] variableFields;
+	
+	// the initial block of a row, empty if no field is optional. A schema is shared by threads, 
+	// and the volatile write publishes the block only after it is filled.
+	private static final byte[] NO_NULL_BLOCK = new byte[0];
+	private volatile byte[] nullBlock;
 
 	SBEGroup(SBEGroup parent, FieldHeader header, FieldType type) {
 		super(parent, type,(short) 1);
@@ -87,6 +96,70 @@ class SBEGroup extends SBEField implements Group {
 		return nsize;
 	}
 	
+	/**
+	 * @param actingVersion the schema version of a message
+	 * @return the size of the headers of the groups and variable length fields present in the acting version
+	 */
+	int getSizeOfGroupAndVariableFieldHeaders(int actingVersion) {
+		int nsize = 0;
+		for( SBEField field : getVariableFields() ) {
+			if( field.getSinceVersion() <= actingVersion ) {
+				nsize += field.getHeader().getSize();
+			}
+		}
+		return nsize;
+	}
+	
+	/**
+	 * All groups and variable length fields of this group in the order of their appearance
+	 * in a message.
+	 * 
+	 * @return groups and variable length fields of this group
+	 */
+	SBEField[] getVariableFields() {
+		if( null != variableFields ) {
+			return variableFields;
+		}
+		
+		List<Field> fields = this.getFields();
+		SBEField[] varFields = new SBEField[numGroupFields + numRawFields];
+		for( int i = numFixedSizeFields; i < fields.size(); i ++ ) {
+			varFields[i-numFixedSizeFields] = (SBEField) fields.get(i);
+		}
+		variableFields = varFields;
+		return varFields;
+	}
+	
+	/**
+	 * The initial block of a new row with all optional fields set to their null values and 
+	 * other fields set to zero. It is written to the buffer in one call. 
+	 * 
+	 * @return the initial block or null if no field in the block is optional
+	 */
+	byte[] getNullBlock() {
+		byte[] block = nullBlock;
+		if( null == block ) {
+			block = NO_NULL_BLOCK;
+			IrisBuffer buffer = null;
+			for( int i = 0; i < numFixedSizeFields; i ++ ) {
+				SBEField field = (SBEField) getFields().get(i);
+				List<Field> elements = FieldType.COMPOSITE == field.getType() ? ((Group) field).getFields() : null;
+				for( int j = 0, n = null == elements ? 1 : elements.size(); j < n; j ++ ) {
+					SBEField element = null == elements ? field : (SBEField) elements.get(j);
+					if( element.isOptional() ) {
+						if( null == buffer ) {
+							block = new byte[getBlockSize()];
+							buffer = IrisBuffer.wrap(ByteBuffer.wrap(block)).order(getMessage().getMsgSchemaHeader().getOrder());
+						}
+						element.putNull(buffer, 0);
+					}
+				}
+			}
+			nullBlock = block;
+		}
+		return block.length == 0 ? null : block;
+	}
+	
 	@Override
 	public FieldHeader getHeader() {
 		return header;
@@ -107,6 +180,61 @@ class SBEGroup extends SBEField implements Group {
 		return groupFieldLookupByName.get(name);
 	}
 
+	@Override
+	public FieldAccessor getFieldAccessor(short id) {
+		Field field = getField(id);
+		if( null == field ) {
+			throw new IllegalArgumentException("field, "+id+", is not defined in group, "+getName());
+		}
+		return SBEFieldAccessor.create(this, (SBEField) field, 0);
+	}
+
+	@Override
+	public FieldAccessor getFieldAccessor(String path) {
+		SBEGroup owner = this;
+		Group container = this;
+		String remaining = path;
+		while( true ) {
+			// a composite child can have a dot in its name. Try the longest name first.
+			Field field = null;
+			int index = 0;
+			int end = remaining.length();
+			for( ; end > 0; end = remaining.lastIndexOf('.', end-1) ) {
+				String name = remaining.substring(0, end);
+				index = 0;
+				if( name.endsWith("]") && name.indexOf('[') > 0 ) {
+					int bracket = name.lastIndexOf('[');
+					try {
+						index = Integer.parseInt(name.substring(bracket+1, name.length()-1));
+					} catch (NumberFormatException e) {
+						throw new IllegalArgumentException("invalid array index in path, "+path);
+					}
+					name = name.substring(0, bracket);
+				}
+				field = container.getField(name);
+				if( null != field ) 
+					break;
+			}
+			if( null == field ) {
+				throw new IllegalArgumentException("path, "+path+", cannot be resolved in group, "+getName());
+			}
+			
+			if( end == remaining.length() ) {
+				return SBEFieldAccessor.create(owner, (SBEField) field, index);
+			}
+			
+			remaining = remaining.substring(end+1);
+			if( FieldType.GROUP == field.getType() ) {
+				owner = (SBEGroup) field;
+				container = owner;
+			} else if( FieldType.COMPOSITE == field.getType() ) {
+				container = (Group) field;
+			} else {
+				throw new IllegalArgumentException("field, "+field.getName()+", in path, "+path+", is not a group or a composite field");
+			}
+		}
+	}
+
 	@Override
 	public Field addField(short id, FieldType type, short arrayLength) {
 		return addField(id, null, type, null, arrayLength);
@@ -198,12 +326,14 @@ class SBEGroup extends SBEField implements Group {
 			newField.setID(id);
 			this.groupFieldLookup.put(id, newField);
 			numGroupFields ++;
+			variableFields = null;
 			break;
 		case RAW:
 			newField = new SBEVarLengthField(this, header);
 			newField.setID(id);
 			this.groupFieldLookup.put(id, newField);
 			numRawFields ++;
+			variableFields = null;
 			break;
 		default:
 			throw new IllegalArgumentException("unrecognized type: "+type.name());
@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.message.sbe;
+
+import com.github.bwsoft.iris.message.Field;
+import com.github.bwsoft.iris.message.GroupObject;
+import com.github.bwsoft.iris.message.GroupObjectArray;
+
+/**
+ * The base class of generated group encoders. A generated encoder adds rows to a
+ * {@link GroupObjectArray} and writes the fields of the current row at offsets that are
+ * resolved at code generation time. Groups and variable length fields of a row are
+ * modified through the GroupObject of the row.
+ *
+ * The methods are not meant to be called directly by an application. Use the typed
+ * methods of the generated classes instead.
+ *
+ * @see SBEFlyweightGenerator
+ *
+ * @author yzhou
+ *
+ */
+public abstract class SBEGroupArrayFlyweight {
+	private SBEObjectArray array;
+	private SBEObject row;
+
+	/**
+	 * Point this encoder to the rows of a group. No row is selected until a row is added or
+	 * moved to. An IllegalStateException is thrown if the group is absent in the acting version
+	 * of the message.
+	 *
+	 * @param array the rows of the group
+	 */
+	protected final void pointTo(GroupObjectArray array) {
+		if( null == array ) {
+			throw new IllegalStateException("the group is absent in the acting version of the message");
+		}
+		this.array = (SBEObjectArray) array;
+		this.row = null;
+	}
+
+	/**
+	 * @return the number of rows
+	 */
+	public final int count() {
+		return array.getNumOfGroups();
+	}
+
+	/**
+	 * @return the GroupObject of the current row
+	 */
+	public final GroupObject currentRow() {
+		return row();
+	}
+
+	/**
+	 * Add a row to the end of the group and make it the current row.
+	 */
+	protected final void addRow() {
+		this.row = (SBEObject) array.addGroupObject();
+	}
+
+	/**
+	 * Make the nth row the current row.
+	 *
+	 * @param n the row index
+	 */
+	protected final void moveTo(int n) {
+		if( n < 0 || n >= array.getNumOfGroups() ) {
+			throw new IndexOutOfBoundsException("row, "+n+", is out of the "+array.getNumOfGroups()+" rows of group, "+array.getDefinition().getName());
+		}
+		this.row = (SBEObject) array.getGroupObject(n);
+	}
+
+	protected final GroupObjectArray groupArray(Field field) {
+		return row().getGroupArray(field);
+	}
+
+	protected final int putBytes(Field field, byte[] src, int srcOffset, int length) {
+		return row().setBytes(field, src, srcOffset, length);
+	}
+
+	/**
+	 * Check if a field of the block is in the current row, see {@link SBEGroupFlyweight#isPresentAt(int, int)}.
+	 *
+	 * @param sinceVersion the version in which the field is added
+	 * @param end the end of the field relative to the start of the block
+	 * @return true if the field is present
+	 */
+	protected final boolean isPresentAt(int sinceVersion, int end) {
+		return sinceVersion <= array.getParser().getActingVersion() && end <= row().getBlockSize();
+	}
+
+	protected final int putBytesAt(int offset, int size, byte[] src, int srcOffset, int length) {
+		length = length > size ? size : length;
+		SBEObject row = row();
+		array.getBuffer().putBytes(row.getValueOffset()+offset, src, srcOffset, length);
+		return length;
+	}
+
+	protected final void putByteAt(int offset, byte value) {
+		SBEObject row = row();
+		array.getBuffer().put(row.getValueOffset()+offset, value);
+	}
+
+	protected final void putShortAt(int offset, short value) {
+		SBEObject row = row();
+		array.getBuffer().putShort(row.getValueOffset()+offset, value);
+	}
+
+	protected final void putIntAt(int offset, int value) {
+		SBEObject row = row();
+		array.getBuffer().putInt(row.getValueOffset()+offset, value);
+	}
+
+	protected final void putLongAt(int offset, long value) {
+		SBEObject row = row();
+		array.getBuffer().putLong(row.getValueOffset()+offset, value);
+	}
+
+	protected final void putFloatAt(int offset, float value) {
+		SBEObject row = row();
+		array.getBuffer().putFloat(row.getValueOffset()+offset, value);
+	}
+
+	protected final void putDoubleAt(int offset, double value) {
+		SBEObject row = row();
+		array.getBuffer().putDouble(row.getValueOffset()+offset, value);
+	}
+
+	private SBEObject row() {
+		if( null == row ) {
+			throw new IllegalStateException("no row of group, "+array.getDefinition().getName()+", is selected");
+		}
+		return row;
+	}
+}
@@ -0,0 +1,349 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.message.sbe;
+
+import com.github.bwsoft.iris.buffer.IrisBuffer;
+import com.github.bwsoft.iris.message.Field;
+import com.github.bwsoft.iris.message.FieldType;
+import com.github.bwsoft.iris.message.Group;
+import com.github.bwsoft.iris.message.GroupCursor;
+
+/**
+ * A flyweight cursor over the rows of a SBE group. The cursor tree mirrors the group
+ * definition tree and is created once. The position of groups and variable length fields
+ * in the current row is calculated from their headers on demand and cached until the
+ * cursor moves to another row.
+ *
+ * @author yzhou
+ *
+ */
+class SBEGroupCursor implements GroupCursor {
+	private final SBEGroup definition;
+	private final SBEField[] variableFields;
+	private final SBEGroupCursor[] childCursors;
+
+	// the starting positions of groups and variable length fields in the current row. The
+	// last element is the end of the row.
+	private final int[] variableFieldOffsets;
+	private int numOfResolvedOffsets;
+
+	protected final boolean safeMode;
+
+	private IrisBuffer buffer;
+	private int actingVersion;
+	private int numRows;
+	private int blockSize;
+	private int rowIndex;
+	private int rowOffset; // the starting position of the current row
+
+	SBEGroupCursor(SBEGroup definition) {
+		this.definition = definition;
+		this.variableFields = definition.getVariableFields();
+		this.childCursors = new SBEGroupCursor[variableFields.length];
+		for( int i = 0; i < variableFields.length; i ++ ) {
+			if( FieldType.GROUP == variableFields[i].getType() ) {
+				childCursors[i] = new SBEGroupCursor((SBEGroup) variableFields[i]);
+			}
+		}
+		this.variableFieldOffsets = new int[variableFields.length+1];
+		this.safeMode = definition.getMessage().safeMode();
+	}
+
+	/**
+	 * Point the cursor before the first row of a group.
+	 *
+	 * @param buffer the buffer containing the group
+	 * @param offset the starting position of the group header
+	 * @param actingVersion the schema version of the message
+	 */
+	void wrapGroup(IrisBuffer buffer, int offset, int actingVersion) {
+		SBEGroupHeader header = (SBEGroupHeader) definition.getHeader();
+		if( definition.getSinceVersion() > actingVersion ) {
+			// absent in the message
+			pointTo(buffer, 0, 0, offset, actingVersion);
+		} else {
+			pointTo(buffer, header.getNumRows(buffer, offset), header.getBlockSize(buffer, offset), offset + header.getSize(), actingVersion);
+		}
+	}
+
+	/**
+	 * Point the cursor before the first row.
+	 *
+	 * @param buffer the buffer containing the rows
+	 * @param numRows number of rows
+	 * @param blockSize the block size of a row
+	 * @param firstRowOffset the starting position of the first row
+	 * @param actingVersion the schema version of the message
+	 */
+	void pointTo(IrisBuffer buffer, int numRows, int blockSize, int firstRowOffset, int actingVersion) {
+		this.buffer = buffer;
+		this.actingVersion = actingVersion;
+		this.numRows = numRows;
+		this.blockSize = blockSize;
+		this.rowIndex = -1;
+		this.rowOffset = firstRowOffset;
+		this.numOfResolvedOffsets = 0;
+	}
+
+	IrisBuffer getBuffer() {
+		return buffer;
+	}
+	
+	int getRowOffset() {
+		return rowOffset;
+	}
+
+	int getBlockSize() {
+		return blockSize;
+	}
+	
+	int getActingVersion() {
+		return actingVersion;
+	}
+
+	@Override
+	public Group getDefinition() {
+		return definition;
+	}
+
+	@Override
+	public int getNumOfRows() {
+		return numRows;
+	}
+
+	@Override
+	public int getRowIndex() {
+		return rowIndex;
+	}
+
+	@Override
+	public boolean hasNext() {
+		return rowIndex + 1 < numRows;
+	}
+
+	@Override
+	public boolean next() {
+		if( rowIndex + 1 >= numRows )
+			return false;
+
+		if( rowIndex >= 0 ) {
+			rowOffset = getVariableFieldOffset(variableFields.length);
+		}
+		rowIndex ++;
+		numOfResolvedOffsets = 0;
+		return true;
+	}
+
+	/**
+	 * Obtain the starting position of the nth group or variable length field in the current row.
+	 *
+	 * @param n index to the variable fields. The end of the row is returned if n is equal to the number of variable fields.
+	 * @return the starting position
+	 */
+	private int getVariableFieldOffset(int n) {
+		if( numOfResolvedOffsets == 0 ) {
+			variableFieldOffsets[0] = rowOffset + blockSize;
+			numOfResolvedOffsets = 1;
+		}
+		while( numOfResolvedOffsets <= n ) {
+			int k = numOfResolvedOffsets - 1;
+			int currentOffset = variableFieldOffsets[k];
+			SBEField field = variableFields[k];
+			if( field.getSinceVersion() > actingVersion ) {
+				// absent in the message
+			} else if( FieldType.GROUP == field.getType() ) {
+				currentOffset += SBEParser.skipGroup(buffer, currentOffset, (SBEGroup) field, actingVersion);
+			} else {
+				SBEVarLengthFieldHeader header = (SBEVarLengthFieldHeader) field.getHeader();
+				currentOffset += header.getSize() + header.getBlockSize(buffer, currentOffset);
+			}
+			variableFieldOffsets[numOfResolvedOffsets ++] = currentOffset;
+		}
+		return variableFieldOffsets[n];
+	}
+
+	private int indexOf(Field field) {
+		for( int i = 0; i < variableFields.length; i ++ ) {
+			if( variableFields[i] == field )
+				return i;
+		}
+		throw new IllegalArgumentException("field, "+field.getID()+", is not a group or a variable length field of group, "+definition.getID());
+	}
+
+	@Override
+	public GroupCursor getGroupCursor(Field field) {
+		int n = indexOf(field);
+		SBEGroupCursor cursor = childCursors[n];
+		if( null == cursor ) {
+			throw new IllegalArgumentException("field, "+field.getID()+", is not a group field");
+		}
+		cursor.wrapGroup(buffer, getVariableFieldOffset(n), actingVersion);
+		return cursor;
+	}
+
+	@Override
+	public int getSize(Field field) {
+		SBEField sfield = validateField(field);
+		switch( field.getType() ) {
+		case RAW:
+			if( sfield.getSinceVersion() > actingVersion ) {
+				return 0;
+			}
+			int offset = getVariableFieldOffset(indexOf(field));
+			return ((SBEVarLengthFieldHeader) sfield.getHeader()).getBlockSize(buffer, offset);
+
+		case GROUP:
+			if( sfield.getSinceVersion() > actingVersion ) {
+				return 0;
+			}
+			int n = indexOf(field);
+			return getVariableFieldOffset(n+1) - getVariableFieldOffset(n) - sfield.getHeader().getSize();
+
+		default:
+			return sfield.getBlockSize()*sfield.length();
+		}
+	}
+
+	@Override
+	public int getBytes(Field field, byte[] dest, int destOffset, int length) {
+		SBEField sfield = validateField(field);
+		switch( field.getType() ) {
+		case RAW:
+			if( sfield.getSinceVersion() > actingVersion ) {
+				return 0;
+			}
+			SBEVarLengthFieldHeader header = (SBEVarLengthFieldHeader) sfield.getHeader();
+			int offset = getVariableFieldOffset(indexOf(field));
+			int size = header.getBlockSize(buffer, offset);
+			length = length > size ? size : length;
+			buffer.getBytes(offset + header.getSize(), dest, destOffset, length);
+			return length;
+
+		case CONSTANT:
+			byte[] value = sfield.getConstantValue().getBytes();
+			length = length > value.length ? value.length : length;
+			System.arraycopy(value, 0, dest, destOffset, length);
+			return length;
+
+		case GROUP:
+		case MESSAGE:
+			throw new UnsupportedOperationException("cannot get bytes for field type: "+field.getType());
+
+		default:
+			if( isAbsent(sfield) ) {
+				return 0;
+			}
+			size = sfield.getBlockSize()*sfield.length();
+			length = length > size ? size : length;
+			buffer.getBytes(rowOffset + sfield.getRelativeOffset(), dest, destOffset, length);
+			return length;
+		}
+	}
+
+	@Override
+	public byte getByte(Field field) {
+		SBEField sfield = validateField(field);
+		if( isAbsent(sfield) ) {
+			return (byte) sfield.getNullValue();
+		}
+		return buffer.get(rowOffset + sfield.getRelativeOffset());
+	}
+
+	@Override
+	public int getU16(Field field) {
+		SBEField sfield = validateField(field);
+		if( isAbsent(sfield) ) {
+			return 0xffff & (int) sfield.getNullValue();
+		}
+		return 0xffff & buffer.getShort(rowOffset + sfield.getRelativeOffset());
+	}
+
+	@Override
+	public short getI16(Field field) {
+		SBEField sfield = validateField(field);
+		if( isAbsent(sfield) ) {
+			return (short) sfield.getNullValue();
+		}
+		return buffer.getShort(rowOffset + sfield.getRelativeOffset());
+	}
+
+	@Override
+	public int getInt(Field field) {
+		SBEField sfield = validateField(field);
+		if( isAbsent(sfield) ) {
+			return (int) sfield.getNullValue();
+		}
+		return buffer.getInt(rowOffset + sfield.getRelativeOffset());
+	}
+
+	@Override
+	public long getU32(Field field) {
+		SBEField sfield = validateField(field);
+		if( isAbsent(sfield) ) {
+			return 0xffffffffL & sfield.getNullValue();
+		}
+		return 0xffffffffL & buffer.getInt(rowOffset + sfield.getRelativeOffset());
+	}
+
+	@Override
+	public long getLong(Field field) {
+		SBEField sfield = validateField(field);
+		if( isAbsent(sfield) ) {
+			return sfield.getNullValue();
+		}
+		return buffer.getLong(rowOffset + sfield.getRelativeOffset());
+	}
+
+	@Override
+	public float getFloat(Field field) {
+		SBEField sfield = validateField(field);
+		if( isAbsent(sfield) ) {
+			return (float) sfield.getNullDoubleValue();
+		}
+		return buffer.getFloat(rowOffset + sfield.getRelativeOffset());
+	}
+
+	@Override
+	public double getDouble(Field field) {
+		SBEField sfield = validateField(field);
+		if( isAbsent(sfield) ) {
+			return sfield.getNullDoubleValue();
+		}
+		return buffer.getDouble(rowOffset + sfield.getRelativeOffset());
+	}
+
+	/**
+	 * @return true if a field of the block is added in a later version or is beyond the block of the rows
+	 */
+	private boolean isAbsent(SBEField field) {
+		return ! field.isPresent(actingVersion, blockSize);
+	}
+
+	private SBEField validateField(Field field) {
+		SBEField sfield = (SBEField) field;
+		if( safeMode ) {
+			if( rowIndex < 0 ) {
+				throw new IllegalStateException("cursor is not positioned at a row of group, "+definition.getID());
+			}
+			Group parent = sfield.getParent();
+			if( parent != definition &&
+				( null == parent || FieldType.COMPOSITE != parent.getType() || parent.getParent() != definition ) ) {
+				throw new IllegalArgumentException("field, "+field.getID()+", does not belong to this group, "+definition.getID());
+			}
+		}
+		return sfield;
+	}
+}
@@ -0,0 +1,293 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.message.sbe;
+
+import java.nio.BufferOverflowException;
+
+import com.github.bwsoft.iris.buffer.IrisBuffer;
+import com.github.bwsoft.iris.message.Field;
+import com.github.bwsoft.iris.message.FieldType;
+import com.github.bwsoft.iris.message.Group;
+import com.github.bwsoft.iris.message.GroupEncoder;
+
+/**
+ * An append only encoder of the rows of a SBE group. The encoder tree mirrors the group 
+ * definition tree and is created once. All encoders of a message append to the end of the 
+ * message, which is tracked by the message encoder. A nested group being appended is 
+ * completed, by encoding its remaining groups and variable length fields as empty, once 
+ * its parent moves on.
+ *
+ * @author yzhou
+ *
+ */
+class SBEGroupEncoder implements GroupEncoder {
+	private final SBEGroup definition;
+	private final SBEField[] variableFields;
+	private final SBEGroupEncoder[] childEncoders;
+	private final SBEMessageEncoder root;
+
+	protected final boolean safeMode;
+
+	protected IrisBuffer buffer;
+	private int headerOffset; // the starting position of the group header
+	protected int numRows;
+	private int rowOffset; // the starting position of the current row
+	
+	// the index of the next group or variable length field to be appended to the current row
+	private int nextVariableField;
+	private SBEGroupEncoder openChild;
+
+	SBEGroupEncoder(SBEGroup definition, SBEMessageEncoder root) {
+		this.definition = definition;
+		this.root = null == root ? (SBEMessageEncoder) this : root;
+		this.variableFields = definition.getVariableFields();
+		this.childEncoders = new SBEGroupEncoder[variableFields.length];
+		for( int i = 0; i < variableFields.length; i ++ ) {
+			if( FieldType.GROUP == variableFields[i].getType() ) {
+				childEncoders[i] = new SBEGroupEncoder((SBEGroup) variableFields[i], this.root);
+			}
+		}
+		this.safeMode = definition.getMessage().safeMode();
+	}
+
+	/**
+	 * Append an empty group at the end of the message. 
+	 *
+	 * @param buffer the buffer containing the message
+	 * @param offset the starting position of the group header
+	 */
+	private void start(IrisBuffer buffer, int offset) {
+		SBEGroupHeader header = (SBEGroupHeader) definition.getHeader();
+		checkCapacity(buffer, offset, header.getSize());
+		header.putBlockSize(buffer, offset, definition.getBlockSize());
+		header.putNumRows(buffer, offset, 0);
+		this.buffer = buffer;
+		this.headerOffset = offset;
+		this.numRows = 0;
+		this.nextVariableField = variableFields.length;
+		this.openChild = null;
+		root.limit = offset + header.getSize();
+	}
+
+	/**
+	 * Point the encoder to a row that has been appended.
+	 *
+	 * @param buffer the buffer containing the message
+	 * @param offset the starting position of the row
+	 */
+	void startRow(IrisBuffer buffer, int offset) {
+		checkCapacity(buffer, offset, definition.getBlockSize());
+		this.buffer = buffer;
+		this.rowOffset = offset;
+		this.nextVariableField = 0;
+		this.openChild = null;
+		
+		// initialize the block to zero and optional fields to null
+		int blockSize = definition.getBlockSize();
+		buffer.setMemory(offset, blockSize, (byte) 0);
+		byte[] nullBlock = definition.getNullBlock();
+		if( null != nullBlock ) {
+			buffer.putBytes(offset, nullBlock, 0, nullBlock.length);
+		}
+		root.limit = offset + blockSize;
+	}
+	
+	/**
+	 * Encode the remaining groups and variable length fields of the current row as empty.
+	 */
+	void closeRow() {
+		if( null != openChild ) {
+			openChild.closeRow();
+			openChild = null;
+		}
+		appendEmptyFields(variableFields.length);
+	}
+	
+	/**
+	 * Prepare the current row to append the nth group or variable length field. 
+	 */
+	private void moveTo(int n) {
+		if( n < nextVariableField ) {
+			throw new IllegalStateException("field, "+variableFields[n].getID()+", cannot be appended to the current row of group, "+definition.getID());
+		}
+		if( null != openChild ) {
+			openChild.closeRow();
+			openChild = null;
+		}
+		appendEmptyFields(n);
+	}
+	
+	private void appendEmptyFields(int n) {
+		while( nextVariableField < n ) {
+			SBEField field = variableFields[nextVariableField ++];
+			if( FieldType.GROUP == field.getType() ) {
+				childEncoders[nextVariableField-1].start(buffer, root.limit);
+			} else {
+				SBEVarLengthFieldHeader header = (SBEVarLengthFieldHeader) field.getHeader();
+				checkCapacity(buffer, root.limit, header.getSize());
+				header.putBlockSize(buffer, root.limit, 0);
+				root.limit += header.getSize();
+			}
+		}
+	}
+
+	private int indexOf(Field field) {
+		for( int i = 0; i < variableFields.length; i ++ ) {
+			if( variableFields[i] == field )
+				return i;
+		}
+		throw new IllegalArgumentException("field, "+field.getID()+", is not a group or a variable length field of group, "+definition.getID());
+	}
+
+	@Override
+	public Group getDefinition() {
+		return definition;
+	}
+
+	@Override
+	public int getNumOfRows() {
+		return numRows;
+	}
+
+	@Override
+	public GroupEncoder next() {
+		closeRow();
+		startRow(buffer, root.limit);
+		numRows ++;
+		((SBEGroupHeader) definition.getHeader()).putNumRows(buffer, headerOffset, numRows);
+		return this;
+	}
+
+	@Override
+	public GroupEncoder getGroupEncoder(Field field) {
+		int n = indexOf(field);
+		SBEGroupEncoder encoder = childEncoders[n];
+		if( null == encoder ) {
+			throw new IllegalArgumentException("field, "+field.getID()+", is not a group field");
+		}
+		moveTo(n);
+		encoder.start(buffer, root.limit);
+		nextVariableField = n+1;
+		openChild = encoder;
+		return encoder;
+	}
+
+	@Override
+	public GroupEncoder setBytes(Field field, byte[] src, int srcOffset, int length) {
+		SBEField sfield = validateField(field);
+		switch( field.getType() ) {
+		case RAW:
+			if( length < 0 ) {
+				throw new IllegalArgumentException("negative length, "+length+", of field, "+field.getID());
+			}
+			int n = indexOf(field);
+			moveTo(n);
+			SBEVarLengthFieldHeader header = (SBEVarLengthFieldHeader) sfield.getHeader();
+			checkCapacity(buffer, root.limit, header.getSize() + length);
+			header.putBlockSize(buffer, root.limit, length);
+			buffer.putBytes(root.limit + header.getSize(), src, srcOffset, length);
+			root.limit += header.getSize() + length;
+			nextVariableField = n+1;
+			return this;
+
+		case CONSTANT:
+		case GROUP:
+		case MESSAGE:
+			throw new UnsupportedOperationException("cannot set bytes for field type: "+field.getType());
+
+		default:
+			int size = sfield.getBlockSize()*sfield.length();
+			length = length > size ? size : length;
+			buffer.putBytes(rowOffset + sfield.getRelativeOffset(), src, srcOffset, length);
+			return this;
+		}
+	}
+
+	@Override
+	public GroupEncoder setByte(Field field, byte value) {
+		buffer.put(rowOffset + validateField(field).getRelativeOffset(), value);
+		return this;
+	}
+
+	@Override
+	public GroupEncoder setU16(Field field, int value) {
+		buffer.putShort(rowOffset + validateField(field).getRelativeOffset(), (short) value);
+		return this;
+	}
+
+	@Override
+	public GroupEncoder setI16(Field field, short value) {
+		buffer.putShort(rowOffset + validateField(field).getRelativeOffset(), value);
+		return this;
+	}
+
+	@Override
+	public GroupEncoder setInt(Field field, int value) {
+		buffer.putInt(rowOffset + validateField(field).getRelativeOffset(), value);
+		return this;
+	}
+
+	@Override
+	public GroupEncoder setU32(Field field, long value) {
+		buffer.putInt(rowOffset + validateField(field).getRelativeOffset(), (int) value);
+		return this;
+	}
+
+	@Override
+	public GroupEncoder setLong(Field field, long value) {
+		buffer.putLong(rowOffset + validateField(field).getRelativeOffset(), value);
+		return this;
+	}
+
+	@Override
+	public GroupEncoder setFloat(Field field, float value) {
+		buffer.putFloat(rowOffset + validateField(field).getRelativeOffset(), value);
+		return this;
+	}
+
+	@Override
+	public GroupEncoder setDouble(Field field, double value) {
+		buffer.putDouble(rowOffset + validateField(field).getRelativeOffset(), value);
+		return this;
+	}
+
+	/**
+	 * Make sure that n bytes can be appended at offset. The check is done regardless of the 
+	 * safe mode since the buffer can be unchecked. 
+	 * 
+	 * @throws BufferOverflowException if the bytes go beyond the capacity of the buffer
+	 */
+	static void checkCapacity(IrisBuffer buffer, int offset, int n) {
+		if( n > buffer.capacity() - offset ) {
+			throw new BufferOverflowException();
+		}
+	}
+
+	private SBEField validateField(Field field) {
+		SBEField sfield = (SBEField) field;
+		if( safeMode ) {
+			if( numRows == 0 ) {
+				throw new IllegalStateException("encoder is not positioned at a row of group, "+definition.getID());
+			}
+			Group parent = sfield.getParent();
+			if( parent != definition &&
+				( null == parent || FieldType.COMPOSITE != parent.getType() || parent.getParent() != definition ) ) {
+				throw new IllegalArgumentException("field, "+field.getID()+", does not belong to this group, "+definition.getID());
+			}
+		}
+		return sfield;
+	}
+}
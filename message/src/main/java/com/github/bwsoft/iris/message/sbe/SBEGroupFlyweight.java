@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.message.sbe;
+
+import com.github.bwsoft.iris.message.Field;
+import com.github.bwsoft.iris.message.GroupCursor;
+
+/**
+ * The base class of generated group flyweights. A generated flyweight reads the fields of
+ * the current row at offsets that are resolved at code generation time. The rows are
+ * iterated through a {@link GroupCursor}.
+ *
+ * The methods are not meant to be called directly by an application. Use the typed
+ * methods of the generated classes instead.
+ *
+ * @see SBEFlyweightGenerator
+ *
+ * @author yzhou
+ *
+ */
+public abstract class SBEGroupFlyweight {
+	private SBEGroupCursor cursor;
+
+	/**
+	 * Point this flyweight to a cursor. The flyweight moves with the cursor.
+	 *
+	 * @param cursor the cursor of the group
+	 */
+	protected final void pointTo(GroupCursor cursor) {
+		this.cursor = (SBEGroupCursor) cursor;
+	}
+
+	/**
+	 * @return the cursor this flyweight is currently pointed to
+	 */
+	protected final GroupCursor cursor() {
+		return cursor;
+	}
+
+	/**
+	 * @return the number of rows
+	 */
+	public final int count() {
+		return cursor.getNumOfRows();
+	}
+
+	/**
+	 * @return true if there is a row after the current row
+	 */
+	public final boolean hasNext() {
+		return cursor.hasNext();
+	}
+
+	/**
+	 * Move to the next row.
+	 *
+	 * @return true if moved or false if there is no more rows.
+	 */
+	public final boolean next() {
+		return cursor.next();
+	}
+
+	/**
+	 * Check if a field of the block is in the current row, which is the case when the field 
+	 * is not added after the acting version and fits in the block of the row. 
+	 *
+	 * @param sinceVersion the version in which the field is added
+	 * @param end the end of the field relative to the start of the block
+	 * @return true if the field is present
+	 */
+	protected final boolean isPresentAt(int sinceVersion, int end) {
+		return sinceVersion <= cursor.getActingVersion() && end <= cursor.getBlockSize();
+	}
+
+	protected final GroupCursor groupCursor(Field field) {
+		return cursor.getGroupCursor(field);
+	}
+
+	protected final int sizeOf(Field field) {
+		return cursor.getSize(field);
+	}
+
+	protected final int bytesOf(Field field, byte[] dest, int destOffset, int length) {
+		return cursor.getBytes(field, dest, destOffset, length);
+	}
+
+	protected final int getBytesAt(int offset, int size, byte[] dest, int destOffset, int length) {
+		length = length > size ? size : length;
+		cursor.getBuffer().getBytes(cursor.getRowOffset()+offset, dest, destOffset, length);
+		return length;
+	}
+
+	protected final int putBytesAt(int offset, int size, byte[] src, int srcOffset, int length) {
+		length = length > size ? size : length;
+		cursor.getBuffer().putBytes(cursor.getRowOffset()+offset, src, srcOffset, length);
+		return length;
+	}
+
+	protected final byte getByteAt(int offset) {
+		return cursor.getBuffer().get(cursor.getRowOffset()+offset);
+	}
+
+	protected final short getShortAt(int offset) {
+		return cursor.getBuffer().getShort(cursor.getRowOffset()+offset);
+	}
+
+	protected final int getIntAt(int offset) {
+		return cursor.getBuffer().getInt(cursor.getRowOffset()+offset);
+	}
+
+	protected final long getLongAt(int offset) {
+		return cursor.getBuffer().getLong(cursor.getRowOffset()+offset);
+	}
+
+	protected final float getFloatAt(int offset) {
+		return cursor.getBuffer().getFloat(cursor.getRowOffset()+offset);
+	}
+
+	protected final double getDoubleAt(int offset) {
+		return cursor.getBuffer().getDouble(cursor.getRowOffset()+offset);
+	}
+
+	protected final void putByteAt(int offset, byte value) {
+		cursor.getBuffer().put(cursor.getRowOffset()+offset, value);
+	}
+
+	protected final void putShortAt(int offset, short value) {
+		cursor.getBuffer().putShort(cursor.getRowOffset()+offset, value);
+	}
+
+	protected final void putIntAt(int offset, int value) {
+		cursor.getBuffer().putInt(cursor.getRowOffset()+offset, value);
+	}
+
+	protected final void putLongAt(int offset, long value) {
+		cursor.getBuffer().putLong(cursor.getRowOffset()+offset, value);
+	}
+
+	protected final void putFloatAt(int offset, float value) {
+		cursor.getBuffer().putFloat(cursor.getRowOffset()+offset, value);
+	}
+
+	protected final void putDoubleAt(int offset, double value) {
+		cursor.getBuffer().putDouble(cursor.getRowOffset()+offset, value);
+	}
+}
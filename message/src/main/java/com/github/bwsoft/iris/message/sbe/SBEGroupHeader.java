@@ -15,9 +15,9 @@
  *******************************************************************************/
 package com.github.bwsoft.iris.message.sbe;
 
-import java.nio.ByteBuffer;
 import java.util.List;
 
+import com.github.bwsoft.iris.buffer.IrisBuffer;
 import com.github.bwsoft.iris.message.FieldHeader;
 import com.github.bwsoft.iris.message.FieldType;
 import com.github.bwsoft.iris.message.sbe.SBESchemaFieldTypes.SBECompositeTypeElement;
@@ -80,7 +80,7 @@ class SBEGroupHeader implements FieldHeader {
 		return headerSize;
 	}
 	
-	int getBlockSize(ByteBuffer buffer, int groupStartOffset) {
+	int getBlockSize(IrisBuffer buffer, int groupStartOffset) {
 		switch( this.blockSizeType ) {
 		case U8:
 		case I8:
@@ -93,7 +93,7 @@ class SBEGroupHeader implements FieldHeader {
 		}
 	}
 	
-	int getNumRows(ByteBuffer buffer, int groupStartOffset) {
+	int getNumRows(IrisBuffer buffer, int groupStartOffset) {
 		switch( this.numInGroupType ) {
 		case U8:
 		case I8:
@@ -106,7 +106,7 @@ class SBEGroupHeader implements FieldHeader {
 		}
 	}
 
-	void putBlockSize(ByteBuffer buffer, int groupStartOffset, int blockSize) {
+	void putBlockSize(IrisBuffer buffer, int groupStartOffset, int blockSize) {
 		switch( this.blockSizeType ) {
 		case U8:
 		case I8:
@@ -123,7 +123,7 @@ class SBEGroupHeader implements FieldHeader {
 		}
 	}
 	
-	void putNumRows(ByteBuffer buffer, int groupStartOffset, int numRows) {
+	void putNumRows(IrisBuffer buffer, int groupStartOffset, int numRows) {
 		switch( this.numInGroupType ) {
 		case U8:
 		case I8:
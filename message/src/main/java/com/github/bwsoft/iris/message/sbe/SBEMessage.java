@@ -18,9 +18,14 @@ package com.github.bwsoft.iris.message.sbe;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 
+import com.github.bwsoft.iris.buffer.IrisBuffer;
 import com.github.bwsoft.iris.message.FieldType;
 import com.github.bwsoft.iris.message.GroupObject;
 import com.github.bwsoft.iris.message.Message;
+import com.github.bwsoft.iris.message.MessageCursor;
+import com.github.bwsoft.iris.message.MessageEncoder;
+import com.github.bwsoft.iris.message.MessagePrototype;
+import com.github.bwsoft.iris.message.Projection;
 
 /**
  * The representation of a SBE message. It contains the definition of a SBE message. 
@@ -43,6 +48,7 @@ public class SBEMessage extends SBEGroup implements Message {
 	
 	private final boolean safeMode;
 
+	// the default context of a thread when a context is not specified
 	private final ThreadLocal<SBEParser> parser = new ThreadLocal<SBEParser>() {
 		@Override
 		protected SBEParser initialValue() {
@@ -58,14 +64,6 @@ public class SBEMessage extends SBEGroup implements Message {
 		this.safeMode = Boolean.valueOf(SBESchemaLoader.properties.getProperty(SBESchemaLoader.SAFE_MODE));
 	}
 
-	SBEParser getParser() {
-		return parser.get();
-	}
-	
-	SBEObject getRootObject() {
-		return parser.get().getRootObject();
-	}
-	
 	SBEMessageSchemaHeader getMsgSchemaHeader() {
 		return schema;
 	}
@@ -83,8 +81,180 @@ public class SBEMessage extends SBEGroup implements Message {
 		return (SBEObject) this.parser.get().wrapSbeBuffer(buffer, offset).getGroupObject(0);
 	}
 
+	@Override
+	public GroupObject wrapSbeBuffer(ByteBuffer buffer, int offset, boolean lazy) {
+		return (SBEObject) this.parser.get().wrapSbeBuffer(buffer, offset, lazy).getGroupObject(0);
+	}
+
 	@Override
 	public GroupObject createSbeBuffer(ByteBuffer buffer, int offset) {
 		return this.parser.get().createSbeBuffer(buffer, offset).getGroupObject(0);
 	}
+
+	@Override
+	public GroupObject wrapSbeBuffer(IrisBuffer buffer, int offset, boolean lazy) {
+		return (SBEObject) this.parser.get().wrapSbeBuffer(buffer, offset, lazy).getGroupObject(0);
+	}
+
+	@Override
+	public GroupObject createSbeBuffer(IrisBuffer buffer, int offset) {
+		return this.parser.get().createSbeBuffer(buffer, offset).getGroupObject(0);
+	}
+
+	/**
+	 * Wrap a buffer with SBE message in a context the same way as {@link #wrapSbeBuffer(ByteBuffer, int, boolean)}. 
+	 * The returned GroupObject is valid until the next wrap or create call of this message in 
+	 * the same context. 
+	 * 
+	 * @param context the context to hold the parsed message
+	 * @param buffer a buffer containing the SBE message
+	 * @param offset the starting position of the SBE message in the buffer
+	 * @param lazy true to defer the parsing of groups and variable length fields until they are accessed
+	 * @return a GroupObject to access the fields in the message
+	 */
+	public GroupObject wrapSbeBuffer(SBEMessageContext context, ByteBuffer buffer, int offset, boolean lazy) {
+		return (SBEObject) context.getParser(this).wrapSbeBuffer(buffer, offset, lazy).getGroupObject(0);
+	}
+
+	/**
+	 * Wrap an IrisBuffer with SBE message in a context the same way as {@link #wrapSbeBuffer(SBEMessageContext, ByteBuffer, int, boolean)}. 
+	 * 
+	 * @param context the context to hold the parsed message
+	 * @param buffer a buffer containing the SBE message
+	 * @param offset the starting position of the SBE message in the buffer
+	 * @param lazy true to defer the parsing of groups and variable length fields until they are accessed
+	 * @return a GroupObject to access the fields in the message
+	 */
+	public GroupObject wrapSbeBuffer(SBEMessageContext context, IrisBuffer buffer, int offset, boolean lazy) {
+		return (SBEObject) context.getParser(this).wrapSbeBuffer(buffer, offset, lazy).getGroupObject(0);
+	}
+
+	/**
+	 * Create a SBE message in a context the same way as {@link #createSbeBuffer(ByteBuffer, int)}. 
+	 * The returned GroupObject is valid until the next wrap or create call of this message in 
+	 * the same context. 
+	 * 
+	 * @param context the context to hold the created message
+	 * @param buffer a buffer to hold the SBE message
+	 * @param offset the starting position to create the SBE message in the buffer
+	 * @return a GroupObject to set fields in the message
+	 */
+	public GroupObject createSbeBuffer(SBEMessageContext context, ByteBuffer buffer, int offset) {
+		return context.getParser(this).createSbeBuffer(buffer, offset).getGroupObject(0);
+	}
+
+	/**
+	 * Create a SBE message in an IrisBuffer in a context the same way as {@link #createSbeBuffer(SBEMessageContext, ByteBuffer, int)}. 
+	 * 
+	 * @param context the context to hold the created message
+	 * @param buffer a buffer to hold the SBE message
+	 * @param offset the starting position to create the SBE message in the buffer
+	 * @return a GroupObject to set fields in the message
+	 */
+	public GroupObject createSbeBuffer(SBEMessageContext context, IrisBuffer buffer, int offset) {
+		return context.getParser(this).createSbeBuffer(buffer, offset).getGroupObject(0);
+	}
+
+	/**
+	 * Create a SBE message at the beginning of a buffer taken from the pool of a context. The 
+	 * message moves to a larger buffer of the pool when it outgrows the buffer, which is 
+	 * obtained by {@link SBEMessageContext#getBuffer(SBEMessage)}. The returned GroupObject 
+	 * is valid until the next wrap or create call of this message in the same context. 
+	 * 
+	 * @param context the context with a pool to hold the created message
+	 * @param capacity the initial capacity of the buffer
+	 * @return a GroupObject to set fields in the message
+	 * @throws IllegalArgumentException if the context has no pool
+	 */
+	public GroupObject createSbeBuffer(SBEMessageContext context, int capacity) {
+		if( null == context.getBufferPool() ) {
+			throw new IllegalArgumentException("the context is not created with a buffer pool");
+		}
+		return context.getParser(this).createSbeBuffer(context.getBufferPool(), capacity).getGroupObject(0);
+	}
+
+	@Override
+	public Projection createProjection(String... paths) {
+		return new SBEProjection(this, paths);
+	}
+
+	@Override
+	public GroupObject wrapSbeBuffer(ByteBuffer buffer, int offset, Projection projection) {
+		return (SBEObject) this.parser.get().wrapSbeBuffer(buffer, offset, checkProjection(projection)).getGroupObject(0);
+	}
+
+	@Override
+	public GroupObject wrapSbeBuffer(IrisBuffer buffer, int offset, Projection projection) {
+		return (SBEObject) this.parser.get().wrapSbeBuffer(buffer, offset, checkProjection(projection)).getGroupObject(0);
+	}
+	
+	private SBEProjection checkProjection(Projection projection) {
+		if( projection.getMessage() != this ) {
+			throw new IllegalArgumentException("the projection is not created by message, "+getName());
+		}
+		return (SBEProjection) projection;
+	}
+
+	/**
+	 * Obtain the encoded length of the message by walking the message header and the headers of 
+	 * the groups and variable length fields. No SBEObject is created. 
+	 */
+	@Override
+	public int measure(ByteBuffer buffer, int offset) {
+		return measure(IrisBuffer.wrap(buffer), offset);
+	}
+
+	@Override
+	public int measure(IrisBuffer buffer, int offset) {
+		buffer.order(getByteOrder());
+		int headerSize = msgHeader.getSize();
+		int blockSize = msgHeader.getBlockSize(buffer, offset);
+		int actingVersion = msgHeader.getVersion(buffer, offset);
+		return headerSize + blockSize + SBEParser.skipVariableFields(buffer, offset+headerSize+blockSize, this, actingVersion);
+	}
+
+	/**
+	 * Create a flyweight cursor for this message. The cursor can be re-pointed to 
+	 * different messages of this type by {@link MessageCursor#wrap(ByteBuffer, int)}. 
+	 * 
+	 * @return a new cursor of this message
+	 */
+	public MessageCursor createCursor() {
+		return new SBEMessageCursor(this);
+	}
+	
+	/**
+	 * Create an append only encoder for this message. See {@link MessageEncoder}.
+	 * 
+	 * @return a new encoder of this message
+	 */
+	public MessageEncoder createEncoder() {
+		return new SBEMessageEncoder(this);
+	}
+	
+	/**
+	 * Create a prototype from a message of this type. See {@link MessagePrototype}. The bytes 
+	 * of the message are copied and the buffer can be reused afterwards. 
+	 * 
+	 * @param buffer the buffer containing the message
+	 * @param offset the starting position of the message
+	 * @return a new prototype of this message
+	 * @throws IllegalArgumentException if the buffer does not contain a message of this type
+	 */
+	public MessagePrototype createPrototype(ByteBuffer buffer, int offset) {
+		return createPrototype(IrisBuffer.wrap(buffer.duplicate().order(getByteOrder())), offset);
+	}
+	
+	/**
+	 * Create a prototype from a message of this type in an IrisBuffer the same way as 
+	 * {@link #createPrototype(ByteBuffer, int)}. 
+	 * 
+	 * @param buffer the buffer containing the message
+	 * @param offset the starting position of the message
+	 * @return a new prototype of this message
+	 */
+	public MessagePrototype createPrototype(IrisBuffer buffer, int offset) {
+		buffer.order(getByteOrder());
+		return new SBEMessagePrototype(this, buffer, offset);
+	}
 }
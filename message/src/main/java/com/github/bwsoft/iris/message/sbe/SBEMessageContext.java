@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.message.sbe;
+
+import java.nio.ByteBuffer;
+import java.util.IdentityHashMap;
+
+import com.github.bwsoft.iris.buffer.BufferPool;
+
+/**
+ * A context holds the parsing structures of the messages wrapped or created in it. A wrap or create 
+ * call without a context uses a context per message type per thread, in which wrapping a message 
+ * invalidates the previous GroupObject of the same message type. Allocate a context for each 
+ * message that has to stay valid at the same time, e.g. to correlate a request with its response 
+ * of the same template. 
+ * 
+ * <pre>
+ * {@code
+ *     SBEMessageContext first = new SBEMessageContext();
+ *     SBEMessageContext second = new SBEMessageContext();
+ *     GroupObject order1 = schema.wrapSbeBuffer(first, buffer1, offset1);
+ *     GroupObject order2 = schema.wrapSbeBuffer(second, buffer2, offset2);
+ * }
+ * </pre>
+ * 
+ * A context created with a {@link BufferPool} can create messages in buffers taken from the pool, 
+ * see {@link SBEMessage#createSbeBuffer(SBEMessageContext, int)}. Such a message moves to a larger 
+ * buffer of the pool when a group row or a variable length field is added beyond the capacity 
+ * of its buffer. Its buffer is handed back to the pool upon the next wrap or create call of the 
+ * same message type in the context or upon {@link #release()}. 
+ * 
+ * A context is reused across messages. It is not thread safe but it can be handed over from one 
+ * thread to another together with the messages in it, e.g. through a queue. 
+ * 
+ * @author yzhou
+ *
+ */
+public final class SBEMessageContext {
+	private final IdentityHashMap<SBEMessage, SBEParser> parsers = new IdentityHashMap<>();
+	private final BufferPool pool;
+	
+	/**
+	 * Create an empty context. The parsing structure of a message type is created upon the first 
+	 * wrap or create call of the message type in the context. 
+	 */
+	public SBEMessageContext() {
+		this(null);
+	}
+	
+	/**
+	 * Create an empty context that creates messages in buffers of a pool. 
+	 * 
+	 * @param pool the pool to allocate the buffers of the created messages
+	 */
+	public SBEMessageContext(BufferPool pool) {
+		this.pool = pool;
+	}
+	
+	/**
+	 * @return the pool of this context or null if the context has no pool
+	 */
+	public BufferPool getBufferPool() {
+		return pool;
+	}
+	
+	/**
+	 * Obtain the pooled buffer that holds the message of a type created in this context. The message 
+	 * starts at the beginning of the buffer. The buffer can change when the message grows. 
+	 * 
+	 * @param message the message type
+	 * @return the buffer or null if no message of the type is created from the pool
+	 */
+	public ByteBuffer getBuffer(SBEMessage message) {
+		SBEParser parser = parsers.get(message);
+		return null == parser ? null : parser.getPooledBuffer();
+	}
+	
+	/**
+	 * Hand the buffers of all messages created from the pool back to the pool. These messages 
+	 * cannot be used afterwards. 
+	 */
+	public void release() {
+		for( SBEParser parser : parsers.values() ) {
+			parser.releasePooledBuffer();
+		}
+	}
+	
+	SBEParser getParser(SBEMessage message) {
+		SBEParser parser = parsers.get(message);
+		if( null == parser ) {
+			parser = new SBEParser(message);
+			parsers.put(message, parser);
+		}
+		return parser;
+	}
+}
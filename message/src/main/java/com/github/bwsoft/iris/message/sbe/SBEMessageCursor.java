@@ -0,0 +1,61 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.message.sbe;
+
+import java.nio.ByteBuffer;
+
+import com.github.bwsoft.iris.buffer.IrisBuffer;
+import com.github.bwsoft.iris.message.MessageCursor;
+
+/**
+ * A flyweight cursor of a SBE message. 
+ * 
+ * @author yzhou
+ *
+ */
+class SBEMessageCursor extends SBEGroupCursor implements MessageCursor {
+	private final SBEMessage message;
+	
+	// reusable buffers to wrap a ByteBuffer
+	private final SBEBufferWrapper wrapper;
+	
+	SBEMessageCursor(SBEMessage message) {
+		super(message);
+		this.message = message;
+		this.wrapper = new SBEBufferWrapper(message);
+	}
+
+	/**
+	 * The extent of the message is unknown since the cursor does not walk the message upon 
+	 * the wrap. The ByteBuffer is read with checks even if the safe mode is off.
+	 */
+	@Override
+	public MessageCursor wrap(ByteBuffer buffer, int offset) {
+		return wrap(wrapper.wrapChecked(buffer), offset);
+	}
+
+	@Override
+	public MessageCursor wrap(IrisBuffer buffer, int offset) {
+		buffer.order(message.getByteOrder());
+		SBEMessageHeader header = (SBEMessageHeader) message.getHeader();
+		if( safeMode && header.getTemplateId(buffer, offset) != message.getID() ) {
+			throw new IllegalArgumentException("the buffer does not contain a message of template id, "+message.getID());
+		}
+		pointTo(buffer, 1, header.getBlockSize(buffer, offset), offset + header.getSize(), header.getVersion(buffer, offset));
+		next();
+		return this;
+	}
+}
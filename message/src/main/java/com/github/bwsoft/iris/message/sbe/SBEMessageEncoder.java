@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.message.sbe;
+
+import java.nio.ByteBuffer;
+
+import com.github.bwsoft.iris.buffer.IrisBuffer;
+import com.github.bwsoft.iris.message.GroupEncoder;
+import com.github.bwsoft.iris.message.MessageEncoder;
+
+/**
+ * An append only encoder of a SBE message. 
+ * 
+ * @author yzhou
+ *
+ */
+class SBEMessageEncoder extends SBEGroupEncoder implements MessageEncoder {
+	private final SBEMessage message;
+	
+	// reusable buffers to wrap a ByteBuffer
+	private final SBEBufferWrapper wrapper;
+	
+	private int offset;
+	
+	// the end of the message being encoded
+	int limit;
+	
+	SBEMessageEncoder(SBEMessage message) {
+		super(message, null);
+		this.message = message;
+		this.wrapper = new SBEBufferWrapper(message);
+	}
+
+	@Override
+	public MessageEncoder wrap(ByteBuffer buffer, int offset) {
+		// every append is checked against the capacity of the buffer
+		return wrap(wrapper.wrap(buffer, offset, 0), offset);
+	}
+
+	@Override
+	public MessageEncoder wrap(IrisBuffer buffer, int offset) {
+		buffer.order(message.getByteOrder());
+		SBEMessageHeader header = (SBEMessageHeader) message.getHeader();
+		checkCapacity(buffer, offset, header.getSize() + message.getBlockSize());
+		SBEMessageSchemaHeader schemaHeader = message.getMsgSchemaHeader();
+		header.putSchemaId(buffer, offset, schemaHeader.getId());
+		header.putVersion(buffer, offset, schemaHeader.getVersion());
+		header.putTemplateId(buffer, offset, message.getID());
+		header.putBlockSize(buffer, offset, message.getBlockSize());
+		
+		this.offset = offset;
+		this.numRows = 1;
+		startRow(buffer, offset + header.getSize());
+		return this;
+	}
+
+	@Override
+	public GroupEncoder next() {
+		throw new UnsupportedOperationException("a message has only one row");
+	}
+
+	@Override
+	public int finish() {
+		closeRow();
+		return limit - offset;
+	}
+}
@@ -0,0 +1,464 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.message.sbe;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+
+import com.github.bwsoft.iris.buffer.IrisBuffer;
+import com.github.bwsoft.iris.message.CharSequenceView;
+import com.github.bwsoft.iris.message.Field;
+import com.github.bwsoft.iris.message.GroupObject;
+import com.github.bwsoft.iris.message.GroupObjectArray;
+import com.github.bwsoft.iris.message.SBEMessageSchema;
+
+/**
+ * The base class of generated message flyweights. The typed methods of a generated
+ * flyweight read or write the root block directly at offsets resolved at code generation
+ * time. The class also implements {@link GroupObject} so that a flyweight can be passed to
+ * code that processes messages generically, e.g. {@link com.github.bwsoft.iris.util.MessageUtil}.
+ * The GroupObject methods are delegated to a GroupObject of the same message. For a decoder, it
+ * is obtained by a lazy wrap upon the first GroupObject call.
+ *
+ * Like a GroupObject obtained from {@link SBEMessageSchema}, the delegated GroupObject is only
+ * valid until the next wrap or create of the same message type in the same thread.
+ *
+ * A ByteBuffer is read by the typed methods with checks even if the safe mode is off since the
+ * message is not measured upon a wrap for decode, see {@link com.github.bwsoft.iris.message.MessageCursor#wrap(ByteBuffer, int)}.
+ *
+ * @see SBEFlyweightGenerator
+ *
+ * @author yzhou
+ *
+ */
+public abstract class SBEMessageFlyweight extends SBEGroupFlyweight implements GroupObject {
+	private final SBEMessage message;
+	private final SBEMessageCursor messageCursor;
+
+	private IrisBuffer buffer;
+	private int offset;
+	private GroupObject groupObject;
+
+	protected SBEMessageFlyweight(SBEMessageSchema schema, int templateId) {
+		this.message = schema.getMsgLookup().get(templateId);
+		if( null == this.message ) {
+			throw new IllegalArgumentException("template, "+templateId+", is not defined in the schema");
+		}
+		this.messageCursor = (SBEMessageCursor) message.createCursor();
+		pointTo(messageCursor);
+	}
+
+	/**
+	 * Point the flyweight to an existing message for read.
+	 *
+	 * @param buffer the buffer containing the message
+	 * @param offset the starting position of the message
+	 */
+	protected final void wrapForDecode(ByteBuffer buffer, int offset) {
+		this.messageCursor.wrap(buffer, offset);
+		attach(offset, null);
+	}
+
+	/**
+	 * Point the flyweight to an existing message for read.
+	 *
+	 * @param buffer the buffer containing the message
+	 * @param offset the starting position of the message
+	 */
+	protected final void wrapForDecode(IrisBuffer buffer, int offset) {
+		this.messageCursor.wrap(buffer, offset);
+		attach(offset, null);
+	}
+
+	/**
+	 * Point the flyweight to an existing message for modification.
+	 *
+	 * @param buffer the buffer containing the message
+	 * @param offset the starting position of the message
+	 */
+	protected final void wrapForEncode(ByteBuffer buffer, int offset) {
+		// the parser measures the message in the ByteBuffer before reading it without checks
+		GroupObject groupObject = message.wrapSbeBuffer(buffer, offset);
+		this.messageCursor.wrap(buffer, offset);
+		attach(offset, groupObject);
+	}
+
+	/**
+	 * Point the flyweight to an existing message for modification.
+	 *
+	 * @param buffer the buffer containing the message
+	 * @param offset the starting position of the message
+	 */
+	protected final void wrapForEncode(IrisBuffer buffer, int offset) {
+		this.messageCursor.wrap(buffer, offset);
+		attach(offset, message.wrapSbeBuffer(buffer, offset));
+	}
+
+	/**
+	 * Create a new message in the buffer and point the flyweight to it.
+	 *
+	 * @param buffer the buffer to hold the message
+	 * @param offset the starting position of the message
+	 */
+	protected final void createForEncode(ByteBuffer buffer, int offset) {
+		GroupObject groupObject = message.createSbeBuffer(buffer, offset);
+		this.messageCursor.wrap(buffer, offset);
+		attach(offset, groupObject);
+	}
+
+	/**
+	 * Create a new message in the buffer and point the flyweight to it.
+	 *
+	 * @param buffer the buffer to hold the message
+	 * @param offset the starting position of the message
+	 */
+	protected final void createForEncode(IrisBuffer buffer, int offset) {
+		GroupObject groupObject = message.createSbeBuffer(buffer, offset);
+		this.messageCursor.wrap(buffer, offset);
+		attach(offset, groupObject);
+	}
+
+	private void attach(int offset, GroupObject groupObject) {
+		this.buffer = messageCursor.getBuffer();
+		this.offset = offset;
+		this.groupObject = groupObject;
+	}
+
+	/**
+	 * @return the GroupObject of the current message
+	 */
+	protected final GroupObject groupObject() {
+		if( null == groupObject ) {
+			groupObject = message.wrapSbeBuffer(buffer, offset, true);
+		}
+		return groupObject;
+	}
+
+	/**
+	 * Unwrap a GroupObject of the schema, which is either a SBEObject or a flyweight that 
+	 * delegates to one. 
+	 * 
+	 * @param obj a GroupObject of a SBE message
+	 * @return the SBEObject behind the GroupObject
+	 */
+	static SBEObject toSBEObject(GroupObject obj) {
+		if( obj instanceof SBEMessageFlyweight ) {
+			return (SBEObject) ((SBEMessageFlyweight) obj).groupObject();
+		} else if( obj instanceof SBEObject ) {
+			return (SBEObject) obj;
+		}
+		throw new IllegalArgumentException("not a GroupObject of a SBE message: "+obj.getClass().getName());
+	}
+
+	/**
+	 * @return the starting position of the current message
+	 */
+	public final int offset() {
+		return offset;
+	}
+
+	/**
+	 * @return the buffer of the current message
+	 */
+	public final IrisBuffer buffer() {
+		return buffer;
+	}
+
+	@Override
+	public SBEMessage getDefinition() {
+		return message;
+	}
+
+	@Override
+	public Field getField(short id) {
+		return groupObject().getField(id);
+	}
+
+	@Override
+	public Field getField(String name) {
+		return groupObject().getField(name);
+	}
+
+	@Override
+	public int getSize() {
+		return groupObject().getSize();
+	}
+
+	@Override
+	public int getBytes(byte[] dest, int destOffset, int length) {
+		return groupObject().getBytes(dest, destOffset, length);
+	}
+
+	@Override
+	public int getSize(Field field) {
+		return groupObject().getSize(field);
+	}
+
+	@Override
+	public char getChar(Field field) {
+		return groupObject().getChar(field);
+	}
+
+	@Override
+	public void setChar(Field field, char c) {
+		groupObject().setChar(field, c);
+	}
+
+	@Override
+	public byte getByte(Field field) {
+		return groupObject().getByte(field);
+	}
+
+	@Override
+	public void setByte(Field field, byte value) {
+		groupObject().setByte(field, value);
+	}
+
+	@Override
+	public Number getNumber(Field field) {
+		return groupObject().getNumber(field);
+	}
+
+	@Override
+	public boolean isPresent(Field field) {
+		return groupObject().isPresent(field);
+	}
+
+	@Override
+	public CharSequenceView getCharSequence(Field field, CharSequenceView view) {
+		return groupObject().getCharSequence(field, view);
+	}
+
+	@Override
+	public int getChars(Field field, StringBuilder dest) {
+		return groupObject().getChars(field, dest);
+	}
+
+	@Override
+	public long getDecimal(Field field, int exponent) {
+		return groupObject().getDecimal(field, exponent);
+	}
+
+	@Override
+	public double getDecimalAsDouble(Field field) {
+		return groupObject().getDecimalAsDouble(field);
+	}
+
+	@Override
+	public void setDecimal(Field field, long mantissa, int exponent) {
+		groupObject().setDecimal(field, mantissa, exponent);
+	}
+
+	@Override
+	public long getEpochNanos(Field field) {
+		return groupObject().getEpochNanos(field);
+	}
+
+	@Override
+	public void setEpochNanos(Field field, long epochNanos) {
+		groupObject().setEpochNanos(field, epochNanos);
+	}
+
+	@Override
+	public boolean isNull(Field field) {
+		return groupObject().isNull(field);
+	}
+
+	@Override
+	public void setNull(Field field) {
+		groupObject().setNull(field);
+	}
+
+	@Override
+	public void setNumber(Field field, Number value) {
+		groupObject().setNumber(field, value);
+	}
+
+	@Override
+	public int getU16(Field field) {
+		return groupObject().getU16(field);
+	}
+
+	@Override
+	public short getI16(Field field) {
+		return groupObject().getI16(field);
+	}
+
+	@Override
+	public int getInt(Field field) {
+		return groupObject().getInt(field);
+	}
+
+	@Override
+	public long getU32(Field field) {
+		return groupObject().getU32(field);
+	}
+
+	@Override
+	public long getLong(Field field) {
+		return groupObject().getLong(field);
+	}
+
+	@Override
+	public float getFloat(Field field) {
+		return groupObject().getFloat(field);
+	}
+
+	@Override
+	public double getDouble(Field field) {
+		return groupObject().getDouble(field);
+	}
+
+	@Override
+	public int getChars(Field field, char[] dest, int destOffset, int length) {
+		return groupObject().getChars(field, dest, destOffset, length);
+	}
+
+	@Override
+	public int setChars(Field field, char[] src, int srcOffset, int length) {
+		return groupObject().setChars(field, src, srcOffset, length);
+	}
+
+	@Override
+	public int getBytes(Field field, byte[] dest, int destOffset, int length) {
+		return groupObject().getBytes(field, dest, destOffset, length);
+	}
+
+	@Override
+	public int setBytes(Field field, byte[] src, int srcOffset, int length) {
+		return groupObject().setBytes(field, src, srcOffset, length);
+	}
+
+	@Override
+	public void adjustSizeForRawField(Field field, int length) {
+		groupObject().adjustSizeForRawField(field, length);
+	}
+
+	@Override
+	public int getNumbers(Field field, Number[] dest, int destOffset, int length) {
+		return groupObject().getNumbers(field, dest, destOffset, length);
+	}
+
+	@Override
+	public int setNumbers(Field field, Number[] src, int srcOffset, int length) {
+		return groupObject().setNumbers(field, src, srcOffset, length);
+	}
+
+	@Override
+	public int getU8Array(Field field, short[] dest, int destOffset, int length) {
+		return groupObject().getU8Array(field, dest, destOffset, length);
+	}
+
+	@Override
+	public int getI8Array(Field field, short[] dest, int destOffset, int length) {
+		return groupObject().getI8Array(field, dest, destOffset, length);
+	}
+
+	@Override
+	public int getU16Array(Field field, int[] dest, int destOffset, int length) {
+		return groupObject().getU16Array(field, dest, destOffset, length);
+	}
+
+	@Override
+	public int getI16Array(Field field, short[] dest, int destOffset, int length) {
+		return groupObject().getI16Array(field, dest, destOffset, length);
+	}
+
+	@Override
+	public int getIntArray(Field field, int[] dest, int destOffset, int length) {
+		return groupObject().getIntArray(field, dest, destOffset, length);
+	}
+
+	@Override
+	public int getU32Array(Field field, long[] dest, int destOffset, int length) {
+		return groupObject().getU32Array(field, dest, destOffset, length);
+	}
+
+	@Override
+	public int getLongArray(Field field, long[] dest, int destOffset, int length) {
+		return groupObject().getLongArray(field, dest, destOffset, length);
+	}
+
+	@Override
+	public int getFloatArray(Field field, float[] dest, int destOffset, int length) {
+		return groupObject().getFloatArray(field, dest, destOffset, length);
+	}
+
+	@Override
+	public int getDoubleArray(Field field, double[] dest, int destOffset, int length) {
+		return groupObject().getDoubleArray(field, dest, destOffset, length);
+	}
+
+	@Override
+	public String getEnumName(Field field) {
+		return groupObject().getEnumName(field);
+	}
+
+	@Override
+	public int getEnumOrdinal(Field field) {
+		return groupObject().getEnumOrdinal(field);
+	}
+
+	@Override
+	public void setEnumOrdinal(Field field, int ordinal) {
+		groupObject().setEnumOrdinal(field, ordinal);
+	}
+
+	@Override
+	public boolean isSet(Field field, String bitName) {
+		return groupObject().isSet(field, bitName);
+	}
+
+	@Override
+	public long getChoices(Field field) {
+		return groupObject().getChoices(field);
+	}
+
+	@Override
+	public void setChoices(Field field, long choices) {
+		groupObject().setChoices(field, choices);
+	}
+
+	@Override
+	public boolean isSet(Field field, long mask) {
+		return groupObject().isSet(field, mask);
+	}
+
+	@Override
+	public boolean isAnySet(Field field, long mask) {
+		return groupObject().isAnySet(field, mask);
+	}
+
+	@Override
+	public void setChoice(Field field, long mask, boolean value) {
+		groupObject().setChoice(field, mask, value);
+	}
+
+	@Override
+	public String getString(Field field, String encodingType) throws UnsupportedEncodingException {
+		return groupObject().getString(field, encodingType);
+	}
+
+	@Override
+	public String getString(Field field) {
+		return groupObject().getString(field);
+	}
+
+	@Override
+	public GroupObjectArray getGroupArray(Field field) {
+		return groupObject().getGroupArray(field);
+	}
+}
@@ -18,6 +18,7 @@ package com.github.bwsoft.iris.message.sbe;
 import java.nio.ByteBuffer;
 import java.util.List;
 
+import com.github.bwsoft.iris.buffer.IrisBuffer;
 import com.github.bwsoft.iris.message.FieldHeader;
 import com.github.bwsoft.iris.message.FieldType;
 import com.github.bwsoft.iris.message.sbe.SBESchemaFieldTypes.SBECompositeTypeElement;
@@ -104,7 +105,7 @@ public class SBEMessageHeader implements FieldHeader {
 	 * @param offset the start position in the buffer
 	 * @return the message block size in bytes
 	 */
-	public int getBlockSize(ByteBuffer buffer, int offset) {
+	public int getBlockSize(IrisBuffer buffer, int offset) {
 		switch( this.blockSizeType ) {
 		case U8:
 		case I8:
@@ -117,7 +118,18 @@ public class SBEMessageHeader implements FieldHeader {
 		}
 	}
 
-	void putBlockSize(ByteBuffer buffer, int offset, int blockSize) {
+	/**
+	 * Same as {@link #getBlockSize(IrisBuffer, int)} for a ByteBuffer.
+	 * 
+	 * @param buffer the SBE buffer
+	 * @param offset the start position of the SBE message in the buffer
+	 * @return the value in the message header
+	 */
+	public int getBlockSize(ByteBuffer buffer, int offset) {
+		return getBlockSize(IrisBuffer.wrap(buffer), offset);
+	}
+
+	void putBlockSize(IrisBuffer buffer, int offset, int blockSize) {
 		switch( this.blockSizeType ) {
 		case U8:
 		case I8:
@@ -141,7 +153,7 @@ public class SBEMessageHeader implements FieldHeader {
 	 * @param offset the start position of the SBE message in the buffer
 	 * @return the template ID of the message
 	 */
-	public int getTemplateId(ByteBuffer buffer, int offset) {
+	public int getTemplateId(IrisBuffer buffer, int offset) {
 		switch( this.templateIdType ) {
 		case U8:
 		case I8:
@@ -154,7 +166,18 @@ public class SBEMessageHeader implements FieldHeader {
 		}
 	}
 
-	void putTemplateId(ByteBuffer buffer, int offset, int templateId) {
+	/**
+	 * Same as {@link #getTemplateId(IrisBuffer, int)} for a ByteBuffer.
+	 * 
+	 * @param buffer the SBE buffer
+	 * @param offset the start position of the SBE message in the buffer
+	 * @return the value in the message header
+	 */
+	public int getTemplateId(ByteBuffer buffer, int offset) {
+		return getTemplateId(IrisBuffer.wrap(buffer), offset);
+	}
+
+	void putTemplateId(IrisBuffer buffer, int offset, int templateId) {
 		switch( this.templateIdType ) {
 		case U8:
 		case I8:
@@ -178,7 +201,7 @@ public class SBEMessageHeader implements FieldHeader {
 	 * @param offset the start position of the SBE message in the buffer
 	 * @return the schema ID of the message
 	 */
-	public int getSchemaId(ByteBuffer buffer, int offset) {
+	public int getSchemaId(IrisBuffer buffer, int offset) {
 		switch( this.schemaIdType ) {
 		case U8:
 		case I8:
@@ -191,7 +214,18 @@ public class SBEMessageHeader implements FieldHeader {
 		}
 	}
 
-	void putSchemaId(ByteBuffer buffer, int offset, int schemaId) {
+	/**
+	 * Same as {@link #getSchemaId(IrisBuffer, int)} for a ByteBuffer.
+	 * 
+	 * @param buffer the SBE buffer
+	 * @param offset the start position of the SBE message in the buffer
+	 * @return the value in the message header
+	 */
+	public int getSchemaId(ByteBuffer buffer, int offset) {
+		return getSchemaId(IrisBuffer.wrap(buffer), offset);
+	}
+
+	void putSchemaId(IrisBuffer buffer, int offset, int schemaId) {
 		switch( this.schemaIdType ) {
 		case U8:
 		case I8:
@@ -215,7 +249,7 @@ public class SBEMessageHeader implements FieldHeader {
 	 * @param offset the starting position of the SBE message in the buffer
 	 * @return the version of the message
 	 */
-	public int getVersion(ByteBuffer buffer, int offset) {
+	public int getVersion(IrisBuffer buffer, int offset) {
 		switch( this.versionType ) {
 		case U8:
 		case I8:
@@ -228,7 +262,18 @@ public class SBEMessageHeader implements FieldHeader {
 		}
 	}
 
-	void putVersion(ByteBuffer buffer, int offset, int version) {
+	/**
+	 * Same as {@link #getVersion(IrisBuffer, int)} for a ByteBuffer.
+	 * 
+	 * @param buffer the SBE buffer
+	 * @param offset the start position of the SBE message in the buffer
+	 * @return the value in the message header
+	 */
+	public int getVersion(ByteBuffer buffer, int offset) {
+		return getVersion(IrisBuffer.wrap(buffer), offset);
+	}
+
+	void putVersion(IrisBuffer buffer, int offset, int version) {
 		switch( this.versionType ) {
 		case U8:
 		case I8:
@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.message.sbe;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+import com.github.bwsoft.iris.buffer.IrisBuffer;
+import com.github.bwsoft.iris.message.GroupObject;
+import com.github.bwsoft.iris.message.MessagePrototype;
+
+/**
+ * A prototype of a SBE message. It keeps the bytes of the message and a parser of its own. 
+ * The parsed structure is moved to a new copy as long as the layout has not been changed 
+ * since the last copy and the copy is in the same buffer object. 
+ * 
+ * @author yzhou
+ *
+ */
+class SBEMessagePrototype implements MessagePrototype {
+	private final byte[] bytes;
+	private final SBEParser parser;
+	
+	// reusable buffers to wrap a ByteBuffer
+	private final SBEBufferWrapper wrapper;
+	
+	// the buffer and the layout of the structure parsed by the last copy
+	private IrisBuffer buffer;
+	private int layoutEpoch;
+	
+	SBEMessagePrototype(SBEMessage message, IrisBuffer buffer, int offset) {
+		SBEMessageHeader header = (SBEMessageHeader) message.getHeader();
+		if( header.getTemplateId(buffer, offset) != message.getID() ) {
+			throw new IllegalArgumentException("the buffer does not contain a message of template id, "+message.getID());
+		}
+		this.bytes = new byte[message.measure(buffer, offset)];
+		buffer.getBytes(offset, bytes, 0, bytes.length);
+		this.parser = new SBEParser(message);
+		this.wrapper = new SBEBufferWrapper(message);
+	}
+
+	@Override
+	public int getSize() {
+		return bytes.length;
+	}
+
+	@Override
+	public GroupObject copyTo(ByteBuffer buffer, int offset) {
+		return copyTo(wrapper.wrap(buffer, offset, bytes.length), offset);
+	}
+
+	@Override
+	public GroupObject copyTo(IrisBuffer buffer, int offset) {
+		if( offset < 0 || offset + bytes.length > buffer.capacity() ) {
+			throw new BufferOverflowException();
+		}
+		buffer.putBytes(offset, bytes, 0, bytes.length);
+		
+		SBEObjectArray root;
+		if( buffer == this.buffer && parser.getLayoutEpoch() == layoutEpoch ) {
+			root = parser.rebase(buffer, offset);
+		} else {
+			root = parser.wrapSbeBuffer(buffer, offset, false);
+			this.buffer = buffer;
+		}
+		layoutEpoch = parser.getLayoutEpoch();
+		return root.getGroupObject(0);
+	}
+}
@@ -16,35 +16,77 @@
 package com.github.bwsoft.iris.message.sbe;
 
 import java.io.UnsupportedEncodingException;
-import java.nio.charset.Charset;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
+import com.github.bwsoft.iris.buffer.IrisBuffer;
+import com.github.bwsoft.iris.message.CharSequenceView;
 import com.github.bwsoft.iris.message.Field;
 import com.github.bwsoft.iris.message.FieldType;
 import com.github.bwsoft.iris.message.GroupObject;
 import com.github.bwsoft.iris.message.GroupObjectArray;
 
 class SBEObject implements GroupObject {
-	private int offset; // relative to the start byte of the message.
-	private int valueOffset; // offset + headersize
+	// the start of the block relative to the start of the array, e.g. the group header size 
+	// for the first row. The absolute position is cached until the layout changes.
+	private int relativeValueOffset;
+	private int valueOffset;
+	private int layoutEpoch;
 	private int blockSize; // size to contain the root element
 	private int size; // all bytes including header bytes that compose this object.		
 
 	// TODO: can be further optimized to be an array of child objects
 	private LinkedHashMap<Short, SBEObjectArray> childFields;
 	private final SBEObjectArray array;
+	private final SBEParser parser; // the parser of the array, held to save a load upon each read
+	private short rowIndex; // the row position of this object in its array
+	
+	// false if groups and variable length fields of this row have not been parsed yet
+	private boolean resolved; 
 	
 	private final boolean safeMode;
 	
 	SBEObject(SBEObjectArray array)  {
 		childFields = new LinkedHashMap<>();
 		this.array = array;
+		this.parser = array.getParser();
+		this.resolved = true;
 		this.safeMode = Boolean.valueOf(SBESchemaLoader.properties.getProperty(SBESchemaLoader.SAFE_MODE));
 	}
 	
 	void reset() {
 		childFields.clear();
+		resolved = true;
+	}
+	
+	SBEObjectArray getArray() {
+		return this.array;
+	}
+	
+	short getRowIndex() {
+		return this.rowIndex;
+	}
+	
+	void setRowIndex(short rowIndex) {
+		this.rowIndex = rowIndex;
+	}
+	
+	void setResolved(boolean resolved) {
+		this.resolved = resolved;
+	}
+	
+	/**
+	 * Obtain a group or a variable length field of this row. The row is resolved first 
+	 * if it was left unresolved by a lazy wrap.  
+	 * 
+	 * @param id the field id
+	 * @return the SBEObjectArray representing the field or null if not found
+	 */
+	SBEObjectArray getChildObject(short id) {
+		if( ! resolved ) {
+			parser.resolve(this);
+		}
+		return childFields.get(id);
 	}
 
 	void addChildObject(short id, SBEObjectArray aChild) {
@@ -55,33 +97,15 @@ class SBEObject implements GroupObject {
 	}
 
 	/**
-	 * This reacts to the other SBEObject expansion/shrink shift. 
-	 * All fields nbyte down to expand array or nbytes up to shrink array
+	 * Move this row to another position in its array. Its position in the buffer is 
+	 * recalculated upon the next access. 
 	 * 
-	 * @param nbytes
+	 * @param newRowIndex the new row position
 	 */
-	void shiftDueToAChangeOutOfMyGroup(int nbytes) {
-		this.offset += nbytes;
-		this.valueOffset += nbytes;
+	void moveTo(short newRowIndex) {
+		this.rowIndex = newRowIndex;
 		for( SBEObjectArray arr : childFields.values() ) {
-			arr.shift(nbytes);
-		}
-	}
-	
-	/**
-	 * This reacts to the other SBEObject expansion/shrink shift. 
-	 * All fields nbyte down to expand array or nbytes up to shrink array with a new 
-	 * parent Id.
-	 * 
-	 * @param nbytes
-	 * @param newParentId
-	 */
-	void shiftDueToAChangeInMyGroup(int nbytes, short newParentId) {
-		this.offset += nbytes;
-		this.valueOffset += nbytes;
-		for( SBEObjectArray arr : childFields.values() ) {
-			arr.shift(nbytes);
-			arr.setParentRow(newParentId);
+			arr.setParentRow(newRowIndex);
 		}
 	}
 
@@ -104,19 +128,31 @@ class SBEObject implements GroupObject {
 	}
 	
 	int getOffset() {
-		return this.offset;
-	}
-
-	void setOffset(int offset) {
-		this.offset = offset;
+		return array.getOffset();
 	}
 
 	int getValueOffset() {
+		// the epoch of a message that is never mutated stays the same, which leaves a load and an untaken branch
+		int epoch = parser.getLayoutEpoch();
+		if( epoch != layoutEpoch ) {
+			valueOffset = array.getRowValueOffset(rowIndex);
+			layoutEpoch = epoch;
+		}
 		return valueOffset;
 	}
 
 	void setValueOffset(int valueOffset) {
+		this.relativeValueOffset = valueOffset - array.getOffset();
 		this.valueOffset = valueOffset;
+		this.layoutEpoch = parser.getLayoutEpoch();
+	}
+	
+	int getRelativeValueOffset() {
+		return relativeValueOffset;
+	}
+	
+	void setRelativeValueOffset(int relativeValueOffset) {
+		this.relativeValueOffset = relativeValueOffset;
 	}
 
 	int getBlockSize() {
@@ -147,14 +183,17 @@ class SBEObject implements GroupObject {
 	
 	@Override
 	public int getSize() {
+		if( ! resolved ) {
+			parser.resolve(this);
+		}
 		return size;
 	}
 	
 	@Override
 	public int getBytes(byte[] dest, int destOffset, int length) {
+		int size = getSize();
 		length = length > size ? size : length;
-		array.getBuffer().position(this.valueOffset);
-		array.getBuffer().get(dest, destOffset, length);
+		array.getBuffer().getBytes(getValueOffset(), dest, destOffset, length);
 		return length;
 	}
 
@@ -162,6 +201,13 @@ class SBEObject implements GroupObject {
 	void setSize(int size) {
 		this.size = size;
 	}
+	
+	/**
+	 * @return the size of this row without resolving it
+	 */
+	int getStoredSize() {
+		return size;
+	}
 
 	@Override
 	public int getSize(Field field) {
@@ -169,14 +215,14 @@ class SBEObject implements GroupObject {
 		if( validateField(sfield) ) {
 			switch( field.getType() ) {
 			case RAW: 
-				GroupObjectArray array  = childFields.get(field.getID());
+				GroupObjectArray array  = getChildObject(field.getID());
 				if( null == array ) 
 					return 0;
 				else
 					return array.getGroupObject(0).getSize();
 
 			case GROUP:
-				array  = childFields.get(field.getID());
+				array  = getChildObject(field.getID());
 				if( null == array ) 
 					return 0;
 				else {
@@ -203,7 +249,10 @@ class SBEObject implements GroupObject {
 	public char getChar(Field field) {
 		SBEField sfield = (SBEField) field;
 		if( validateField(sfield) ) {
-			return array.getBuffer().getChar(valueOffset+sfield.getRelativeOffset());
+			if( isAbsent(sfield) ) {
+				return (char) sfield.getNullValue();
+			}
+			return array.getBuffer().getChar(getValueOffset()+sfield.getRelativeOffset());
 		} else {
 			throw new IllegalArgumentException("field, "+field.getID()+", does not belong to this group, "+this.getDefinition().getID());
 		}
@@ -213,7 +262,8 @@ class SBEObject implements GroupObject {
 	public void setChar(Field field, char c) {
 		SBEField sfield = (SBEField) field;
 		if( validateField(sfield) ) {
-			array.getBuffer().putChar(valueOffset+sfield.getRelativeOffset(),c);
+			checkPresent(sfield);
+			array.getBuffer().putChar(getValueOffset()+sfield.getRelativeOffset(),c);
 		} else {
 			throw new IllegalArgumentException("field, "+field.getID()+", does not belong to this group, "+this.getDefinition().getID());
 		}		
@@ -223,7 +273,10 @@ class SBEObject implements GroupObject {
 	public byte getByte(Field field) {
 		SBEField sfield = (SBEField) field;
 		if( validateField(sfield) ) {
-			return array.getBuffer().get(valueOffset+sfield.getRelativeOffset());
+			if( isAbsent(sfield) ) {
+				return (byte) sfield.getNullValue();
+			}
+			return array.getBuffer().get(getValueOffset()+sfield.getRelativeOffset());
 		} else {
 			throw new IllegalArgumentException("field, "+field.getID()+", does not belong to this group, "+this.getDefinition().getID());
 		}
@@ -233,7 +286,8 @@ class SBEObject implements GroupObject {
 	public void setByte(Field field, byte value) {
 		SBEField sfield = (SBEField) field;
 		if( validateField(sfield) ) {
-			array.getBuffer().put(valueOffset+sfield.getRelativeOffset(), value);
+			checkPresent(sfield);
+			array.getBuffer().put(getValueOffset()+sfield.getRelativeOffset(), value);
 		} else {
 			throw new IllegalArgumentException("field, "+field.getID()+", does not belong to this group, "+this.getDefinition().getID());
 		}		
@@ -243,38 +297,40 @@ class SBEObject implements GroupObject {
 	public Number getNumber(Field field) {
 		SBEField sfield = (SBEField) field;
 		if( validateField(sfield) ) {
+			if( isAbsent(sfield) ) {
+				return null;
+			}
+			IrisBuffer buffer = array.getBuffer();
+			int offset = getValueOffset()+sfield.getRelativeOffset();
 			switch(field.getType()) {
 			case BYTE:
 			case U8:
-				short sv = (short) (0xff & array.getBuffer().get(valueOffset+sfield.getRelativeOffset()));
-				return sv;
+				return (short) (0xff & buffer.get(offset));
 
 			case I8:
-				return (short) array.getBuffer().get(valueOffset+sfield.getRelativeOffset());
+				return (short) buffer.get(offset);
 				
 			case I16:
-				return (short) array.getBuffer().getShort(valueOffset+sfield.getRelativeOffset());
+				return buffer.getShort(offset);
 				
 			case U16:
-				return (0xffff & array.getBuffer().getShort(valueOffset+sfield.getRelativeOffset()));
+				return (0xffff & buffer.getShort(offset));
 
 			case I32:
-				return array.getBuffer().getInt(valueOffset+sfield.getRelativeOffset());
+				return buffer.getInt(offset);
 
 			case U32:
-				long lv = array.getBuffer().getInt(valueOffset+sfield.getRelativeOffset());
-				lv = lv & 0xffffffff;
-				return lv;
+				return 0xffffffffL & buffer.getInt(offset);
 
 			case U64:
 			case I64:
-				return array.getBuffer().getLong(valueOffset+sfield.getRelativeOffset());
+				return buffer.getLong(offset);
 				
 			case FLOAT:
-				return array.getBuffer().getFloat(valueOffset+sfield.getRelativeOffset());
+				return buffer.getFloat(offset);
 
 			case DOUBLE:
-				return array.getBuffer().getDouble(valueOffset+sfield.getRelativeOffset());
+				return buffer.getDouble(offset);
 				
 			default:
 				throw new IllegalArgumentException("type, "+field.getType().name()+", cannot be converted to a number");
@@ -284,44 +340,182 @@ class SBEObject implements GroupObject {
 		}
 	}
 
+	@Override
+	public boolean isPresent(Field field) {
+		SBEField sfield = (SBEField) field;
+		if( validateField(sfield) ) {
+			return ! isAbsent(sfield);
+		} else {
+			throw new IllegalArgumentException("field, "+field.getID()+", does not belong to this group, "+this.getDefinition().getID());
+		}
+	}
+
+	@Override
+	public long getDecimal(Field field, int exponent) {
+		SBECompositeField decimal = validateDecimal(field);
+		if( isAbsent(decimal) ) {
+			return Long.MIN_VALUE;
+		}
+		SBEField mantissaField = decimal.getMantissa();
+		long mantissa = mantissaField.getAccessor().getLong(array.getBuffer(), getValueOffset());
+		if( mantissaField.isOptional() && mantissa == mantissaField.getNullValue() ) {
+			return Long.MIN_VALUE;
+		}
+		return SBECompositeField.rescale(mantissa, getExponent(decimal), exponent, false);
+	}
+
+	@Override
+	public double getDecimalAsDouble(Field field) {
+		SBECompositeField decimal = validateDecimal(field);
+		if( isAbsent(decimal) ) {
+			return Double.NaN;
+		}
+		SBEField mantissaField = decimal.getMantissa();
+		long mantissa = mantissaField.getAccessor().getLong(array.getBuffer(), getValueOffset());
+		if( mantissaField.isOptional() && mantissa == mantissaField.getNullValue() ) {
+			return Double.NaN;
+		}
+		return SBECompositeField.toDouble(mantissa, getExponent(decimal));
+	}
+
+	@Override
+	public void setDecimal(Field field, long mantissa, int exponent) {
+		SBECompositeField decimal = validateDecimal(field);
+		checkPresent(decimal);
+		SBEField mantissaField = decimal.getMantissa();
+		SBEField exponentField = decimal.getExponent();
+		if( null == exponentField ) {
+			mantissa = SBECompositeField.rescale(mantissa, exponent, decimal.getConstantExponent(), true);
+		} else if( ! exponentField.isInRange(exponent) ) {
+			throw new ArithmeticException("exponent, "+exponent+", overflows the exponent of field, "+field.getID());
+		}
+		if( ! mantissaField.isInRange(mantissa) ) {
+			throw new ArithmeticException("mantissa, "+mantissa+", overflows the mantissa of field, "+field.getID());
+		}
+		if( null != exponentField ) {
+			exponentField.getAccessor().putLong(array.getBuffer(), getValueOffset(), exponent);
+		}
+		mantissaField.getAccessor().putLong(array.getBuffer(), getValueOffset(), mantissa);
+	}
+	
+	private SBECompositeField validateDecimal(Field field) {
+		if( ! field.isDecimal() ) {
+			throw new IllegalArgumentException("field, "+field.getID()+", is not a decimal field");
+		} else if( ! validateField((SBEField) field) ) {
+			throw new IllegalArgumentException("field, "+field.getID()+", does not belong to this group, "+this.getDefinition().getID());
+		}
+		return (SBECompositeField) field;
+	}
+	
+	private int getExponent(SBECompositeField decimal) {
+		SBEField exponent = decimal.getExponent();
+		return null == exponent ? decimal.getConstantExponent() : (int) exponent.getAccessor().getLong(array.getBuffer(), getValueOffset());
+	}
+
+	@Override
+	public long getEpochNanos(Field field) {
+		SBETimestamp timestamp = validateTimestamp(field);
+		if( isAbsent((SBEField) field) ) {
+			return Long.MIN_VALUE;
+		}
+		return timestamp.getEpochNanos(array.getBuffer(), getValueOffset());
+	}
+	
+	@Override
+	public void setEpochNanos(Field field, long epochNanos) {
+		SBETimestamp timestamp = validateTimestamp(field);
+		checkPresent((SBEField) field);
+		timestamp.putEpochNanos(array.getBuffer(), getValueOffset(), epochNanos);
+	}
+	
+	private SBETimestamp validateTimestamp(Field field) {
+		if( ! field.isTimestamp() ) {
+			throw new IllegalArgumentException("field, "+field.getID()+", is not a timestamp field");
+		} else if( ! validateField((SBEField) field) ) {
+			throw new IllegalArgumentException("field, "+field.getID()+", does not belong to this group, "+this.getDefinition().getID());
+		}
+		return ((SBEField) field).getTimestamp();
+	}
+
+	@Override
+	public boolean isNull(Field field) {
+		SBEField sfield = (SBEField) field;
+		if( validateField(sfield) ) {
+			checkNullable(sfield);
+			if( isAbsent(sfield) ) {
+				return true;
+			}
+			return sfield.isNull(array.getBuffer(), getValueOffset());
+		} else {
+			throw new IllegalArgumentException("field, "+field.getID()+", does not belong to this group, "+this.getDefinition().getID());
+		}
+	}
+
+	@Override
+	public void setNull(Field field) {
+		SBEField sfield = (SBEField) field;
+		if( validateField(sfield) ) {
+			checkNullable(sfield);
+			checkPresent(sfield);
+			sfield.putNull(array.getBuffer(), getValueOffset());
+		} else {
+			throw new IllegalArgumentException("field, "+field.getID()+", does not belong to this group, "+this.getDefinition().getID());
+		}
+	}
+	
+	private static void checkNullable(SBEField field) {
+		switch( field.getType() ) {
+		case CONSTANT:
+		case COMPOSITE:
+		case GROUP:
+		case RAW:
+		case MESSAGE:
+			throw new IllegalArgumentException("field, "+field.getID()+", of type, "+field.getType().name()+", does not have a null value");
+		default:
+		}
+	}
+
 	@Override
 	public void setNumber(Field field, Number value) {
 		SBEField sfield = (SBEField) field;
 		if( validateField(sfield) ) {
+			checkPresent(sfield);
+			IrisBuffer buffer = array.getBuffer();
+			int offset = getValueOffset()+sfield.getRelativeOffset();
 			switch(field.getType()) {
 			case BYTE:
 			case U8:
 			case I8:
-				array.getBuffer().put(valueOffset+sfield.getRelativeOffset(), (byte) value.shortValue());
+				buffer.put(offset, (byte) value.shortValue());
 				break;
 				
 			case I16:
-				array.getBuffer().putShort(valueOffset+sfield.getRelativeOffset(), value.shortValue());
+				buffer.putShort(offset, value.shortValue());
 				break;
 				
 			case U16:
-				array.getBuffer().putShort(valueOffset+sfield.getRelativeOffset(), (short) value.intValue());
+				buffer.putShort(offset, (short) value.intValue());
 				break;
 
 			case I32:
-				array.getBuffer().putInt(valueOffset+sfield.getRelativeOffset(), value.intValue());
+				buffer.putInt(offset, value.intValue());
 				break;
 				
 			case U32:
-				array.getBuffer().putInt(valueOffset+sfield.getRelativeOffset(), (int) value.longValue());
+				buffer.putInt(offset, (int) value.longValue());
 				break;
 
 			case U64:
 			case I64:
-				array.getBuffer().putLong(valueOffset+sfield.getRelativeOffset(), value.longValue());
+				buffer.putLong(offset, value.longValue());
 				break;
 				
 			case FLOAT:
-				array.getBuffer().putFloat(valueOffset+sfield.getRelativeOffset(), value.floatValue());
+				buffer.putFloat(offset, value.floatValue());
 				break;
 				
 			case DOUBLE:
-				array.getBuffer().putDouble(valueOffset+sfield.getRelativeOffset(), value.doubleValue());
+				buffer.putDouble(offset, value.doubleValue());
 				break;
 				
 			default:
@@ -336,7 +530,10 @@ class SBEObject implements GroupObject {
 	public int getU16(Field field) {
 		SBEField sfield = (SBEField) field;
 		if( validateField(sfield) ) {
-			return 0xffff & array.getBuffer().getShort(valueOffset+sfield.getRelativeOffset());
+			if( isAbsent(sfield) ) {
+				return 0xffff & (int) sfield.getNullValue();
+			}
+			return 0xffff & array.getBuffer().getShort(getValueOffset()+sfield.getRelativeOffset());
 		} else {
 			throw new IllegalArgumentException("field, "+field.getID()+", does not belong to this group, "+this.getDefinition().getID());
 		}
@@ -346,7 +543,10 @@ class SBEObject implements GroupObject {
 	public short getI16(Field field) {
 		SBEField sfield = (SBEField) field;
 		if( validateField(sfield) ) {
-			return array.getBuffer().getShort(valueOffset+sfield.getRelativeOffset());
+			if( isAbsent(sfield) ) {
+				return (short) sfield.getNullValue();
+			}
+			return array.getBuffer().getShort(getValueOffset()+sfield.getRelativeOffset());
 		} else {
 			throw new IllegalArgumentException("field, "+field.getID()+", does not belong to this group, "+this.getDefinition().getID());
 		}
@@ -356,7 +556,10 @@ class SBEObject implements GroupObject {
 	public int getInt(Field field) {
 		SBEField sfield = (SBEField) field;
 		if( validateField(sfield) ) {
-			return array.getBuffer().getInt(valueOffset+sfield.getRelativeOffset());
+			if( isAbsent(sfield) ) {
+				return (int) sfield.getNullValue();
+			}
+			return array.getBuffer().getInt(getValueOffset()+sfield.getRelativeOffset());
 		} else {
 			throw new IllegalArgumentException("field, "+field.getID()+", does not belong to this group, "+this.getDefinition().getID());
 		}
@@ -366,8 +569,11 @@ class SBEObject implements GroupObject {
 	public long getU32(Field field) {
 		SBEField sfield = (SBEField) field;
 		if( validateField(sfield) ) {
-			long lv = array.getBuffer().getInt(valueOffset+sfield.getRelativeOffset());
-			lv = lv & 0xffffffff;
+			if( isAbsent(sfield) ) {
+				return 0xffffffffL & sfield.getNullValue();
+			}
+			long lv = array.getBuffer().getInt(getValueOffset()+sfield.getRelativeOffset());
+			lv = lv & 0xffffffffL;
 			return lv;
 		} else {
 			throw new IllegalArgumentException("field, "+field.getID()+", does not belong to this group, "+this.getDefinition().getID());
@@ -378,7 +584,10 @@ class SBEObject implements GroupObject {
 	public long getLong(Field field) {
 		SBEField sfield = (SBEField) field;
 		if( validateField(sfield) ) {
-			return array.getBuffer().getLong(valueOffset+sfield.getRelativeOffset());
+			if( isAbsent(sfield) ) {
+				return sfield.getNullValue();
+			}
+			return array.getBuffer().getLong(getValueOffset()+sfield.getRelativeOffset());
 		} else {
 			throw new IllegalArgumentException("field, "+field.getID()+", does not belong to this group, "+this.getDefinition().getID());
 		}
@@ -388,7 +597,10 @@ class SBEObject implements GroupObject {
 	public float getFloat(Field field) {
 		SBEField sfield = (SBEField) field;
 		if( validateField(sfield) ) {
-			return array.getBuffer().getFloat(valueOffset+sfield.getRelativeOffset());
+			if( isAbsent(sfield) ) {
+				return (float) sfield.getNullDoubleValue();
+			}
+			return array.getBuffer().getFloat(getValueOffset()+sfield.getRelativeOffset());
 		} else {
 			throw new IllegalArgumentException("field, "+field.getID()+", does not belong to this group, "+this.getDefinition().getID());
 		}		
@@ -398,7 +610,10 @@ class SBEObject implements GroupObject {
 	public double getDouble(Field field) {
 		SBEField sfield = (SBEField) field;
 		if( validateField(sfield) ) {
-			return array.getBuffer().getDouble(valueOffset+sfield.getRelativeOffset());
+			if( isAbsent(sfield) ) {
+				return sfield.getNullDoubleValue();
+			}
+			return array.getBuffer().getDouble(getValueOffset()+sfield.getRelativeOffset());
 		} else {
 			throw new IllegalArgumentException("field, "+field.getID()+", does not belong to this group, "+this.getDefinition().getID());
 		}		
@@ -408,9 +623,12 @@ class SBEObject implements GroupObject {
 	public int getChars(Field field, char[] dest, int destOffset, int length) {
 		SBEField sfield = (SBEField) field;
 		if( validateField(sfield) ) {
+			if( isAbsent(sfield) ) {
+				return 0;
+			}
 			int len = length > field.length() ? field.length() : length;
 			for( int i = 0; i < len; i ++ ) {
-				dest[destOffset+i] = (char) array.getBuffer().get(valueOffset+sfield.getRelativeOffset()+i*sfield.getBlockSize());
+				dest[destOffset+i] = (char) array.getBuffer().get(getValueOffset()+sfield.getRelativeOffset()+i*sfield.getBlockSize());
 			}		
 			return len;
 		} else {
@@ -422,9 +640,10 @@ class SBEObject implements GroupObject {
 	public int setChars(Field field, char[] src, int srcOffset, int length) {
 		SBEField sfield = (SBEField) field;
 		if( validateField(sfield) ) {
+			checkPresent(sfield);
 			int len = length > field.length() ? field.length() : length;
 			for( int i = 0; i < len; i ++ ) {
-				array.getBuffer().putChar(valueOffset+sfield.getRelativeOffset()+i*sfield.getBlockSize(), src[i]);
+				array.getBuffer().putChar(getValueOffset()+sfield.getRelativeOffset()+i*sfield.getBlockSize(), src[i]);
 			}
 			return len;
 		} else {
@@ -439,19 +658,18 @@ class SBEObject implements GroupObject {
 		if( validateField(sfield) ) {
 			switch(field.getType()) {
 			case RAW:
-				SBEObjectArray objArray = this.childFields.get(field.getID());
+				SBEObjectArray objArray = this.getChildObject(field.getID());
 				if( null != objArray ) {
 					SBEObject obj = (SBEObject) objArray.getGroupObject(0);
 					length = length > obj.getSize() ? obj.getSize() : length;
-					array.getBuffer().position(obj.getValueOffset());
-					array.getBuffer().get(dest, destOffset, length);
+					array.getBuffer().getBytes(obj.getValueOffset(), dest, destOffset, length);
 					return length;								
 				} else {
 					return 0;
 				}
 
 			case GROUP:
-				objArray = this.childFields.get(field.getID());
+				objArray = this.getChildObject(field.getID());
 				if( null != objArray ) {
 					int len = 0;
 					for( short i = 0; i < objArray.getNumOfGroups(); i ++ ) {
@@ -459,8 +677,7 @@ class SBEObject implements GroupObject {
 					}
 					SBEObject obj = (SBEObject) objArray.getGroupObject(0);
 					length = length > len ? len : length;
-					array.getBuffer().position(obj.getValueOffset());
-					array.getBuffer().get(dest, destOffset, length);
+					array.getBuffer().getBytes(obj.getValueOffset(), dest, destOffset, length);
 					return length;								
 				} else {
 					return 0;
@@ -468,8 +685,7 @@ class SBEObject implements GroupObject {
 				
 			case MESSAGE:
 				length = length > getSize() ? getSize() : length;
-				array.getBuffer().position(getValueOffset());
-				array.getBuffer().get(dest, destOffset, length);
+				array.getBuffer().getBytes(getValueOffset(), dest, destOffset, length);
 				return length;								
 				
 			case CONSTANT:
@@ -478,9 +694,11 @@ class SBEObject implements GroupObject {
 				return length;
 						
 			default:
+				if( isAbsent(sfield) ) {
+					return 0;
+				}
 				length = length > field.length()*sfield.getBlockSize() ? field.length()*sfield.getBlockSize() : length;		
-				array.getBuffer().position(valueOffset+sfield.getRelativeOffset());
-				array.getBuffer().get(dest, destOffset, length);
+				array.getBuffer().getBytes(getValueOffset()+sfield.getRelativeOffset(), dest, destOffset, length);
 				return length;			
 			}
 		} else {
@@ -494,14 +712,13 @@ class SBEObject implements GroupObject {
 		if( validateField(sfield) ) {
 			switch(field.getType()) {
 			case RAW:
-				SBEObjectArray objArray = this.childFields.get(field.getID());
+				SBEObjectArray objArray = this.getChildObject(field.getID());
 				if( null != objArray ) {
 					SBEObject obj = (SBEObject) objArray.getGroupObject(0);
 					objArray.adjustRawGroupSize(length);
 					
 					if( length > 0 ) {
-						array.getBuffer().position(obj.getValueOffset());
-						array.getBuffer().put(src, srcOffset, length);
+						array.getBuffer().putBytes(obj.getValueOffset(), src, srcOffset, length);
 					}
 					return length;								
 				} else {
@@ -514,9 +731,9 @@ class SBEObject implements GroupObject {
 				throw new UnsupportedOperationException("cannot set bytes for field type: "+field.getType());
 						
 			default:
+				checkPresent(sfield);
 				length = length > field.length()*sfield.getBlockSize() ? field.length()*sfield.getBlockSize() : length;		
-				array.getBuffer().position(valueOffset+sfield.getRelativeOffset());
-				array.getBuffer().put(src, srcOffset, length);
+				array.getBuffer().putBytes(getValueOffset()+sfield.getRelativeOffset(), src, srcOffset, length);
 				return length;			
 			}
 		} else {
@@ -527,7 +744,7 @@ class SBEObject implements GroupObject {
 	@Override
 	public void adjustSizeForRawField(Field field, int length) {
 		if( FieldType.RAW == field.getType() ) {
-			SBEObjectArray objArray = this.childFields.get(field.getID());
+			SBEObjectArray objArray = this.getChildObject(field.getID());
 			if( null != objArray ) {
 				objArray.adjustRawGroupSize(length);
 			} else {
@@ -542,44 +759,47 @@ class SBEObject implements GroupObject {
 	public int getNumbers(Field field, Number[] dest, int destOffset, int length) {
 		SBEField sfield = (SBEField) field;
 		if( validateField(sfield) ) {
+			if( isAbsent(sfield) ) {
+				return 0;
+			}
 			int len = length > field.length() ? field.length() : length;
 			switch(field.getType()) {
 			case BYTE:
 			case U8:
 				for( int i = 0; i < len; i ++ ) {
-					short sv = (short) (0xff & array.getBuffer().get(valueOffset+sfield.getRelativeOffset()+i*sfield.getBlockSize()));
+					short sv = (short) (0xff & array.getBuffer().get(getValueOffset()+sfield.getRelativeOffset()+i*sfield.getBlockSize()));
 					dest[destOffset+i] = sv;
 				}
 				return len;
 
 			case I8:
 				for( int i = 0; i < len; i ++ ) {
-					dest[destOffset+i] = (short) array.getBuffer().get(valueOffset+sfield.getRelativeOffset()+i*sfield.getBlockSize());
+					dest[destOffset+i] = (short) array.getBuffer().get(getValueOffset()+sfield.getRelativeOffset()+i*sfield.getBlockSize());
 				}
 				return len;
 
 			case I16:
 				for( int i = 0; i < len; i ++ ) {
-					dest[destOffset+i] = array.getBuffer().getShort(valueOffset+sfield.getRelativeOffset()+i*sfield.getBlockSize());
+					dest[destOffset+i] = array.getBuffer().getShort(getValueOffset()+sfield.getRelativeOffset()+i*sfield.getBlockSize());
 				}
 				return len;
 
 			case U16:
 				for( int i = 0; i < len; i ++ ) {
-					dest[destOffset+i] = 0xffff & array.getBuffer().getShort(valueOffset+sfield.getRelativeOffset()+i*sfield.getBlockSize());
+					dest[destOffset+i] = 0xffff & array.getBuffer().getShort(getValueOffset()+sfield.getRelativeOffset()+i*sfield.getBlockSize());
 				}
 				return len;
 				
 			case I32:
 				for( int i = 0; i < len; i ++ ) {
-					dest[destOffset+i] = array.getBuffer().getInt(valueOffset+sfield.getRelativeOffset()+i*sfield.getBlockSize());
+					dest[destOffset+i] = array.getBuffer().getInt(getValueOffset()+sfield.getRelativeOffset()+i*sfield.getBlockSize());
 				}
 				return len;
 
 			case U32:
 				for( int i = 0; i < len; i ++ ) {
-					long lv = array.getBuffer().getInt(valueOffset+sfield.getRelativeOffset()+i*sfield.getBlockSize());
-					lv = lv & 0xffffffff;
+					long lv = array.getBuffer().getInt(getValueOffset()+sfield.getRelativeOffset()+i*sfield.getBlockSize());
+					lv = lv & 0xffffffffL;
 					dest[destOffset+i] = lv;
 				}
 				return len;
@@ -587,19 +807,19 @@ class SBEObject implements GroupObject {
 			case U64:
 			case I64:
 				for( int i = 0; i < len; i ++ ) {
-					dest[destOffset+i] = array.getBuffer().getLong(valueOffset+sfield.getRelativeOffset()+i*sfield.getBlockSize());
+					dest[destOffset+i] = array.getBuffer().getLong(getValueOffset()+sfield.getRelativeOffset()+i*sfield.getBlockSize());
 				}
 				return len;
 
 			case FLOAT:
 				for( int i = 0; i < len; i ++ ) {
-					dest[destOffset+i] = array.getBuffer().getFloat(valueOffset+sfield.getRelativeOffset()+i*sfield.getBlockSize());
+					dest[destOffset+i] = array.getBuffer().getFloat(getValueOffset()+sfield.getRelativeOffset()+i*sfield.getBlockSize());
 				}
 				return len;
 
 			case DOUBLE:
 				for( int i = 0; i < len; i ++ ) {
-					dest[destOffset+i] = array.getBuffer().getDouble(valueOffset+sfield.getRelativeOffset()+i*sfield.getBlockSize());
+					dest[destOffset+i] = array.getBuffer().getDouble(getValueOffset()+sfield.getRelativeOffset()+i*sfield.getBlockSize());
 				}
 				return len;
 				
@@ -616,56 +836,57 @@ class SBEObject implements GroupObject {
 	public int setNumbers(Field field, Number[] src, int srcOffset, int length) {
 		SBEField sfield = (SBEField) field;
 		if( validateField(sfield) ) {
+			checkPresent(sfield);
 			int len = length > field.length() ? field.length() : length;
 			switch(field.getType()) {
 			case BYTE:
 			case U8:
 			case I8:
 				for( int i = 0; i < len; i ++ ) {
-					array.getBuffer().put(valueOffset+sfield.getRelativeOffset()+i*sfield.getBlockSize(), (byte) src[srcOffset+i].shortValue());
+					array.getBuffer().put(getValueOffset()+sfield.getRelativeOffset()+i*sfield.getBlockSize(), (byte) src[srcOffset+i].shortValue());
 				}
 				return len;
 
 			case I16:
 				for( int i = 0; i < len; i ++ ) {
-					array.getBuffer().putShort(valueOffset+sfield.getRelativeOffset()+i*sfield.getBlockSize(), src[srcOffset+i].shortValue());
+					array.getBuffer().putShort(getValueOffset()+sfield.getRelativeOffset()+i*sfield.getBlockSize(), src[srcOffset+i].shortValue());
 				}
 				return len;
 
 			case U16:
 				for( int i = 0; i < len; i ++ ) {
-					array.getBuffer().putShort(valueOffset+sfield.getRelativeOffset()+i*sfield.getBlockSize(), (short) src[srcOffset+i].intValue());
+					array.getBuffer().putShort(getValueOffset()+sfield.getRelativeOffset()+i*sfield.getBlockSize(), (short) src[srcOffset+i].intValue());
 				}
 				return len;
 				
 			case I32:
 				for( int i = 0; i < len; i ++ ) {
-					array.getBuffer().putInt(valueOffset+sfield.getRelativeOffset()+i*sfield.getBlockSize(), src[srcOffset+i].intValue());
+					array.getBuffer().putInt(getValueOffset()+sfield.getRelativeOffset()+i*sfield.getBlockSize(), src[srcOffset+i].intValue());
 				}
 				return len;
 
 			case U32:
 				for( int i = 0; i < len; i ++ ) {
-					array.getBuffer().putInt(valueOffset+sfield.getRelativeOffset()+i*sfield.getBlockSize(), (int) src[srcOffset+i].longValue());
+					array.getBuffer().putInt(getValueOffset()+sfield.getRelativeOffset()+i*sfield.getBlockSize(), (int) src[srcOffset+i].longValue());
 				}
 				return len;
 
 			case U64:
 			case I64:
 				for( int i = 0; i < len; i ++ ) {
-					array.getBuffer().putLong(valueOffset+sfield.getRelativeOffset()+i*sfield.getBlockSize(), src[srcOffset+i].longValue());
+					array.getBuffer().putLong(getValueOffset()+sfield.getRelativeOffset()+i*sfield.getBlockSize(), src[srcOffset+i].longValue());
 				}
 				return len;
 
 			case FLOAT:
 				for( int i = 0; i < len; i ++ ) {
-					array.getBuffer().putFloat(valueOffset+sfield.getRelativeOffset()+i*sfield.getBlockSize(), src[srcOffset+i].floatValue());
+					array.getBuffer().putFloat(getValueOffset()+sfield.getRelativeOffset()+i*sfield.getBlockSize(), src[srcOffset+i].floatValue());
 				}
 				return len;
 
 			case DOUBLE:
 				for( int i = 0; i < len; i ++ ) {
-					array.getBuffer().putDouble(valueOffset+sfield.getRelativeOffset()+i*sfield.getBlockSize(), src[srcOffset+i].doubleValue());
+					array.getBuffer().putDouble(getValueOffset()+sfield.getRelativeOffset()+i*sfield.getBlockSize(), src[srcOffset+i].doubleValue());
 				}
 				return len;
 				
@@ -681,9 +902,12 @@ class SBEObject implements GroupObject {
 	public int getU8Array(Field field, short[] dest, int destOffset, int length) {
 		SBEField sfield = (SBEField) field;
 		if( validateField(sfield) ) {
+			if( isAbsent(sfield) ) {
+				return 0;
+			}
 			int len = length > field.length() ? field.length() : length;
 			for( int i = 0; i < len; i ++ ) {
-				dest[destOffset+i] = (short) (0xff & array.getBuffer().get(valueOffset+sfield.getRelativeOffset()+i*sfield.getBlockSize()));
+				dest[destOffset+i] = (short) (0xff & array.getBuffer().get(getValueOffset()+sfield.getRelativeOffset()+i*sfield.getBlockSize()));
 			}		
 			return len;
 		} else {
@@ -695,9 +919,12 @@ class SBEObject implements GroupObject {
 	public int getI8Array(Field field, short[] dest, int destOffset, int length) {
 		SBEField sfield = (SBEField) field;
 		if( validateField(sfield) ) {
+			if( isAbsent(sfield) ) {
+				return 0;
+			}
 			int len = length > field.length() ? field.length() : length;
 			for( int i = 0; i < len; i ++ ) {
-				dest[destOffset+i] = array.getBuffer().get(valueOffset+sfield.getRelativeOffset()+i*sfield.getBlockSize());
+				dest[destOffset+i] = array.getBuffer().get(getValueOffset()+sfield.getRelativeOffset()+i*sfield.getBlockSize());
 			}		
 			return len;
 		} else {
@@ -709,9 +936,12 @@ class SBEObject implements GroupObject {
 	public int getU16Array(Field field, int[] dest, int destOffset, int length) {
 		SBEField sfield = (SBEField) field;
 		if( validateField(sfield) ) {
+			if( isAbsent(sfield) ) {
+				return 0;
+			}
 			int len = length > field.length() ? field.length() : length;
 			for( int i = 0; i < len; i ++ ) {
-				dest[destOffset+i] = 0xffff & array.getBuffer().getShort(valueOffset+sfield.getRelativeOffset()+i*sfield.getBlockSize());
+				dest[destOffset+i] = 0xffff & array.getBuffer().getShort(getValueOffset()+sfield.getRelativeOffset()+i*sfield.getBlockSize());
 			}		
 			return len;
 		} else {
@@ -723,9 +953,12 @@ class SBEObject implements GroupObject {
 	public int getI16Array(Field field, short[] dest, int destOffset, int length) {
 		SBEField sfield = (SBEField) field;
 		if( validateField(sfield) ) {
+			if( isAbsent(sfield) ) {
+				return 0;
+			}
 			int len = length > field.length() ? field.length() : length;
 			for( int i = 0; i < len; i ++ ) {
-				dest[destOffset+i] = array.getBuffer().getShort(valueOffset+sfield.getRelativeOffset()+i*sfield.getBlockSize());
+				dest[destOffset+i] = array.getBuffer().getShort(getValueOffset()+sfield.getRelativeOffset()+i*sfield.getBlockSize());
 			}		
 			return len;
 		} else {
@@ -737,9 +970,12 @@ class SBEObject implements GroupObject {
 	public int getIntArray(Field field, int[] dest, int destOffset, int length) {
 		SBEField sfield = (SBEField) field;
 		if( validateField(sfield) ) {
+			if( isAbsent(sfield) ) {
+				return 0;
+			}
 			int len = length > field.length() ? field.length() : length;
 			for( int i = 0; i < len; i ++ ) {
-				dest[destOffset+i] = array.getBuffer().getInt(valueOffset+sfield.getRelativeOffset()+i*sfield.getBlockSize());
+				dest[destOffset+i] = array.getBuffer().getInt(getValueOffset()+sfield.getRelativeOffset()+i*sfield.getBlockSize());
 			}		
 			return len;
 		} else {
@@ -751,10 +987,13 @@ class SBEObject implements GroupObject {
 	public int getU32Array(Field field, long[] dest, int destOffset, int length) {
 		SBEField sfield = (SBEField) field;
 		if( validateField(sfield) ) {
+			if( isAbsent(sfield) ) {
+				return 0;
+			}
 			int len = length > field.length() ? field.length() : length;
 			for( int i = 0; i < len; i ++ ) {
-				long lv = array.getBuffer().getInt(valueOffset+sfield.getRelativeOffset()+i*sfield.getBlockSize());
-				dest[destOffset+i] = lv & 0xffffffff;
+				long lv = array.getBuffer().getInt(getValueOffset()+sfield.getRelativeOffset()+i*sfield.getBlockSize());
+				dest[destOffset+i] = lv & 0xffffffffL;
 			}		
 			return len;
 		} else {
@@ -766,9 +1005,12 @@ class SBEObject implements GroupObject {
 	public int getLongArray(Field field, long[] dest, int destOffset, int length) {
 		SBEField sfield = (SBEField) field;
 		if( validateField(sfield) ) {
+			if( isAbsent(sfield) ) {
+				return 0;
+			}
 			int len = length > field.length() ? field.length() : length;
 			for( int i = 0; i < len; i ++ ) {
-				dest[destOffset+i] = array.getBuffer().getLong(valueOffset+sfield.getRelativeOffset()+i*sfield.getBlockSize());
+				dest[destOffset+i] = array.getBuffer().getLong(getValueOffset()+sfield.getRelativeOffset()+i*sfield.getBlockSize());
 			}		
 			return len;
 		} else {
@@ -780,9 +1022,12 @@ class SBEObject implements GroupObject {
 	public int getFloatArray(Field field, float[] dest, int destOffset, int length) {
 		SBEField sfield = (SBEField) field;
 		if( validateField(sfield) ) {
+			if( isAbsent(sfield) ) {
+				return 0;
+			}
 			int len = length > field.length() ? field.length() : length;
 			for( int i = 0; i < len; i ++ ) {
-				dest[destOffset+i] = array.getBuffer().getFloat(valueOffset+sfield.getRelativeOffset()+i*sfield.getBlockSize());
+				dest[destOffset+i] = array.getBuffer().getFloat(getValueOffset()+sfield.getRelativeOffset()+i*sfield.getBlockSize());
 			}		
 			return len;
 		} else {
@@ -794,9 +1039,12 @@ class SBEObject implements GroupObject {
 	public int getDoubleArray(Field field, double[] dest, int destOffset, int length) {
 		SBEField sfield = (SBEField) field;
 		if( validateField(sfield) ) {
+			if( isAbsent(sfield) ) {
+				return 0;
+			}
 			int len = length > field.length() ? field.length() : length;
 			for( int i = 0; i < len; i ++ ) {
-				dest[destOffset+i] = array.getBuffer().getDouble(valueOffset+sfield.getRelativeOffset()+i*sfield.getBlockSize());
+				dest[destOffset+i] = array.getBuffer().getDouble(getValueOffset()+sfield.getRelativeOffset()+i*sfield.getBlockSize());
 			}		
 			return len;
 		} else {
@@ -808,55 +1056,181 @@ class SBEObject implements GroupObject {
 	public String getEnumName(Field field) {
 		SBEField sfield = (SBEField) field;
 		if( sfield.isEnumField() ) {
-			String value = null;
-			try {
-				value = getString(field, Charset.defaultCharset().name());
-			} catch (UnsupportedEncodingException e) {
+			int ordinal = getEnumOrdinal(field);
+			if( ordinal >= 0 ) {
+				return sfield.getEnumName(ordinal);
+			} else if( isAbsent(sfield) ) {
 				return null;
-			}
-			if( null != value && ! "".equals(value.trim()) ) {
-				value = sfield.getEnumName(value);
-				if( null != value ) 
-					return value;
-				else
-					throw new IllegalArgumentException("value in the message is not a valid enum value.");
-			} else {
+			} else if( sfield.isOptional() && getEnumValue(sfield) == sfield.getNullValue() ) {
+				// an optional enum at its null value
+				return null;
+			} else if( FieldType.CHAR == field.getType() && getEnumValue(sfield) <= ' ' ) {
+				// a blank char
 				return null;
+			} else {
+				throw new IllegalArgumentException("value in the message is not a valid enum value.");
 			}
 		}
 		throw new IllegalArgumentException("not a enum field");
 	}
+	
+	@Override
+	public int getEnumOrdinal(Field field) {
+		SBEField sfield = (SBEField) field;
+		if( ! sfield.isEnumField() ) {
+			throw new IllegalArgumentException("not a enum field");
+		} else if( validateField(sfield) ) {
+			if( isAbsent(sfield) ) {
+				return -1;
+			}
+			return sfield.getEnumTable().getOrdinal(getEnumValue(sfield));
+		} else {
+			throw new IllegalArgumentException("field, "+field.getID()+", does not belong to this group, "+this.getDefinition().getID());
+		}
+	}
+	
+	@Override
+	public void setEnumOrdinal(Field field, int ordinal) {
+		SBEField sfield = (SBEField) field;
+		if( ! sfield.isEnumField() ) {
+			throw new IllegalArgumentException("not a enum field");
+		} else if( validateField(sfield) ) {
+			checkPresent(sfield);
+			long value = sfield.getEnumTable().getValue(ordinal);
+			if( FieldType.CHAR == field.getType() ) {
+				array.getBuffer().put(getValueOffset()+sfield.getRelativeOffset(), (byte) value);
+			} else {
+				sfield.getAccessor().putLong(array.getBuffer(), getValueOffset(), value);
+			}
+		} else {
+			throw new IllegalArgumentException("field, "+field.getID()+", does not belong to this group, "+this.getDefinition().getID());
+		}
+	}
+	
+	/**
+	 * @return the primitive value of an enum field, which is the char code for a char enum
+	 */
+	private long getEnumValue(SBEField sfield) {
+		if( FieldType.CHAR == sfield.getType() ) {
+			return 0xff & array.getBuffer().get(getValueOffset()+sfield.getRelativeOffset());
+		} else {
+			return sfield.getAccessor().getLong(array.getBuffer(), getValueOffset());
+		}
+	}
 
 	@Override
 	public boolean isSet(Field field, String bitName) {
 		SBEField sfield = (SBEField) field;
 		if( sfield.isChoiceField() ) {
-			int bitValue = sfield.getSetBit(bitName);
-			int mask = 1 << bitValue;
-			int value = getNumber(field).intValue();
-			return (mask & value) != 0;
+			long mask = 1L << sfield.getSetBit(bitName);
+			return (mask & getChoices(field)) != 0;
 		}
 		throw new IllegalArgumentException("not a choice field");
 	}
+	
+	@Override
+	public long getChoices(Field field) {
+		SBEField sfield = (SBEField) field;
+		if( ! sfield.isChoiceField() ) {
+			throw new IllegalArgumentException("not a choice field");
+		} else if( validateField(sfield) ) {
+			if( isAbsent(sfield) ) {
+				return 0;
+			}
+			return sfield.getAccessor().getLong(array.getBuffer(), getValueOffset());
+		} else {
+			throw new IllegalArgumentException("field, "+field.getID()+", does not belong to this group, "+this.getDefinition().getID());
+		}
+	}
+	
+	@Override
+	public void setChoices(Field field, long choices) {
+		SBEField sfield = (SBEField) field;
+		if( ! sfield.isChoiceField() ) {
+			throw new IllegalArgumentException("not a choice field");
+		} else if( validateField(sfield) ) {
+			checkPresent(sfield);
+			sfield.getAccessor().putLong(array.getBuffer(), getValueOffset(), choices);
+		} else {
+			throw new IllegalArgumentException("field, "+field.getID()+", does not belong to this group, "+this.getDefinition().getID());
+		}
+	}
+
+	@Override
+	public boolean isSet(Field field, long mask) {
+		return (getChoices(field) & mask) == mask;
+	}
+
+	@Override
+	public boolean isAnySet(Field field, long mask) {
+		return (getChoices(field) & mask) != 0;
+	}
+
+	@Override
+	public void setChoice(Field field, long mask, boolean value) {
+		long choices = getChoices(field);
+		setChoices(field, value ? choices | mask : choices & ~mask);
+	}
 
 	@Override 
 	public String getString(Field field) {
 		try {
-			return getString(field, Charset.defaultCharset().name());
+			return getString(field, ((SBEField) field).getCharset().name());
 		} catch (UnsupportedEncodingException e) {
 			return null;
 		}
 	}
 	
+	@Override
+	public CharSequenceView getCharSequence(Field field, CharSequenceView view) {
+		SBEField sfield = (SBEField) field;
+		if( validateField(sfield) ) {
+			switch( field.getType() ) {
+			case CHAR:
+			case BYTE:
+				if( isAbsent(sfield) ) {
+					return view.clear();
+				}
+				IrisBuffer buffer = array.getBuffer();
+				int start = getValueOffset()+sfield.getRelativeOffset();
+				int length = 0;
+				while( length < field.length() && 0 != buffer.get(start+length) ) {
+					length ++;
+				}
+				return view.wrap(buffer, start, length, sfield.getCharset());
+				
+			case RAW:
+				SBEObjectArray objArray = this.getChildObject(field.getID());
+				if( null == objArray ) {
+					return view.clear();
+				}
+				SBEObject obj = (SBEObject) objArray.getGroupObject(0);
+				return view.wrap(array.getBuffer(), obj.getValueOffset(), obj.getSize(), sfield.getCharset());
+				
+			default:
+				throw new IllegalArgumentException("field, "+field.getID()+", of type, "+field.getType().name()+", is not a char array or a variable length field");
+			}
+		} else {
+			throw new IllegalArgumentException("field, "+field.getID()+", does not belong to this group, "+this.getDefinition().getID());
+		}
+	}
+	
+	@Override
+	public int getChars(Field field, StringBuilder dest) {
+		return getCharSequence(field, parser.getCharSequenceView()).appendTo(dest);
+	}
+	
 	@Override
 	public String getString(Field field, String encodingType) throws UnsupportedEncodingException {
 		SBEField sfield = (SBEField) field;
+		if( validateField(sfield) && isAbsent(sfield) ) {
+			return null;
+		}
 		
 		switch( field.getType() ) {
 		case CHAR:
 		case BYTE:
 		case RAW:
-			// TODO: SBE schema is missing encoding information.
 			int nsize = getSize(field);
 			if( nsize == 0 ) 
 				return null;
@@ -930,16 +1304,36 @@ class SBEObject implements GroupObject {
 	@Override
 	public GroupObjectArray getGroupArray(Field field) {
 		if( FieldType.GROUP == field.getType() && validateField((SBEField)field) ) {
-			return childFields.get(field.getID());
+			return getChildObject(field.getID());
 		} else {
 			throw new IllegalArgumentException("field, "+field.getID()+", is not a group field or does not belong to this group, "+this.getDefinition().getID());
 		}
 	}
 	
 	Map<Short, SBEObjectArray> getGroupList() {
+		if( ! resolved ) {
+			parser.resolve(this);
+		}
 		return childFields;
 	}
 	
+	/**
+	 * A field is absent if it is added in a later version than the acting version of the message or 
+	 * if it is beyond the block of this row, see {@link SBEField#isPresent(int, int)}. 
+	 */
+	private boolean isAbsent(SBEField field) {
+		return ! field.isPresent(parser.getActingVersion(), blockSize);
+	}
+	
+	/**
+	 * Make sure a field is present before it is written so that a write never goes beyond the block.
+	 */
+	private void checkPresent(SBEField field) {
+		if( isAbsent(field) ) {
+			throw new IllegalStateException("field, "+field.getID()+", is absent in the acting version, "+parser.getActingVersion()+", of the message");
+		}
+	}
+	
 	private boolean validateField(SBEField field) {
 		return  ! safeMode ||
 				( field.getParent() == this.getDefinition() ||
@@ -15,9 +15,12 @@
  *******************************************************************************/
 package com.github.bwsoft.iris.message.sbe;
 
-import java.nio.ByteBuffer;
+import java.util.BitSet;
+import java.util.function.Predicate;
 
+import com.github.bwsoft.iris.buffer.IrisBuffer;
 import com.github.bwsoft.iris.message.Field;
+import com.github.bwsoft.iris.message.Group;
 import com.github.bwsoft.iris.message.GroupObject;
 import com.github.bwsoft.iris.message.GroupObjectArray;
 
@@ -36,6 +39,7 @@ import com.github.bwsoft.iris.message.GroupObjectArray;
  */
 class SBEObjectArray implements GroupObjectArray {
 	private final int OPTIMIZED_DIMMENSION;
+	private final SBEParser parser; // the parser that owns this object
 	private SBEField definition; // Field definition, name, id, etc.
 
 	private short dimmension;
@@ -45,10 +49,19 @@ class SBEObjectArray implements GroupObjectArray {
 	private SBEObjectArray parent;
 	private short parentRow;
 	
-	private ByteBuffer buffer;
+	private IrisBuffer buffer;
+	
+	// the start of the array relative to the start of the parent row. The absolute position 
+	// is cached until the layout changes.
+	private int relativeOffset;
 	private int offset;
+	private int layoutEpoch;
+	
+	// rows before this index have an up to date relative position 
+	private short numOfValidRows = Short.MAX_VALUE;
 	
-	SBEObjectArray() {
+	SBEObjectArray(SBEParser parser) {
+		this.parser = parser;
 		OPTIMIZED_DIMMENSION = Integer.parseInt(SBESchemaLoader.properties.getProperty(SBESchemaLoader.OPTIMIZED_NUM_OF_GROUP_ROWS));
 
 		this.dimmension = 0;
@@ -58,17 +71,65 @@ class SBEObjectArray implements GroupObjectArray {
 		}
 	}
 	
-	ByteBuffer getBuffer() {
+	IrisBuffer getBuffer() {
 		return this.buffer;
 	}
+	
+	SBEParser getParser() {
+		return this.parser;
+	}
 
 	int getOffset() {
+		int epoch = parser.getLayoutEpoch();
+		if( epoch != layoutEpoch ) {
+			offset = null == parent ? relativeOffset : parent.attrs[parentRow].getValueOffset() + relativeOffset;
+			layoutEpoch = epoch;
+		}
 		return this.offset;
 	}
 
-	void setBufferAndOffset(ByteBuffer buffer, int offset) {
+	/**
+	 * Set the buffer and the starting position of this array. The parent of the array has to
+	 * be set first.
+	 * 
+	 * @param buffer the buffer of the message
+	 * @param offset the starting position of this array
+	 */
+	void setBufferAndOffset(IrisBuffer buffer, int offset) {
 		this.buffer = buffer;
 		this.offset = offset;
+		this.relativeOffset = null == parent ? offset : offset - parent.attrs[parentRow].getValueOffset();
+		this.layoutEpoch = parser.getLayoutEpoch();
+		this.numOfValidRows = Short.MAX_VALUE;
+	}
+	
+	/**
+	 * Obtain the position of a row in the buffer. The relative position of rows after a 
+	 * changed row is recalculated from the sizes of their preceding rows upon the first access.
+	 * 
+	 * @param n the row index
+	 * @return the starting position of the block of the row
+	 */
+	int getRowValueOffset(int n) {
+		if( n >= numOfValidRows ) {
+			for( int i = numOfValidRows; i <= n; i ++ ) {
+				attrs[i].setRelativeValueOffset( i == 0 ? definition.getHeader().getSize() : 
+					attrs[i-1].getRelativeValueOffset() + attrs[i-1].getStoredSize());
+			}
+			numOfValidRows = (short) (n + 1);
+		}
+		return getOffset() + attrs[n].getRelativeValueOffset();
+	}
+	
+	/**
+	 * Invalidate the position of the rows starting from the nth row and the cached 
+	 * positions of all objects of the message. 
+	 */
+	private void invalidateRows(int n) {
+		if( n < numOfValidRows ) {
+			numOfValidRows = (short) n;
+		}
+		parser.invalidateLayout();
 	}
 
 	void setParent(SBEObjectArray parent) {
@@ -80,32 +141,30 @@ class SBEObjectArray implements GroupObjectArray {
 	}
 	
 	/**
-	 * Shift nbytes down to expand array or up to shrink the array.
+	 * Move this array nbytes down or up within its parent row due to a size change of 
+	 * a sibling ahead of it. The rows of this array are not touched.
 	 * 
 	 * @param nbytes can be positive for downward shift or negative for an upward shift
 	 */
 	void shift(int nbytes) {
-		this.offset += nbytes;
-		for( int i = 0; i < dimmension; i ++ ) {
-			attrs[i].shiftDueToAChangeOutOfMyGroup(nbytes);
-		}
+		this.relativeOffset += nbytes;
 	}
 	
 	/**
-	 * Shift all fields by nbytes starting from the field of the nth row of this object.
+	 * Record a size change of a field in the nth row of this object. Only the ancestors
+	 * of the field are updated. The positions of everything after the field are recalculated 
+	 * upon their next access.
 	 * 
 	 * @param nth the nth row of this object array.
-	 * @param field the starting field of this row.
+	 * @param field the field of this row that changes its size.
 	 * @param nbytes number of bytes to be shifted.
 	 */
 	void shift(short nth, Field field, int nbytes) {
-		// shift the remaining bytes in the same row down
+		// shift the remaining fields in the same row down
 		attrs[nth].shiftDueToASiblingChangeAheadOfMe(field, nbytes);
 		
 		// all other rows need to be shifted
-		for( short i = (short) (nth+1); i < dimmension; i ++ ) {
-			attrs[i].shiftDueToAChangeOutOfMyGroup(nbytes);
-		}
+		invalidateRows(nth+1);
 		
 		// inform parent to shift
 		if( null != parent ) {
@@ -120,6 +179,7 @@ class SBEObjectArray implements GroupObjectArray {
 		for( int i = 0; i < dimmension; i ++ )
 			attrs[i].reset();
 		this.dimmension = 0;
+		this.numOfValidRows = Short.MAX_VALUE;
 	}
 
 	void setDefinition(Field definition) {
@@ -129,6 +189,7 @@ class SBEObjectArray implements GroupObjectArray {
 	SBEObject addObject(short index) {
 		if( index < attrs.length ) {
 			if( index >= dimmension ) dimmension = (short) (index + 1);
+			attrs[index].setRowIndex(index);
 			return attrs[index];
 		} else {
 			while( attrs.length <= index ) {
@@ -165,9 +226,6 @@ class SBEObjectArray implements GroupObjectArray {
 	public GroupObject addGroupObject() {
 		SBEGroup grp = (SBEGroup) definition;
 		
-		// get size of an empty row
-		int nsize = grp.getBlockSize() + grp.getSizeOfGroupAndVariableFieldHeaders();
-		
 		// add attr
 		int blockSize = 0;
 		int valueOffset = 0;
@@ -177,28 +235,34 @@ class SBEObjectArray implements GroupObjectArray {
 			blockSize = lastObj.getBlockSize();
 		} else {
 			// TODO: exception out if version is not the same
-			valueOffset = this.offset + grp.getHeader().getSize();
+			valueOffset = getOffset() + grp.getHeader().getSize();
 			blockSize = grp.getBlockSize();
-			((SBEGroupHeader) grp.getHeader()).putBlockSize(buffer, offset, blockSize);
 		}
+		
+		// get size of an empty row, which is of the same layout as other rows
+		int nsize = blockSize + grp.getSizeOfGroupAndVariableFieldHeaders(parser.getActingVersion());
+		reserve(nsize);
+		if( dimmension == 0 ) {
+			((SBEGroupHeader) grp.getHeader()).putBlockSize(buffer, getOffset(), blockSize);
+		}
+		
 		SBEObject newObj = this.addObject(dimmension);
-		newObj.setOffset(this.offset);
 		newObj.setValueOffset(valueOffset);
 		newObj.setBlockSize(blockSize);
 		newObj.setSize(nsize);
 
 		// update header to record both block size and the number of rows
-		((SBEGroupHeader) grp.getHeader()).putNumRows(buffer, offset, dimmension);
+		((SBEGroupHeader) grp.getHeader()).putNumRows(buffer, getOffset(), dimmension);
 		
 		// shift the array
 		shiftArray(newObj.getValueOffset(), nsize);
+		initBlock(newObj.getValueOffset(), blockSize);
 		
 		if( nsize - blockSize > 0 ) {
 			// fill array with zero for the section of groups and raws	
-			fillArray(this.buffer, newObj.getValueOffset()+blockSize, nsize-blockSize, (byte) 0);
+			this.buffer.setMemory(newObj.getValueOffset()+blockSize, nsize-blockSize, (byte) 0);
 			
 			// wrap new array
-			SBEParser parser = this.definition.getMessage().getParser();
 			parser.wrapGroupObject(newObj, grp, this, dimmension-1);
 		}
 		
@@ -220,17 +284,17 @@ class SBEObjectArray implements GroupObjectArray {
 		
 		SBEGroup grp = (SBEGroup) definition;
 		
-		// get size of an empty row
-		int nsize = grp.getBlockSize() + grp.getSizeOfGroupAndVariableFieldHeaders();
-		
 		// add attr
 		SBEObject nextObj = attrs[n];
 		int valueOffset = nextObj.getValueOffset();
 		int blockSize = nextObj.getBlockSize();
 		
+		// get size of an empty row, which is of the same layout as other rows
+		int nsize = blockSize + grp.getSizeOfGroupAndVariableFieldHeaders(parser.getActingVersion());
+		reserve(nsize);
+		
 		// add an element 
 		SBEObject newObj = this.addObject(dimmension);
-		newObj.setOffset(this.offset);
 		newObj.setValueOffset(valueOffset);
 		newObj.setBlockSize(blockSize);
 		newObj.setSize(nsize);		
@@ -238,22 +302,24 @@ class SBEObjectArray implements GroupObjectArray {
 		// shift all elements down starting at n
 		for( int i = dimmension-1; i > n; i -- ) {
 			attrs[i] = attrs[i-1];
-			attrs[i].shiftDueToAChangeInMyGroup(nsize,(short) i);
+			attrs[i].moveTo((short) i);
 		}	
 		attrs[n] = newObj;
+		newObj.setRowIndex((short) n);
+		invalidateRows(n+1);
 
 		// update header to record both block size and the number of rows
-		((SBEGroupHeader) grp.getHeader()).putNumRows(buffer, offset, dimmension);
+		((SBEGroupHeader) grp.getHeader()).putNumRows(buffer, getOffset(), dimmension);
 		
 		// shift the array
 		shiftArray(newObj.getValueOffset(), nsize);
+		initBlock(newObj.getValueOffset(), blockSize);
 		
 		if( nsize - blockSize > 0 ) {
 			// fill array with zero for the section of groups and raws	
-			fillArray(this.buffer, newObj.getValueOffset()+blockSize, nsize-blockSize, (byte) 0);
+			this.buffer.setMemory(newObj.getValueOffset()+blockSize, nsize-blockSize, (byte) 0);
 			
 			// wrap new array
-			SBEParser parser = this.definition.getMessage().getParser();
 			parser.wrapGroupObject(newObj, grp, this, n);
 		}
 		
@@ -265,6 +331,192 @@ class SBEObjectArray implements GroupObjectArray {
 		return newObj;		
 	}
 
+	@Override
+	public void addGroupObjects(int count) {
+		insertGroupObjects(dimmension, count);
+	}
+
+	@Override
+	public void insertGroupObjects(int n, int count) {
+		if( n < 0 || n > dimmension )
+			throw new IllegalArgumentException("cannot insert new rows to pass the group boundary");
+		else if( count <= 0 )
+			return;
+		
+		SBEGroup grp = (SBEGroup) definition;
+		int blockSize = 0;
+		int valueOffset = 0;
+		if( n < dimmension ) {
+			valueOffset = attrs[n].getValueOffset();
+			blockSize = attrs[n].getBlockSize();
+		} else if( dimmension > 0 ) {
+			SBEObject lastObj = attrs[dimmension-1];
+			valueOffset = lastObj.getValueOffset()+lastObj.getSize();
+			blockSize = lastObj.getBlockSize();
+		} else {
+			valueOffset = getOffset() + grp.getHeader().getSize();
+			blockSize = grp.getBlockSize();
+		}
+		
+		// all new rows are of the same layout as an empty row
+		int nsize = blockSize + grp.getSizeOfGroupAndVariableFieldHeaders(parser.getActingVersion());
+		int total = nsize*count;
+		reserve(total);
+		if( dimmension == 0 ) {
+			((SBEGroupHeader) grp.getHeader()).putBlockSize(buffer, getOffset(), blockSize);
+		}
+		
+		// shift the array once for all new rows
+		shiftArray(valueOffset, total);
+		
+		// rotate the spare objects at the end into the position of the new rows
+		short oldDimmension = dimmension;
+		this.addObject((short) (oldDimmension+count-1));
+		for( int i = oldDimmension-1; i >= n; i -- ) {
+			SBEObject moved = attrs[i];
+			attrs[i] = attrs[i+count];
+			attrs[i+count] = moved;
+			moved.moveTo((short) (i+count));
+		}
+		invalidateRows(n);
+		
+		for( int i = 0; i < count; i ++ ) {
+			SBEObject newObj = attrs[n+i];
+			newObj.reset();
+			newObj.setRowIndex((short) (n+i));
+			newObj.setValueOffset(valueOffset+i*nsize);
+			newObj.setBlockSize(blockSize);
+			newObj.setSize(nsize);
+			initBlock(newObj.getValueOffset(), blockSize);
+			if( nsize - blockSize > 0 ) {
+				// fill array with zero for the section of groups and raws	
+				this.buffer.setMemory(newObj.getValueOffset()+blockSize, nsize-blockSize, (byte) 0);
+				parser.wrapGroupObject(newObj, grp, this, n+i);
+			}
+		}
+		
+		// update header to record the number of rows
+		((SBEGroupHeader) grp.getHeader()).putNumRows(buffer, getOffset(), dimmension);
+		
+		// notify the parent about the shift of all new rows
+		if( null != this.parent ) {
+			this.parent.shift(parentRow, this.definition, total);
+		}
+	}
+
+	@Override
+	public void deleteGroupObjects(int from, int to) {
+		if( from < 0 || to > dimmension || from > to )
+			throw new IllegalArgumentException("invalid range of rows: ["+from+", "+to+")");
+		else if( from == to )
+			return;
+		
+		int count = to - from;
+		int start = attrs[from].getValueOffset();
+		int end = attrs[to-1].getValueOffset() + attrs[to-1].getSize();
+		int total = end - start;
+		
+		// update header to record the number of rows
+		((SBEGroupHeader) definition.getHeader()).putNumRows(buffer, getOffset(), dimmension-count);
+
+		// shift the array once for all deleted rows
+		shiftArray(end, -total);
+		
+		// rotate the deleted objects to the end
+		for( int i = to; i < dimmension; i ++ ) {
+			attrs[i].moveTo((short) (i-count));
+		}
+		for( int i = from; i+count < dimmension; i ++ ) {
+			SBEObject moved = attrs[i+count];
+			attrs[i+count] = attrs[i];
+			attrs[i] = moved;
+		}
+		for( int i = dimmension-count; i < dimmension; i ++ ) {
+			attrs[i].reset();
+		}
+		dimmension -= count;
+		invalidateRows(from);
+		
+		// notify the parent about the shift of all deleted rows
+		if( null != this.parent ) {
+			this.parent.shift(parentRow, this.definition, -total);
+		}
+	}
+
+	@Override
+	public int deleteGroupObjectsIf(Predicate<? super GroupObject> filter) {
+		if( dimmension == 0 ) 
+			return 0;
+		
+		// evaluate the predicate of all rows before the message is modified so that an 
+		// exception thrown by the predicate leaves the message intact
+		BitSet deleted = new BitSet(dimmension);
+		for( int i = 0; i < dimmension; i ++ ) {
+			if( filter.test(attrs[i]) ) {
+				deleted.set(i);
+			}
+		}
+		int firstRemoved = deleted.nextSetBit(0);
+		if( firstRemoved < 0 ) 
+			return 0;
+		
+		// the relative position of all rows is brought up to date before any row is moved
+		int end = getRowValueOffset(dimmension-1) + attrs[dimmension-1].getSize();
+		
+		// compact the remaining rows. A run of consecutive remaining rows is moved with one copy.
+		int removed = 0;
+		int runStart = 0;
+		int runSize = 0;
+		short numRows = 0;
+		for( int i = 0; i < dimmension; i ++ ) {
+			SBEObject row = attrs[i];
+			if( deleted.get(i) ) {
+				if( runSize > 0 && removed > 0 ) {
+					this.buffer.copy(runStart, runStart-removed, runSize);
+				}
+				runSize = 0;
+				removed += row.getSize();
+				row.reset();
+			} else {
+				if( runSize == 0 ) {
+					runStart = row.getValueOffset();
+				}
+				runSize += row.getSize();
+				if( removed > 0 ) {
+					row.moveTo(numRows);
+					attrs[i] = attrs[numRows];
+					attrs[numRows] = row;
+				}
+				numRows ++;
+			}
+		}
+		if( runSize > 0 ) {
+			this.buffer.copy(runStart, runStart-removed, runSize);
+		}
+		
+		int count = dimmension - numRows;
+		((SBEGroupHeader) definition.getHeader()).putNumRows(buffer, getOffset(), numRows);
+		shiftArray(end, -removed);
+		dimmension = numRows;
+		invalidateRows(firstRemoved);
+		
+		// notify the parent about the shift of all deleted rows
+		if( null != this.parent ) {
+			this.parent.shift(parentRow, this.definition, -removed);
+		}
+		return count;
+	}
+
+	/**
+	 * Initialize optional fields of a new row to null. 
+	 */
+	private void initBlock(int valueOffset, int blockSize) {
+		byte[] nullBlock = ((SBEGroup) definition).getNullBlock();
+		if( null != nullBlock ) {
+			this.buffer.putBytes(valueOffset, nullBlock, 0, Math.min(blockSize, nullBlock.length));
+		}
+	}
+	
 	@Override
 	public void deleteGroupObject(int n) {
 		if( n < dimmension ) {
@@ -273,20 +525,21 @@ class SBEObjectArray implements GroupObjectArray {
 						
 			// update header to record both block size and the number of rows
 			SBEGroup grp = (SBEGroup) definition;
-			((SBEGroupHeader) grp.getHeader()).putNumRows(buffer, offset, dimmension-1);
+			((SBEGroupHeader) grp.getHeader()).putNumRows(buffer, getOffset(), dimmension-1);
 			
 			// shift the array
 			shiftArray(toBeDeleted.getValueOffset()+nsize, -nsize);
 			
 			// shift remaining attrs up
 			for( int i = n+1; i < dimmension; i ++ ) {
-				attrs[i].shiftDueToAChangeInMyGroup(-nsize, (short)(i-1));
+				attrs[i].moveTo((short)(i-1));
 				attrs[i-1] = attrs[i]; 
 			}
 			
 			attrs[dimmension-1] = toBeDeleted;
 			toBeDeleted.reset();
 			dimmension --;
+			invalidateRows(n);
 			
 			// notify the parent about the shift of nsize
 			if( null != this.parent ) {
@@ -295,6 +548,150 @@ class SBEObjectArray implements GroupObjectArray {
 		}
 	}
 	
+	@Override
+	public int getLongs(Field field, long[] dest, int destOffset, int length) {
+		SBEPrimitiveAccessor accessor = getNumberAccessor(field);
+		int n = length < dimmension ? length : dimmension;
+		int stride = getFixedStride();
+		if( stride > 0 ) {
+			int valueOffset = attrs[0].getValueOffset();
+			for( int i = 0; i < n; i ++, valueOffset += stride ) {
+				dest[destOffset+i] = accessor.getLong(buffer, valueOffset);
+			}
+		} else {
+			for( int i = 0; i < n; i ++ ) {
+				dest[destOffset+i] = accessor.getLong(buffer, attrs[i].getValueOffset());
+			}
+		}
+		return n;
+	}
+
+	@Override
+	public int getInts(Field field, int[] dest, int destOffset, int length) {
+		SBEPrimitiveAccessor accessor = getNumberAccessor(field);
+		int n = length < dimmension ? length : dimmension;
+		int stride = getFixedStride();
+		if( stride > 0 ) {
+			int valueOffset = attrs[0].getValueOffset();
+			for( int i = 0; i < n; i ++, valueOffset += stride ) {
+				dest[destOffset+i] = (int) accessor.getLong(buffer, valueOffset);
+			}
+		} else {
+			for( int i = 0; i < n; i ++ ) {
+				dest[destOffset+i] = (int) accessor.getLong(buffer, attrs[i].getValueOffset());
+			}
+		}
+		return n;
+	}
+
+	@Override
+	public int getDoubles(Field field, double[] dest, int destOffset, int length) {
+		SBEPrimitiveAccessor accessor = getNumberAccessor(field);
+		int n = length < dimmension ? length : dimmension;
+		int stride = getFixedStride();
+		if( stride > 0 ) {
+			int valueOffset = attrs[0].getValueOffset();
+			for( int i = 0; i < n; i ++, valueOffset += stride ) {
+				dest[destOffset+i] = accessor.getDouble(buffer, valueOffset);
+			}
+		} else {
+			for( int i = 0; i < n; i ++ ) {
+				dest[destOffset+i] = accessor.getDouble(buffer, attrs[i].getValueOffset());
+			}
+		}
+		return n;
+	}
+
+	@Override
+	public int setLongs(Field field, long[] src, int srcOffset, int length) {
+		SBEPrimitiveAccessor accessor = getNumberAccessor(field);
+		int n = length < dimmension ? length : dimmension;
+		int stride = getFixedStride();
+		if( stride > 0 ) {
+			int valueOffset = attrs[0].getValueOffset();
+			for( int i = 0; i < n; i ++, valueOffset += stride ) {
+				accessor.putLong(buffer, valueOffset, src[srcOffset+i]);
+			}
+		} else {
+			for( int i = 0; i < n; i ++ ) {
+				accessor.putLong(buffer, attrs[i].getValueOffset(), src[srcOffset+i]);
+			}
+		}
+		return n;
+	}
+
+	@Override
+	public int setInts(Field field, int[] src, int srcOffset, int length) {
+		SBEPrimitiveAccessor accessor = getNumberAccessor(field);
+		int n = length < dimmension ? length : dimmension;
+		int stride = getFixedStride();
+		if( stride > 0 ) {
+			int valueOffset = attrs[0].getValueOffset();
+			for( int i = 0; i < n; i ++, valueOffset += stride ) {
+				accessor.putLong(buffer, valueOffset, src[srcOffset+i]);
+			}
+		} else {
+			for( int i = 0; i < n; i ++ ) {
+				accessor.putLong(buffer, attrs[i].getValueOffset(), src[srcOffset+i]);
+			}
+		}
+		return n;
+	}
+
+	@Override
+	public int setDoubles(Field field, double[] src, int srcOffset, int length) {
+		SBEPrimitiveAccessor accessor = getNumberAccessor(field);
+		int n = length < dimmension ? length : dimmension;
+		int stride = getFixedStride();
+		if( stride > 0 ) {
+			int valueOffset = attrs[0].getValueOffset();
+			for( int i = 0; i < n; i ++, valueOffset += stride ) {
+				accessor.putDouble(buffer, valueOffset, src[srcOffset+i]);
+			}
+		} else {
+			for( int i = 0; i < n; i ++ ) {
+				accessor.putDouble(buffer, attrs[i].getValueOffset(), src[srcOffset+i]);
+			}
+		}
+		return n;
+	}
+
+	@Override
+	public int getEpochNanos(Field field, long[] dest, int destOffset, int length) {
+		SBETimestamp timestamp = getTimestamp(field);
+		int n = length < dimmension ? length : dimmension;
+		int stride = getFixedStride();
+		if( stride > 0 ) {
+			int valueOffset = attrs[0].getValueOffset();
+			for( int i = 0; i < n; i ++, valueOffset += stride ) {
+				dest[destOffset+i] = timestamp.getEpochNanos(buffer, valueOffset);
+			}
+		} else {
+			for( int i = 0; i < n; i ++ ) {
+				dest[destOffset+i] = timestamp.getEpochNanos(buffer, attrs[i].getValueOffset());
+			}
+		}
+		return n;
+	}
+
+	@Override
+	public int setEpochNanos(Field field, long[] src, int srcOffset, int length) {
+		SBETimestamp timestamp = getTimestamp(field);
+		int n = length < dimmension ? length : dimmension;
+		int stride = getFixedStride();
+		if( stride > 0 ) {
+			int valueOffset = attrs[0].getValueOffset();
+			for( int i = 0; i < n; i ++, valueOffset += stride ) {
+				timestamp.putEpochNanos(buffer, valueOffset, src[srcOffset+i]);
+			}
+		} else {
+			for( int i = 0; i < n; i ++ ) {
+				timestamp.putEpochNanos(buffer, attrs[i].getValueOffset(), src[srcOffset+i]);
+			}
+		}
+		return n;
+	}
+
 	GroupObject adjustRawGroupSize(int newSize) {
 		SBEVarLengthField field = (SBEVarLengthField) this.definition;
 		SBEObject raw = this.attrs[0];
@@ -304,8 +701,10 @@ class SBEObjectArray implements GroupObjectArray {
 		int nsize = newSize - originalSize;
 		if( nsize == 0 ) 
 			return raw;
+		else if( nsize > 0 )
+			reserve(nsize);
 		
-		((SBEVarLengthFieldHeader) field.getHeader()).putBlockSize(buffer, offset, newSize);
+		((SBEVarLengthFieldHeader) field.getHeader()).putBlockSize(buffer, getOffset(), newSize);
 		
 		// shift the array
 		shiftArray(raw.getValueOffset()+raw.getSize(), nsize);
@@ -321,33 +720,99 @@ class SBEObjectArray implements GroupObjectArray {
 		return raw;
 	}
 	
-	private void shiftArray(int offset, int nsize) {
-		SBEObject root = this.definition.getMessage().getRootObject();
-		int remaining = root.getSize() + this.definition.getMessage().getHeader().getSize() + root.getOffset() - offset;		
-		if( this.buffer.hasArray() ) {
-			byte[] array = this.buffer.array();
-			System.arraycopy(array, offset, array, offset+nsize, remaining);
-		} else {
-			byte[] array = new byte[remaining];
-			this.buffer.position(offset);
-			this.buffer.get(array, 0, remaining);
-			
-			this.buffer.position(offset+nsize);
-			this.buffer.put(array, 0, remaining);
+	/**
+	 * Obtain the accessor of a number field in the rows of this group. The field can be 
+	 * a field of a composite field of the group.
+	 * 
+	 * @param field the field in the rows of this group
+	 * @return the accessor of the field
+	 */
+	private SBEPrimitiveAccessor getNumberAccessor(Field field) {
+		SBEField sfield = validateRowField(field);
+		checkPresent(sfield);
+		SBEPrimitiveAccessor accessor = sfield.getAccessor();
+		if( accessor instanceof SBEPrimitiveAccessor.NotANumberAccessor ) {
+			throw new IllegalArgumentException("field, "+field.getName()+", is not a number field");
 		}
+		return accessor;
 	}
 	
-	static void fillArray(ByteBuffer buffer, int offset, int nsize, byte value) {
-		if( buffer.hasArray() ) {
-			byte[] array = buffer.array();
-			array[offset] = value;
-		    for( int i = 1; i < nsize; i += i ) {
-		    	System.arraycopy(array, offset, array, i+offset, ((nsize - i) < i) ? (nsize - i) : i);
-		    }
-		} else {
-			for( int i = 0; i < nsize; i ++ ) {
-				buffer.put(offset+i, value);
+	/**
+	 * Obtain the timestamp conversion of a timestamp field in the rows of this group.
+	 * 
+	 * @param field the timestamp field in the rows of this group
+	 * @return the timestamp conversion of the field
+	 */
+	private SBETimestamp getTimestamp(Field field) {
+		SBEField sfield = validateRowField(field);
+		checkPresent(sfield);
+		if( ! sfield.isTimestamp() ) {
+			throw new IllegalArgumentException("field, "+field.getName()+", is not a timestamp field");
+		}
+		return sfield.getTimestamp();
+	}
+	
+	/**
+	 * Make sure a field is in the blocks of the rows, which share the same block size, before 
+	 * a column is read or written. 
+	 */
+	private void checkPresent(SBEField field) {
+		if( dimmension > 0 && ! field.isPresent(parser.getActingVersion(), attrs[0].getBlockSize()) ) {
+			throw new IllegalStateException("field, "+field.getID()+", is absent in the acting version, "+parser.getActingVersion()+", of the message");
+		}
+	}
+	
+	/**
+	 * Verify a field is in the rows of this group in the safe mode. 
+	 * 
+	 * @param field the field in the rows of this group
+	 * @return the field 
+	 */
+	private SBEField validateRowField(Field field) {
+		if( ! (definition instanceof SBEGroup) ) {
+			throw new UnsupportedOperationException("field, "+definition.getName()+", is not a group");
+		}
+		SBEField sfield = (SBEField) field;
+		if( definition.getMessage().safeMode() ) {
+			Group parent = sfield.getParent();
+			while( parent instanceof SBECompositeField ) {
+				parent = ((SBECompositeField) parent).getParent();
+			}
+			if( parent != definition ) {
+				throw new IllegalArgumentException("field, "+field.getID()+", does not belong to the group, "+definition.getID());
 			}
-		}		
+		}
+		return sfield;
+	}
+	
+	/**
+	 * Rows of a group without a nested group or a variable length field are laid out back 
+	 * to back with the same size. 
+	 * 
+	 * @return the distance between two adjacent rows or zero if the rows are not of a fixed size
+	 */
+	private int getFixedStride() {
+		if( dimmension > 0 && ((SBEGroup) definition).getSizeOfGroupAndVariableFieldHeaders(parser.getActingVersion()) == 0 ) {
+			return attrs[0].getBlockSize();
+		}
+		return 0;
+	}
+
+	private void shiftArray(int offset, int nsize) {
+		int remaining = getMessageEnd() - offset;		
+		this.buffer.copy(offset, offset+nsize, remaining);
+	}
+	
+	/**
+	 * Make room for the message to grow by nsize bytes. It is called before any change so 
+	 * that a message is left intact if the buffer cannot be grown. 
+	 */
+	private void reserve(int nsize) {
+		parser.ensureCapacity(getMessageEnd(), nsize);
+	}
+	
+	private int getMessageEnd() {
+		SBEObject root = parser.getRootObject();
+		return root.getSize() + this.definition.getMessage().getHeader().getSize() + root.getOffset();
 	}
 }
@@ -26,12 +26,14 @@ package com.github.bwsoft.iris.message.sbe;
  *
  */
 class SBEObjectFactory {
+	private final SBEParser parser;
 	private int initialCapacity;
 	
 	private int currentCount;
 	private SBEObjectArray[] pool;
 	
-	SBEObjectFactory() {
+	SBEObjectFactory(SBEParser parser) {
+		this.parser = parser;
 		this.initialCapacity = Integer.parseInt(SBESchemaLoader.properties.getProperty(SBESchemaLoader.OPTIMIZED_NUM_OF_GROUPS));
 		
 		currentCount = 0;
@@ -39,7 +41,7 @@ class SBEObjectFactory {
 		pool = new SBEObjectArray[initialCapacity];
 		
 		for( int i = 0; i < initialCapacity; i ++ ) {
-			pool[i] = new SBEObjectArray();
+			pool[i] = new SBEObjectArray(parser);
 		}
 	}
 	
@@ -52,7 +54,7 @@ class SBEObjectFactory {
 			SBEObjectArray[] nPool = new SBEObjectArray[pool.length+initialCapacity];
 			System.arraycopy(pool, 0, nPool, 0, pool.length);
 			for( int i = pool.length; i < nPool.length; i ++ ) {
-				nPool[i] = new SBEObjectArray();
+				nPool[i] = new SBEObjectArray(parser);
 			}
 			pool = nPool;
 			return get();
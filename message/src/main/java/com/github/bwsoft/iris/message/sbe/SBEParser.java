@@ -15,44 +15,212 @@
  *******************************************************************************/
 package com.github.bwsoft.iris.message.sbe;
 
+import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.List;
 
+import com.github.bwsoft.iris.buffer.BufferPool;
+import com.github.bwsoft.iris.buffer.IrisBuffer;
+import com.github.bwsoft.iris.message.CharSequenceView;
 import com.github.bwsoft.iris.message.Field;
 import com.github.bwsoft.iris.message.FieldType;
+import com.github.bwsoft.iris.message.MsgCodecRuntimeException;
 
 class SBEParser {
 	
 	private final SBEMessage message;
 	private final SBEObjectFactory sbeObjFactory;
-	private ByteBuffer buffer;
+	private IrisBuffer buffer;
 	private final ByteOrder order;
 	
+	// reusable buffers to wrap a ByteBuffer
+	private final SBEBufferWrapper wrapper;
+	
+	// the pooled buffer holding the message when it is created from a pool
+	private BufferPool pool;
+	private ByteBuffer pooledBuffer;
+	
 	private int messageHeaderSize;
+	private boolean lazy;
+	
+	// the schema version the current message is encoded in
+	private int actingVersion;
+	
+	// incremented upon each change of the layout to invalidate the cached positions of all objects
+	private int layoutEpoch;
+	
+	// a view shared by the character decoding of all rows
+	private final CharSequenceView charView = new CharSequenceView();
+	
+	// groups and variable length fields outside of the projection are skipped
+	private SBEProjection projection;
 	
 	SBEParser(SBEMessage message) {
 		this.message = message;
 		this.buffer = null;
 		this.order = message.getByteOrder();
-		sbeObjFactory = new SBEObjectFactory();
+		sbeObjFactory = new SBEObjectFactory(this);
 		
 		messageHeaderSize = message.getHeader().getSize();
+		wrapper = new SBEBufferWrapper(message);
 	}
 	
-	ByteBuffer getBuffer() {
+	IrisBuffer getBuffer() {
 		return this.buffer;
 	}
 	
+	int getActingVersion() {
+		return this.actingVersion;
+	}
+	
+	int getLayoutEpoch() {
+		return this.layoutEpoch;
+	}
+	
+	void invalidateLayout() {
+		this.layoutEpoch ++;
+	}
+	
+	ByteBuffer getPooledBuffer() {
+		return this.pooledBuffer;
+	}
+	
+	/**
+	 * Hand the pooled buffer of the current message back to its pool. 
+	 */
+	void releasePooledBuffer() {
+		if( null != pooledBuffer ) {
+			pool.release(pooledBuffer);
+			pooledBuffer = null;
+			pool = null;
+		}
+	}
+	
+	/**
+	 * Make sure that the message ending at end can grow by nsize bytes. A message in a pooled 
+	 * buffer is moved to a larger buffer of the pool. The buffer shared by all objects of the 
+	 * message is re-pointed to the new buffer so that the objects stay valid. 
+	 * 
+	 * @throws BufferOverflowException if the buffer is not large enough and not from a pool
+	 */
+	void ensureCapacity(int end, int nsize) {
+		int capacity = end + nsize;
+		if( capacity <= buffer.capacity() ) {
+			return;
+		} else if( null == pooledBuffer ) {
+			throw new BufferOverflowException();
+		}
+		
+		ByteBuffer grown = pool.acquire(Math.max(capacity, buffer.capacity() << 1));
+		ByteBuffer src = pooledBuffer.duplicate();
+		src.limit(end);
+		src.position(0);
+		grown.duplicate().put(src);
+		pool.release(pooledBuffer);
+		pooledBuffer = grown;
+		wrapper.rewrap(buffer, grown);
+	}
+	
+	CharSequenceView getCharSequenceView() {
+		return this.charView;
+	}
+	
+	/**
+	 * Point one of the reusable buffers to a ByteBuffer holding a message at offset. The unchecked 
+	 * buffer is used only if the extent of the message is known to be within the ByteBuffer. 
+	 * 
+	 * The extent of a new message is its minimal size. The extent of a message wrapped eagerly is 
+	 * measured by checked reads of its headers once, so that a corrupt number of rows or length fails 
+	 * the same way as in the safe mode instead of accessing arbitrary memory. The parse walks the 
+	 * same headers anyway. A lazy or projected wrap does not use this method since a measure would 
+	 * walk all groups that the wrap is meant to skip. Its ByteBuffer is read by the checked buffer, 
+	 * which checks the bounds upon each access instead. 
+	 * 
+	 * @param created true if a new message is to be created at offset 
+	 */
+	private IrisBuffer toIrisBuffer(ByteBuffer buffer, int offset, boolean created) {
+		if( ! wrapper.isUncheckedEnabled() ) {
+			return wrapper.wrapChecked(buffer);
+		}
+		int size = created ? getMinimalSize() : measure(wrapper.wrapChecked(buffer), offset);
+		return wrapper.wrap(buffer, offset, size);
+	}
+	
+	/**
+	 * @return the size of the message measured by checked reads or -1 if its headers point beyond the buffer 
+	 * or hold a malformed length
+	 */
+	private int measure(IrisBuffer buffer, int offset) {
+		try {
+			return message.measure(buffer, offset);
+		} catch( IndexOutOfBoundsException | MsgCodecRuntimeException e ) {
+			return -1;
+		}
+	}
+	
+	/**
+	 * @return the size of a newly created message
+	 */
+	private int getMinimalSize() {
+		return messageHeaderSize + message.getBlockSize() + message.getSizeOfGroupAndVariableFieldHeaders();
+	}
+	
 	SBEObjectArray wrapSbeBuffer(ByteBuffer buffer, int offset) {
+		return wrapSbeBuffer(toIrisBuffer(buffer, offset, false), offset, false);
+	}
+	
+	SBEObjectArray wrapSbeBuffer(ByteBuffer buffer, int offset, boolean lazy) {
+		return wrapSbeBuffer(lazy ? wrapper.wrapChecked(buffer) : toIrisBuffer(buffer, offset, false), offset, lazy);
+	}
+	
+	SBEObjectArray wrapSbeBuffer(IrisBuffer buffer, int offset, boolean lazy) {
+		releasePooledBuffer();
+		this.buffer = buffer;
+		this.buffer.order(this.order);
+		this.lazy = lazy;
+		this.projection = null;
+		return parse(offset);
+	}
+	
+	SBEObjectArray wrapSbeBuffer(ByteBuffer buffer, int offset, SBEProjection projection) {
+		return wrapSbeBuffer(wrapper.wrapChecked(buffer), offset, projection);
+	}
+	
+	SBEObjectArray wrapSbeBuffer(IrisBuffer buffer, int offset, SBEProjection projection) {
+		releasePooledBuffer();
 		this.buffer = buffer;
 		this.buffer.order(this.order);
+		this.lazy = false;
+		this.projection = projection;
 		return parse(offset);
 	}
 	
 	SBEObjectArray createSbeBuffer(ByteBuffer buffer, int offset) {
+		return createSbeBuffer(toIrisBuffer(buffer, offset, true), offset);
+	}
+	
+	SBEObjectArray createSbeBuffer(IrisBuffer buffer, int offset) {
+		releasePooledBuffer();
+		return create(buffer, offset);
+	}
+	
+	/**
+	 * Create a message at the beginning of a buffer from a pool. The message moves to a 
+	 * larger buffer of the pool when it grows beyond the buffer. 
+	 */
+	SBEObjectArray createSbeBuffer(BufferPool pool, int capacity) {
+		releasePooledBuffer();
+		this.pool = pool;
+		this.pooledBuffer = pool.acquire(Math.max(capacity, getMinimalSize()));
+		return create(toIrisBuffer(pooledBuffer, 0, true), 0);
+	}
+	
+	private SBEObjectArray create(IrisBuffer buffer, int offset) {
 		this.buffer = buffer;
 		this.buffer.order(order);
+		this.lazy = false;
+		this.projection = null;
 
 		// minimal size of group and raw fields area
 		int nsize = this.message.getSizeOfGroupAndVariableFieldHeaders();
@@ -60,13 +228,35 @@ class SBEParser {
 		// create message header
 		writeMessageHeader(offset);
 		
+		// initialize optional fields to null
+		byte[] nullBlock = this.message.getNullBlock();
+		if( null != nullBlock ) {
+			this.buffer.putBytes(offset+messageHeaderSize, nullBlock, 0, nullBlock.length);
+		}
+		
 		// null out array in its necessary positions
-		int startOffset = this.message.getBlockSize() + offset;
-		SBEObjectArray.fillArray(this.buffer, startOffset, nsize, (byte) 0);
+		int startOffset = this.message.getBlockSize() + offset + messageHeaderSize;
+		this.buffer.setMemory(startOffset, nsize, (byte) 0);
 		
 		return parse(offset);
 	}
 	
+	/**
+	 * Move the parsed message to a copy of the same bytes at another position. All objects 
+	 * of the message are kept and only the offset of the message is changed. The buffer must 
+	 * be the one the objects are parsed with. 
+	 */
+	SBEObjectArray rebase(IrisBuffer buffer, int offset) {
+		releasePooledBuffer();
+		this.buffer = buffer;
+		this.buffer.order(order);
+		
+		SBEObjectArray rowObj = sbeObjFactory.getRoot();
+		rowObj.setBufferAndOffset(buffer, offset);
+		invalidateLayout();
+		return rowObj;
+	}
+	
 	private void writeMessageHeader(int offset) {
 		SBEMessageHeader header = (SBEMessageHeader) this.message.getHeader();
 		SBEMessageSchemaHeader schemaHeader = this.message.getMsgSchemaHeader();
@@ -79,28 +269,44 @@ class SBEParser {
 	
 	private SBEObjectArray parse(int offset) {
 		sbeObjFactory.returnAll();
+		invalidateLayout();
 
 		SBEObjectArray rowObj = sbeObjFactory.get();
 		rowObj.setDefinition(message);
-		rowObj.setBufferAndOffset(buffer,offset);
 		rowObj.setParent(null);
 		rowObj.setParentRow((short) 0);
+		rowObj.setBufferAndOffset(buffer,offset);
 
 		SBEObject rowAttr = rowObj.addObject((short) 0);
-		rowAttr.setOffset(offset);
 		rowAttr.setValueOffset(offset+messageHeaderSize);
 		
-		int blockSize = ((SBEMessageHeader) message.getHeader()).getBlockSize(this.buffer, offset);
+		// the block size and the version are of the current message, which can be encoded in
+		// an earlier version of the schema
+		SBEMessageHeader header = (SBEMessageHeader) message.getHeader();
+		int blockSize = header.getBlockSize(this.buffer, offset);
 		rowAttr.setBlockSize(blockSize);
-		message.setBlockSize(blockSize);
+		actingVersion = header.getVersion(this.buffer, offset);
+		
+		if( lazy ) {
+			// groups and variable length fields are resolved upon their first access
+			rowAttr.setResolved(false);
+			return rowObj;
+		}
 
 		List<Field> fieldList = message.getFields();
 		int numFixedSizeFields = message.getNumFixedSizeFields();
+		boolean[] included = null == projection ? null : projection.getIncludedFields(message);
 		int currentOffset = rowAttr.getValueOffset()+rowAttr.getBlockSize();
 		for( int k = numFixedSizeFields; k < fieldList.size(); k ++ ) {
 			Field subfield = fieldList.get(k);
-			if( FieldType.GROUP == subfield.getType() ) {
-				currentOffset += wrapGroupRead(currentOffset,(SBEGroup) subfield, rowObj, 0);				
+			if( subfield.getSinceVersion() > actingVersion ) {
+				// absent in the acting version of the message
+				continue;
+			}
+			if( null != included && ! included[k-numFixedSizeFields] ) {
+				currentOffset += skipField(currentOffset, subfield);
+			} else if( FieldType.GROUP == subfield.getType() ) {
+				currentOffset += wrapGroupRead(currentOffset,(SBEGroup) subfield, rowObj, 0, false);				
 			} else if( FieldType.RAW == subfield.getType() ) {
 				currentOffset += wrapVarRead(currentOffset, (SBEVarLengthField) subfield, rowObj, 0);
 			}
@@ -112,7 +318,35 @@ class SBEParser {
 		return rowObj;		
 	}
 	
-	private int wrapGroupRead(int offset, SBEGroup field, SBEObjectArray parent, int parentIndex) {			
+	/**
+	 * Materialize the groups and variable length fields of a row that has been left 
+	 * unresolved by a lazy wrap. The rows of a child group are sized by walking their 
+	 * headers only and are resolved in turn upon their first access.
+	 * 
+	 * @param rowAttr an unresolved row
+	 */
+	void resolve(SBEObject rowAttr) {
+		rowAttr.setResolved(true);
+		
+		SBEObjectArray rowObj = rowAttr.getArray();
+		SBEGroup definition = (SBEGroup) rowObj.getDefinition();
+		short rowIndex = rowAttr.getRowIndex();
+		int currentOffset = rowAttr.getValueOffset() + rowAttr.getBlockSize();
+		for( SBEField subfield : definition.getVariableFields() ) {
+			if( subfield.getSinceVersion() > actingVersion ) {
+				// absent in the acting version of the message
+				continue;
+			}
+			if( FieldType.GROUP == subfield.getType() ) {
+				currentOffset += wrapGroupRead(currentOffset,(SBEGroup) subfield, rowObj, rowIndex, true);				
+			} else {
+				currentOffset += wrapVarRead(currentOffset, (SBEVarLengthField) subfield, rowObj, rowIndex);
+			}
+		}
+		rowAttr.setSize(currentOffset - rowAttr.getValueOffset());
+	}
+	
+	private int wrapGroupRead(int offset, SBEGroup field, SBEObjectArray parent, int parentIndex, boolean lazy) {			
 		SBEGroupHeader header = (SBEGroupHeader) field.getHeader();
 		int numRows = header.getNumRows(buffer, offset);
 		int blockSize = header.getBlockSize(buffer, offset);
@@ -120,9 +354,9 @@ class SBEParser {
 
 		SBEObjectArray rowObj = sbeObjFactory.get();
 		rowObj.setDefinition(field);
-		rowObj.setBufferAndOffset(buffer,offset);
 		rowObj.setParent(parent);
 		rowObj.setParentRow((short) parentIndex);
+		rowObj.setBufferAndOffset(buffer,offset);
 		parent.addObject((short) parentIndex).addChildObject(field.getID(), rowObj);
 
 		if( numRows > 0 ) {
@@ -130,21 +364,30 @@ class SBEParser {
 
 			List<Field> fieldList = field.getFields();
 			int numFixedSizeFields = field.getNumFixedSizeFields();
+			boolean[] included = null == projection ? null : projection.getIncludedFields(field);
 
 			for( short i = 0; i < numRows; i ++ ) {	
 				int startOffset = currentOffset;
 				SBEObject rowAttr = rowObj.addObject(i);
-				rowAttr.setOffset(offset);
 				rowAttr.setValueOffset(startOffset);
 				rowAttr.setBlockSize(blockSize);
 				
 				currentOffset += blockSize;
-				for( int k = numFixedSizeFields; k < fieldList.size(); k ++ ) {
-					Field subfield = fieldList.get(k);
-					if( FieldType.GROUP == subfield.getType() ) {
-						currentOffset += wrapGroupRead(currentOffset,(SBEGroup) subfield, rowObj, i);				
-					} else if( FieldType.RAW == subfield.getType() ) {
-						currentOffset += wrapVarRead(currentOffset, (SBEVarLengthField) subfield, rowObj, i);
+				if( lazy ) {
+					rowAttr.setResolved(false);
+					currentOffset += skipVariableFields(buffer, currentOffset, field, actingVersion);
+				} else {
+					for( int k = numFixedSizeFields; k < fieldList.size(); k ++ ) {
+						Field subfield = fieldList.get(k);
+						if( subfield.getSinceVersion() > actingVersion ) {
+							continue;
+						} else if( null != included && ! included[k-numFixedSizeFields] ) {
+							currentOffset += skipField(currentOffset, subfield);
+						} else if( FieldType.GROUP == subfield.getType() ) {
+							currentOffset += wrapGroupRead(currentOffset,(SBEGroup) subfield, rowObj, i, false);				
+						} else if( FieldType.RAW == subfield.getType() ) {
+							currentOffset += wrapVarRead(currentOffset, (SBEVarLengthField) subfield, rowObj, i);
+						}
 					}
 				}
 
@@ -160,11 +403,10 @@ class SBEParser {
 		int blockSize = header.getBlockSize(buffer, offset);
 		SBEObjectArray sbeObj = sbeObjFactory.get();
 		sbeObj.setDefinition(field);
-		sbeObj.setBufferAndOffset(buffer,offset);
 		sbeObj.setParent(parent);
 		sbeObj.setParentRow((short) parentIndex);
+		sbeObj.setBufferAndOffset(buffer,offset);
 		SBEObject attr = sbeObj.addObject((short) 0);
-		attr.setOffset(offset);
 		attr.setValueOffset(offset+header.getSize());
 		attr.setSize(blockSize);
 		attr.setBlockSize(blockSize);
@@ -173,28 +415,113 @@ class SBEParser {
 		return attr.getSize()+header.getSize();
 	}	
 
+	/**
+	 * Skip a group or a variable length field outside of the projection.
+	 * 
+	 * @return the number of bytes occupied by the field including its header
+	 */
+	private int skipField(int offset, Field field) {
+		if( FieldType.GROUP == field.getType() ) {
+			return skipGroup(buffer, offset, (SBEGroup) field, actingVersion);
+		} else {
+			SBEVarLengthFieldHeader header = (SBEVarLengthFieldHeader) field.getHeader();
+			return header.getSize() + header.getBlockSize(buffer, offset);
+		}
+	}
+	
+	/**
+	 * Walk the headers of the groups and variable length fields that follow the root block 
+	 * of a row without creating any SBEObject.
+	 * 
+	 * @param buffer the buffer containing the message
+	 * @param offset the starting position of the first group or variable length field of the row
+	 * @param definition the definition of the row
+	 * @param actingVersion the schema version the message is encoded in
+	 * @return the number of bytes occupied by all groups and variable length fields of the row
+	 * @throws MsgCodecRuntimeException if a header holds a negative length or the lengths overflow an int
+	 */
+	static int skipVariableFields(IrisBuffer buffer, int offset, SBEGroup definition, int actingVersion) {
+		int currentOffset = offset;
+		for( SBEField subfield : definition.getVariableFields() ) {
+			if( subfield.getSinceVersion() > actingVersion ) {
+				continue;
+			} else if( FieldType.GROUP == subfield.getType() ) {
+				currentOffset += skipGroup(buffer, currentOffset, (SBEGroup) subfield, actingVersion);
+			} else {
+				SBEVarLengthFieldHeader header = (SBEVarLengthFieldHeader) subfield.getHeader();
+				currentOffset = advance(currentOffset, header.getSize(), header.getBlockSize(buffer, currentOffset), subfield);
+			}
+		}
+		return currentOffset - offset;
+	}
+	
+	/**
+	 * Walk the headers of a group and all its rows without creating any SBEObject.
+	 * 
+	 * @param buffer the buffer containing the message
+	 * @param offset the starting position of the group header
+	 * @param field the group definition
+	 * @param actingVersion the schema version the message is encoded in
+	 * @return the number of bytes occupied by the group including its header
+	 * @throws MsgCodecRuntimeException if a header holds a negative length or the lengths overflow an int
+	 */
+	static int skipGroup(IrisBuffer buffer, int offset, SBEGroup field, int actingVersion) {
+		SBEGroupHeader header = (SBEGroupHeader) field.getHeader();
+		int numRows = header.getNumRows(buffer, offset);
+		int blockSize = header.getBlockSize(buffer, offset);
+		if( numRows < 0 ) {
+			throw new MsgCodecRuntimeException("malformed number of rows, "+numRows+", of group, "+field.getName()+", at position, "+offset);
+		} else if( field.getVariableFields().length == 0 ) {
+			return advance(offset, header.getSize(), (long) numRows*blockSize, field) - offset;
+		}
+		
+		int currentOffset = advance(offset, header.getSize(), 0, field);
+		for( int i = 0; i < numRows; i ++ ) {
+			currentOffset = advance(currentOffset, 0, blockSize, field);
+			currentOffset += skipVariableFields(buffer, currentOffset, field, actingVersion);
+		}
+		return currentOffset - offset;
+	}
+	
+	/**
+	 * Advance a position over a header and a length read from the header. A corrupt header is 
+	 * reported rather than being taken as a read beyond the buffer, which would be 
+	 * indistinguishable from an incomplete message.
+	 * 
+	 * @return the position after the header and the length
+	 * @throws MsgCodecRuntimeException if the length is negative or the position overflows an int
+	 */
+	private static int advance(int offset, int headerSize, long length, SBEField field) {
+		long next = offset + headerSize + length;
+		if( length < 0 || next > Integer.MAX_VALUE ) {
+			throw new MsgCodecRuntimeException("malformed length, "+length+", of field, "+field.getName()+", at position, "+offset);
+		}
+		return (int) next;
+	}
+
 	void wrapGroupObject(SBEObject rowAttr, SBEGroup field, SBEObjectArray parent, int parentIndex) {	
-		int currentOffset = field.getBlockSize() + rowAttr.getValueOffset();
+		int currentOffset = rowAttr.getBlockSize() + rowAttr.getValueOffset();
 		List<Field> fieldList = field.getFields();
 		for( int k = field.getNumFixedSizeFields(); k < fieldList.size(); k ++ ) {
 			Field subfield = fieldList.get(k);
-			if( FieldType.GROUP == subfield.getType() ) {
+			if( subfield.getSinceVersion() > actingVersion ) {
+				continue;
+			} else if( FieldType.GROUP == subfield.getType() ) {
 				SBEObjectArray rowObj = sbeObjFactory.get();
 				rowObj.setDefinition(subfield);
-				rowObj.setBufferAndOffset(buffer,currentOffset);
 				rowObj.setParent(parent);
 				rowObj.setParentRow((short) parentIndex);
+				rowObj.setBufferAndOffset(buffer,currentOffset);
 				rowAttr.addChildObject(subfield.getID(), rowObj);
 
 				currentOffset += ((SBEGroup) subfield).getHeader().getSize();				
 			} else if( FieldType.RAW == subfield.getType() ) {
 				SBEObjectArray sbeObj = sbeObjFactory.get();
 				sbeObj.setDefinition(subfield);
-				sbeObj.setBufferAndOffset(buffer,currentOffset);
 				sbeObj.setParent(parent);
 				sbeObj.setParentRow((short) parentIndex);
+				sbeObj.setBufferAndOffset(buffer,currentOffset);
 				SBEObject attr = sbeObj.addObject((short) 0);
-				attr.setOffset(currentOffset);
 				attr.setValueOffset(currentOffset+subfield.getHeader().getSize());
 				attr.setSize(0);
 				attr.setBlockSize(0);
@@ -0,0 +1,388 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.message.sbe;
+
+import com.github.bwsoft.iris.buffer.IrisBuffer;
+import com.github.bwsoft.iris.message.Field;
+import com.github.bwsoft.iris.message.FieldType;
+
+/**
+ * An accessor specialized for the type and the offset of a field. It is compiled once
+ * per field when a schema is loaded so that the type and the offset of a field are not 
+ * resolved again upon each get/set of a number.
+ *
+ * The accessors serve the internal paths that apply one field to many rows, e.g. the 
+ * columnar get/set of a group, the decimal and timestamp composites and field mappings. 
+ * {@link SBEObject#getNumber(Field)} switches on the field type instead, since a single 
+ * call site there sees the fields of all types. A {@link SBEFieldAccessor} is specialized 
+ * per type so that the call site of an application sees a single class.
+ *
+ * All methods take the value offset of the row that contains the field. The relative
+ * offset of the field is folded into the accessor.
+ *
+ * @author yzhou
+ *
+ */
+abstract class SBEPrimitiveAccessor {
+	protected final int offset;
+
+	SBEPrimitiveAccessor(int offset) {
+		this.offset = offset;
+	}
+
+	/**
+	 * Create an accessor for a field.
+	 *
+	 * @param field the field definition
+	 * @return an accessor specialized for the type and the offset of the field
+	 */
+	static SBEPrimitiveAccessor compile(SBEField field) {
+		return compile(field.getType(), field.getRelativeOffset());
+	}
+
+	/**
+	 * Create an accessor for a type at an offset.
+	 *
+	 * @param type the field type
+	 * @param offset the offset relative to the value offset of a row
+	 * @return an accessor specialized for the type and the offset
+	 */
+	static SBEPrimitiveAccessor compile(FieldType type, int offset) {
+		switch( type ) {
+		case BYTE:
+		case U8:
+			return new U8Accessor(offset);
+		case I8:
+			return new I8Accessor(offset);
+		case I16:
+			return new I16Accessor(offset);
+		case U16:
+			return new U16Accessor(offset);
+		case I32:
+			return new I32Accessor(offset);
+		case U32:
+			return new U32Accessor(offset);
+		case I64:
+		case U64:
+			return new I64Accessor(offset);
+		case FLOAT:
+			return new FloatAccessor(offset);
+		case DOUBLE:
+			return new DoubleAccessor(offset);
+		default:
+			return new NotANumberAccessor(offset, type);
+		}
+	}
+
+	/**
+	 * Compile accessors for all fields of a group and its nested groups.
+	 *
+	 * @param group the group definition
+	 */
+	static void compileAll(SBEGroup group) {
+		for( Field field : group.getFields() ) {
+			SBEField sfield = (SBEField) field;
+			sfield.getAccessor();
+			if( FieldType.COMPOSITE == field.getType() ) {
+				for( Field child : ((SBECompositeField) field).getFields() ) {
+					((SBEField) child).getAccessor();
+				}
+			} else if( FieldType.GROUP == field.getType() ) {
+				compileAll((SBEGroup) field);
+			}
+		}
+	}
+
+	/**
+	 * @return the value widened to a long. A floating point value is truncated.
+	 */
+	abstract long getLong(IrisBuffer buffer, int valueOffset);
+
+	/**
+	 * Set the value from a long. The value is narrowed to the field type.
+	 */
+	abstract void putLong(IrisBuffer buffer, int valueOffset, long value);
+
+	abstract double getDouble(IrisBuffer buffer, int valueOffset);
+
+	abstract void putDouble(IrisBuffer buffer, int valueOffset, double value);
+
+	static final class U8Accessor extends SBEPrimitiveAccessor {
+		U8Accessor(int offset) {
+			super(offset);
+		}
+
+		@Override
+		long getLong(IrisBuffer buffer, int valueOffset) {
+			return 0xff & buffer.get(valueOffset+offset);
+		}
+
+		@Override
+		void putLong(IrisBuffer buffer, int valueOffset, long value) {
+			buffer.put(valueOffset+offset, (byte) value);
+		}
+
+		@Override
+		double getDouble(IrisBuffer buffer, int valueOffset) {
+			return 0xff & buffer.get(valueOffset+offset);
+		}
+
+		@Override
+		void putDouble(IrisBuffer buffer, int valueOffset, double value) {
+			buffer.put(valueOffset+offset, (byte) value);
+		}
+	}
+
+	static final class I8Accessor extends SBEPrimitiveAccessor {
+		I8Accessor(int offset) {
+			super(offset);
+		}
+
+		@Override
+		long getLong(IrisBuffer buffer, int valueOffset) {
+			return buffer.get(valueOffset+offset);
+		}
+
+		@Override
+		void putLong(IrisBuffer buffer, int valueOffset, long value) {
+			buffer.put(valueOffset+offset, (byte) value);
+		}
+
+		@Override
+		double getDouble(IrisBuffer buffer, int valueOffset) {
+			return buffer.get(valueOffset+offset);
+		}
+
+		@Override
+		void putDouble(IrisBuffer buffer, int valueOffset, double value) {
+			buffer.put(valueOffset+offset, (byte) value);
+		}
+	}
+
+	static final class I16Accessor extends SBEPrimitiveAccessor {
+		I16Accessor(int offset) {
+			super(offset);
+		}
+
+		@Override
+		long getLong(IrisBuffer buffer, int valueOffset) {
+			return buffer.getShort(valueOffset+offset);
+		}
+
+		@Override
+		void putLong(IrisBuffer buffer, int valueOffset, long value) {
+			buffer.putShort(valueOffset+offset, (short) value);
+		}
+
+		@Override
+		double getDouble(IrisBuffer buffer, int valueOffset) {
+			return buffer.getShort(valueOffset+offset);
+		}
+
+		@Override
+		void putDouble(IrisBuffer buffer, int valueOffset, double value) {
+			buffer.putShort(valueOffset+offset, (short) value);
+		}
+	}
+
+	static final class U16Accessor extends SBEPrimitiveAccessor {
+		U16Accessor(int offset) {
+			super(offset);
+		}
+
+		@Override
+		long getLong(IrisBuffer buffer, int valueOffset) {
+			return 0xffff & buffer.getShort(valueOffset+offset);
+		}
+
+		@Override
+		void putLong(IrisBuffer buffer, int valueOffset, long value) {
+			buffer.putShort(valueOffset+offset, (short) value);
+		}
+
+		@Override
+		double getDouble(IrisBuffer buffer, int valueOffset) {
+			return 0xffff & buffer.getShort(valueOffset+offset);
+		}
+
+		@Override
+		void putDouble(IrisBuffer buffer, int valueOffset, double value) {
+			buffer.putShort(valueOffset+offset, (short) (int) value);
+		}
+	}
+
+	static final class I32Accessor extends SBEPrimitiveAccessor {
+		I32Accessor(int offset) {
+			super(offset);
+		}
+
+		@Override
+		long getLong(IrisBuffer buffer, int valueOffset) {
+			return buffer.getInt(valueOffset+offset);
+		}
+
+		@Override
+		void putLong(IrisBuffer buffer, int valueOffset, long value) {
+			buffer.putInt(valueOffset+offset, (int) value);
+		}
+
+		@Override
+		double getDouble(IrisBuffer buffer, int valueOffset) {
+			return buffer.getInt(valueOffset+offset);
+		}
+
+		@Override
+		void putDouble(IrisBuffer buffer, int valueOffset, double value) {
+			buffer.putInt(valueOffset+offset, (int) value);
+		}
+	}
+
+	static final class U32Accessor extends SBEPrimitiveAccessor {
+		U32Accessor(int offset) {
+			super(offset);
+		}
+
+		@Override
+		long getLong(IrisBuffer buffer, int valueOffset) {
+			return 0xffffffffL & buffer.getInt(valueOffset+offset);
+		}
+
+		@Override
+		void putLong(IrisBuffer buffer, int valueOffset, long value) {
+			buffer.putInt(valueOffset+offset, (int) value);
+		}
+
+		@Override
+		double getDouble(IrisBuffer buffer, int valueOffset) {
+			return 0xffffffffL & buffer.getInt(valueOffset+offset);
+		}
+
+		@Override
+		void putDouble(IrisBuffer buffer, int valueOffset, double value) {
+			buffer.putInt(valueOffset+offset, (int) (long) value);
+		}
+	}
+
+	static final class I64Accessor extends SBEPrimitiveAccessor {
+		I64Accessor(int offset) {
+			super(offset);
+		}
+
+		@Override
+		long getLong(IrisBuffer buffer, int valueOffset) {
+			return buffer.getLong(valueOffset+offset);
+		}
+
+		@Override
+		void putLong(IrisBuffer buffer, int valueOffset, long value) {
+			buffer.putLong(valueOffset+offset, value);
+		}
+
+		@Override
+		double getDouble(IrisBuffer buffer, int valueOffset) {
+			return buffer.getLong(valueOffset+offset);
+		}
+
+		@Override
+		void putDouble(IrisBuffer buffer, int valueOffset, double value) {
+			buffer.putLong(valueOffset+offset, (long) value);
+		}
+	}
+
+	static final class FloatAccessor extends SBEPrimitiveAccessor {
+		FloatAccessor(int offset) {
+			super(offset);
+		}
+
+		@Override
+		long getLong(IrisBuffer buffer, int valueOffset) {
+			return (long) buffer.getFloat(valueOffset+offset);
+		}
+
+		@Override
+		void putLong(IrisBuffer buffer, int valueOffset, long value) {
+			buffer.putFloat(valueOffset+offset, value);
+		}
+
+		@Override
+		double getDouble(IrisBuffer buffer, int valueOffset) {
+			return buffer.getFloat(valueOffset+offset);
+		}
+
+		@Override
+		void putDouble(IrisBuffer buffer, int valueOffset, double value) {
+			buffer.putFloat(valueOffset+offset, (float) value);
+		}
+	}
+
+	static final class DoubleAccessor extends SBEPrimitiveAccessor {
+		DoubleAccessor(int offset) {
+			super(offset);
+		}
+
+		@Override
+		long getLong(IrisBuffer buffer, int valueOffset) {
+			return (long) buffer.getDouble(valueOffset+offset);
+		}
+
+		@Override
+		void putLong(IrisBuffer buffer, int valueOffset, long value) {
+			buffer.putDouble(valueOffset+offset, value);
+		}
+
+		@Override
+		double getDouble(IrisBuffer buffer, int valueOffset) {
+			return buffer.getDouble(valueOffset+offset);
+		}
+
+		@Override
+		void putDouble(IrisBuffer buffer, int valueOffset, double value) {
+			buffer.putDouble(valueOffset+offset, value);
+		}
+	}
+
+	/**
+	 * The accessor of a field that cannot be converted to a number, e.g. CHAR, CONSTANT, GROUP.
+	 */
+	static final class NotANumberAccessor extends SBEPrimitiveAccessor {
+		private final FieldType type;
+
+		NotANumberAccessor(int offset, FieldType type) {
+			super(offset);
+			this.type = type;
+		}
+
+		@Override
+		long getLong(IrisBuffer buffer, int valueOffset) {
+			throw new IllegalArgumentException("type, "+type.name()+", cannot be converted to a number");
+		}
+
+		@Override
+		void putLong(IrisBuffer buffer, int valueOffset, long value) {
+			throw new IllegalArgumentException("type, "+type.name()+", cannot be converted to a number");
+		}
+
+		@Override
+		double getDouble(IrisBuffer buffer, int valueOffset) {
+			throw new IllegalArgumentException("type, "+type.name()+", cannot be converted to a number");
+		}
+
+		@Override
+		void putDouble(IrisBuffer buffer, int valueOffset, double value) {
+			throw new IllegalArgumentException("type, "+type.name()+", cannot be converted to a number");
+		}
+	}
+}
@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.message.sbe;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import com.github.bwsoft.iris.message.Field;
+import com.github.bwsoft.iris.message.FieldType;
+import com.github.bwsoft.iris.message.Message;
+import com.github.bwsoft.iris.message.Projection;
+
+/**
+ * A projection compiled into the set of the groups and variable length fields to be parsed. 
+ * A declared group brings in all of its nested groups and variable length fields. A declared
+ * nested field brings in the groups that contain it. 
+ * 
+ * The projection is also compiled into a flag per group or variable length field of each 
+ * included group, indexed in the order of {@link SBEGroup#getVariableFields()}, so that the 
+ * parser checks a field by an array index instead of a set lookup. 
+ * 
+ * @author yzhou
+ *
+ */
+final class SBEProjection implements Projection {
+	private final SBEMessage message;
+	private final Set<Field> fields = Collections.newSetFromMap(new IdentityHashMap<Field, Boolean>());
+	private final IdentityHashMap<SBEGroup, boolean[]> includedFields = new IdentityHashMap<>();
+	
+	/**
+	 * @param message the message definition
+	 * @param paths the dotted name paths of the groups or variable length fields, e.g. "performanceFigures.acceleration"
+	 */
+	SBEProjection(SBEMessage message, String... paths) {
+		this.message = message;
+		for( String path : paths ) {
+			SBEGroup container = message;
+			Field field = null;
+			String[] names = path.split("\\.");
+			for( int i = 0; i < names.length; i ++ ) {
+				field = container.getField(names[i]);
+				if( null == field ) {
+					throw new IllegalArgumentException("field, "+names[i]+", is not defined in group, "+container.getName());
+				}
+				if( FieldType.GROUP == field.getType() ) {
+					fields.add(field);
+					container = (SBEGroup) field;
+				} else if( FieldType.RAW == field.getType() && i == names.length-1 ) {
+					fields.add(field);
+				} else {
+					throw new IllegalArgumentException("field, "+path+", is not a group or a variable length field");
+				}
+			}
+			if( FieldType.GROUP == field.getType() ) {
+				addAll((SBEGroup) field);
+			}
+		}
+		compile(message);
+	}
+	
+	private void addAll(SBEGroup group) {
+		for( SBEField field : group.getVariableFields() ) {
+			fields.add(field);
+			if( FieldType.GROUP == field.getType() ) {
+				addAll((SBEGroup) field);
+			}
+		}
+	}
+
+	private void compile(SBEGroup group) {
+		SBEField[] varFields = group.getVariableFields();
+		boolean[] included = new boolean[varFields.length];
+		for( int i = 0; i < varFields.length; i ++ ) {
+			included[i] = fields.contains(varFields[i]);
+			if( included[i] && FieldType.GROUP == varFields[i].getType() ) {
+				compile((SBEGroup) varFields[i]);
+			}
+		}
+		includedFields.put(group, included);
+	}
+	
+	/**
+	 * @param group the message or an included group
+	 * @return the flags of the groups and variable length fields of the group in the order of 
+	 * {@link SBEGroup#getVariableFields()}, true if the field is included
+	 */
+	boolean[] getIncludedFields(SBEGroup group) {
+		return includedFields.get(group);
+	}
+
+	@Override
+	public Message getMessage() {
+		return message;
+	}
+
+	@Override
+	public boolean includes(Field field) {
+		return fields.contains(field);
+	}
+}
@@ -184,13 +184,18 @@ class SBESchemaFieldTypes {
 
 		sbeEnums.put(type.getName(), sbeEnum);
 		List<Serializable> enumContents = type.getContent();
+		List<String> validValues = new ArrayList<>();
+		List<String> validNames = new ArrayList<>();
 		for( int j = 0; j < enumContents.size(); j ++ ) {
 			if( enumContents.get(j) instanceof JAXBElement ) {
 				@SuppressWarnings("unchecked")
 				ValidValue validValue = ((JAXBElement<ValidValue>)enumContents.get(j)).getValue();
 				sbeEnum.enumLookup.put(validValue.getValue(), validValue.getName());
+				validValues.add(validValue.getValue());
+				validNames.add(validValue.getName());
 			}
 		}		
+		sbeEnum.enumTable = new SBEEnumTable(sbeEnum.primitiveType, validValues, validNames);
 		return sbeEnum;
 	}
 	
@@ -297,6 +302,7 @@ class SBESchemaFieldTypes {
 		private String name;
 		private FieldType primitiveType;
 		HashMap<String, String> enumLookup = new HashMap<String, String>();
+		SBEEnumTable enumTable;
 		
 		String getName() {
 			return name;
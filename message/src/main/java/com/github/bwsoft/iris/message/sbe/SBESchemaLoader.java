@@ -26,6 +26,7 @@ import java.util.Properties;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.Unmarshaller;
 
+import com.github.bwsoft.iris.message.Field;
 import com.github.bwsoft.iris.message.FieldType;
 import com.github.bwsoft.iris.message.Group;
 import com.github.bwsoft.iris.message.MsgCodecRuntimeException;
@@ -156,6 +157,9 @@ public class SBESchemaLoader {
 							" bytes for message, "+sbeMsg.getName());
 				}
 			}
+			
+			// specialize the field access of this message
+			SBEPrimitiveAccessor.compileAll(sbeMsg);
 		}
 		
 		return new SBEMessageSchema(schemaCache.schemaHeader, schemaCache.msgHeader, schemaCache.lookupTable);
@@ -165,11 +169,17 @@ public class SBESchemaLoader {
 		Long offset = fieldType.getOffset();
 		if( null != FieldType.getType(fieldType.getType()) ) {
 			// field of primitive type
-			group.addField((short)fieldType.getId(), FieldType.getType(fieldType.getType()), offset, (short)1).setName(fieldType.getName());
+			SBEField field = (SBEField) group.addField((short)fieldType.getId(), FieldType.getType(fieldType.getType()), offset, (short)1).setName(fieldType.getName());
+			if( isOptional(fieldType.getPresence()) ) {
+				field.setOptional(null);
+			}
+			field.setTimestamp(SBETimestamp.compile(field, fieldType.getSemanticType(), fieldType.getEpoch(), fieldType.getTimeUnit()));
 		} else if( types.getEncodedDataTypes().containsKey(fieldType.getType())) {
 			// a simple type
 			EncodedDataType dataType = types.getEncodedDataTypes().get(fieldType.getType());
-			addEncodedDataTypeField(group, fieldType, dataType, offset);
+			SBEField field = addEncodedDataTypeField(group, fieldType, dataType, offset);
+			String semanticType = null != fieldType.getSemanticType() ? fieldType.getSemanticType() : dataType.getSemanticType();
+			field.setTimestamp(SBETimestamp.compile(field, semanticType, fieldType.getEpoch(), fieldType.getTimeUnit()));
 		} else if( types.getEnumTypes().containsKey(fieldType.getType())) {
 			// an enum type
 			SBESchemaFieldTypes.SBEEnumType sbeEnum = types.getEnumTypes().get(fieldType.getType());
@@ -183,9 +193,27 @@ public class SBESchemaLoader {
 			SBECompositeField compositeField = (SBECompositeField) group.addField((short)fieldType.getId(),FieldType.COMPOSITE, offset, (short) 1).setName(fieldType.getName());
 			List<SBECompositeTypeElement> eTypes = types.getCompositeDataTypes().get(fieldType.getType());
 			addFieldToCompositeType(compositeField, null, eTypes, (long) 0);
+			compositeField.compileDecimal();
+			compositeField.setTimestamp(SBETimestamp.compile(compositeField, fieldType.getSemanticType(), fieldType.getEpoch(), fieldType.getTimeUnit()));
 		} else {
 			throw new InternalError("undefined type: "+fieldType.getType());				
 		}
+		setSinceVersion(group.getField((short) fieldType.getId()), fieldType.getSinceVersion().intValue());
+	}
+	
+	/**
+	 * Record the version a field is added in. The elements of a composite field are added 
+	 * in the same version. 
+	 */
+	private static void setSinceVersion(Field field, int sinceVersion) {
+		if( sinceVersion > 0 && null != field ) {
+			((SBEField) field).setSinceVersion(sinceVersion);
+			if( FieldType.COMPOSITE == field.getType() ) {
+				for( Field element : ((Group) field).getFields() ) {
+					setSinceVersion(element, sinceVersion);
+				}
+			}
+		}
 	}
 
 	private Group processGroupTypeNode(Group group, BlockType groupType) {
@@ -198,6 +226,7 @@ public class SBESchemaLoader {
 			String dimensionType = ((GroupType) groupType).getDimensionType();
 			SBEGroupHeader grpHeader = SBEGroupHeader.getGroupHeader(types, dimensionType);
 			childGroup = (SBEGroup) group.addField((short)groupType.getId(),grpHeader, FieldType.GROUP, null, (short) 1).setName(groupType.getName());
+			childGroup.setSinceVersion(groupType.getSinceVersion().intValue());
 		}
 		
 		List<com.github.bwsoft.iris.message.sbe.fixsbe.FieldType> fieldList = groupType.getField();
@@ -219,7 +248,15 @@ public class SBESchemaLoader {
 	
 	private void processVarFieldTypeNode(Group group, com.github.bwsoft.iris.message.sbe.fixsbe.FieldType fieldType) {
 		SBEVarLengthFieldHeader header = SBEVarLengthFieldHeader.getDefaultVarLengthFieldHeader(types, fieldType.getType());
-		group.addField((short)fieldType.getId(), header, FieldType.RAW, null, (short) 1).setName(fieldType.getName());		
+		Field field = group.addField((short)fieldType.getId(), header, FieldType.RAW, null, (short) 1).setName(fieldType.getName());
+		setSinceVersion(field, fieldType.getSinceVersion().intValue());
+		
+		// the encoding of the data is defined by the varData element of the composite
+		for( SBECompositeTypeElement element : types.getCompositeDataTypes().get(fieldType.getType()) ) {
+			if( element.getType() instanceof EncodedDataType && null != ((EncodedDataType) element.getType()).getCharacterEncoding() ) {
+				((SBEField) field).setCharacterEncoding(((EncodedDataType) element.getType()).getCharacterEncoding());
+			}
+		}
 	}
 	
 	private static SBEField addEncodedDataTypeField(Group group, com.github.bwsoft.iris.message.sbe.fixsbe.FieldType fieldType, EncodedDataType dataType, Long offset) {
@@ -229,10 +266,18 @@ public class SBESchemaLoader {
 			if( primitiveType == null ) {
 				throw new IllegalArgumentException("unrecognized primitive type: "+dataType.getPrimitiveType());
 			}
+			SBEField field;
 			if( null != fieldType )
-				return (SBEField) group.addField((short)fieldType.getId(),primitiveType, offset, dataType.getLength().shortValue()).setName(fieldType.getName());
+				field = (SBEField) group.addField((short)fieldType.getId(),primitiveType, offset, dataType.getLength().shortValue()).setName(fieldType.getName());
 			else
-				return (SBEField) group.addField((short)0, primitiveType, offset, dataType.getLength().shortValue()).setName(dataType.getName());
+				field = (SBEField) group.addField((short)0, primitiveType, offset, dataType.getLength().shortValue()).setName(dataType.getName());
+			if( isOptional(dataType.getPresence()) || ( null != fieldType && isOptional(fieldType.getPresence()) ) ) {
+				field.setOptional(dataType.getNullValue());
+			}
+			if( null != dataType.getCharacterEncoding() ) {
+				field.setCharacterEncoding(dataType.getCharacterEncoding());
+			}
+			return field;
 		} else {
 			// handle constant simple field
 			short id = null == fieldType ? (short) 0 : (short) fieldType.getId();
@@ -243,12 +288,19 @@ public class SBESchemaLoader {
 		}		
 	}
 
+	private static boolean isOptional(String presence) {
+		return null != presence && "optional".equals(presence.toLowerCase());
+	}
+
 	private static SBEField addEnumTypeField(Group group, com.github.bwsoft.iris.message.sbe.fixsbe.FieldType fieldType, SBESchemaFieldTypes.SBEEnumType sbeEnum, Long offset) {
 		short id = null == fieldType ? (short) 0 : (short) fieldType.getId();
 		String name = null == fieldType ? sbeEnum.getName() : fieldType.getName();
 		if( null == fieldType || null == fieldType.getPresence() || ! "constant".equals(fieldType.getPresence().toLowerCase()) ) {
 			SBEField enumField = (SBEField) group.addField(id, sbeEnum.getPrimitiveType(), offset, (short) 1).setName(name);
-			enumField.setEnumLookupTable(sbeEnum.enumLookup);
+			enumField.setEnumLookupTable(sbeEnum.enumLookup, sbeEnum.enumTable);
+			if( null != fieldType && isOptional(fieldType.getPresence()) ) {
+				enumField.setOptional(null);
+			}
 			return enumField;
 		} else {
 			// handle constant field 
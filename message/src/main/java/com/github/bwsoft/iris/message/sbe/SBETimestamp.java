@@ -0,0 +1,189 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.message.sbe;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+import com.github.bwsoft.iris.buffer.IrisBuffer;
+import com.github.bwsoft.iris.message.FieldType;
+import com.github.bwsoft.iris.message.Group;
+import com.github.bwsoft.iris.message.MsgCodecRuntimeException;
+
+/**
+ * The conversion between a timestamp field and nanoseconds since the unix epoch. A timestamp 
+ * is either an integer field with the time unit and the epoch of the field in the schema or 
+ * a composite of an integer "time" and a constant or an integer "unit", which is the number of 
+ * decimal places of a second, e.g. 3 for millisecond. 
+ * 
+ * The nanoseconds of a time unit and the epoch are folded into constants when the schema is loaded.
+ * 
+ * @author yzhou
+ *
+ */
+final class SBETimestamp implements Serializable {
+	private static final long serialVersionUID = 7723140954358726615L;
+
+	private static final long NANOS_PER_DAY = 86400L * 1000000000L;
+	
+	// nanoseconds of a unit indexed by the number of decimal places of a second
+	private static final long[] NANOS_OF_UNIT = {
+			1000000000L, 100000000L, 10000000L, 1000000L, 100000L, 10000L, 1000L, 100L, 10L, 1L
+	};
+	
+	private final SBEField time;
+	private final SBEField unit;
+	private final long unitNanos;
+	private final long epochNanos;
+	
+	private SBETimestamp(SBEField time, SBEField unit, long unitNanos, long epochNanos) {
+		this.time = time;
+		this.unit = unit;
+		this.unitNanos = unitNanos;
+		this.epochNanos = epochNanos;
+	}
+	
+	/**
+	 * Recognize a timestamp field. 
+	 * 
+	 * @param field an integer field or a composite field
+	 * @param semanticType the semantic type of the field in the schema or null
+	 * @param epoch the epoch of the field in the schema, which is "unix" or a date of yyyy-mm-dd
+	 * @param timeUnit the time unit of the field in the schema
+	 * @return the timestamp or null if the field is not a timestamp
+	 */
+	static SBETimestamp compile(SBEField field, String semanticType, String epoch, String timeUnit) {
+		if( FieldType.COMPOSITE == field.getType() ) {
+			SBEField time = (SBEField) ((Group) field).getField("time");
+			SBEField unit = (SBEField) ((Group) field).getField("unit");
+			if( null == time || null == unit || ! isInteger(time) ) {
+				return null;
+			}
+			if( FieldType.CONSTANT == unit.getType() && null != unit.getConstantValue() ) {
+				return new SBETimestamp(time, null, getNanosOfUnit(parseUnit(unit.getConstantValue())), parseEpoch(epoch));
+			} else if( isInteger(unit) ) {
+				return new SBETimestamp(time, unit, 0, parseEpoch(epoch));
+			}
+		} else if( isInteger(field) && null != semanticType && semanticType.endsWith("Timestamp") ) {
+			return new SBETimestamp(field, null, getNanosOfUnit(parseUnit(timeUnit)), parseEpoch(epoch));
+		}
+		return null;
+	}
+	
+	private static boolean isInteger(SBEField field) {
+		if( field.length() != 1 ) {
+			return false;
+		}
+		switch( field.getType() ) {
+		case U8:
+		case U16:
+		case U32:
+		case U64:
+		case I8:
+		case I16:
+		case I32:
+		case I64:
+			return true;
+		default:
+			return false;
+		}
+	}
+	
+	/**
+	 * @return the number of decimal places of a second of a time unit by its name or its number
+	 */
+	private static int parseUnit(String unit) {
+		switch( unit.trim().toLowerCase() ) {
+		case "second":
+			return 0;
+		case "millisecond":
+			return 3;
+		case "microsecond":
+			return 6;
+		case "nanosecond":
+			return 9;
+		default:
+			try {
+				return Integer.parseInt(unit.trim());
+			} catch( NumberFormatException e ) {
+				throw new MsgCodecRuntimeException("unrecognized time unit: "+unit);
+			}
+		}
+	}
+	
+	private static long getNanosOfUnit(long unit) {
+		if( unit < 0 || unit >= NANOS_OF_UNIT.length ) {
+			throw new IllegalArgumentException("unsupported time unit: "+unit);
+		}
+		return NANOS_OF_UNIT[(int) unit];
+	}
+	
+	private static long parseEpoch(String epoch) {
+		if( null == epoch || "unix".equalsIgnoreCase(epoch.trim()) ) {
+			return 0;
+		}
+		try {
+			return LocalDate.parse(epoch.trim()).toEpochDay() * NANOS_PER_DAY;
+		} catch( DateTimeParseException e ) {
+			throw new MsgCodecRuntimeException("unrecognized epoch: "+epoch);
+		}
+	}
+	
+	/**
+	 * @param buffer the buffer of the row
+	 * @param valueOffset the value offset of the row
+	 * @return the nanoseconds since the unix epoch or Long.MIN_VALUE if an optional time holds its null value
+	 * @throws ArithmeticException if the nanoseconds overflow a long
+	 */
+	long getEpochNanos(IrisBuffer buffer, int valueOffset) {
+		long value = time.getAccessor().getLong(buffer, valueOffset);
+		if( time.isOptional() && value == time.getNullValue() ) {
+			return Long.MIN_VALUE;
+		} else if( FieldType.U64 == time.getType() && value < 0 ) {
+			throw new ArithmeticException("time, "+Long.toUnsignedString(value)+", overflows a long of nanoseconds");
+		}
+		long nanos = null == unit ? unitNanos : getNanosOfUnit(unit.getAccessor().getLong(buffer, valueOffset));
+		return Math.addExact(Math.multiplyExact(value, nanos), epochNanos);
+	}
+	
+	/**
+	 * Write nanoseconds since the unix epoch. They are truncated to the time unit. A variable unit 
+	 * is set to nanosecond. Long.MIN_VALUE is written as the null value of an optional time.
+	 * 
+	 * @param buffer the buffer of the row
+	 * @param valueOffset the value offset of the row
+	 * @param epochNanos the nanoseconds since the unix epoch
+	 * @throws ArithmeticException if the time does not fit the type of the time field
+	 */
+	void putEpochNanos(IrisBuffer buffer, int valueOffset, long epochNanos) {
+		if( Long.MIN_VALUE == epochNanos && time.isOptional() ) {
+			time.putNull(buffer, valueOffset);
+			return;
+		}
+		long value = Math.subtractExact(epochNanos, this.epochNanos);
+		if( null == unit ) {
+			value = Math.floorDiv(value, unitNanos);
+		}
+		if( ! time.isInRange(value) || (FieldType.U64 == time.getType() && value < 0) ) {
+			throw new ArithmeticException("time, "+value+", overflows the time of field, "+time.getID());
+		}
+		if( null != unit ) {
+			unit.getAccessor().putLong(buffer, valueOffset, 9);
+		}
+		time.getAccessor().putLong(buffer, valueOffset, value);
+	}
+}
@@ -15,9 +15,9 @@
  *******************************************************************************/
 package com.github.bwsoft.iris.message.sbe;
 
-import java.nio.ByteBuffer;
 import java.util.List;
 
+import com.github.bwsoft.iris.buffer.IrisBuffer;
 import com.github.bwsoft.iris.message.FieldHeader;
 import com.github.bwsoft.iris.message.FieldType;
 import com.github.bwsoft.iris.message.sbe.SBESchemaFieldTypes.SBECompositeTypeElement;
@@ -66,7 +66,7 @@ class SBEVarLengthFieldHeader implements FieldHeader {
 		return headerSize;
 	}
 	
-	int getBlockSize(ByteBuffer buffer, int startOffset) {
+	int getBlockSize(IrisBuffer buffer, int startOffset) {
 		switch( headerSize ) {
 		case 1:
 			return buffer.get(startOffset);
@@ -79,7 +79,7 @@ class SBEVarLengthFieldHeader implements FieldHeader {
 		}
 	}
 	
-	void putBlockSize(ByteBuffer buffer, int startOffset, int value) {
+	void putBlockSize(IrisBuffer buffer, int startOffset, int value) {
 		switch( headerSize ) {
 		case 1:
 			buffer.put(startOffset, (byte) value); 
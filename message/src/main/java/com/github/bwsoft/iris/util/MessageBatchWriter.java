@@ -0,0 +1,260 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.util;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.IllegalBlockingModeException;
+import java.nio.channels.SelectableChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import com.github.bwsoft.iris.message.MsgCodecRuntimeException;
+import com.github.bwsoft.iris.message.SBEMessageSchema;
+
+/**
+ * A writer that batches encoded SBE messages and writes them to a GatheringByteChannel 
+ * with one gathering write. A message is not copied when it is added. The writer keeps a 
+ * view of its bytes until the batch is flushed. Consecutive messages in the same buffer 
+ * are kept in a single view. 
+ * 
+ * <pre>
+ * {@code
+ *     MessageBatchWriter writer = new MessageBatchWriter(schema, channel, 1024, 65536, 1, TimeUnit.MILLISECONDS);
+ *     while( ... ) {
+ *         GroupObject msgObj = schema.createSbeBuffer(templateId, buffer, offset);
+ *         ...
+ *         offset += writer.add(buffer, offset);
+ *     }
+ *     writer.flush();
+ * }
+ * </pre>
+ * 
+ * A batch is flushed when it reaches the maximal number of messages or the maximal number of 
+ * bytes, or when its first message has waited longer than the maximal delay. The delay is 
+ * checked upon each add and by {@link #flushIfDue()}, which is to be called while the 
+ * application is idle. The bytes of a message must not be changed until the batch is flushed. 
+ * 
+ * The channel has to be in blocking mode. A batch that fails to be written is kept with the 
+ * bytes that have not been written, which are written first by the next flush. 
+ * 
+ * A writer is not thread safe. 
+ * 
+ * @author yzhou
+ *
+ */
+public class MessageBatchWriter implements Flushable {
+	private static final int DEFAULT_MAX_MESSAGES = 1024;
+	private static final int DEFAULT_MAX_BYTES = 65536;
+	
+	private final SBEMessageSchema schema;
+	private final GatheringByteChannel channel;
+	private final int maxMessages;
+	private final int maxBytes;
+	private final long maxDelayNanos;
+	private final LongSupplier nanoClock;
+	
+	// views of the pending bytes, one for each run of consecutive messages in a buffer
+	private final ByteBuffer[] views;
+	private int numOfViews;
+	private ByteBuffer lastSource;
+	
+	private int numOfMessages;
+	private int numOfBytes;
+	private long firstAddedNanos;
+	
+	/**
+	 * Batch messages by up to 1024 messages or 64K bytes without a delay limit. 
+	 * 
+	 * @param schema the schema of the messages
+	 * @param channel the channel to write messages to
+	 */
+	public MessageBatchWriter(SBEMessageSchema schema, GatheringByteChannel channel) {
+		this(schema, channel, DEFAULT_MAX_MESSAGES, DEFAULT_MAX_BYTES, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+	}
+	
+	/**
+	 * @param schema the schema of the messages
+	 * @param channel the channel to write messages to
+	 * @param maxMessages the number of messages to flush a batch
+	 * @param maxBytes the number of bytes to flush a batch
+	 * @param maxDelay the delay of the first message to flush a batch
+	 * @param unit the unit of the delay
+	 * @throws IllegalBlockingModeException if the channel is not in blocking mode
+	 */
+	public MessageBatchWriter(SBEMessageSchema schema, GatheringByteChannel channel, int maxMessages, int maxBytes, long maxDelay, TimeUnit unit) {
+		this(schema, channel, maxMessages, maxBytes, maxDelay, unit, System::nanoTime);
+	}
+	
+	/**
+	 * @param nanoClock the source of the current time in nanoseconds, which is replaced in tests
+	 */
+	MessageBatchWriter(SBEMessageSchema schema, GatheringByteChannel channel, int maxMessages, int maxBytes, long maxDelay, TimeUnit unit, LongSupplier nanoClock) {
+		if( maxMessages <= 0 || maxBytes <= 0 || maxDelay < 0 ) {
+			throw new IllegalArgumentException("the thresholds to flush a batch cannot be negative or zero");
+		}
+		checkBlocking(channel);
+		this.schema = schema;
+		this.channel = channel;
+		this.maxMessages = maxMessages;
+		this.maxBytes = maxBytes;
+		this.maxDelayNanos = unit.toNanos(maxDelay);
+		this.nanoClock = nanoClock;
+		this.views = new ByteBuffer[maxMessages];
+	}
+	
+	private static void checkBlocking(GatheringByteChannel channel) {
+		if( channel instanceof SelectableChannel && ! ((SelectableChannel) channel).isBlocking() ) {
+			throw new IllegalBlockingModeException();
+		}
+	}
+	
+	/**
+	 * Add a message to the batch. The length of the message is obtained by measuring it. 
+	 * 
+	 * @param buffer the buffer containing the message
+	 * @param offset the starting position of the message
+	 * @return the length of the message including its message header
+	 * @throws IOException if the batch is flushed and cannot be written
+	 * @throws MsgCodecRuntimeException if the message is not defined in the schema
+	 */
+	public int add(ByteBuffer buffer, int offset) throws IOException {
+		int length = schema.measure(buffer, offset);
+		if( length < 0 ) {
+			throw new MsgCodecRuntimeException("unrecognized message at position, "+offset);
+		}
+		add(buffer, offset, length);
+		return length;
+	}
+	
+	/**
+	 * Add the bytes of a message to the batch. 
+	 * 
+	 * @param buffer the buffer containing the message
+	 * @param offset the starting position of the message
+	 * @param length the length of the message
+	 * @throws IOException if the batch is flushed and cannot be written
+	 */
+	public void add(ByteBuffer buffer, int offset, int length) throws IOException {
+		if( numOfViews > 0 && lastSource == buffer && views[numOfViews-1].limit() == offset ) {
+			// extend the view of the previous message
+			views[numOfViews-1].limit(offset+length);
+		} else {
+			if( numOfViews == views.length ) {
+				// the batch is left full by a failed flush
+				flush();
+			}
+			ByteBuffer view = buffer.duplicate();
+			view.limit(offset+length);
+			view.position(offset);
+			views[numOfViews++] = view;
+			lastSource = buffer;
+		}
+		
+		if( numOfMessages ++ == 0 && maxDelayNanos != Long.MAX_VALUE ) {
+			firstAddedNanos = nanoClock.getAsLong();
+		}
+		numOfBytes += length;
+		
+		if( numOfMessages >= maxMessages || numOfBytes >= maxBytes ) {
+			flush();
+		} else {
+			flushIfDue();
+		}
+	}
+	
+	/**
+	 * Flush the batch if its first message has waited longer than the maximal delay. 
+	 * 
+	 * @return true if the batch is flushed
+	 * @throws IOException if the batch cannot be written
+	 */
+	public boolean flushIfDue() throws IOException {
+		if( numOfMessages > 0 && maxDelayNanos != Long.MAX_VALUE && nanoClock.getAsLong() - firstAddedNanos >= maxDelayNanos ) {
+			flush();
+			return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Write all messages of the batch to the channel. It returns after all bytes are written. 
+	 * If the batch cannot be written, the bytes that have not been written are kept in the 
+	 * batch and the number of pending messages is unchanged. 
+	 * 
+	 * @throws IOException if the batch cannot be written
+	 * @throws IllegalBlockingModeException if the channel has been put in non-blocking mode 
+	 * and it does not accept more bytes
+	 */
+	@Override
+	public void flush() throws IOException {
+		int first = 0;
+		try {
+			while( first < numOfViews ) {
+				if( channel.write(views, first, numOfViews-first) == 0 ) {
+					checkBlocking(channel);
+				}
+				while( first < numOfViews && ! views[first].hasRemaining() ) {
+					views[first++] = null;
+				}
+			}
+		} finally {
+			compact(first);
+		}
+	}
+	
+	/**
+	 * Discard the views that have been written. The rest are moved to the front.
+	 * 
+	 * @param first the first view that has not been written completely
+	 */
+	private void compact(int first) {
+		int remaining = numOfViews - first;
+		if( remaining == 0 ) {
+			numOfMessages = 0;
+			numOfBytes = 0;
+			lastSource = null;
+		} else if( first > 0 ) {
+			System.arraycopy(views, first, views, 0, remaining);
+			for( int i = remaining; i < numOfViews; i ++ ) {
+				views[i] = null;
+			}
+		}
+		if( remaining > 0 ) {
+			numOfBytes = 0;
+			for( int i = 0; i < remaining; i ++ ) {
+				numOfBytes += views[i].remaining();
+			}
+		}
+		numOfViews = remaining;
+	}
+	
+	/**
+	 * @return the number of messages waiting to be written
+	 */
+	public int getPendingMessages() {
+		return numOfMessages;
+	}
+	
+	/**
+	 * @return the number of bytes waiting to be written
+	 */
+	public int getPendingBytes() {
+		return numOfBytes;
+	}
+}
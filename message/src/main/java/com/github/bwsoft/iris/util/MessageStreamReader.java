@@ -0,0 +1,285 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.util;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+import com.github.bwsoft.iris.buffer.NioBuffer;
+import com.github.bwsoft.iris.message.GroupObject;
+import com.github.bwsoft.iris.message.MsgCodecRuntimeException;
+import com.github.bwsoft.iris.message.SBEMessageSchema;
+import com.github.bwsoft.iris.message.sbe.SBEMessage;
+import com.github.bwsoft.iris.message.sbe.SBEMessageContext;
+
+/**
+ * A reader of consecutive SBE messages in a ByteBuffer or a ReadableByteChannel. 
+ * Each call of {@link #next()} advances the reader from the current message to the next one
+ * without parsing any message that has been passed. 
+ * 
+ * <pre>
+ * {@code
+ *     MessageStreamReader reader = new MessageStreamReader(schema, buffer, offset);
+ *     while( reader.next() ) {
+ *         if( reader.getTemplateId() == 1 ) {
+ *             GroupObject msgObj = reader.getMessage();
+ *             ...
+ *         }
+ *     }
+ * }
+ * </pre>
+ * 
+ * The length of a message is obtained by {@link SBEMessageSchema#measure(com.github.bwsoft.iris.buffer.IrisBuffer, int)}, 
+ * which only reads the headers of its groups and variable length fields. A message is 
+ * wrapped lazily when it is requested by {@link #getMessage()}. The GroupObject and the 
+ * position of the current message are valid until the next call of {@link #next()}. The message 
+ * is wrapped in a context owned by the reader, hence it is not affected by other wrap calls. 
+ * 
+ * A reader is not thread safe. 
+ * 
+ * @author yzhou
+ *
+ */
+public class MessageStreamReader {
+	private static final int DEFAULT_CAPACITY = 4096;
+	
+	private final SBEMessageSchema schema;
+	private final ReadableByteChannel channel;
+	private final NioBuffer frame = new NioBuffer();
+	private final SBEMessageContext context = new SBEMessageContext();
+	
+	// the bytes between zero and limit of the buffer are available to read
+	private ByteBuffer buffer;
+	
+	private int offset;
+	private int length;
+	private SBEMessage definition;
+	private GroupObject message;
+	
+	/**
+	 * Read messages in a buffer from the offset to the limit of the buffer. Neither the 
+	 * position nor the limit of the buffer is altered.  
+	 * 
+	 * @param schema the schema of the messages
+	 * @param buffer the buffer containing consecutive messages
+	 * @param offset the starting position of the first message
+	 */
+	public MessageStreamReader(SBEMessageSchema schema, ByteBuffer buffer, int offset) {
+		this.schema = schema;
+		this.channel = null;
+		this.buffer = buffer.duplicate();
+		this.offset = offset;
+		this.length = 0;
+	}
+	
+	/**
+	 * Read messages from a channel. The bytes are read into an internal buffer, which is 
+	 * grown when a message does not fit. 
+	 * 
+	 * @param schema the schema of the messages
+	 * @param channel the channel to read messages from
+	 */
+	public MessageStreamReader(SBEMessageSchema schema, ReadableByteChannel channel) {
+		this(schema, channel, DEFAULT_CAPACITY);
+	}
+	
+	/**
+	 * Read messages from a channel with an internal buffer of an initial capacity. 
+	 * 
+	 * @param schema the schema of the messages
+	 * @param channel the channel to read messages from
+	 * @param initialCapacity the initial capacity of the internal buffer
+	 */
+	public MessageStreamReader(SBEMessageSchema schema, ReadableByteChannel channel, int initialCapacity) {
+		if( initialCapacity <= 0 ) {
+			throw new IllegalArgumentException("initial capacity has to be positive");
+		}
+		this.schema = schema;
+		this.channel = channel;
+		this.buffer = ByteBuffer.allocate(initialCapacity);
+		this.buffer.limit(0);
+		this.offset = 0;
+		this.length = 0;
+	}
+	
+	/**
+	 * Advance to the next message. 
+	 * 
+	 * @return true if a complete message is available, false if the end of the buffer is reached 
+	 * or if no more bytes can be read from a non-blocking channel for the moment. 
+	 * @throws IOException if the channel cannot be read, or if the channel or the buffer ends with 
+	 * an incomplete message, see {@link EOFException} 
+	 * @throws MsgCodecRuntimeException if a message is not defined in the schema or if a header of 
+	 * the message holds a malformed length. The reader cannot proceed beyond such a message. 
+	 */
+	public boolean next() throws IOException {
+		offset += length;
+		length = 0;
+		definition = null;
+		message = null;
+		
+		while( true ) {
+			if( offset < buffer.limit() && measure() ) {
+				return true;
+			}
+			int n = fill();
+			if( n <= 0 ) {
+				if( n == 0 || offset == buffer.limit() ) {
+					return false;
+				}
+				throw new EOFException("the "+(null == channel ? "buffer" : "channel")+" ends with an incomplete message of "+(buffer.limit()-offset)+" bytes");
+			}
+		}
+	}
+	
+	/**
+	 * Measure the current message. A read beyond the available bytes fails the bound check of 
+	 * the ByteBuffer, which indicates the message is incomplete. A malformed length in a header 
+	 * is thrown by the measure as a MsgCodecRuntimeException instead. 
+	 * 
+	 * @return true if the current message is complete 
+	 */
+	private boolean measure() {
+		frame.wrap(buffer);
+		SBEMessage msg;
+		int msgLength;
+		try {
+			msg = schema.getSBEMessage(frame, offset);
+			if( null == msg ) {
+				throw new MsgCodecRuntimeException("unrecognized message at position, "+offset);
+			}
+			msgLength = msg.measure(frame, offset);
+		} catch( IndexOutOfBoundsException e ) {
+			return false;
+		}
+		if( offset + msgLength > buffer.limit() ) {
+			return false;
+		}
+		this.definition = msg;
+		this.length = msgLength;
+		return true;
+	}
+	
+	/**
+	 * Read more bytes from the channel. The current message is moved to the beginning of the 
+	 * buffer and the buffer is grown if it is full. 
+	 * 
+	 * @return the number of bytes read, or -1 if the end of the stream is reached 
+	 * @throws IOException if the channel cannot be read
+	 */
+	private int fill() throws IOException {
+		if( null == channel ) {
+			return -1;
+		}
+		
+		int remaining = buffer.limit() - offset;
+		if( offset > 0 ) {
+			buffer.position(offset);
+			buffer.compact();
+			offset = 0;
+		} else if( remaining == buffer.capacity() ) {
+			ByteBuffer expanded = ByteBuffer.allocate(buffer.capacity()*2);
+			buffer.position(0);
+			expanded.put(buffer);
+			buffer = expanded;
+		} else {
+			buffer.limit(buffer.capacity());
+			buffer.position(remaining);
+		}
+		
+		int n = channel.read(buffer);
+		buffer.limit(buffer.position());
+		return n;
+	}
+	
+	/**
+	 * @return the buffer containing the current message. It is an internal buffer when 
+	 * messages are read from a channel. 
+	 */
+	public ByteBuffer getBuffer() {
+		return buffer;
+	}
+	
+	/**
+	 * @return the starting position of the current message in the buffer
+	 */
+	public int getOffset() {
+		return offset;
+	}
+	
+	/**
+	 * @return the length of the current message including the message header
+	 */
+	public int getLength() {
+		return length;
+	}
+	
+	/**
+	 * @return the template id of the current message
+	 */
+	public int getTemplateId() {
+		return definition.getID();
+	}
+	
+	/**
+	 * @return the definition of the current message
+	 */
+	public SBEMessage getDefinition() {
+		return definition;
+	}
+	
+	/**
+	 * Wrap the current message lazily upon the first call after {@link #next()}. 
+	 * 
+	 * @return the current message
+	 */
+	public GroupObject getMessage() {
+		if( null == message ) {
+			message = definition.wrapSbeBuffer(context, frame, offset, true);
+		}
+		return message;
+	}
+	
+	/**
+	 * Create a ByteBuffer that shares the bytes of the current message. The 
+	 * content of a slice of a channel reader is only valid until the next call of {@link #next()}.
+	 * 
+	 * @return a slice of the current message
+	 */
+	public ByteBuffer slice() {
+		ByteBuffer dup = buffer.duplicate();
+		dup.limit(offset+length).position(offset);
+		return dup.slice().order(buffer.order());
+	}
+	
+	/**
+	 * Copy the current message to a buffer. 
+	 * 
+	 * @param dest the destination buffer
+	 * @param destOffset the starting position in the destination buffer
+	 * @return the number of bytes copied
+	 */
+	public int copyTo(ByteBuffer dest, int destOffset) {
+		ByteBuffer src = buffer.duplicate();
+		src.limit(offset+length).position(offset);
+		ByteBuffer target = dest.duplicate();
+		target.position(destOffset);
+		target.put(src);
+		return length;
+	}
+}
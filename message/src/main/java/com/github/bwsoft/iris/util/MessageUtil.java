@@ -28,7 +28,6 @@ import com.github.bwsoft.iris.message.GroupObject;
 import com.github.bwsoft.iris.message.GroupObjectArray;
 import com.github.bwsoft.iris.message.SBEMessageSchema;
 import com.github.bwsoft.iris.message.sbe.SBEField;
-import com.github.bwsoft.iris.message.sbe.SBEMessage;
 
 public class MessageUtil {
 
@@ -46,25 +45,17 @@ public class MessageUtil {
 	public static boolean messageCopy(ByteBuffer original, int startOffset, int nth,
 			ByteBuffer dest, int destOffset, SBEMessageSchema schema) {		
 		// move to the nth message in the source buffer
-		for( int i = 0; i < nth; i ++ ) {
-			GroupObject msgObj = schema.wrapSbeBuffer(original, startOffset);
-			if( msgObj == null )
-				return false;
-			startOffset += msgObj.getSize();
-			startOffset += ((SBEMessage) msgObj.getDefinition()).getHeader().getSize();
-		}
-		
-		GroupObject msgObj = schema.wrapSbeBuffer(original, startOffset);
-		int msgLength = msgObj.getSize() 
-				+ ((SBEMessage) msgObj.getDefinition()).getHeader().getSize();
+		startOffset = skipMessages(original, startOffset, nth, schema);
+		if( startOffset < 0 ) 
+			return false;
+		int msgLength = schema.measure(original, startOffset);
+		if( msgLength < 0 )
+			return false;
 
-		original.position(startOffset);
-		
-		byte[] array = new byte[msgLength];
-		original.get(array, 0, msgLength);
-		
+		ByteBuffer src = original.duplicate();
+		src.limit(startOffset+msgLength).position(startOffset);
 		dest.position(destOffset);
-		dest.put(array,0,msgLength);
+		dest.put(src);
 		return true;
 	}
 	
@@ -81,23 +72,33 @@ public class MessageUtil {
 	 */
 	public static boolean messageCopy(ByteBuffer original, int startOffset, int nth,
 			byte[] dest, int destOffset, SBEMessageSchema schema) {
-		for( int i = 0; i < nth; i ++ ) {
-			GroupObject msgObj = schema.wrapSbeBuffer(original, startOffset);
-			if( null == msgObj )
-				return false;
-			startOffset += msgObj.getSize();
-			startOffset += ((SBEMessage) msgObj.getDefinition()).getHeader().getSize();
-		}
-		
-		GroupObject msgObj = schema.wrapSbeBuffer(original, startOffset);
-		int msgLength = msgObj.getSize() 
-				+ ((SBEMessage) msgObj.getDefinition()).getHeader().getSize();
+		startOffset = skipMessages(original, startOffset, nth, schema);
+		if( startOffset < 0 ) 
+			return false;
+		int msgLength = schema.measure(original, startOffset);
+		if( msgLength < 0 )
+			return false;
 
 		original.position(startOffset);
 		original.get(dest, destOffset, msgLength);
 		return true;
 	}
 	
+	/**
+	 * Skip a number of messages by measuring them without parsing. 
+	 * 
+	 * @return the start offset of the message after the skipped ones or -1 if a message is not defined in the schema
+	 */
+	private static int skipMessages(ByteBuffer original, int startOffset, int nth, SBEMessageSchema schema) {
+		for( int i = 0; i < nth; i ++ ) {
+			int msgLength = schema.measure(original, startOffset);
+			if( msgLength < 0 )
+				return -1;
+			startOffset += msgLength;
+		}
+		return startOffset;
+	}
+	
 	/**
 	 * Create a Json expression for a GroupObject, including all of the nested
 	 * subgroups. Handle byte arrays as String using platform default encoding type.
@@ -0,0 +1,256 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.buffer;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.rules.TestWatcher;
+import org.junit.runner.Description;
+
+import com.github.bwsoft.iris.message.Field;
+import com.github.bwsoft.iris.message.Group;
+import com.github.bwsoft.iris.message.GroupCursor;
+import com.github.bwsoft.iris.message.GroupObject;
+import com.github.bwsoft.iris.message.MessageCursor;
+import com.github.bwsoft.iris.message.SBEMessageSchema;
+import com.github.bwsoft.iris.message.sbe.SBEMessageFlyweight;
+import com.github.bwsoft.iris.message.sbe.SBESchemaLoader;
+import com.github.bwsoft.iris.message.sbe.SBEMessageDecoderTest;
+
+/**
+ * Test the buffer implementations
+ *    1.) NioBuffer and UnsafeBuffer read and write the same bytes in both byte orders
+ *    2.) Move overlapping regions and set memory
+ *    3.) Decode and modify a message in an UnsafeBuffer
+ *    4.) A truncated message in a ByteBuffer is read with checks even if the safe mode is off
+ *    5.) A cursor reads a ByteBuffer with checks even if the safe mode is off
+ *    6.) A message flyweight reads a ByteBuffer with checks even if the safe mode is off
+ * 
+ * @author yzhou
+ *
+ */
+public class IrisBufferTest {
+	private static SBEMessageSchema factory;
+	
+	@Rule
+	public TestRule watcher = new TestWatcher() {
+		@Override
+		protected void starting(Description description) {
+			System.out.format("\nCase: %s ...... started\n", description.getMethodName());
+		}
+
+		@Override
+		protected void succeeded(Description description) {
+			System.out.format("Case: %s ...... passed\n", description.getMethodName());
+		}
+
+		@Override
+		protected void failed(Throwable e, Description description) {
+			System.out.format("Case: %s ...... failed!!!!!!\n", description.getMethodName());
+		}
+	};
+	
+	@BeforeClass
+	public static void loadSchema() throws Exception {
+		factory = SBEMessageSchema.createSBESchema("src/test/resources/example-schemav4.xml");
+	}
+	
+	@Test
+	public void testReadWrite() {
+		Assume.assumeTrue(UnsafeBuffer.isAvailable());
+		
+		for( ByteOrder order : new ByteOrder[] {ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN} ) {
+			for( ByteBuffer byteBuffer : new ByteBuffer[] {ByteBuffer.allocate(64), ByteBuffer.allocateDirect(64)} ) {
+				NioBuffer nio = new NioBuffer(byteBuffer).order(order);
+				UnsafeBuffer unsafe = new UnsafeBuffer(byteBuffer).order(order);
+				
+				unsafe.put(0, (byte) -3);
+				unsafe.putChar(1, 'x');
+				unsafe.putShort(3, (short) -12345);
+				unsafe.putInt(5, 0x12345678);
+				unsafe.putLong(9, 0x1122334455667788L);
+				unsafe.putFloat(17, 3.5f);
+				unsafe.putDouble(21, -2.25);
+				Assert.assertEquals(-3, nio.get(0));
+				Assert.assertEquals('x', nio.getChar(1));
+				Assert.assertEquals(-12345, nio.getShort(3));
+				Assert.assertEquals(0x12345678, nio.getInt(5));
+				Assert.assertEquals(0x1122334455667788L, nio.getLong(9));
+				Assert.assertEquals(3.5f, nio.getFloat(17), 0.0f);
+				Assert.assertEquals(-2.25, nio.getDouble(21), 0.0);
+				
+				nio.putInt(5, 0x7654321);
+				nio.putDouble(21, 1.125);
+				Assert.assertEquals(0x7654321, unsafe.getInt(5));
+				Assert.assertEquals(1.125, unsafe.getDouble(21), 0.0);
+			}
+		}
+	}
+	
+	@Test
+	public void testCopyAndSetMemory() {
+		IrisBuffer[] buffers = UnsafeBuffer.isAvailable() ? 
+				new IrisBuffer[] {new NioBuffer(ByteBuffer.allocate(32)), new NioBuffer(ByteBuffer.allocateDirect(32)), new UnsafeBuffer(new byte[32])} : 
+				new IrisBuffer[] {new NioBuffer(ByteBuffer.allocate(32)), new NioBuffer(ByteBuffer.allocateDirect(32))};
+		byte[] value = {1,2,3,4,5,6,7,8};
+		byte[] result = new byte[12];
+		for( IrisBuffer buffer : buffers ) {
+			buffer.setMemory(0, 32, (byte) 9);
+			buffer.putBytes(2, value, 0, value.length);
+			
+			// overlapping downward and upward moves
+			buffer.copy(2, 4, value.length);
+			buffer.getBytes(2, result, 0, 10);
+			Assert.assertArrayEquals(new byte[] {1,2,1,2,3,4,5,6,7,8}, Arrays.copyOf(result, 10));
+			buffer.copy(4, 2, value.length);
+			buffer.setMemory(10, 2, (byte) 0);
+			buffer.getBytes(0, result, 0, 12);
+			Assert.assertArrayEquals(new byte[] {9,9,1,2,3,4,5,6,7,8,0,0}, result);
+		}
+	}
+	
+	@Test
+	public void testMessageInUnsafeBuffer() throws Exception {
+		Assume.assumeTrue(UnsafeBuffer.isAvailable());
+		
+		ByteBuffer direct = ByteBuffer.allocateDirect(1024);
+		UnsafeBuffer buffer = new UnsafeBuffer(direct);
+		GroupObject msgObj = factory.createSbeBuffer(1, buffer, 3);
+		SBEMessageDecoderTest.createMessageForDecoding(msgObj);
+		int size = msgObj.getSize();
+		
+		// the same message read through a ByteBuffer
+		msgObj = factory.wrapSbeBuffer(direct, 3);
+		Assert.assertEquals(size, msgObj.getSize());
+		Assert.assertEquals(1234, msgObj.getNumber(msgObj.getField("serialNumber")).longValue());
+		Assert.assertEquals("Honda", msgObj.getString(msgObj.getField("make")));
+		
+		// read through a cursor
+		MessageCursor cursor = factory.createCursor(1);
+		cursor.wrap(buffer, 3);
+		Assert.assertEquals(2013, cursor.getU16(cursor.getDefinition().getField("modelYear")));
+		
+		// modify through an UnsafeBuffer and read back through a ByteBuffer
+		msgObj = factory.wrapSbeBuffer(buffer, 3);
+		msgObj.setBytes(msgObj.getField("make"), "Acura Motors".getBytes(), 0, 12);
+		Assert.assertEquals(size + 7, msgObj.getSize());
+		msgObj = factory.wrapSbeBuffer(direct, 3);
+		Assert.assertEquals("Acura Motors", msgObj.getString(msgObj.getField("make")));
+		Assert.assertEquals("deadbeef", msgObj.getString(msgObj.getField("activationCode")));
+	}
+	
+	@Test
+	public void testTruncatedMessageWithSafeModeOff() throws Exception {
+		Assume.assumeTrue(UnsafeBuffer.isAvailable());
+		
+		SBEMessageSchema unsafeFactory = createUnsafeSchema();
+		ByteBuffer buffer = ByteBuffer.allocate(1024);
+		GroupObject msgObj = unsafeFactory.createSbeBuffer(1, buffer, 0);
+		SBEMessageDecoderTest.createMessageForDecoding(msgObj);
+		int size = unsafeFactory.measure(buffer, 0);
+		
+		// the whole message is measured and read without checks
+		msgObj = unsafeFactory.wrapSbeBuffer(buffer, 0);
+		Assert.assertEquals("deadbeef", msgObj.getString(msgObj.getField("activationCode")));
+		
+		// the last variable length field goes beyond a truncated copy
+		ByteBuffer truncated = ByteBuffer.allocate(size - 4);
+		truncated.put(buffer.array(), 0, size - 4);
+		msgObj = unsafeFactory.wrapSbeBuffer(truncated, 0, true);
+		try {
+			msgObj.getString(msgObj.getField("activationCode"));
+			Assert.fail("bytes beyond the buffer are read");
+		} catch( IndexOutOfBoundsException | BufferUnderflowException e ) {
+		}
+	}
+	
+	@Test
+	public void testCorruptGroupWithSafeModeOff() throws Exception {
+		Assume.assumeTrue(UnsafeBuffer.isAvailable());
+		
+		SBEMessageSchema unsafeFactory = createUnsafeSchema();
+		ByteBuffer buffer = ByteBuffer.allocate(1024);
+		GroupObject msgObj = unsafeFactory.createSbeBuffer(1, buffer, 0);
+		SBEMessageDecoderTest.createMessageForDecoding(msgObj);
+		
+		// the number of rows of fuelFigures, which follows the message header and the root block of 64 bytes
+		buffer.order(ByteOrder.LITTLE_ENDIAN).putShort(8+64+2, (short) 1000);
+		
+		MessageCursor cursor = unsafeFactory.createCursor(1).wrap(buffer, 0);
+		Group fuelFigures = (Group) cursor.getDefinition().getField("fuelFigures");
+		Field usageDescription = fuelFigures.getField("usageDescription");
+		GroupCursor rows = cursor.getGroupCursor(fuelFigures);
+		Assert.assertEquals(1000, rows.getNumOfRows());
+		try {
+			while( rows.next() ) {
+				rows.getSize(usageDescription);
+			}
+			Assert.fail("rows beyond the buffer are read");
+		} catch( IndexOutOfBoundsException e ) {
+		}
+	}
+	
+	@Test
+	public void testCorruptGroupInFlyweight() throws Exception {
+		Assume.assumeTrue(UnsafeBuffer.isAvailable());
+		
+		SBEMessageSchema unsafeFactory = createUnsafeSchema();
+		ByteBuffer buffer = ByteBuffer.allocate(1024);
+		GroupObject msgObj = unsafeFactory.createSbeBuffer(1, buffer, 0);
+		SBEMessageDecoderTest.createMessageForDecoding(msgObj);
+		buffer.order(ByteOrder.LITTLE_ENDIAN).putShort(8+64+2, (short) 1000);
+		
+		SBEMessageFlyweight flyweight = new SBEMessageFlyweight(unsafeFactory, 1) {
+			{
+				wrapForDecode(buffer, 0);
+				Assert.assertEquals(1234, getLongAt(0));
+				try {
+					GroupCursor rows = groupCursor(getDefinition().getField("fuelFigures"));
+					while( rows.next() ) {
+						rows.getSize(rows.getDefinition().getField("usageDescription"));
+					}
+					Assert.fail("rows beyond the buffer are read");
+				} catch( IndexOutOfBoundsException e ) {
+				}
+				
+				try {
+					wrapForEncode(buffer, 0);
+					Assert.fail("rows beyond the buffer are parsed");
+				} catch( IndexOutOfBoundsException e ) {
+				}
+			}
+		};
+		Assert.assertEquals(1, flyweight.getDefinition().getID());
+	}
+	
+	private static SBEMessageSchema createUnsafeSchema() throws Exception {
+		SBESchemaLoader.safeModeOff();
+		try {
+			return SBEMessageSchema.createSBESchema("src/test/resources/example-schemav4.xml");
+		} finally {
+			SBESchemaLoader.safeModeOn();
+		}
+	}
+}
@@ -0,0 +1,151 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.message.sbe;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.rules.TestWatcher;
+import org.junit.runner.Description;
+
+import com.github.bwsoft.iris.buffer.BufferPool;
+import com.github.bwsoft.iris.message.GroupObject;
+import com.github.bwsoft.iris.message.GroupObjectArray;
+import com.github.bwsoft.iris.message.SBEMessageSchema;
+import com.github.bwsoft.iris.util.MessageUtil;
+
+/**
+ * Test messages created in pooled buffers
+ *    1.) A message grows into larger buffers of the pool and is the same as one created in a large buffer
+ *    2.) The buffers are handed back to the pool and reused
+ *    3.) A message in a buffer that is not from a pool is left intact when it cannot grow
+ *    4.) Capacities are rounded up to a power of two no less than the minimal size
+ * 
+ * @author yzhou
+ *
+ */
+public class SBEBufferPoolTest {
+	private static SBEMessageSchema factory;
+	private static SBEMessage car;
+	private static String expected;
+	
+	@Rule
+	public TestRule watcher = new TestWatcher() {
+		@Override
+		protected void starting(Description description) {
+			System.out.format("\nCase: %s ...... started\n", description.getMethodName());
+		}
+
+		@Override
+		protected void succeeded(Description description) {
+			System.out.format("Case: %s ...... passed\n", description.getMethodName());
+		}
+
+		@Override
+		protected void failed(Throwable e, Description description) {
+			System.out.format("Case: %s ...... failed!!!!!!\n", description.getMethodName());
+		}
+	};
+	
+	@BeforeClass
+	public static void createSBEMessage() throws Exception {
+		factory = SBEMessageSchema.createSBESchema("src/test/resources/example-schemav4.xml");
+		car = factory.getMsgLookup().get(1);
+		GroupObject msgObj = factory.createSbeBuffer(1, ByteBuffer.allocate(4096), 0);
+		SBEMessageDecoderTest.createMessageForDecoding(msgObj);
+		expected = MessageUtil.toJsonString(msgObj);
+	}
+	
+	@Test
+	public void testGrowInPooledBuffer() throws Exception {
+		BufferPool pool = new BufferPool(true);
+		SBEMessageContext context = new SBEMessageContext(pool);
+		
+		GroupObject msgObj = factory.createSbeBuffer(context, 1, 0);
+		ByteBuffer initial = context.getBuffer(car);
+		
+		SBEMessageDecoderTest.createMessageForDecoding(msgObj);
+		Assert.assertEquals(expected, MessageUtil.toJsonString(msgObj));
+		
+		// the message has moved to a larger buffer
+		ByteBuffer buffer = context.getBuffer(car);
+		Assert.assertTrue(initial.capacity() < msgObj.getSize() + car.getHeader().getSize());
+		Assert.assertTrue(buffer.capacity() >= msgObj.getSize() + car.getHeader().getSize());
+		Assert.assertNotSame(initial, buffer);
+		Assert.assertEquals(expected, MessageUtil.toJsonString(factory.wrapSbeBuffer(buffer, 0)));
+		
+		// the smaller buffer is back in the pool
+		Assert.assertSame(initial, pool.acquire(initial.capacity()));
+		
+		// the buffer is reused by the next message after it is released
+		context.release();
+		Assert.assertNull(context.getBuffer(car));
+		msgObj = factory.createSbeBuffer(context, 1, buffer.capacity());
+		Assert.assertSame(buffer, context.getBuffer(car));
+		
+		// a wrap call in the context hands the buffer back as well
+		car.wrapSbeBuffer(context, ByteBuffer.allocate(4096), 0, false);
+		Assert.assertNull(context.getBuffer(car));
+		Assert.assertSame(buffer, pool.acquire(buffer.capacity()));
+	}
+	
+	@Test
+	public void testMessageIntactWithInsufficientBuffer() throws Exception {
+		ByteBuffer buffer = ByteBuffer.allocate(4096);
+		GroupObject msgObj = factory.createSbeBuffer(1, buffer, 0);
+		SBEMessageDecoderTest.createMessageForDecoding(msgObj);
+		int size = msgObj.getSize() + car.getHeader().getSize();
+		
+		// copy the message into a buffer of its exact size
+		ByteBuffer exact = ByteBuffer.allocate(size);
+		MessageUtil.messageCopy(buffer, 0, 0, exact, 0, factory);
+		msgObj = factory.wrapSbeBuffer(exact, 0);
+		
+		GroupObjectArray fuelFigures = msgObj.getGroupArray(msgObj.getField("fuelFigures"));
+		try {
+			fuelFigures.addGroupObject(1);
+			Assert.fail("a row is added beyond the capacity of the buffer");
+		} catch( BufferOverflowException e ) {
+		}
+		try {
+			byte[] make = "a make longer than the buffer".getBytes();
+			msgObj.setBytes(msgObj.getField("make"), make, 0, make.length);
+			Assert.fail("a variable length field is extended beyond the capacity of the buffer");
+		} catch( BufferOverflowException e ) {
+		}
+		Assert.assertEquals(3, fuelFigures.getNumOfGroups());
+		Assert.assertEquals(expected, MessageUtil.toJsonString(msgObj));
+	}
+	
+	@Test
+	public void testAcquireSizes() {
+		BufferPool pool = new BufferPool(false);
+		Assert.assertEquals(64, pool.acquire(0).capacity());
+		Assert.assertEquals(64, pool.acquire(1).capacity());
+		Assert.assertEquals(64, pool.acquire(64).capacity());
+		Assert.assertEquals(128, pool.acquire(65).capacity());
+		try {
+			pool.acquire(-1);
+			Assert.fail("a negative capacity is accepted");
+		} catch( IllegalArgumentException e ) {
+		}
+	}
+}
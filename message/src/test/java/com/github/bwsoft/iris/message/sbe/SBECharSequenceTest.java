@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.message.sbe;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.rules.TestWatcher;
+import org.junit.runner.Description;
+
+import com.github.bwsoft.iris.buffer.NioBuffer;
+import com.github.bwsoft.iris.message.CharSequenceView;
+import com.github.bwsoft.iris.message.Field;
+import com.github.bwsoft.iris.message.GroupObject;
+import com.github.bwsoft.iris.message.SBEMessageSchema;
+
+/**
+ * Test the character data views
+ *    1.) The character encoding is loaded from the schema
+ *    2.) A view over a char array ends at its first null character
+ *    3.) A view over a variable length field decodes UTF-8
+ *    4.) Characters can be appended to a StringBuilder or copied to a char array
+ *    5.) Data in an encoding that is not ASCII compatible, e.g. UTF-16, are always decoded
+ * 
+ * @author yzhou
+ *
+ */
+public class SBECharSequenceTest {
+	private static SBEMessageSchema factory;
+	
+	private final static ByteBuffer sbeBuffer = ByteBuffer.allocate(4096);
+	
+	@Rule
+	public TestRule watcher = new TestWatcher() {
+		@Override
+		protected void starting(Description description) {
+			System.out.format("\nCase: %s ...... started\n", description.getMethodName());
+		}
+
+		@Override
+		protected void succeeded(Description description) {
+			System.out.format("Case: %s ...... passed\n", description.getMethodName());
+		}
+
+		@Override
+		protected void failed(Throwable e, Description description) {
+			System.out.format("Case: %s ...... failed!!!!!!\n", description.getMethodName());
+		}
+	};
+	
+	@BeforeClass
+	public static void createSBEMessage() throws Exception {
+		factory = SBEMessageSchema.createSBESchema("src/test/resources/example-schemav4.xml");
+		GroupObject msgObj = factory.createSbeBuffer(1, sbeBuffer, 0);
+		SBEMessageDecoderTest.createMessageForDecoding(msgObj);
+		byte[] model = "Citroën C4".getBytes(StandardCharsets.UTF_8);
+		msgObj.setBytes(msgObj.getField("model"), model, 0, model.length);
+	}
+	
+	@Test
+	public void testCharacterEncoding() {
+		GroupObject msgObj = factory.wrapSbeBuffer(sbeBuffer, 0);
+		Assert.assertEquals("ASCII", msgObj.getField("vehicleCode").getCharacterEncoding());
+		Assert.assertEquals("UTF-8", msgObj.getField("make").getCharacterEncoding());
+		Assert.assertNull(msgObj.getField("serialNumber").getCharacterEncoding());
+		Assert.assertEquals("Citroën C4", msgObj.getString(msgObj.getField("model")));
+	}
+	
+	@Test
+	public void testView() {
+		GroupObject msgObj = factory.wrapSbeBuffer(sbeBuffer, 0);
+		CharSequenceView view = new CharSequenceView();
+		
+		CharSequence vehicleCode = msgObj.getCharSequence(msgObj.getField("vehicleCode"), view);
+		Assert.assertEquals(6, vehicleCode.length());
+		Assert.assertTrue(view.contentEquals("mycode"));
+		Assert.assertEquals("code", vehicleCode.subSequence(2, 6).toString());
+		
+		// ASCII data in a UTF-8 field
+		msgObj.getCharSequence(msgObj.getField("make"), view);
+		Assert.assertTrue(view.contentEquals("Honda"));
+		Assert.assertFalse(view.contentEquals("Hond"));
+		
+		// non ASCII data in a UTF-8 field
+		msgObj.getCharSequence(msgObj.getField("model"), view);
+		Assert.assertEquals(10, view.length());
+		Assert.assertEquals('ë', view.charAt(5));
+		Assert.assertEquals("Citroën C4", view.toString());
+		
+		// a char array padded by null characters
+		Field vehicleCodeField = msgObj.getField("vehicleCode");
+		msgObj.setBytes(vehicleCodeField, new byte[] {'a','b',0,0,0,0}, 0, 6);
+		Assert.assertTrue(msgObj.getCharSequence(vehicleCodeField, view).contentEquals("ab"));
+		msgObj.setBytes(vehicleCodeField, "mycode".getBytes(), 0, 6);
+		
+		try {
+			msgObj.getCharSequence(msgObj.getField("serialNumber"), view);
+			Assert.fail("a number field is not character data");
+		} catch( IllegalArgumentException e ) {
+		}
+	}
+	
+	@Test
+	public void testDecodeInto() {
+		GroupObject msgObj = factory.wrapSbeBuffer(sbeBuffer, 0);
+		StringBuilder sb = new StringBuilder();
+		Assert.assertEquals(5, msgObj.getChars(msgObj.getField("make"), sb));
+		sb.append(' ');
+		Assert.assertEquals(10, msgObj.getChars(msgObj.getField("model"), sb));
+		Assert.assertEquals("Honda Citroën C4", sb.toString());
+		
+		char[] dest = new char[16];
+		CharSequenceView view = msgObj.getCharSequence(msgObj.getField("model"), new CharSequenceView());
+		view.getChars(0, view.length(), dest, 1);
+		Assert.assertEquals("Citroën C4", new String(dest, 1, view.length()));
+	}
+	
+	@Test
+	public void testWideCharset() {
+		NioBuffer buffer = new NioBuffer(ByteBuffer.wrap("AB".getBytes(StandardCharsets.UTF_16BE)));
+		CharSequenceView view = new CharSequenceView().wrap(buffer, 0, 4, StandardCharsets.UTF_16BE);
+		Assert.assertEquals(2, view.length());
+		Assert.assertEquals("AB", view.toString());
+		
+		buffer = new NioBuffer(ByteBuffer.wrap("AB".getBytes(StandardCharsets.UTF_8)));
+		Assert.assertEquals("AB", view.wrap(buffer, 0, 2, StandardCharsets.UTF_8).toString());
+	}
+}
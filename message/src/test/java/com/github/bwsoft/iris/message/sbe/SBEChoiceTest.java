@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.message.sbe;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.rules.TestWatcher;
+import org.junit.runner.Description;
+
+import com.github.bwsoft.iris.message.Field;
+import com.github.bwsoft.iris.message.GroupObject;
+import com.github.bwsoft.iris.message.SBEMessageSchema;
+
+/**
+ * Test the bit mask methods of choice fields
+ *    1.) Resolve bit names to masks
+ *    2.) Test multiple bits in one call
+ *    3.) Set and clear bits by masks
+ * 
+ * @author yzhou
+ *
+ */
+public class SBEChoiceTest {
+	private static SBEMessageSchema factory;
+	
+	private final static ByteBuffer sbeBuffer = ByteBuffer.allocate(4096);
+	
+	@Rule
+	public TestRule watcher = new TestWatcher() {
+		@Override
+		protected void starting(Description description) {
+			System.out.format("\nCase: %s ...... started\n", description.getMethodName());
+		}
+
+		@Override
+		protected void succeeded(Description description) {
+			System.out.format("Case: %s ...... passed\n", description.getMethodName());
+		}
+
+		@Override
+		protected void failed(Throwable e, Description description) {
+			System.out.format("Case: %s ...... failed!!!!!!\n", description.getMethodName());
+		}
+	};
+	
+	@BeforeClass
+	public static void createSBEMessage() throws Exception {
+		factory = SBEMessageSchema.createSBESchema("src/test/resources/example-schemav4.xml");
+		GroupObject msgObj = factory.createSbeBuffer(1, sbeBuffer, 0);
+		SBEMessageDecoderTest.createMessageForDecoding(msgObj);
+	}
+	
+	@Test
+	public void testMasks() {
+		GroupObject msgObj = factory.wrapSbeBuffer(sbeBuffer, 0);
+		Field extras = msgObj.getField("extras");
+		long sunRoof = extras.getChoiceMask("sunRoof");
+		long sportsPack = extras.getChoiceMask("sportsPack");
+		long cruiseControl = extras.getChoiceMask("cruiseControl");
+		Assert.assertEquals(0x5, extras.getChoiceMask("sunRoof", "cruiseControl"));
+		
+		Assert.assertEquals(0x5, msgObj.getChoices(extras));
+		Assert.assertTrue(msgObj.isSet(extras, sunRoof | cruiseControl));
+		Assert.assertFalse(msgObj.isSet(extras, sunRoof | sportsPack));
+		Assert.assertTrue(msgObj.isAnySet(extras, sunRoof | sportsPack));
+		Assert.assertFalse(msgObj.isAnySet(extras, sportsPack));
+		
+		msgObj.setChoice(extras, sportsPack, true);
+		msgObj.setChoice(extras, sunRoof, false);
+		Assert.assertEquals(0x6, msgObj.getChoices(extras));
+		Assert.assertTrue(msgObj.isSet(extras, "sportsPack"));
+		Assert.assertFalse(msgObj.isSet(extras, "sunRoof"));
+		
+		msgObj.setChoices(extras, 0x5);
+		Assert.assertEquals(0x5, msgObj.getChoices(extras));
+		
+		try {
+			msgObj.getField("serialNumber").getChoiceMask("sunRoof");
+			Assert.fail("not a choice field");
+		} catch( UnsupportedOperationException e ) {
+		}
+		try {
+			extras.getChoiceMask("sunroof");
+			Assert.fail("not a bit name");
+		} catch( IllegalArgumentException e ) {
+		}
+	}
+}
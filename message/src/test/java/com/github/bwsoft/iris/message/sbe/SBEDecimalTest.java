@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.message.sbe;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.rules.TestWatcher;
+import org.junit.runner.Description;
+
+import com.github.bwsoft.iris.message.Field;
+import com.github.bwsoft.iris.message.Group;
+import com.github.bwsoft.iris.message.GroupObject;
+import com.github.bwsoft.iris.message.SBEMessageSchema;
+
+/**
+ * Test decimal composites
+ *    1.) Recognize composites of a mantissa and a constant or variable exponent
+ *    2.) Read a decimal as a mantissa of a target exponent or as a double
+ *    3.) Write a decimal of any exponent
+ *    4.) A null mantissa is read as Long.MIN_VALUE and a mantissa out of the range of its type is rejected
+ * 
+ * @author yzhou
+ *
+ */
+public class SBEDecimalTest {
+	private static SBEMessageSchema factory;
+	
+	private final static ByteBuffer sbeBuffer = ByteBuffer.allocate(4096);
+	
+	@Rule
+	public TestRule watcher = new TestWatcher() {
+		@Override
+		protected void starting(Description description) {
+			System.out.format("\nCase: %s ...... started\n", description.getMethodName());
+		}
+
+		@Override
+		protected void succeeded(Description description) {
+			System.out.format("Case: %s ...... passed\n", description.getMethodName());
+		}
+
+		@Override
+		protected void failed(Throwable e, Description description) {
+			System.out.format("Case: %s ...... failed!!!!!!\n", description.getMethodName());
+		}
+	};
+	
+	@BeforeClass
+	public static void loadSchema() throws Exception {
+		factory = SBEMessageSchema.createSBESchema("src/test/resources/example-schema-decimal.xml");
+	}
+	
+	@Test
+	public void testConstantExponent() {
+		GroupObject msgObj = factory.createSbeBuffer(1, sbeBuffer, 0);
+		Field price = msgObj.getField("price");
+		Assert.assertTrue(price.isDecimal());
+		Assert.assertTrue(msgObj.getField("quantity").isDecimal());
+		Assert.assertFalse(msgObj.getField("maturity").isDecimal());
+		
+		// a new message has a null price
+		Assert.assertTrue(Double.isNaN(msgObj.getDecimalAsDouble(price)));
+		Assert.assertEquals(Long.MIN_VALUE, msgObj.getDecimal(price, -2));
+		Assert.assertEquals(Long.MIN_VALUE, msgObj.getDecimal(price, 2));
+		
+		msgObj.setDecimal(price, 12345, -2);
+		Assert.assertEquals(123450, msgObj.getNumber(((Group) price).getField("mantissa")).longValue());
+		Assert.assertEquals(123.45, msgObj.getDecimalAsDouble(price), 1e-9);
+		Assert.assertEquals(12345, msgObj.getDecimal(price, -2));
+		Assert.assertEquals(1234, msgObj.getDecimal(price, -1));
+		Assert.assertEquals(12345000, msgObj.getDecimal(price, -5));
+		
+		msgObj.setDecimal(price, -5, 2);
+		Assert.assertEquals(-500, msgObj.getDecimalAsDouble(price), 1e-9);
+		Assert.assertEquals(-5, msgObj.getDecimal(price, 2));
+		
+		try {
+			msgObj.setDecimal(price, 1, -4);
+			Assert.fail("digits beyond the constant exponent are lost");
+		} catch( ArithmeticException e ) {
+		}
+		try {
+			msgObj.getDecimal(price, -18);
+			Assert.fail("overflow");
+		} catch( ArithmeticException e ) {
+		}
+		try {
+			msgObj.getDecimal(msgObj.getField("maturity"), 0);
+			Assert.fail("not a decimal field");
+		} catch( IllegalArgumentException e ) {
+		}
+		
+		msgObj.setDecimal(msgObj.getField("quantity"), 300, 0);
+		Assert.assertEquals(3, msgObj.getDecimal(msgObj.getField("quantity"), 2));
+		
+		// the int32 mantissa of quantity
+		try {
+			msgObj.setDecimal(msgObj.getField("quantity"), 1L << 40, 0);
+			Assert.fail("the mantissa overflows an int32");
+		} catch( ArithmeticException e ) {
+		}
+		Assert.assertEquals(300, msgObj.getDecimal(msgObj.getField("quantity"), 0));
+	}
+	
+	@Test
+	public void testVariableExponent() {
+		GroupObject msgObj = factory.createSbeBuffer(1, sbeBuffer, 0);
+		Field yield = msgObj.getField("yield");
+		Assert.assertTrue(yield.isDecimal());
+		
+		msgObj.setDecimal(yield, 4125, -3);
+		Assert.assertEquals(-3, msgObj.getNumber(((Group) yield).getField("exponent")).intValue());
+		Assert.assertEquals(4.125, msgObj.getDecimalAsDouble(yield), 1e-12);
+		Assert.assertEquals(41, msgObj.getDecimal(yield, -1));
+		
+		msgObj = factory.wrapSbeBuffer(sbeBuffer, 0);
+		Assert.assertEquals(4125000, msgObj.getDecimal(yield, -6));
+		msgObj.setDecimal(yield, 7, 1);
+		Assert.assertEquals(70, msgObj.getDecimalAsDouble(yield), 1e-12);
+		
+		// the int8 exponent
+		try {
+			msgObj.setDecimal(yield, 7, 200);
+			Assert.fail("the exponent overflows an int8");
+		} catch( ArithmeticException e ) {
+		}
+		Assert.assertEquals(70, msgObj.getDecimalAsDouble(yield), 1e-12);
+	}
+}
@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.message.sbe;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.rules.TestWatcher;
+import org.junit.runner.Description;
+
+import com.github.bwsoft.iris.message.Field;
+import com.github.bwsoft.iris.message.FieldType;
+import com.github.bwsoft.iris.message.Group;
+import com.github.bwsoft.iris.message.GroupObject;
+import com.github.bwsoft.iris.message.SBEMessageSchema;
+import com.github.bwsoft.iris.util.MessageUtil;
+
+/**
+ * Test the enum lookup by primitive values
+ *    1.) Read and write enum fields by ordinals
+ *    2.) Map an ordinal to a java enum declared in the same order
+ *    3.) Look up values in a dense and in a sparse table
+ *    4.) An optional enum at its null value has no name
+ * 
+ * @author yzhou
+ *
+ */
+public class SBEEnumTest {
+	private static SBEMessageSchema factory;
+	
+	private final static ByteBuffer sbeBuffer = ByteBuffer.allocate(4096);
+	
+	private enum BoostType { TURBO, SUPERCHARGER, NITROUS, KERS }
+	
+	@Rule
+	public TestRule watcher = new TestWatcher() {
+		@Override
+		protected void starting(Description description) {
+			System.out.format("\nCase: %s ...... started\n", description.getMethodName());
+		}
+
+		@Override
+		protected void succeeded(Description description) {
+			System.out.format("Case: %s ...... passed\n", description.getMethodName());
+		}
+
+		@Override
+		protected void failed(Throwable e, Description description) {
+			System.out.format("Case: %s ...... failed!!!!!!\n", description.getMethodName());
+		}
+	};
+	
+	@BeforeClass
+	public static void createSBEMessage() throws Exception {
+		factory = SBEMessageSchema.createSBESchema("src/test/resources/example-schemav4.xml");
+		GroupObject msgObj = factory.createSbeBuffer(1, sbeBuffer, 0);
+		SBEMessageDecoderTest.createMessageForDecoding(msgObj);
+	}
+	
+	@Test
+	public void testOrdinal() {
+		GroupObject msgObj = factory.wrapSbeBuffer(sbeBuffer, 0);
+		Field available = msgObj.getField("available");
+		Field code = msgObj.getField("code");
+		Field boostType = ((Group) msgObj.getField("engine")).getField("booster.BoostType");
+		
+		Assert.assertEquals(1, msgObj.getEnumOrdinal(available));
+		Assert.assertEquals(2, msgObj.getEnumOrdinal(code));
+		Assert.assertEquals("D", ((SBEField) code).getEnumName(2));
+		Assert.assertEquals(BoostType.SUPERCHARGER, BoostType.values()[msgObj.getEnumOrdinal(boostType)]);
+		
+		msgObj.setEnumOrdinal(boostType, BoostType.KERS.ordinal());
+		Assert.assertEquals('K', (char) msgObj.getByte(boostType));
+		Assert.assertEquals("KERS", msgObj.getEnumName(boostType));
+		msgObj.setEnumOrdinal(available, ((SBEField) available).getEnumOrdinal("F"));
+		Assert.assertEquals(0, msgObj.getNumber(available).intValue());
+		Assert.assertEquals("F", msgObj.getEnumName(available));
+		
+		// a value not defined in the schema
+		msgObj.setChar(code, 'Z');
+		Assert.assertEquals(-1, msgObj.getEnumOrdinal(code));
+		msgObj.setChar(code, (char) 0);
+		Assert.assertNull(msgObj.getEnumName(code));
+		
+		try {
+			msgObj.getEnumOrdinal(msgObj.getField("serialNumber"));
+			Assert.fail("not an enum field");
+		} catch( IllegalArgumentException e ) {
+		}
+		
+		msgObj.setEnumOrdinal(available, 1);
+		msgObj.setChar(code, 'C');
+		msgObj.setEnumOrdinal(boostType, BoostType.SUPERCHARGER.ordinal());
+	}
+	
+	@Test
+	public void testLookupTables() {
+		// dense
+		SBEEnumTable table = new SBEEnumTable(FieldType.U8, Arrays.asList("10", "12", "11"), Arrays.asList("a", "c", "b"));
+		Assert.assertEquals(0, table.getOrdinal(10));
+		Assert.assertEquals(2, table.getOrdinal(11));
+		Assert.assertEquals(1, table.getOrdinal(12));
+		Assert.assertEquals(-1, table.getOrdinal(9));
+		Assert.assertEquals(-1, table.getOrdinal(13));
+		Assert.assertEquals("c", table.getName(1));
+		Assert.assertEquals(12, table.getValue(1));
+		
+		// sparse
+		table = new SBEEnumTable(FieldType.I32, Arrays.asList("-100000", "0", "70000", "1000000000"), Arrays.asList("a", "b", "c", "d"));
+		Assert.assertEquals(0, table.getOrdinal(-100000));
+		Assert.assertEquals(1, table.getOrdinal(0));
+		Assert.assertEquals(2, table.getOrdinal(70000));
+		Assert.assertEquals(3, table.getOrdinal(1000000000));
+		Assert.assertEquals(-1, table.getOrdinal(1));
+		Assert.assertEquals(3, table.getOrdinal("d"));
+		Assert.assertEquals(4, table.size());
+	}
+	
+	@Test
+	public void testOptionalEnum() throws Exception {
+		SBEMessageSchema schema = SBEMessageSchema.createSBESchema("src/test/resources/example-schema-optional.xml");
+		GroupObject msgObj = schema.createSbeBuffer(1, ByteBuffer.allocate(256), 0);
+		Field status = msgObj.getField("status");
+		
+		// an optional field is created at its null value
+		Assert.assertEquals(255, msgObj.getNumber(status).intValue());
+		Assert.assertTrue(msgObj.isNull(status));
+		Assert.assertEquals(-1, msgObj.getEnumOrdinal(status));
+		Assert.assertNull(msgObj.getEnumName(status));
+		Assert.assertTrue(MessageUtil.toJsonString(msgObj).contains("\"status\":null"));
+		
+		msgObj.setEnumOrdinal(status, ((SBEField) status).getEnumOrdinal("FILLED"));
+		Assert.assertEquals("FILLED", msgObj.getEnumName(status));
+		
+		// a value not defined in the schema is still invalid
+		msgObj.setNumber(status, 7);
+		try {
+			msgObj.getEnumName(status);
+			Assert.fail("not a valid enum value");
+		} catch( IllegalArgumentException e ) {
+		}
+	}
+}
@@ -0,0 +1,199 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.message.sbe;
+
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.rules.TestWatcher;
+import org.junit.runner.Description;
+
+import com.github.bwsoft.iris.message.FieldAccessor;
+import com.github.bwsoft.iris.message.Group;
+import com.github.bwsoft.iris.message.GroupObject;
+import com.github.bwsoft.iris.message.GroupObjectArray;
+import com.github.bwsoft.iris.message.SBEMessageSchema;
+
+/**
+ * Test the resolved field handles
+ *    1.) Resolve by id and by name path through composite fields, groups and array elements
+ *    2.) Get and set values of the root block and group rows
+ *    3.) Detect the null value of a type
+ *    4.) Reject a handle applied to a GroupObject of another group
+ *    5.) Apply a handle to a message flyweight
+ *    6.) Get and set a field of each number type through a handle specialized for the type
+ * 
+ * @author yzhou
+ *
+ */
+public class SBEFieldAccessorTest {
+	private static SBEMessageSchema factory;
+	private static SBEMessage car;
+	
+	private final static ByteBuffer sbeBuffer = ByteBuffer.allocateDirect(4096);
+	private final static int bufferOffset = 5;
+	
+	@Rule
+	public TestRule watcher = new TestWatcher() {
+		@Override
+		protected void starting(Description description) {
+			System.out.format("\nCase: %s ...... started\n", description.getMethodName());
+		}
+
+		@Override
+		protected void succeeded(Description description) {
+			System.out.format("Case: %s ...... passed\n", description.getMethodName());
+		}
+
+		@Override
+		protected void failed(Throwable e, Description description) {
+			System.out.format("Case: %s ...... failed!!!!!!\n", description.getMethodName());
+		}
+	};
+	
+	@BeforeClass
+	public static void createSBEMessage() throws Exception {
+		factory = SBEMessageSchema.createSBESchema("src/test/resources/example-schemav4.xml");
+		car = factory.getMsgLookup().get(1);
+		GroupObject msgObj = factory.createSbeBuffer(1, sbeBuffer, bufferOffset);
+		SBEMessageDecoderTest.createMessageForDecoding(msgObj);
+	}
+	
+	@Test
+	public void testRootBlock() {
+		FieldAccessor serialNumber = car.getFieldAccessor((short) 1);
+		FieldAccessor modelYear = car.getFieldAccessor("modelYear");
+		FieldAccessor someNumber = car.getFieldAccessor("someNumbers[2]");
+		FieldAccessor capacity = car.getFieldAccessor("engine.capacity");
+		FieldAccessor horsePower = car.getFieldAccessor("engine.booster.horsePower");
+		Assert.assertSame(car, serialNumber.getOwner());
+		
+		GroupObject msgObj = factory.wrapSbeBuffer(sbeBuffer, bufferOffset);
+		Assert.assertEquals(1234, serialNumber.getLong(msgObj));
+		Assert.assertEquals(2013, modelYear.getInt(msgObj));
+		Assert.assertEquals(10, someNumber.getLong(msgObj));
+		Assert.assertEquals(1500, capacity.getInt(msgObj));
+		Assert.assertEquals(3, horsePower.getInt(msgObj));
+		
+		someNumber.putLong(msgObj, 0xfffffffeL);
+		Assert.assertEquals(0xfffffffeL, someNumber.getLong(msgObj));
+		Assert.assertFalse(someNumber.isNull(msgObj));
+		someNumber.putLong(msgObj, 0xffffffffL);
+		Assert.assertTrue(someNumber.isNull(msgObj));
+		someNumber.putInt(msgObj, 10);
+		Assert.assertEquals(10, someNumber.getInt(msgObj));
+	}
+	
+	@Test
+	public void testGroupRows() {
+		FieldAccessor speed = car.getFieldAccessor("fuelFigures.speed");
+		FieldAccessor mpg = car.getFieldAccessor("fuelFigures.mpg");
+		FieldAccessor seconds = car.getFieldAccessor("performanceFigures.acceleration.seconds");
+		
+		GroupObject msgObj = factory.wrapSbeBuffer(sbeBuffer, bufferOffset);
+		GroupObjectArray fuelFigures = msgObj.getGroupArray(msgObj.getField("fuelFigures"));
+		Assert.assertSame(fuelFigures.getDefinition(), speed.getOwner());
+		Assert.assertEquals(30, speed.getInt(fuelFigures.getGroupObject(0)));
+		Assert.assertEquals(49.0, mpg.getDouble(fuelFigures.getGroupObject(1)), 0.001);
+		mpg.putDouble(fuelFigures.getGroupObject(2), Float.NaN);
+		Assert.assertTrue(mpg.isNull(fuelFigures.getGroupObject(2)));
+		
+		GroupObject performance = msgObj.getGroupArray(msgObj.getField("performanceFigures")).getGroupObject(1);
+		GroupObject acceleration = performance.getGroupArray(performance.getField("acceleration")).getGroupObject(2);
+		Assert.assertEquals(8.1, seconds.getDouble(acceleration), 0.001);
+		
+		try {
+			speed.getInt(msgObj);
+			Assert.fail("a handle of a group row is applied to the message");
+		} catch( IllegalArgumentException e ) {
+			// expected
+		}
+	}
+	
+	@Test
+	public void testMessageFlyweight() {
+		SBEMessageFlyweight flyweight = new SBEMessageFlyweight(factory, 1) {
+			{
+				wrapForDecode(sbeBuffer, bufferOffset);
+			}
+		};
+		Assert.assertEquals(1234, car.getFieldAccessor("serialNumber").getLong(flyweight));
+		Assert.assertEquals(2013, car.getFieldAccessor("modelYear").getInt(flyweight));
+		
+		try {
+			car.getFieldAccessor("fuelFigures.speed").getInt(flyweight);
+			Assert.fail("a handle of a group row is applied to the message");
+		} catch( IllegalArgumentException e ) {
+			// expected
+		}
+	}
+		
+	@Test
+	public void testNumberTypes() throws Exception {
+		SBEMessageSchema types = SBEMessageSchema.createSBESchema("src/test/resources/example-schema-types.xml");
+		Group numbers = types.getMsgLookup().get(1);
+		GroupObject msgObj = types.createSbeBuffer(1, ByteBuffer.allocate(256), 0);
+		
+		String[] names = {"i8", "u8", "i16", "u16", "i32", "u32", "i64", "u64"};
+		long[] values = {-5, 200, -300, 60000, -70000, 3000000000L, -1L << 40, -1L};
+		Set<Class<?>> classes = new HashSet<>();
+		for( int i = 0; i < names.length; i ++ ) {
+			FieldAccessor handle = numbers.getFieldAccessor(names[i]);
+			classes.add(handle.getClass());
+			handle.putLong(msgObj, values[i]);
+			Assert.assertEquals(names[i], values[i], handle.getLong(msgObj));
+			Assert.assertEquals(names[i], values[i], msgObj.getNumber(handle.getField()).longValue());
+			
+			msgObj.setNumber(handle.getField(), values[i]/2);
+			Assert.assertEquals(names[i], values[i]/2, handle.getLong(msgObj));
+			Assert.assertEquals(names[i], (double) (values[i]/2), handle.getDouble(msgObj), 0.0);
+		}
+		
+		FieldAccessor f32 = numbers.getFieldAccessor("f32");
+		FieldAccessor f64 = numbers.getFieldAccessor("f64");
+		classes.add(f32.getClass());
+		classes.add(f64.getClass());
+		f32.putDouble(msgObj, 1.5);
+		f64.putDouble(msgObj, 2.25);
+		Assert.assertEquals(1.5f, msgObj.getNumber(f32.getField()));
+		Assert.assertEquals(2.25, msgObj.getNumber(f64.getField()));
+		Assert.assertEquals(1, f32.getLong(msgObj));
+		msgObj.setNumber(f64.getField(), -0.5);
+		Assert.assertEquals(-0.5, f64.getDouble(msgObj), 0.0);
+		
+		// u64 shares the class of i64
+		Assert.assertEquals(9, classes.size());
+	}
+
+	@Test
+	public void testInvalidPath() {
+		String[] paths = {"noSuchField", "engine", "fuelFigures", "vehicleCode", "someNumbers[5]", "modelYear.capacity"};
+		for( String path : paths ) {
+			try {
+				car.getFieldAccessor(path);
+				Assert.fail("path, "+path+", is resolved");
+			} catch( IllegalArgumentException e ) {
+				// expected
+			}
+		}
+	}
+}
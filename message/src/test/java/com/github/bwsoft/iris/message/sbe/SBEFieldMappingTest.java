@@ -0,0 +1,273 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.message.sbe;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.rules.TestWatcher;
+import org.junit.runner.Description;
+
+import com.github.bwsoft.iris.message.Field;
+import com.github.bwsoft.iris.message.FieldMapping;
+import com.github.bwsoft.iris.message.FieldType;
+import com.github.bwsoft.iris.message.Group;
+import com.github.bwsoft.iris.message.GroupObject;
+import com.github.bwsoft.iris.message.GroupObjectArray;
+import com.github.bwsoft.iris.message.SBEMessageSchema;
+import com.github.bwsoft.iris.util.MessageUtil;
+
+/**
+ * Test the compiled field mappings
+ *    1.) Map a message to a message of the same type with adjacent fields merged into block copies
+ *    2.) Map a message to a message of another schema with conversions of types and byte orders
+ *    3.) Reject fields that cannot be mapped
+ *    4.) Reject a value that does not fit its target and keep the null value of a required field
+ *    5.) Convert an uint64 at or above 2^63 to and from a floating point field without the sign
+ * 
+ * @author yzhou
+ *
+ */
+public class SBEFieldMappingTest {
+	@Rule
+	public TestRule watcher = new TestWatcher() {
+		@Override
+		protected void starting(Description description) {
+			System.out.format("\nCase: %s ...... started\n", description.getMethodName());
+		}
+
+		@Override
+		protected void succeeded(Description description) {
+			System.out.format("Case: %s ...... passed\n", description.getMethodName());
+		}
+
+		@Override
+		protected void failed(Throwable e, Description description) {
+			System.out.format("Case: %s ...... failed!!!!!!\n", description.getMethodName());
+		}
+	};
+	
+	@Test
+	public void testSameMessage() throws Exception {
+		SBEMessageSchema schema = SBEMessageSchema.createSBESchema("src/test/resources/example-schemav4.xml");
+		SBEMessage car = schema.getMsgLookup().get(1);
+		GroupObject source = car.createSbeBuffer(ByteBuffer.allocate(4096), 0);
+		SBEMessageDecoderTest.createMessageForDecoding(source);
+		
+		SBEFieldMappingBuilder builder = new SBEFieldMappingBuilder(car, car);
+		for( Field field : car.getFields() ) {
+			if( FieldType.CONSTANT != field.getType() ) {
+				builder.map(field.getName());
+			}
+		}
+		SBEFieldMapping mapping = (SBEFieldMapping) builder.compile();
+		
+		// serialNumber and modelYear, available, and the fields from code to engine
+		Assert.assertEquals(3, mapping.getNumOfCopies());
+		
+		// the target has more rows than the source in a group
+		GroupObject target = car.createSbeBuffer(new SBEMessageContext(), ByteBuffer.allocateDirect(4096), 0);
+		target.getGroupArray(car.getField("fuelFigures")).addGroupObjects(5);
+		mapping.apply(source, target);
+		Assert.assertEquals(3, target.getGroupArray(car.getField("fuelFigures")).getNumOfGroups());
+		Assert.assertEquals(MessageUtil.toJsonString(source), MessageUtil.toJsonString(target));
+	}
+	
+	@Test
+	public void testAcrossSchemas() throws Exception {
+		SBEMessageSchema orderSchema = SBEMessageSchema.createSBESchema("src/test/resources/example-schema-optional.xml");
+		SBEMessageSchema reportSchema = SBEMessageSchema.createSBESchema("src/test/resources/example-schema-mapping.xml");
+		SBEMessage order = orderSchema.getMsgLookup().get(1);
+		SBEMessage report = reportSchema.getMsgLookup().get(1);
+		
+		GroupObject orderObj = order.createSbeBuffer(ByteBuffer.allocate(1024), 0);
+		orderObj.setNumber(order.getField("orderId"), 7);
+		orderObj.setNumber(order.getField("price"), 12345);
+		orderObj.setNumber(order.getField("quantity"), 100);
+		orderObj.setByte(order.getField("side"), (byte) 'B');
+		orderObj.setNumber(order.getField("yield"), 1.5);
+		orderObj.setNumbers(order.getField("sizes"), new Number[] {1, 2, 65535}, 0, 3);
+		Group range = (Group) order.getField("range");
+		orderObj.setNumber(range.getField("high"), 9);
+		GroupObjectArray fills = orderObj.getGroupArray(order.getField("fills"));
+		Group fill = (Group) order.getField("fills");
+		fills.addGroupObject().setNumber(fill.getField("fillQuantity"), 10);
+		GroupObject secondFill = fills.addGroupObject();
+		secondFill.setNumber(fill.getField("fillPrice"), 101);
+		secondFill.setNumber(fill.getField("fillQuantity"), 20);
+		
+		SBEFieldMapping mapping = (SBEFieldMapping) new SBEFieldMappingBuilder(order, report)
+				.map("orderId")
+				.map("price", "lastPx")
+				.map("quantity", "lastQty")
+				.map("side")
+				.map("yield")
+				.map("sizes")
+				.map("range")
+				.map("fills.fillPrice", "executions.price")
+				.map("fills.fillQuantity", "executions.quantity")
+				.compile();
+		
+		// only the char is copied as bytes since the byte orders are different
+		Assert.assertEquals(1, mapping.getNumOfCopies());
+		
+		GroupObject reportObj = report.createSbeBuffer(ByteBuffer.allocate(1024), 0);
+		mapping.apply(orderObj, reportObj);
+		Assert.assertEquals(7, reportObj.getLong(report.getField("orderId")));
+		Assert.assertEquals(12345, reportObj.getLong(report.getField("lastPx")));
+		Assert.assertEquals(100, reportObj.getLong(report.getField("lastQty")));
+		Assert.assertEquals('B', reportObj.getByte(report.getField("side")));
+		Assert.assertEquals(1.5, reportObj.getFloat(report.getField("yield")), 0.0001);
+		long sizes[] = new long[3];
+		reportObj.getU32Array(report.getField("sizes"), sizes, 0, 3);
+		Assert.assertArrayEquals(new long[] {1, 2, 0xffffffffL}, sizes);
+		Group reportRange = (Group) report.getField("range");
+		Assert.assertTrue(reportObj.isNull(reportRange.getField("low")));
+		Assert.assertEquals(9, reportObj.getInt(reportRange.getField("high")));
+		
+		GroupObjectArray executions = reportObj.getGroupArray(report.getField("executions"));
+		Group execution = (Group) report.getField("executions");
+		Assert.assertEquals(2, executions.getNumOfGroups());
+		Assert.assertTrue(executions.getGroupObject(0).isNull(execution.getField("price")));
+		Assert.assertEquals(10, executions.getGroupObject(0).getLong(execution.getField("quantity")));
+		Assert.assertEquals(101, executions.getGroupObject(1).getLong(execution.getField("price")));
+		Assert.assertEquals(20, executions.getGroupObject(1).getLong(execution.getField("quantity")));
+		
+		// a null source is mapped to a null target
+		orderObj.setNull(order.getField("price"));
+		mapping.apply(orderObj, reportObj);
+		Assert.assertTrue(reportObj.isNull(report.getField("lastPx")));
+	}
+	
+	@Test
+	public void testLossyConversions() throws Exception {
+		SBEMessageSchema orderSchema = SBEMessageSchema.createSBESchema("src/test/resources/example-schema-optional.xml");
+		SBEMessageSchema reportSchema = SBEMessageSchema.createSBESchema("src/test/resources/example-schema-mapping.xml");
+		SBEMessage order = orderSchema.getMsgLookup().get(1);
+		SBEMessage report = reportSchema.getMsgLookup().get(1);
+		GroupObject orderObj = order.createSbeBuffer(ByteBuffer.allocate(1024), 0);
+		GroupObject reportObj = report.createSbeBuffer(ByteBuffer.allocate(1024), 0);
+		
+		// the null value of a required int32 is an ordinary value
+		FieldMapping mapping = new SBEFieldMappingBuilder(order, report).map("range.high", "lastQty").compile();
+		orderObj.setNumber(((Group) order.getField("range")).getField("high"), Integer.MIN_VALUE);
+		mapping.apply(orderObj, reportObj);
+		Assert.assertEquals(Integer.MIN_VALUE, reportObj.getLong(report.getField("lastQty")));
+		
+		// a double to an int64
+		mapping = new SBEFieldMappingBuilder(order, report).map("yield", "lastQty").compile();
+		orderObj.setNumber(order.getField("yield"), 2.0);
+		mapping.apply(orderObj, reportObj);
+		Assert.assertEquals(2, reportObj.getLong(report.getField("lastQty")));
+		orderObj.setNumber(order.getField("yield"), 1.5);
+		try {
+			mapping.apply(orderObj, reportObj);
+			Assert.fail("a fraction is mapped to an integer");
+		} catch( ArithmeticException e ) {
+		}
+		
+		// an int64 to an int32
+		mapping = new SBEFieldMappingBuilder(order, report).map("price", "range.low").compile();
+		orderObj.setNumber(order.getField("price"), 1L << 40);
+		try {
+			mapping.apply(orderObj, reportObj);
+			Assert.fail("the value overflows an int32");
+		} catch( ArithmeticException e ) {
+		}
+		
+		// an uint64 to an int64
+		mapping = new SBEFieldMappingBuilder(order, report).map("orderId", "lastQty").compile();
+		orderObj.setNumber(order.getField("orderId"), -2L);
+		try {
+			mapping.apply(orderObj, reportObj);
+			Assert.fail("the value overflows an int64");
+		} catch( ArithmeticException e ) {
+		}
+	}
+	
+	@Test
+	public void testLargeUnsigned() throws Exception {
+		SBEMessageSchema orderSchema = SBEMessageSchema.createSBESchema("src/test/resources/example-schema-optional.xml");
+		SBEMessageSchema reportSchema = SBEMessageSchema.createSBESchema("src/test/resources/example-schema-mapping.xml");
+		SBEMessage order = orderSchema.getMsgLookup().get(1);
+		SBEMessage report = reportSchema.getMsgLookup().get(1);
+		GroupObject orderObj = order.createSbeBuffer(ByteBuffer.allocate(1024), 0);
+		GroupObject reportObj = report.createSbeBuffer(ByteBuffer.allocate(1024), 0);
+		
+		// an uint64 to a float and to a double
+		orderObj.setNumber(order.getField("orderId"), -2048L);
+		new SBEFieldMappingBuilder(order, report).map("orderId", "yield").compile().apply(orderObj, reportObj);
+		Assert.assertEquals(0x1p64f, reportObj.getNumber(report.getField("yield")).floatValue(), 0.0f);
+		reportObj.setNumber(report.getField("orderId"), Long.MIN_VALUE+1);
+		new SBEFieldMappingBuilder(report, order).map("orderId", "yield").compile().apply(reportObj, orderObj);
+		Assert.assertEquals(0x1p63, orderObj.getNumber(order.getField("yield")).doubleValue(), 0.0);
+		
+		// a double to an uint64
+		FieldMapping mapping = new SBEFieldMappingBuilder(order, report).map("yield", "orderId").compile();
+		orderObj.setNumber(order.getField("yield"), 0x1p64-2048);
+		mapping.apply(orderObj, reportObj);
+		Assert.assertEquals("18446744073709549568", Long.toUnsignedString(reportObj.getLong(report.getField("orderId"))));
+		orderObj.setNumber(order.getField("yield"), 0x1p63);
+		mapping.apply(orderObj, reportObj);
+		Assert.assertEquals(Long.MIN_VALUE, reportObj.getLong(report.getField("orderId")));
+		orderObj.setNumber(order.getField("yield"), 0x1p64);
+		try {
+			mapping.apply(orderObj, reportObj);
+			Assert.fail("the value overflows an uint64");
+		} catch( ArithmeticException e ) {
+		}
+		
+		// a double of 2^63 overflows an int64
+		mapping = new SBEFieldMappingBuilder(order, report).map("yield", "lastQty").compile();
+		orderObj.setNumber(order.getField("yield"), 0x1p63);
+		try {
+			mapping.apply(orderObj, reportObj);
+			Assert.fail("the value overflows an int64");
+		} catch( ArithmeticException e ) {
+		}
+	}
+	
+	@Test
+	public void testInvalidMappings() throws Exception {
+		SBEMessageSchema orderSchema = SBEMessageSchema.createSBESchema("src/test/resources/example-schema-optional.xml");
+		SBEMessageSchema reportSchema = SBEMessageSchema.createSBESchema("src/test/resources/example-schema-mapping.xml");
+		SBEMessage order = orderSchema.getMsgLookup().get(1);
+		SBEMessage report = reportSchema.getMsgLookup().get(1);
+		
+		String[][] invalid = {
+			{"range", "orderId"},
+			{"fills", "orderId"},
+			{"fills.fillPrice", "lastPx"},
+			{"unknown", "orderId"}
+		};
+		for( String[] pair : invalid ) {
+			try {
+				new SBEFieldMappingBuilder(order, report).map(pair[0], pair[1]).compile();
+				Assert.fail("field, "+pair[0]+", is mapped to field, "+pair[1]);
+			} catch( IllegalArgumentException e ) {
+			}
+		}
+		
+		try {
+			new SBEFieldMappingBuilder(order, report).map("orderId").map("quantity", "orderId");
+			Assert.fail("a field is mapped twice");
+		} catch( IllegalArgumentException e ) {
+		}
+	}
+}
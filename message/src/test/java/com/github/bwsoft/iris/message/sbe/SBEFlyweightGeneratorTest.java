@@ -0,0 +1,279 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.message.sbe;
+
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.rules.TestWatcher;
+import org.junit.runner.Description;
+
+import com.github.bwsoft.iris.message.GroupObject;
+import com.github.bwsoft.iris.message.SBEMessageSchema;
+
+/**
+ * Test the generated flyweight codecs
+ *    1.) Generate the source of the codecs
+ *    2.) Compile the source and decode a message through the typed methods
+ *    3.) Encode a message and access it through the GroupObject methods of the encoder
+ *    4.) Encode rows of groups and variable length fields through the nested encoders
+ *    5.) A field added in a later version is absent in a message of an earlier version
+ *
+ * @author yzhou
+ *
+ */
+public class SBEFlyweightGeneratorTest {
+	private static SBEMessageSchema factory;
+
+	private final static ByteBuffer sbeBuffer = ByteBuffer.allocateDirect(4096);
+	private final static int bufferOffset = 7;
+
+	@Rule
+	public TestRule watcher = new TestWatcher() {
+		@Override
+		protected void starting(Description description) {
+			System.out.format("\nCase: %s ...... started\n", description.getMethodName());
+		}
+
+		@Override
+		protected void succeeded(Description description) {
+			System.out.format("Case: %s ...... passed\n", description.getMethodName());
+		}
+
+		@Override
+		protected void failed(Throwable e, Description description) {
+			System.out.format("Case: %s ...... failed!!!!!!\n", description.getMethodName());
+		}
+	};
+
+	@BeforeClass
+	public static void createSBEMessage() throws Exception {
+		factory = SBEMessageSchema.createSBESchema("src/test/resources/example-schemav4.xml");
+		GroupObject msgObj = factory.createSbeBuffer(1, sbeBuffer, bufferOffset);
+		SBEMessageDecoderTest.createMessageForDecoding(msgObj);
+	}
+
+	@Test
+	public void testGenerateSource() {
+		SBEFlyweightGenerator generator = new SBEFlyweightGenerator(factory, "codec");
+		SBEMessage car = factory.getMsgLookup().get(1);
+
+		String decoder = generator.generateDecoder(car);
+		Assert.assertTrue(decoder.contains("public class CarDecoder extends SBEMessageFlyweight"));
+		Assert.assertTrue(decoder.contains("public long serialNumber()"));
+		Assert.assertTrue(decoder.contains("public int modelYear()"));
+		Assert.assertTrue(decoder.contains("public long someNumbers(int index)"));
+		Assert.assertTrue(decoder.contains("public int getVehicleCode(byte[] dest, int destOffset, int length)"));
+		Assert.assertTrue(decoder.contains("public String engineMaxRpm()"));
+		Assert.assertTrue(decoder.contains("public char engineBoosterBoostType()"));
+		Assert.assertTrue(decoder.contains("public static class FuelFiguresDecoder extends SBEGroupFlyweight"));
+		Assert.assertTrue(decoder.contains("public static class PerformanceFiguresAccelerationDecoder extends SBEGroupFlyweight"));
+		Assert.assertTrue(decoder.contains("public int makeLength()"));
+
+		String encoder = generator.generateEncoder(car);
+		Assert.assertTrue(encoder.contains("public class CarEncoder extends SBEMessageFlyweight"));
+		Assert.assertTrue(encoder.contains("public CarEncoder serialNumber(long value)"));
+		Assert.assertFalse(encoder.contains("engineMaxRpm"));
+		Assert.assertTrue(encoder.contains("public FuelFiguresEncoder fuelFigures()"));
+		Assert.assertTrue(encoder.contains("public static class PerformanceFiguresAccelerationEncoder extends SBEGroupArrayFlyweight"));
+		Assert.assertTrue(encoder.contains("public FuelFiguresEncoder putUsageDescription(byte[] src, int srcOffset, int length)"));
+		Assert.assertTrue(encoder.contains("public CarEncoder putMake(byte[] src, int srcOffset, int length)"));
+	}
+
+	@Test
+	public void testGeneratedCodec() throws Exception {
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		Assume.assumeNotNull(compiler);
+
+		File dir = Files.createTempDirectory("iris-codec").toFile();
+		List<String> args = new ArrayList<>();
+		args.add("-d");
+		args.add(dir.getPath());
+		args.add("-classpath");
+		args.add(new File(SBEMessageFlyweight.class.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath());
+		for( File file : new SBEFlyweightGenerator(factory, "codec").generate(dir) ) {
+			args.add(file.getPath());
+		}
+		Assert.assertEquals(0, compiler.run(null, null, null, args.toArray(new String[0])));
+
+		try( URLClassLoader loader = new URLClassLoader(new URL[] {dir.toURI().toURL()}, getClass().getClassLoader()) ) {
+			// decode
+			Class<?> decoderClass = loader.loadClass("codec.CarDecoder");
+			Object decoder = decoderClass.getConstructor(SBEMessageSchema.class).newInstance(factory);
+			decoderClass.getMethod("wrap", ByteBuffer.class, int.class).invoke(decoder, sbeBuffer, bufferOffset);
+			Assert.assertEquals(1234L, decoderClass.getMethod("serialNumber").invoke(decoder));
+			Assert.assertEquals(2013, decoderClass.getMethod("modelYear").invoke(decoder));
+			Assert.assertEquals(10L, decoderClass.getMethod("someNumbers", int.class).invoke(decoder, 2));
+			Assert.assertEquals(1500, decoderClass.getMethod("engineCapacity").invoke(decoder));
+			Assert.assertEquals('S', decoderClass.getMethod("engineBoosterBoostType").invoke(decoder));
+			Assert.assertEquals("9000", decoderClass.getMethod("engineMaxRpm").invoke(decoder));
+			byte[] value = new byte[32];
+			int length = (Integer) decoderClass.getMethod("getMake", byte[].class, int.class, int.class).invoke(decoder, value, 0, value.length);
+			Assert.assertEquals("Honda", new String(value, 0, length));
+
+			Object fuelFigures = decoderClass.getMethod("fuelFigures").invoke(decoder);
+			Method next = fuelFigures.getClass().getMethod("next");
+			Method speed = fuelFigures.getClass().getMethod("speed");
+			int speedExpected[] = {30,55,75};
+			int i = 0;
+			while( (Boolean) next.invoke(fuelFigures) ) {
+				Assert.assertEquals(speedExpected[i++], speed.invoke(fuelFigures));
+			}
+			Assert.assertEquals(3, i);
+
+			// the decoder is also a GroupObject
+			GroupObject msgObj = (GroupObject) decoder;
+			Assert.assertEquals(factory.wrapSbeBuffer(sbeBuffer, bufferOffset).getSize(), msgObj.getSize());
+			Assert.assertEquals(3, msgObj.getGroupArray(msgObj.getField("fuelFigures")).getNumOfGroups());
+
+			// encode
+			ByteBuffer buffer = ByteBuffer.allocate(1024);
+			Class<?> encoderClass = loader.loadClass("codec.CarEncoder");
+			Object encoder = encoderClass.getConstructor(SBEMessageSchema.class).newInstance(factory);
+			encoderClass.getMethod("create", ByteBuffer.class, int.class).invoke(encoder, buffer, 0);
+			encoderClass.getMethod("serialNumber", long.class).invoke(encoder, 4321L);
+			encoderClass.getMethod("someNumbers", int.class, long.class).invoke(encoder, 4, 0xfffffffeL);
+			msgObj = (GroupObject) encoder;
+			msgObj.setBytes(msgObj.getField("make"), "Acura".getBytes(), 0, 5);
+
+			decoderClass.getMethod("wrap", ByteBuffer.class, int.class).invoke(decoder, buffer, 0);
+			Assert.assertEquals(4321L, decoderClass.getMethod("serialNumber").invoke(decoder));
+			Assert.assertEquals(0xfffffffeL, decoderClass.getMethod("someNumbers", int.class).invoke(decoder, 4));
+			Assert.assertEquals(5, decoderClass.getMethod("makeLength").invoke(decoder));
+
+			// encode rows through the nested encoders
+			Object rows = encoderClass.getMethod("fuelFigures").invoke(encoder);
+			Method add = rows.getClass().getMethod("add");
+			Method setSpeed = rows.getClass().getMethod("speed", int.class);
+			setSpeed.invoke(add.invoke(rows), 40);
+			setSpeed.invoke(add.invoke(rows), 80);
+			byte[] usage = "city".getBytes();
+			rows.getClass().getMethod("putUsageDescription", byte[].class, int.class, int.class).invoke(rows, usage, 0, usage.length);
+			setSpeed.invoke(rows.getClass().getMethod("row", int.class).invoke(rows, 0), 45);
+			rows = encoderClass.getMethod("performanceFigures").invoke(encoder);
+			rows.getClass().getMethod("add").invoke(rows);
+			Object accelerations = rows.getClass().getMethod("acceleration").invoke(rows);
+			accelerations.getClass().getMethod("add").invoke(accelerations);
+			accelerations.getClass().getMethod("mph", int.class).invoke(accelerations, 60);
+			byte[] model = "TLX".getBytes();
+			encoderClass.getMethod("putModel", byte[].class, int.class, int.class).invoke(encoder, model, 0, model.length);
+
+			decoderClass.getMethod("wrap", ByteBuffer.class, int.class).invoke(decoder, buffer, 0);
+			fuelFigures = decoderClass.getMethod("fuelFigures").invoke(decoder);
+			next = fuelFigures.getClass().getMethod("next");
+			speed = fuelFigures.getClass().getMethod("speed");
+			Assert.assertEquals(2, fuelFigures.getClass().getMethod("count").invoke(fuelFigures));
+			Assert.assertTrue((Boolean) next.invoke(fuelFigures));
+			Assert.assertEquals(45, speed.invoke(fuelFigures));
+			Assert.assertTrue((Boolean) next.invoke(fuelFigures));
+			Assert.assertEquals(80, speed.invoke(fuelFigures));
+			length = (Integer) fuelFigures.getClass().getMethod("getUsageDescription", byte[].class, int.class, int.class).invoke(fuelFigures, value, 0, value.length);
+			Assert.assertEquals("city", new String(value, 0, length));
+			Object performanceFigures = decoderClass.getMethod("performanceFigures").invoke(decoder);
+			performanceFigures.getClass().getMethod("next").invoke(performanceFigures);
+			accelerations = performanceFigures.getClass().getMethod("acceleration").invoke(performanceFigures);
+			accelerations.getClass().getMethod("next").invoke(accelerations);
+			Assert.assertEquals(60, accelerations.getClass().getMethod("mph").invoke(accelerations));
+			length = (Integer) decoderClass.getMethod("getModel", byte[].class, int.class, int.class).invoke(decoder, value, 0, value.length);
+			Assert.assertEquals("TLX", new String(value, 0, length));
+			Assert.assertEquals("Acura", ((GroupObject) decoder).getString(((GroupObject) decoder).getField("make")));
+		}
+	}
+
+	@Test
+	public void testVersionedCodec() throws Exception {
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		Assume.assumeNotNull(compiler);
+
+		SBEMessageSchema versioned = SBEMessageSchema.createSBESchema("src/test/resources/example-schema-versioned.xml");
+		String decoder = new SBEFlyweightGenerator(versioned, "versioned").generateDecoder(versioned.getMsgLookup().get(1));
+		Assert.assertTrue(decoder.contains("if( ! isPresentAt(1, 10) )"));
+
+		File dir = Files.createTempDirectory("iris-codec").toFile();
+		List<String> args = new ArrayList<>();
+		args.add("-d");
+		args.add(dir.getPath());
+		args.add("-classpath");
+		args.add(new File(SBEMessageFlyweight.class.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath());
+		for( File file : new SBEFlyweightGenerator(versioned, "versioned").generate(dir) ) {
+			args.add(file.getPath());
+		}
+		Assert.assertEquals(0, compiler.run(null, null, null, args.toArray(new String[0])));
+
+		// a message encoded in version 0 of the schema
+		ByteBuffer buffer = ByteBuffer.allocate(256).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putShort((short) 8).putShort((short) 1).putShort((short) 2).putShort((short) 0);
+		buffer.putLong(1234);
+		buffer.putShort((short) 2).put((byte) 1);
+		buffer.putShort((short) 30);
+		buffer.put((byte) 5).put("Honda".getBytes());
+
+		try( URLClassLoader loader = new URLClassLoader(new URL[] {dir.toURI().toURL()}, getClass().getClassLoader()) ) {
+			Class<?> decoderClass = loader.loadClass("versioned.CarDecoder");
+			Object carDecoder = decoderClass.getConstructor(SBEMessageSchema.class).newInstance(versioned);
+			decoderClass.getMethod("wrap", ByteBuffer.class, int.class).invoke(carDecoder, buffer, 0);
+			Assert.assertEquals(1234L, decoderClass.getMethod("serialNumber").invoke(carDecoder));
+			Assert.assertEquals(0xffff, decoderClass.getMethod("modelYear").invoke(carDecoder));
+			Object fuelFigures = decoderClass.getMethod("fuelFigures").invoke(carDecoder);
+			fuelFigures.getClass().getMethod("next").invoke(fuelFigures);
+			Assert.assertEquals(30, fuelFigures.getClass().getMethod("speed").invoke(fuelFigures));
+			Assert.assertTrue(Float.isNaN((Float) fuelFigures.getClass().getMethod("mpg").invoke(fuelFigures)));
+			Object extras = decoderClass.getMethod("extras").invoke(carDecoder);
+			Assert.assertEquals(0, extras.getClass().getMethod("count").invoke(extras));
+
+			Class<?> encoderClass = loader.loadClass("versioned.CarEncoder");
+			Object encoder = encoderClass.getConstructor(SBEMessageSchema.class).newInstance(versioned);
+			encoderClass.getMethod("wrap", ByteBuffer.class, int.class).invoke(encoder, buffer, 0);
+			try {
+				encoderClass.getMethod("modelYear", int.class).invoke(encoder, 2013);
+				Assert.fail("modelYear is absent in version 0");
+			} catch( InvocationTargetException e ) {
+				Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+			}
+			Object rows = encoderClass.getMethod("fuelFigures").invoke(encoder);
+			rows.getClass().getMethod("row", int.class).invoke(rows, 0);
+			try {
+				rows.getClass().getMethod("mpg", float.class).invoke(rows, 40.0f);
+				Assert.fail("mpg is absent in version 0");
+			} catch( InvocationTargetException e ) {
+				Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+			}
+			try {
+				encoderClass.getMethod("extras").invoke(encoder);
+				Assert.fail("extras is absent in version 0");
+			} catch( InvocationTargetException e ) {
+				Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+			}
+		}
+	}
+}
@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.message.sbe;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.rules.TestWatcher;
+import org.junit.runner.Description;
+
+import com.github.bwsoft.iris.message.Field;
+import com.github.bwsoft.iris.message.Group;
+import com.github.bwsoft.iris.message.GroupObject;
+import com.github.bwsoft.iris.message.GroupObjectArray;
+import com.github.bwsoft.iris.message.SBEMessageSchema;
+
+/**
+ * Test the columnar access of a field across all rows of a group
+ *    1.) Get and set a field of a group that contains a variable length field
+ *    2.) Get and set a field of a group that rows are of a fixed size
+ *    3.) Reject a field that is not a number or does not belong to the group
+ * 
+ * @author yzhou
+ *
+ */
+public class SBEGroupColumnTest {
+	private SBEMessageSchema factory;
+	private GroupObject msgObj;
+	
+	private final ByteBuffer sbeBuffer = ByteBuffer.allocate(4096);
+	private final int bufferOffset = 3;
+	
+	@Rule
+	public TestRule watcher = new TestWatcher() {
+		@Override
+		protected void starting(Description description) {
+			System.out.format("\nCase: %s ...... started\n", description.getMethodName());
+		}
+
+		@Override
+		protected void succeeded(Description description) {
+			System.out.format("Case: %s ...... passed\n", description.getMethodName());
+		}
+
+		@Override
+		protected void failed(Throwable e, Description description) {
+			System.out.format("Case: %s ...... failed!!!!!!\n", description.getMethodName());
+		}
+	};
+	
+	@Before
+	public void createSBEMessage() throws Exception {
+		factory = SBEMessageSchema.createSBESchema("src/test/resources/example-schemav4.xml");
+		msgObj = factory.createSbeBuffer(1, sbeBuffer, bufferOffset);
+		SBEMessageDecoderTest.createMessageForDecoding(msgObj);
+	}
+	
+	@Test
+	public void testVariableSizeRows() {
+		Group fuelFigures = (Group) msgObj.getField("fuelFigures");
+		GroupObjectArray rows = msgObj.getGroupArray(fuelFigures);
+		
+		int[] speed = new int[5];
+		Assert.assertEquals(3, rows.getInts(fuelFigures.getField("speed"), speed, 1, 4));
+		Assert.assertArrayEquals(new int[] {0, 30, 55, 75, 0}, speed);
+		
+		double[] mpg = new double[3];
+		Assert.assertEquals(3, rows.getDoubles(fuelFigures.getField("mpg"), mpg, 0, 3));
+		Assert.assertArrayEquals(new double[] {35.9, 49.0, 40.0}, mpg, 0.001);
+		
+		Assert.assertEquals(2, rows.setLongs(fuelFigures.getField("speed"), new long[] {20, 40}, 0, 2));
+		Assert.assertEquals(20, rows.getGroupObject(0).getNumber(fuelFigures.getField("speed")).intValue());
+		Assert.assertEquals(40, rows.getGroupObject(1).getNumber(fuelFigures.getField("speed")).intValue());
+		Assert.assertEquals(75, rows.getGroupObject(2).getNumber(fuelFigures.getField("speed")).intValue());
+	}
+	
+	@Test
+	public void testFixedSizeRows() {
+		Group performanceFigures = (Group) msgObj.getField("performanceFigures");
+		GroupObject performance = msgObj.getGroupArray(performanceFigures).getGroupObject(1);
+		Group acceleration = (Group) performanceFigures.getField("acceleration");
+		GroupObjectArray rows = performance.getGroupArray(acceleration);
+		
+		long[] mph = new long[3];
+		Assert.assertEquals(3, rows.getLongs(acceleration.getField("mph"), mph, 0, 8));
+		Assert.assertArrayEquals(new long[] {40, 80, 90}, mph);
+		
+		Assert.assertEquals(3, rows.setDoubles(acceleration.getField("seconds"), new double[] {1.5, 2.5, 3.5}, 0, 3));
+		Assert.assertEquals(3, rows.setInts(acceleration.getField("mph"), new int[] {10, 20, 30}, 0, 3));
+		for( int i = 0; i < 3; i ++ ) {
+			GroupObject row = rows.getGroupObject(i);
+			Assert.assertEquals(10*(i+1), row.getNumber(acceleration.getField("mph")).intValue());
+			Assert.assertEquals(1.5+i, row.getNumber(acceleration.getField("seconds")).doubleValue(), 0.001);
+		}
+		
+		// the other row is untouched
+		GroupObject other = msgObj.getGroupArray(performanceFigures).getGroupObject(0);
+		Assert.assertEquals(30, other.getGroupArray(acceleration).getGroupObject(0).getNumber(acceleration.getField("mph")).intValue());
+	}
+	
+	@Test
+	public void testInvalidField() {
+		Group fuelFigures = (Group) msgObj.getField("fuelFigures");
+		GroupObjectArray rows = msgObj.getGroupArray(fuelFigures);
+		Field[] fields = {fuelFigures.getField("usageDescription"), msgObj.getField("serialNumber")};
+		for( Field field : fields ) {
+			try {
+				rows.getLongs(field, new long[3], 0, 3);
+				Assert.fail("field, "+field.getName()+", is accepted");
+			} catch( IllegalArgumentException e ) {
+				// expected
+			}
+		}
+	}
+}
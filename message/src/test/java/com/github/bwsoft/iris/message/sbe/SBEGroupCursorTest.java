@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.message.sbe;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.rules.TestWatcher;
+import org.junit.runner.Description;
+
+import com.github.bwsoft.iris.message.Group;
+import com.github.bwsoft.iris.message.GroupCursor;
+import com.github.bwsoft.iris.message.GroupObject;
+import com.github.bwsoft.iris.message.MessageCursor;
+import com.github.bwsoft.iris.message.SBEMessageSchema;
+
+/**
+ * Test the flyweight cursor
+ *    1.) Read fields of the root block
+ *    2.) Iterate rows of groups and nested groups
+ *    3.) Read variable length fields in the root and in group rows
+ *    4.) Re-point the same cursor to another message
+ *
+ * @author yzhou
+ *
+ */
+public class SBEGroupCursorTest {
+	private static SBEMessageSchema factory;
+
+	private final static ByteBuffer sbeBuffer = ByteBuffer.allocateDirect(4096);
+	private final static int bufferOffset[] = new int[2];
+
+	@Rule
+	public TestRule watcher = new TestWatcher() {
+		@Override
+		protected void starting(Description description) {
+			System.out.format("\nCase: %s ...... started\n", description.getMethodName());
+		}
+
+		@Override
+		protected void succeeded(Description description) {
+			System.out.format("Case: %s ...... passed\n", description.getMethodName());
+		}
+
+		@Override
+		protected void failed(Throwable e, Description description) {
+			System.out.format("Case: %s ...... failed!!!!!!\n", description.getMethodName());
+		}
+	};
+
+	@BeforeClass
+	public static void createSBEMessage() throws Exception {
+		factory = SBEMessageSchema.createSBESchema("src/test/resources/example-schemav4.xml");
+		bufferOffset[0] = 11;
+		GroupObject msgObj = factory.createSbeBuffer(1, sbeBuffer, bufferOffset[0]);
+		SBEMessageDecoderTest.createMessageForDecoding(msgObj);
+
+		bufferOffset[1] = bufferOffset[0] + msgObj.getSize() + ((SBEMessage) msgObj.getDefinition()).getHeader().getSize();
+		factory.createSbeBuffer(1, sbeBuffer, bufferOffset[1]);
+	}
+
+	@Test
+	public void testIterateMessage() {
+		MessageCursor car = factory.createCursor(1);
+		Group carDef = car.getDefinition();
+		car.wrap(sbeBuffer, bufferOffset[0]);
+
+		Assert.assertEquals(0, car.getRowIndex());
+		Assert.assertFalse(car.hasNext());
+		Assert.assertEquals(1234, car.getLong(carDef.getField("serialNumber")));
+		Assert.assertEquals(2013, car.getU16(carDef.getField("modelYear")));
+
+		// a group with a variable length field in each row
+		Group fuelFigures = (Group) carDef.getField("fuelFigures");
+		GroupCursor fuelFiguresCursor = car.getGroupCursor(fuelFigures);
+		Assert.assertEquals(3, fuelFiguresCursor.getNumOfRows());
+		int speedExpected[] = {30,55,75};
+		float mpgExpected[] = {35.9f, 49.0f, 40.0f};
+		int i = 0;
+		while( fuelFiguresCursor.next() ) {
+			Assert.assertEquals(speedExpected[i], fuelFiguresCursor.getU16(fuelFigures.getField("speed")));
+			Assert.assertEquals(mpgExpected[i], fuelFiguresCursor.getFloat(fuelFigures.getField("mpg")), 0.001f);
+			i ++;
+		}
+		Assert.assertEquals(3, i);
+
+		// nested groups
+		Group performanceFigures = (Group) carDef.getField("performanceFigures");
+		Group acceleration = (Group) performanceFigures.getField("acceleration");
+		GroupCursor performanceCursor = car.getGroupCursor(performanceFigures);
+		int octaneRating[] = {95,99};
+		int mph[][] = {{30,60,100},{40,80, 90}};
+		float seconds[][] = {{4.0f, 7.5f, 12.2f},{3.8f,7.1f,8.1f}};
+		while( performanceCursor.next() ) {
+			int row = performanceCursor.getRowIndex();
+			Assert.assertEquals(octaneRating[row], performanceCursor.getByte(performanceFigures.getField("octaneRating")));
+			GroupCursor accelerationCursor = performanceCursor.getGroupCursor(acceleration);
+			Assert.assertEquals(3, accelerationCursor.getNumOfRows());
+			while( accelerationCursor.next() ) {
+				int j = accelerationCursor.getRowIndex();
+				Assert.assertEquals(mph[row][j], accelerationCursor.getU16(acceleration.getField("mph")));
+				Assert.assertEquals(seconds[row][j], accelerationCursor.getFloat(acceleration.getField("seconds")), 0.001f);
+			}
+		}
+		Assert.assertEquals(1, performanceCursor.getRowIndex());
+
+		// variable length fields behind the groups
+		byte[] value = new byte[32];
+		Assert.assertEquals(9, car.getSize(carDef.getField("model")));
+		Assert.assertEquals("Civic VTi", new String(value, 0, car.getBytes(carDef.getField("model"), value, 0, value.length)));
+		Assert.assertEquals("Honda", new String(value, 0, car.getBytes(carDef.getField("make"), value, 0, value.length)));
+		Assert.assertEquals("deadbeef", new String(value, 0, car.getBytes(carDef.getField("activationCode"), value, 0, value.length)));
+
+		// the size of a group as reported by a fully parsed message
+		GroupObject msgObj = factory.wrapSbeBuffer(sbeBuffer, bufferOffset[0]);
+		Assert.assertEquals(msgObj.getSize(fuelFigures), car.getSize(fuelFigures));
+		Assert.assertEquals(msgObj.getSize(performanceFigures), car.getSize(performanceFigures));
+	}
+
+	@Test
+	public void testRewrap() {
+		MessageCursor car = factory.createCursor(1);
+		Group carDef = car.getDefinition();
+		Group fuelFigures = (Group) carDef.getField("fuelFigures");
+
+		car.wrap(sbeBuffer, bufferOffset[1]);
+		GroupCursor fuelFiguresCursor = car.getGroupCursor(fuelFigures);
+		Assert.assertEquals(0, fuelFiguresCursor.getNumOfRows());
+		Assert.assertFalse(fuelFiguresCursor.next());
+
+		car.wrap(sbeBuffer, bufferOffset[0]);
+		Assert.assertSame(fuelFiguresCursor, car.getGroupCursor(fuelFigures));
+		Assert.assertEquals(3, fuelFiguresCursor.getNumOfRows());
+		Assert.assertTrue(fuelFiguresCursor.next());
+		byte[] value = new byte[64];
+		int length = fuelFiguresCursor.getBytes(fuelFigures.getField("usageDescription"), value, 0, value.length);
+		Assert.assertEquals("this is a description of the usage", new String(value, 0, length));
+	}
+}
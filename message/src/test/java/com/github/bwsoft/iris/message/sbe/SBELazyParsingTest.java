@@ -0,0 +1,183 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.message.sbe;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.rules.TestWatcher;
+import org.junit.runner.Description;
+
+import com.github.bwsoft.iris.buffer.NioBuffer;
+import com.github.bwsoft.iris.buffer.UnsafeBuffer;
+import com.github.bwsoft.iris.message.Field;
+import com.github.bwsoft.iris.message.GroupObject;
+import com.github.bwsoft.iris.message.GroupObjectArray;
+import com.github.bwsoft.iris.message.Projection;
+import com.github.bwsoft.iris.message.SBEMessageSchema;
+
+/**
+ * Test the lazy wrap of a SBE message
+ *    1.) Fields in the root block are accessible without parsing groups
+ *    2.) Groups, nested groups and raw fields are resolved upon access
+ *    3.) A lazily wrapped message can be modified the same way as a fully parsed one
+ *    4.) A lazy wrap does not walk the groups to measure the message if the safe mode is off
+ *
+ * @author yzhou
+ *
+ */
+public class SBELazyParsingTest {
+	private static SBEMessageSchema factory;
+
+	private final static ByteBuffer sbeBuffer = ByteBuffer.allocate(4096);
+	private final static int bufferOffset = 17;
+	private static int messageSize;
+
+	@Rule
+	public TestRule watcher = new TestWatcher() {
+		@Override
+		protected void starting(Description description) {
+			System.out.format("\nCase: %s ...... started\n", description.getMethodName());
+		}
+
+		@Override
+		protected void succeeded(Description description) {
+			System.out.format("Case: %s ...... passed\n", description.getMethodName());
+		}
+
+		@Override
+		protected void failed(Throwable e, Description description) {
+			System.out.format("Case: %s ...... failed!!!!!!\n", description.getMethodName());
+		}
+	};
+
+	@BeforeClass
+	public static void createSBEMessage() throws Exception {
+		factory = SBEMessageSchema.createSBESchema("src/test/resources/example-schemav4.xml");
+		GroupObject msgObj = factory.createSbeBuffer(1, sbeBuffer, bufferOffset);
+		SBEMessageDecoderTest.createMessageForDecoding(msgObj);
+		messageSize = msgObj.getSize();
+	}
+
+	@Test
+	public void testLazyRead() {
+		GroupObject msgObj = factory.wrapSbeBuffer(sbeBuffer, bufferOffset, true);
+		Assert.assertEquals(1234, msgObj.getLong(msgObj.getField("serialNumber")));
+		Assert.assertEquals(2013, msgObj.getU16(msgObj.getField("modelYear")));
+
+		// the raw field behind all groups is resolved upon access
+		byte[] make = new byte[5];
+		Assert.assertEquals(5, msgObj.getBytes(msgObj.getField("make"), make, 0, make.length));
+		Assert.assertArrayEquals("Honda".getBytes(), make);
+
+		Field performanceFigures = msgObj.getField("performanceFigures");
+		GroupObjectArray performanceArray = msgObj.getGroupArray(performanceFigures);
+		Assert.assertEquals(2, performanceArray.getNumOfGroups());
+		GroupObject secondRow = performanceArray.getGroupObject(1);
+		Assert.assertEquals(99, secondRow.getNumber(secondRow.getField("octaneRating")).intValue());
+		GroupObjectArray accelerations = secondRow.getGroupArray(secondRow.getField("acceleration"));
+		Assert.assertEquals(3, accelerations.getNumOfGroups());
+		Assert.assertEquals(90, accelerations.getGroupObject(2).getU16(accelerations.getGroupObject(2).getField("mph")));
+
+		Assert.assertEquals(messageSize, msgObj.getSize());
+	}
+
+	@Test
+	public void testLazySize() {
+		GroupObject msgObj = factory.wrapSbeBuffer(sbeBuffer, bufferOffset, true);
+		Assert.assertEquals(messageSize, msgObj.getSize());
+
+		GroupObject eagerObj = factory.wrapSbeBuffer(sbeBuffer, bufferOffset);
+		Field fuelFigures = eagerObj.getField("fuelFigures");
+		int expected = eagerObj.getSize(fuelFigures);
+		msgObj = factory.wrapSbeBuffer(sbeBuffer, bufferOffset, true);
+		Assert.assertEquals(expected, msgObj.getSize(fuelFigures));
+	}
+
+	@Test
+	public void testLazyModification() {
+		ByteBuffer eagerBuffer = ByteBuffer.allocate(4096);
+		ByteBuffer lazyBuffer = ByteBuffer.allocate(4096);
+		System.arraycopy(sbeBuffer.array(), 0, eagerBuffer.array(), 0, 4096);
+		System.arraycopy(sbeBuffer.array(), 0, lazyBuffer.array(), 0, 4096);
+
+		modify(factory.wrapSbeBuffer(eagerBuffer, bufferOffset));
+		GroupObject msgObj = factory.wrapSbeBuffer(lazyBuffer, bufferOffset, true);
+		modify(msgObj);
+
+		Assert.assertArrayEquals(eagerBuffer.array(), lazyBuffer.array());
+
+		// verify the lazy structure is consistent after the change
+		byte[] activationCode = new byte[8];
+		msgObj.getBytes(msgObj.getField("activationCode"), activationCode, 0, activationCode.length);
+		Assert.assertArrayEquals("deadbeef".getBytes(), activationCode);
+	}
+
+	private void modify(GroupObject msgObj) {
+		GroupObjectArray performanceArray = msgObj.getGroupArray(msgObj.getField("performanceFigures"));
+		GroupObject firstRow = performanceArray.getGroupObject(0);
+		GroupObjectArray accelerations = firstRow.getGroupArray(firstRow.getField("acceleration"));
+		GroupObject acceleration = accelerations.addGroupObject(1);
+		acceleration.setNumber(acceleration.getField("mph"), 45);
+		acceleration.setNumber(acceleration.getField("seconds"), 5.5f);
+
+		byte[] model = "Accord".getBytes();
+		msgObj.setBytes(msgObj.getField("model"), model, 0, model.length);
+	}
+
+	@Test
+	public void testLazyWrapWithSafeModeOff() throws Exception {
+		Assume.assumeTrue(UnsafeBuffer.isAvailable());
+		
+		SBEMessageSchema unsafeFactory;
+		SBESchemaLoader.safeModeOff();
+		try {
+			unsafeFactory = SBEMessageSchema.createSBESchema("src/test/resources/example-schemav4.xml");
+		} finally {
+			SBESchemaLoader.safeModeOn();
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(1024);
+		SBEMessageDecoderTest.createMessageForDecoding(unsafeFactory.createSbeBuffer(1, buffer, 0));
+		
+		// an eager wrap measures the message and reads it without checks
+		SBEObject msgObj = (SBEObject) unsafeFactory.wrapSbeBuffer(buffer, 0);
+		Assert.assertTrue(msgObj.getArray().getBuffer() instanceof UnsafeBuffer);
+		
+		// a lazy wrap or a projected wrap is not measured and reads with checks
+		msgObj = (SBEObject) unsafeFactory.wrapSbeBuffer(buffer, 0, true);
+		Assert.assertTrue(msgObj.getArray().getBuffer() instanceof NioBuffer);
+		Projection projection = unsafeFactory.getMsgLookup().get(1).createProjection("model");
+		msgObj = (SBEObject) unsafeFactory.wrapSbeBuffer(buffer, 0, projection);
+		Assert.assertTrue(msgObj.getArray().getBuffer() instanceof NioBuffer);
+		
+		// the rows of fuelFigures, which follows the message header and the root block of 64 bytes, 
+		// go beyond the buffer. They are not walked by a lazy wrap.
+		buffer.order(ByteOrder.LITTLE_ENDIAN).putShort(8+64+2, (short) 1000);
+		msgObj = (SBEObject) unsafeFactory.wrapSbeBuffer(buffer, 0, true);
+		Assert.assertEquals(1234, msgObj.getLong(msgObj.getField("serialNumber")));
+		try {
+			msgObj.getGroupArray(msgObj.getField("fuelFigures"));
+			Assert.fail("rows beyond the buffer are read");
+		} catch( IndexOutOfBoundsException e ) {
+		}
+	}
+}
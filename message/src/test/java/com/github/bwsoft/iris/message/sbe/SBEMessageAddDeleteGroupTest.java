@@ -31,6 +31,9 @@ import com.github.bwsoft.iris.util.MessageUtil;
  *   8.) Remove the first row from a repeating group that contains a variable length data field 
  *   and the varibale length data field is not null.
  *   9.) Rewrap the whole message to ensure the decoder is correct
+ *   10.) Insert, add and delete multiple rows at once and by a predicate. A predicate that throws 
+ *   deletes no row.
+ *   11.) Rows and groups obtained before an edit remain valid after the edit
  *   
  * @author yzhou
  *
@@ -340,4 +343,118 @@ public class SBEMessageAddDeleteGroupTest {
 		msgObj = schema.wrapSbeBuffer(sbeBuffer, 0);
 		Assert.assertEquals(beforeWrapping, MessageUtil.toJsonString(msgObj));
 	}
+
+	@Test
+	public void testBulkAddDeleteGroupRows() throws UnsupportedEncodingException {
+		ByteBuffer buffer = ByteBuffer.allocate(4096);
+		GroupObject msgObj = schema.createSbeBuffer(1, buffer, 0);
+		createMessage(msgObj);
+		Field octaneRating = performanceFiguresDefinition.getField("octaneRating");
+		Field speed = fuelFiguresDefinition.getField("speed");
+		
+		// insert rows ahead of a row with a nested group
+		GroupObjectArray performanceFigures = msgObj.getGroupArray(performanceFiguresDefinition);
+		performanceFigures.insertGroupObjects(0, 3);
+		Assert.assertEquals(4, performanceFigures.getNumOfGroups());
+		for( int i = 0; i < 3; i ++ ) {
+			performanceFigures.getGroupObject(i).setNumber(octaneRating, 91+i);
+		}
+		GroupObjectArray accelerations = performanceFigures.getGroupObject(1).getGroupArray(accelerationDefinition);
+		accelerations.addGroupObjects(2);
+		accelerations.getGroupObject(0).setNumber(mph, 30);
+		accelerations.getGroupObject(1).setNumber(mph, 50);
+		accelerations = performanceFigures.getGroupObject(3).getGroupArray(accelerationDefinition);
+		Assert.assertEquals(89, performanceFigures.getGroupObject(3).getNumber(octaneRating).intValue());
+		Assert.assertEquals(1, accelerations.getNumOfGroups());
+		Assert.assertEquals(60, accelerations.getGroupObject(0).getNumber(mph).intValue());
+		
+		// add rows to a group with a variable length field
+		GroupObjectArray fuelFigures = msgObj.getGroupArray(fuelFiguresDefinition);
+		fuelFigures.addGroupObjects(3);
+		Assert.assertEquals(5, fuelFigures.getNumOfGroups());
+		for( int i = 2; i < 5; i ++ ) {
+			fuelFigures.getGroupObject(i).setNumber(speed, 50+i*10);
+		}
+		byte[] usageDescription = "the fourth row".getBytes();
+		fuelFigures.getGroupObject(3).setBytes(usageDescriptionDefinition, usageDescription, 0, usageDescription.length);
+		
+		// delete a range of rows
+		fuelFigures.deleteGroupObjects(1, 3);
+		Assert.assertEquals(3, fuelFigures.getNumOfGroups());
+		Assert.assertEquals(40, fuelFigures.getGroupObject(0).getNumber(speed).intValue());
+		Assert.assertEquals("this is a description of the usage", fuelFigures.getGroupObject(0).getString(usageDescriptionDefinition));
+		Assert.assertEquals(80, fuelFigures.getGroupObject(1).getNumber(speed).intValue());
+		Assert.assertEquals("the fourth row", fuelFigures.getGroupObject(1).getString(usageDescriptionDefinition));
+		Assert.assertEquals(90, fuelFigures.getGroupObject(2).getNumber(speed).intValue());
+		
+		// a predicate that throws after rows are selected leaves the message intact
+		String beforeDeleting = MessageUtil.toJsonString(msgObj);
+		try {
+			performanceFigures.deleteGroupObjectsIf(row -> {
+				if( row.getNumber(octaneRating).intValue() == 93 ) {
+					throw new IllegalStateException("predicate failure");
+				}
+				return true;
+			});
+			Assert.fail("the exception of the predicate is not propagated");
+		} catch( IllegalStateException e ) {
+			// expected
+		}
+		Assert.assertEquals(4, performanceFigures.getNumOfGroups());
+		Assert.assertEquals(beforeDeleting, MessageUtil.toJsonString(msgObj));
+		
+		// delete rows by a predicate
+		Assert.assertEquals(2, performanceFigures.deleteGroupObjectsIf(row -> row.getNumber(octaneRating).intValue() % 2 == 1 && row.getNumber(octaneRating).intValue() > 90));
+		Assert.assertEquals(2, performanceFigures.getNumOfGroups());
+		Assert.assertEquals(92, performanceFigures.getGroupObject(0).getNumber(octaneRating).intValue());
+		accelerations = performanceFigures.getGroupObject(0).getGroupArray(accelerationDefinition);
+		Assert.assertEquals(2, accelerations.getNumOfGroups());
+		Assert.assertEquals(50, accelerations.getGroupObject(1).getNumber(mph).intValue());
+		Assert.assertEquals(89, performanceFigures.getGroupObject(1).getNumber(octaneRating).intValue());
+		accelerations = performanceFigures.getGroupObject(1).getGroupArray(accelerationDefinition);
+		Assert.assertEquals(60, accelerations.getGroupObject(0).getNumber(mph).intValue());
+		Assert.assertEquals(0, performanceFigures.deleteGroupObjectsIf(row -> false));
+		Assert.assertEquals("deadbeef", msgObj.getString(msgObj.getField("activationCode")));
+		
+		// rewrap the whole message to ensure the decoder is correct
+		String beforeWrapping = MessageUtil.toJsonString(msgObj);
+		msgObj = schema.wrapSbeBuffer(buffer, 0);
+		Assert.assertEquals(beforeWrapping, MessageUtil.toJsonString(msgObj));
+	}
+
+	@Test
+	public void testRowsHeldAcrossEdits() throws UnsupportedEncodingException {
+		ByteBuffer buffer = ByteBuffer.allocate(4096);
+		GroupObject msgObj = schema.createSbeBuffer(1, buffer, 0);
+		createMessage(msgObj);
+		Field speed = fuelFiguresDefinition.getField("speed");
+		Field make = msgObj.getField("make");
+		
+		GroupObjectArray fuelFigures = msgObj.getGroupArray(fuelFiguresDefinition);
+		GroupObject secondFuelFigure = fuelFigures.getGroupObject(1);
+		GroupObject performanceFigure = msgObj.getGroupArray(performanceFiguresDefinition).getGroupObject(0);
+		GroupObjectArray accelerations = performanceFigure.getGroupArray(accelerationDefinition);
+		GroupObject acceleration = accelerations.getGroupObject(0);
+		
+		// grow the variable length field of the first row and a group ahead of the held objects
+		byte[] usageDescription = "a much longer description of the usage of the first row".getBytes();
+		fuelFigures.getGroupObject(0).setBytes(usageDescriptionDefinition, usageDescription, 0, usageDescription.length);
+		fuelFigures.addGroupObject(0).setNumber(speed, 10);
+		Assert.assertEquals(60, secondFuelFigure.getNumber(speed).intValue());
+		Assert.assertEquals(89, performanceFigure.getNumber(performanceFiguresDefinition.getField("octaneRating")).intValue());
+		Assert.assertEquals(60, acceleration.getNumber(mph).intValue());
+		
+		// edit the nested group and verify the fields after it
+		accelerations.addGroupObject(0).setNumber(mph, 20);
+		Assert.assertEquals(60, acceleration.getNumber(mph).intValue());
+		Assert.assertEquals("Honda", msgObj.getString(make));
+		fuelFigures.deleteGroupObject(0);
+		Assert.assertEquals(60, secondFuelFigure.getNumber(speed).intValue());
+		Assert.assertEquals(2.5, acceleration.getFloat(seconds), 0.001);
+		Assert.assertEquals("Honda", msgObj.getString(make));
+		
+		String beforeWrapping = MessageUtil.toJsonString(msgObj);
+		msgObj = schema.wrapSbeBuffer(buffer, 0);
+		Assert.assertEquals(beforeWrapping, MessageUtil.toJsonString(msgObj));
+	}
 }
@@ -0,0 +1,224 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.message.sbe;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.rules.TestWatcher;
+import org.junit.runner.Description;
+
+import com.github.bwsoft.iris.message.Field;
+import com.github.bwsoft.iris.message.Group;
+import com.github.bwsoft.iris.message.GroupEncoder;
+import com.github.bwsoft.iris.message.GroupObject;
+import com.github.bwsoft.iris.message.MessageEncoder;
+import com.github.bwsoft.iris.message.SBEMessageSchema;
+
+/**
+ * Test the append only encoder
+ *    1.) Encode a message in the schema order and compare it with the one built by GroupObject
+ *    2.) Skipped groups and variable length fields are encoded as empty
+ *    3.) Appending a field out of the schema order is rejected
+ *    4.) Appending beyond the capacity of the buffer is rejected
+ *
+ * @author yzhou
+ *
+ */
+public class SBEMessageAppendEncoderTest {
+	private static SBEMessageSchema factory;
+
+	private final static ByteBuffer expected = ByteBuffer.allocate(4096);
+	private static int expectedLength;
+
+	@Rule
+	public TestRule watcher = new TestWatcher() {
+		@Override
+		protected void starting(Description description) {
+			System.out.format("\nCase: %s ...... started\n", description.getMethodName());
+		}
+
+		@Override
+		protected void succeeded(Description description) {
+			System.out.format("Case: %s ...... passed\n", description.getMethodName());
+		}
+
+		@Override
+		protected void failed(Throwable e, Description description) {
+			System.out.format("Case: %s ...... failed!!!!!!\n", description.getMethodName());
+		}
+	};
+
+	@BeforeClass
+	public static void createSBEMessage() throws Exception {
+		factory = SBEMessageSchema.createSBESchema("src/test/resources/example-schemav4.xml");
+		GroupObject msgObj = factory.createSbeBuffer(1, expected, 0);
+		SBEMessageDecoderTest.createMessageForDecoding(msgObj);
+		expectedLength = factory.measure(expected, 0);
+		
+		// rows inserted through GroupObject may leave stale bytes in the padding before speed
+		SBEMessageCursor cursor = (SBEMessageCursor) factory.createCursor(1).wrap(expected, 0);
+		SBEGroupCursor rows = (SBEGroupCursor) cursor.getGroupCursor(cursor.getDefinition().getField("fuelFigures"));
+		while( rows.next() ) {
+			expected.putShort(rows.getRowOffset(), (short) 0);
+		}
+	}
+
+	@Test
+	public void testEncodeMessage() throws Exception {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(4096);
+		int offset = 13;
+		MessageEncoder car = factory.createEncoder(1);
+		Group definition = car.getDefinition();
+		Group engine = (Group) definition.getField("engine");
+		
+		// encode twice to verify the encoder is reusable
+		for( int k = 0; k < 2; k ++ ) {
+			car.wrap(buffer, offset);
+			car.setLong(definition.getField("serialNumber"), 1234);
+			car.setU16(definition.getField("modelYear"), 2013);
+			car.setByte(definition.getField("available"), (byte) 1);
+			car.setByte(definition.getField("code"), (byte) 'C');
+			Field someNumbers = definition.getField("someNumbers");
+			ByteBuffer numbers = ByteBuffer.allocate(20).order(expected.order());
+			numbers.putInt(1).putInt(2).putInt(10).putInt(4).putInt(5);
+			car.setBytes(someNumbers, numbers.array(), 0, 20);
+			car.setBytes(definition.getField("vehicleCode"), "mycode".getBytes(), 0, 6);
+			car.setByte(definition.getField("extras"), (byte) 5);
+			car.setU16(engine.getField("capacity"), 1500);
+			car.setByte(engine.getField("numCylinders"), (byte) 6);
+			car.setBytes(engine.getField("manufacturerCode"), "VTI".getBytes(), 0, 3);
+			car.setByte(engine.getField("booster.BoostType"), (byte) 'S');
+			car.setByte(engine.getField("booster.horsePower"), (byte) 3);
+			
+			Group fuelFigures = (Group) definition.getField("fuelFigures");
+			GroupEncoder rows = car.getGroupEncoder(fuelFigures);
+			byte[] usageDescription = "this is a description of the usage".getBytes("utf-8");
+			rows.next().setU16(fuelFigures.getField("speed"), 30).setFloat(fuelFigures.getField("mpg"), 35.9f)
+				.setBytes(fuelFigures.getField("usageDescription"), usageDescription, 0, usageDescription.length);
+			rows.next().setU16(fuelFigures.getField("speed"), 55).setFloat(fuelFigures.getField("mpg"), 49.0f);
+			rows.next().setU16(fuelFigures.getField("speed"), 75).setFloat(fuelFigures.getField("mpg"), 40.0f);
+			Assert.assertEquals(3, rows.getNumOfRows());
+			
+			Group performanceFigures = (Group) definition.getField("performanceFigures");
+			rows = car.getGroupEncoder(performanceFigures).next();
+			rows.setByte(performanceFigures.getField("octaneRating"), (byte) 95);
+			Group acceleration = (Group) performanceFigures.getField("acceleration");
+			GroupEncoder accelerations = rows.getGroupEncoder(acceleration);
+			accelerations.next().setU16(acceleration.getField("mph"), 30).setFloat(acceleration.getField("seconds"), 4.0f);
+			accelerations.next().setU16(acceleration.getField("mph"), 60).setFloat(acceleration.getField("seconds"), 7.5f);
+			accelerations.next().setU16(acceleration.getField("mph"), 100).setFloat(acceleration.getField("seconds"), 12.2f);
+			
+			rows.next().setByte(performanceFigures.getField("octaneRating"), (byte) 99);
+			accelerations = rows.getGroupEncoder(acceleration);
+			accelerations.next().setU16(acceleration.getField("mph"), 40).setFloat(acceleration.getField("seconds"), 3.8f);
+			accelerations.next().setU16(acceleration.getField("mph"), 80).setFloat(acceleration.getField("seconds"), 7.1f);
+			accelerations.next().setU16(acceleration.getField("mph"), 90).setFloat(acceleration.getField("seconds"), 8.1f);
+			
+			byte[] make = "Honda".getBytes();
+			car.setBytes(definition.getField("make"), make, 0, make.length);
+			byte[] model = "Civic VTi".getBytes();
+			car.setBytes(definition.getField("model"), model, 0, model.length);
+			byte[] activationCode = "deadbeef".getBytes();
+			car.setBytes(definition.getField("activationCode"), activationCode, 0, activationCode.length);
+			
+			Assert.assertEquals(expectedLength, car.finish());
+			Assert.assertEquals(expectedLength, factory.measure(buffer, offset));
+			for( int i = 0; i < expectedLength; i ++ ) {
+				Assert.assertEquals("byte "+i, expected.get(i), buffer.get(offset+i));
+			}
+		}
+		
+		GroupObject msgObj = factory.wrapSbeBuffer(buffer, offset);
+		Assert.assertEquals(3, msgObj.getGroupArray(definition.getField("fuelFigures")).getNumOfGroups());
+		Assert.assertEquals("Civic VTi", msgObj.getString(definition.getField("model")));
+	}
+
+	@Test
+	public void testEmptyMessage() {
+		ByteBuffer buffer = ByteBuffer.allocate(1024);
+		MessageEncoder car = factory.createEncoder(1);
+		int length = car.wrap(buffer, 0).finish();
+		
+		GroupObject msgObj = factory.createSbeBuffer(1, ByteBuffer.allocate(1024), 0);
+		Assert.assertEquals(msgObj.getSize() + ((SBEMessage) msgObj.getDefinition()).getHeader().getSize(), length);
+		msgObj = factory.wrapSbeBuffer(buffer, 0);
+		Assert.assertEquals(0, msgObj.getGroupArray(msgObj.getField("fuelFigures")).getNumOfGroups());
+		Assert.assertEquals(0, msgObj.getGroupArray(msgObj.getField("performanceFigures")).getNumOfGroups());
+	}
+
+	@Test
+	public void testSchemaOrder() {
+		ByteBuffer buffer = ByteBuffer.allocate(1024);
+		MessageEncoder car = factory.createEncoder(1);
+		Group definition = car.getDefinition();
+		car.wrap(buffer, 0);
+		
+		GroupEncoder rows = car.getGroupEncoder(definition.getField("performanceFigures"));
+		try {
+			car.getGroupEncoder(definition.getField("fuelFigures"));
+			Assert.fail("fuelFigures precedes performanceFigures");
+		} catch( IllegalStateException e ) {
+		}
+		try {
+			rows.setByte(rows.getDefinition().getField("octaneRating"), (byte) 95);
+			Assert.fail("no row has been appended");
+		} catch( IllegalStateException e ) {
+		}
+		try {
+			car.next();
+			Assert.fail("a message has only one row");
+		} catch( UnsupportedOperationException e ) {
+		}
+	}
+
+	@Test
+	public void testBufferOverflow() {
+		ByteBuffer buffer = ByteBuffer.allocate(128);
+		MessageEncoder car = factory.createEncoder(1);
+		Group definition = car.getDefinition();
+		try {
+			car.wrap(buffer, 120);
+			Assert.fail("the block is beyond the buffer");
+		} catch( BufferOverflowException e ) {
+		}
+		
+		car.wrap(buffer, 0);
+		GroupEncoder rows = car.getGroupEncoder(definition.getField("fuelFigures"));
+		int n = 0;
+		try {
+			while( n < 100 ) {
+				rows.next();
+				n ++;
+			}
+			Assert.fail("rows are appended beyond the buffer");
+		} catch( BufferOverflowException e ) {
+		}
+		Assert.assertEquals(n, rows.getNumOfRows());
+		
+		car.wrap(buffer, 0);
+		try {
+			car.setBytes(definition.getField("make"), new byte[128], 0, 128);
+			Assert.fail("variable length data is appended beyond the buffer");
+		} catch( BufferOverflowException e ) {
+		}
+	}
+}
@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.message.sbe;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.rules.TestWatcher;
+import org.junit.runner.Description;
+
+import com.github.bwsoft.iris.message.GroupObject;
+import com.github.bwsoft.iris.message.GroupObjectArray;
+import com.github.bwsoft.iris.message.SBEMessageSchema;
+
+/**
+ * Test the message context
+ *    1.) Two messages of the same template are valid at the same time in two contexts
+ *    2.) A message in a context is not affected by a wrap call without a context
+ *    3.) A message can be modified in a context
+ *    4.) A context can be handed over to another thread
+ * 
+ * @author yzhou
+ *
+ */
+public class SBEMessageContextTest {
+	private static SBEMessageSchema factory;
+	
+	private final static ByteBuffer firstBuffer = ByteBuffer.allocate(4096);
+	private final static ByteBuffer secondBuffer = ByteBuffer.allocate(4096);
+	
+	@Rule
+	public TestRule watcher = new TestWatcher() {
+		@Override
+		protected void starting(Description description) {
+			System.out.format("\nCase: %s ...... started\n", description.getMethodName());
+		}
+
+		@Override
+		protected void succeeded(Description description) {
+			System.out.format("Case: %s ...... passed\n", description.getMethodName());
+		}
+
+		@Override
+		protected void failed(Throwable e, Description description) {
+			System.out.format("Case: %s ...... failed!!!!!!\n", description.getMethodName());
+		}
+	};
+	
+	@BeforeClass
+	public static void createSBEMessage() throws Exception {
+		factory = SBEMessageSchema.createSBESchema("src/test/resources/example-schemav4.xml");
+		GroupObject msgObj = factory.createSbeBuffer(1, firstBuffer, 0);
+		SBEMessageDecoderTest.createMessageForDecoding(msgObj);
+		msgObj = factory.createSbeBuffer(1, secondBuffer, 0);
+		SBEMessageDecoderTest.createMessageForDecoding(msgObj);
+		msgObj.setNumber(msgObj.getField("serialNumber"), 4321);
+	}
+	
+	@Test
+	public void testTwoMessagesOfTheSameTemplate() {
+		SBEMessageContext firstContext = new SBEMessageContext();
+		SBEMessageContext secondContext = new SBEMessageContext();
+		GroupObject first = factory.wrapSbeBuffer(firstContext, firstBuffer, 0);
+		GroupObject second = factory.wrapSbeBuffer(secondContext, secondBuffer, 0, true);
+		
+		// a wrap without a context does not affect either message
+		factory.wrapSbeBuffer(secondBuffer, 0);
+		
+		Assert.assertEquals(1234, first.getNumber(first.getField("serialNumber")).intValue());
+		Assert.assertEquals(4321, second.getNumber(second.getField("serialNumber")).intValue());
+		
+		// modify the message in the second context
+		int size = first.getSize();
+		GroupObjectArray fuelFigures = second.getGroupArray(second.getField("fuelFigures"));
+		GroupObject row = fuelFigures.addGroupObject(0);
+		row.setNumber(row.getField("speed"), 10);
+		Assert.assertEquals(4, fuelFigures.getNumOfGroups());
+		Assert.assertEquals(size, first.getSize());
+		Assert.assertEquals(3, first.getGroupArray(first.getField("fuelFigures")).getNumOfGroups());
+		
+		GroupObject reread = factory.wrapSbeBuffer(secondBuffer, 0);
+		Assert.assertEquals(second.getSize(), reread.getSize());
+		fuelFigures = reread.getGroupArray(reread.getField("fuelFigures"));
+		Assert.assertEquals(10, fuelFigures.getGroupObject(0).getNumber(row.getField("speed")).intValue());
+		Assert.assertEquals(30, fuelFigures.getGroupObject(1).getNumber(row.getField("speed")).intValue());
+		byte[] model = new byte[32];
+		int length = reread.getBytes(reread.getField("model"), model, 0, 32);
+		Assert.assertEquals("Civic VTi", new String(model, 0, length));
+	}
+	
+	@Test
+	public void testHandOver() throws Exception {
+		SBEMessageContext context = new SBEMessageContext();
+		BlockingQueue<GroupObject> queue = new ArrayBlockingQueue<>(1);
+		Thread producer = new Thread(() -> queue.add(factory.wrapSbeBuffer(context, firstBuffer, 0, true)));
+		producer.start();
+		producer.join();
+		
+		GroupObject msgObj = queue.take();
+		GroupObject performance = msgObj.getGroupArray(msgObj.getField("performanceFigures")).getGroupObject(1);
+		Assert.assertEquals(99, performance.getNumber(performance.getField("octaneRating")).intValue());
+	}
+}
@@ -37,9 +37,12 @@ import org.junit.rules.TestWatcher;
 import org.junit.runner.Description;
 import org.xml.sax.SAXException;
 
+import com.github.bwsoft.iris.message.Field;
 import com.github.bwsoft.iris.message.Group;
+import com.github.bwsoft.iris.message.GroupCursor;
 import com.github.bwsoft.iris.message.GroupObject;
 import com.github.bwsoft.iris.message.GroupObjectArray;
+import com.github.bwsoft.iris.message.MessageCursor;
 import com.github.bwsoft.iris.message.SBEMessageSchema;
 import com.github.bwsoft.iris.message.sbe.SBEMessage;
 import com.github.bwsoft.iris.util.MessageUtil;
@@ -53,6 +56,7 @@ import com.github.bwsoft.iris.util.MessageUtil;
  *    5.) Test method isSet for bit set fields
  *    6.) Test MessageUtil copy utility to create a byte buffer that contains three consecutive 
  *    SBE messages
+ *    7.) A U32 value at or above 2^31 is decoded as an unsigned value
  *    
  * @author yzhou
  *
@@ -345,6 +349,32 @@ public class SBEMessageDecoderTest {
 		Assert.assertArrayEquals("deadbeef".getBytes(), activationCodeValue);		
 	}
 
+	@Test
+	public void testLargeU32() throws Exception {
+		SBEMessageSchema optional = SBEMessageSchema.createSBESchema("src/test/resources/example-schema-optional.xml");
+		ByteBuffer buffer = ByteBuffer.allocate(4096);
+		GroupObject msgObj = optional.createSbeBuffer(1, buffer, 0);
+		Field quantity = msgObj.getField("quantity");
+		msgObj.setNumber(quantity, 3000000000L);
+		Assert.assertEquals(3000000000L, msgObj.getU32(quantity));
+		Assert.assertEquals(3000000000L, msgObj.getNumber(quantity).longValue());
+		
+		GroupObjectArray fills = msgObj.getGroupArray(msgObj.getField("fills"));
+		Field fillQuantity = ((Group) fills.getDefinition()).getField("fillQuantity");
+		fills.addGroupObject().setNumber(fillQuantity, 0x80000000L);
+		fills.addGroupObject().setNumber(fillQuantity, 0xfffffffeL);
+		long[] dest = new long[2];
+		Assert.assertEquals(2, fills.getLongs(fillQuantity, dest, 0, 2));
+		Assert.assertArrayEquals(new long[] {0x80000000L, 0xfffffffeL}, dest);
+		
+		MessageCursor cursor = optional.createCursor(1);
+		cursor.wrap(buffer, 0);
+		Assert.assertEquals(3000000000L, cursor.getU32(quantity));
+		GroupCursor rows = cursor.getGroupCursor(fills.getDefinition());
+		Assert.assertTrue(rows.next());
+		Assert.assertEquals(0x80000000L, rows.getU32(fillQuantity));
+	}
+	
 	@AfterClass
 	public static void cleanup() {
 		
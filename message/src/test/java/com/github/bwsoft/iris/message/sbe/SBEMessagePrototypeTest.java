@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.message.sbe;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.rules.TestWatcher;
+import org.junit.runner.Description;
+
+import com.github.bwsoft.iris.message.Field;
+import com.github.bwsoft.iris.message.GroupObject;
+import com.github.bwsoft.iris.message.GroupObjectArray;
+import com.github.bwsoft.iris.message.MessagePrototype;
+import com.github.bwsoft.iris.message.SBEMessageSchema;
+import com.github.bwsoft.iris.util.MessageUtil;
+
+/**
+ * Test the message prototype
+ *    1.) Copies of a prototype are the same as the prototype and can be patched independently
+ *    2.) The structure is reused by the copies in the same buffer
+ *    3.) A copy can be modified and the next copy is parsed again
+ *    4.) A copy does not go beyond the buffer
+ * 
+ * @author yzhou
+ *
+ */
+public class SBEMessagePrototypeTest {
+	private static SBEMessageSchema factory;
+	private static MessagePrototype prototype;
+	private static String expected;
+	
+	@Rule
+	public TestRule watcher = new TestWatcher() {
+		@Override
+		protected void starting(Description description) {
+			System.out.format("\nCase: %s ...... started\n", description.getMethodName());
+		}
+
+		@Override
+		protected void succeeded(Description description) {
+			System.out.format("Case: %s ...... passed\n", description.getMethodName());
+		}
+
+		@Override
+		protected void failed(Throwable e, Description description) {
+			System.out.format("Case: %s ...... failed!!!!!!\n", description.getMethodName());
+		}
+	};
+	
+	@BeforeClass
+	public static void createSBEMessage() throws Exception {
+		factory = SBEMessageSchema.createSBESchema("src/test/resources/example-schemav4.xml");
+		ByteBuffer buffer = ByteBuffer.allocate(4096);
+		GroupObject msgObj = factory.createSbeBuffer(1, buffer, 3);
+		SBEMessageDecoderTest.createMessageForDecoding(msgObj);
+		expected = MessageUtil.toJsonString(msgObj);
+		prototype = factory.createPrototype(buffer, 3);
+		Assert.assertEquals(msgObj.getSize() + factory.getMsgLookup().get(1).getHeader().getSize(), prototype.getSize());
+		
+		// the prototype is not affected by the changes of its source
+		msgObj.getGroupArray(msgObj.getField("fuelFigures")).deleteGroupObject(0);
+	}
+	
+	@Test
+	public void testCopies() throws Exception {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(4096);
+		Field serialNumber = factory.getMsgLookup().get(1).getField("serialNumber");
+		
+		int offset = 0;
+		GroupObject[] copies = new GroupObject[3];
+		for( int i = 0; i < copies.length; i ++ ) {
+			copies[i] = prototype.copyTo(buffer, offset);
+			Assert.assertEquals(expected, MessageUtil.toJsonString(copies[i]));
+			copies[i].setNumber(serialNumber, 100+i);
+			offset += prototype.getSize();
+		}
+		
+		// the structure is moved to the last copy
+		Assert.assertSame(copies[0], copies[2]);
+		Assert.assertEquals(102, copies[2].getNumber(serialNumber).intValue());
+		
+		// each copy is patched independently
+		for( int i = 0; i < copies.length; i ++ ) {
+			GroupObject msgObj = factory.wrapSbeBuffer(buffer, i*prototype.getSize());
+			Assert.assertEquals(100+i, msgObj.getNumber(serialNumber).intValue());
+		}
+	}
+	
+	@Test
+	public void testModifiedCopy() throws Exception {
+		ByteBuffer buffer = ByteBuffer.allocate(4096);
+		GroupObject msgObj = prototype.copyTo(buffer, 0);
+		GroupObjectArray fuelFigures = msgObj.getGroupArray(msgObj.getField("fuelFigures"));
+		fuelFigures.addGroupObject(0);
+		Assert.assertEquals(4, fuelFigures.getNumOfGroups());
+		
+		msgObj = prototype.copyTo(buffer, 100);
+		Assert.assertEquals(3, msgObj.getGroupArray(msgObj.getField("fuelFigures")).getNumOfGroups());
+		Assert.assertEquals(expected, MessageUtil.toJsonString(msgObj));
+		Assert.assertEquals(expected, MessageUtil.toJsonString(factory.wrapSbeBuffer(buffer, 100)));
+	}
+	
+	@Test(expected = BufferOverflowException.class)
+	public void testInsufficientBuffer() {
+		prototype.copyTo(ByteBuffer.allocate(prototype.getSize()), 1);
+	}
+}
@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.message.sbe;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.rules.TestWatcher;
+import org.junit.runner.Description;
+
+import com.github.bwsoft.iris.message.Field;
+import com.github.bwsoft.iris.message.FieldAccessor;
+import com.github.bwsoft.iris.message.Group;
+import com.github.bwsoft.iris.message.GroupObject;
+import com.github.bwsoft.iris.message.GroupObjectArray;
+import com.github.bwsoft.iris.message.SBEMessageSchema;
+
+/**
+ * Test optional fields and their null values
+ *    1.) Optional fields are initialized to null when a message or a row is created
+ *    2.) The null value in the schema overrides the null value of the type
+ *    3.) A field can be set to null and checked through a field accessor
+ * 
+ * @author yzhou
+ *
+ */
+public class SBENullValueTest {
+	private static SBEMessageSchema factory;
+	
+	private final static ByteBuffer sbeBuffer = ByteBuffer.allocate(4096);
+	
+	@Rule
+	public TestRule watcher = new TestWatcher() {
+		@Override
+		protected void starting(Description description) {
+			System.out.format("\nCase: %s ...... started\n", description.getMethodName());
+		}
+
+		@Override
+		protected void succeeded(Description description) {
+			System.out.format("Case: %s ...... passed\n", description.getMethodName());
+		}
+
+		@Override
+		protected void failed(Throwable e, Description description) {
+			System.out.format("Case: %s ...... failed!!!!!!\n", description.getMethodName());
+		}
+	};
+	
+	@BeforeClass
+	public static void loadSchema() throws Exception {
+		factory = SBEMessageSchema.createSBESchema("src/test/resources/example-schema-optional.xml");
+	}
+	
+	@Test
+	public void testCreateWithNull() {
+		// leave garbage in the buffer to make sure fields are initialized
+		sbeBuffer.clear();
+		for( int i = 0; i < 256; i ++ ) {
+			sbeBuffer.put(i, (byte) 0x5a);
+		}
+		GroupObject msgObj = factory.createSbeBuffer(1, sbeBuffer, 0);
+		Group order = (Group) msgObj.getDefinition();
+		
+		Assert.assertFalse(order.getField("orderId").isOptional());
+		Assert.assertTrue(order.getField("price").isOptional());
+		Assert.assertTrue(order.getField("limit").isOptional());
+		
+		Assert.assertTrue(msgObj.isNull(msgObj.getField("price")));
+		Assert.assertEquals(Long.MIN_VALUE, msgObj.getLong(msgObj.getField("price")));
+		Assert.assertTrue(msgObj.isNull(msgObj.getField("side")));
+		Assert.assertTrue(msgObj.isNull(msgObj.getField("level")));
+		Assert.assertEquals(-1, msgObj.getI16(msgObj.getField("level")));
+		Assert.assertTrue(msgObj.isNull(msgObj.getField("yield")));
+		Assert.assertTrue(msgObj.isNull(msgObj.getField("sizes")));
+		Assert.assertTrue(msgObj.isNull(msgObj.getField("limit")));
+		Assert.assertEquals(0xffffffffL, msgObj.getU32(msgObj.getField("limit")));
+		Group range = (Group) order.getField("range");
+		Assert.assertTrue(msgObj.isNull(range.getField("low")));
+		Assert.assertFalse(msgObj.isNull(range.getField("high")));
+		
+		// required fields are zero
+		Assert.assertEquals(0, msgObj.getLong(msgObj.getField("orderId")));
+		Assert.assertEquals(0, msgObj.getU32(msgObj.getField("quantity")));
+		
+		// a new row
+		GroupObjectArray fills = msgObj.getGroupArray(msgObj.getField("fills"));
+		GroupObject fill = fills.addGroupObject();
+		Assert.assertTrue(fill.isNull(fill.getField("fillPrice")));
+		Assert.assertEquals(0, fill.getU32(fill.getField("fillQuantity")));
+		fill.setNumber(fill.getField("fillPrice"), 100);
+		fill = fills.addGroupObject(0);
+		Assert.assertTrue(fill.isNull(fill.getField("fillPrice")));
+		Assert.assertFalse(fills.getGroupObject(1).isNull(fill.getField("fillPrice")));
+	}
+	
+	@Test
+	public void testSetNull() {
+		GroupObject msgObj = factory.createSbeBuffer(1, sbeBuffer, 0);
+		Field price = msgObj.getField("price");
+		Field sizes = msgObj.getField("sizes");
+		msgObj.setNumber(price, 9950);
+		msgObj.setNumbers(sizes, new Number[] {1}, 0, 1);
+		Assert.assertFalse(msgObj.isNull(price));
+		Assert.assertFalse(msgObj.isNull(sizes));
+		
+		msgObj = factory.wrapSbeBuffer(sbeBuffer, 0);
+		Assert.assertEquals(9950, msgObj.getLong(price));
+		msgObj.setNull(price);
+		msgObj.setNull(sizes);
+		Assert.assertTrue(msgObj.isNull(price));
+		Assert.assertTrue(msgObj.isNull(sizes));
+		
+		FieldAccessor level = ((Group) msgObj.getDefinition()).getFieldAccessor("level");
+		Assert.assertTrue(level.isNull(msgObj));
+		level.putLong(msgObj, 0);
+		Assert.assertFalse(level.isNull(msgObj));
+		level.setNull(msgObj);
+		Assert.assertTrue(level.isNull(msgObj));
+		Assert.assertEquals(-1, msgObj.getI16(msgObj.getField("level")));
+		
+		try {
+			msgObj.isNull(msgObj.getField("range"));
+			Assert.fail("a composite field does not have a null value");
+		} catch( IllegalArgumentException e ) {
+		}
+	}
+}
@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.message.sbe;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.rules.TestWatcher;
+import org.junit.runner.Description;
+
+import com.github.bwsoft.iris.message.GroupObject;
+import com.github.bwsoft.iris.message.GroupObjectArray;
+import com.github.bwsoft.iris.message.Projection;
+import com.github.bwsoft.iris.message.SBEMessageSchema;
+
+/**
+ * Test the projection decoding
+ *    1.) Only the declared groups and variable length fields are parsed
+ *    2.) A nested group brings in its parent group
+ *    3.) The size of a projected message is the same as the whole message
+ *    4.) Invalid paths are rejected
+ * 
+ * @author yzhou
+ *
+ */
+public class SBEProjectionTest {
+	private static SBEMessageSchema factory;
+	private static SBEMessage car;
+	
+	private final static ByteBuffer sbeBuffer = ByteBuffer.allocateDirect(4096);
+	private final static int bufferOffset = 9;
+	
+	@Rule
+	public TestRule watcher = new TestWatcher() {
+		@Override
+		protected void starting(Description description) {
+			System.out.format("\nCase: %s ...... started\n", description.getMethodName());
+		}
+
+		@Override
+		protected void succeeded(Description description) {
+			System.out.format("Case: %s ...... passed\n", description.getMethodName());
+		}
+
+		@Override
+		protected void failed(Throwable e, Description description) {
+			System.out.format("Case: %s ...... failed!!!!!!\n", description.getMethodName());
+		}
+	};
+	
+	@BeforeClass
+	public static void createSBEMessage() throws Exception {
+		factory = SBEMessageSchema.createSBESchema("src/test/resources/example-schemav4.xml");
+		car = factory.getMsgLookup().get(1);
+		GroupObject msgObj = factory.createSbeBuffer(1, sbeBuffer, bufferOffset);
+		SBEMessageDecoderTest.createMessageForDecoding(msgObj);
+	}
+	
+	@Test
+	public void testProjection() {
+		int size = factory.wrapSbeBuffer(sbeBuffer, bufferOffset).getSize();
+		
+		Projection projection = car.createProjection("fuelFigures", "model");
+		GroupObject msgObj = factory.wrapSbeBuffer(sbeBuffer, bufferOffset, projection);
+		Assert.assertEquals(size, msgObj.getSize());
+		Assert.assertEquals(1234, msgObj.getNumber(msgObj.getField("serialNumber")).intValue());
+		Assert.assertNull(msgObj.getGroupArray(msgObj.getField("performanceFigures")));
+		Assert.assertEquals(0, msgObj.getBytes(msgObj.getField("make"), new byte[32], 0, 32));
+		
+		byte[] model = new byte[32];
+		int length = msgObj.getBytes(msgObj.getField("model"), model, 0, 32);
+		Assert.assertEquals("Civic VTi", new String(model, 0, length));
+		
+		GroupObjectArray fuelFigures = msgObj.getGroupArray(msgObj.getField("fuelFigures"));
+		Assert.assertEquals(3, fuelFigures.getNumOfGroups());
+		Assert.assertEquals(55, fuelFigures.getGroupObject(1).getNumber(fuelFigures.getGroupObject(1).getField("speed")).intValue());
+		byte[] usage = new byte[64];
+		length = fuelFigures.getGroupObject(0).getBytes(fuelFigures.getGroupObject(0).getField("usageDescription"), usage, 0, 64);
+		Assert.assertEquals("this is a description of the usage", new String(usage, 0, length));
+	}
+	
+	@Test
+	public void testNestedProjection() {
+		Projection projection = car.createProjection("performanceFigures.acceleration");
+		GroupObject msgObj = car.wrapSbeBuffer(sbeBuffer, bufferOffset, projection);
+		Assert.assertNull(msgObj.getGroupArray(msgObj.getField("fuelFigures")));
+		
+		GroupObject performance = msgObj.getGroupArray(msgObj.getField("performanceFigures")).getGroupObject(1);
+		Assert.assertEquals(99, performance.getNumber(performance.getField("octaneRating")).intValue());
+		GroupObject acceleration = performance.getGroupArray(performance.getField("acceleration")).getGroupObject(2);
+		Assert.assertEquals(90, acceleration.getNumber(acceleration.getField("mph")).intValue());
+		
+		// a whole wrap is not affected
+		msgObj = car.wrapSbeBuffer(sbeBuffer, bufferOffset);
+		Assert.assertEquals(3, msgObj.getGroupArray(msgObj.getField("fuelFigures")).getNumOfGroups());
+	}
+	
+	@Test
+	public void testInvalidPath() {
+		String[] paths = {"noSuchField", "serialNumber", "engine", "make.fuelFigures", "fuelFigures.speed"};
+		for( String path : paths ) {
+			try {
+				car.createProjection(path);
+				Assert.fail("path, "+path+", is accepted");
+			} catch( IllegalArgumentException e ) {
+				// expected
+			}
+		}
+	}
+}
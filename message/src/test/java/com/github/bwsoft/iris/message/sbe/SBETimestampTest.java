@@ -0,0 +1,183 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.message.sbe;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.rules.TestWatcher;
+import org.junit.runner.Description;
+
+import com.github.bwsoft.iris.message.Field;
+import com.github.bwsoft.iris.message.Group;
+import com.github.bwsoft.iris.message.GroupObject;
+import com.github.bwsoft.iris.message.GroupObjectArray;
+import com.github.bwsoft.iris.message.SBEMessageSchema;
+
+/**
+ * Test timestamp fields
+ *    1.) Recognize integer timestamps by the semantic type and timestamp composites
+ *    2.) Read and write a timestamp as nanoseconds since the unix epoch
+ *    3.) Read and write a timestamp of all rows of a group
+ *    4.) A null optional timestamp is read as Long.MIN_VALUE and an overflow is rejected
+ * 
+ * @author yzhou
+ *
+ */
+public class SBETimestampTest {
+	private static SBEMessageSchema factory;
+	
+	private final static ByteBuffer sbeBuffer = ByteBuffer.allocate(4096);
+	
+	// 2016-03-01T12:34:56.789123456Z
+	private final static long NANOS = 1456835696789123456L;
+	
+	@Rule
+	public TestRule watcher = new TestWatcher() {
+		@Override
+		protected void starting(Description description) {
+			System.out.format("\nCase: %s ...... started\n", description.getMethodName());
+		}
+
+		@Override
+		protected void succeeded(Description description) {
+			System.out.format("Case: %s ...... passed\n", description.getMethodName());
+		}
+
+		@Override
+		protected void failed(Throwable e, Description description) {
+			System.out.format("Case: %s ...... failed!!!!!!\n", description.getMethodName());
+		}
+	};
+	
+	@BeforeClass
+	public static void loadSchema() throws Exception {
+		factory = SBEMessageSchema.createSBESchema("src/test/resources/example-schema-timestamp.xml");
+	}
+	
+	@Test
+	public void testTimestampFields() {
+		GroupObject msgObj = factory.createSbeBuffer(1, sbeBuffer, 0);
+		Assert.assertTrue(msgObj.getField("transactTime").isTimestamp());
+		Assert.assertTrue(msgObj.getField("sendingTime").isTimestamp());
+		Assert.assertTrue(msgObj.getField("expireTime").isTimestamp());
+		Assert.assertFalse(msgObj.getField("quantity").isTimestamp());
+		
+		// an integer of millisecond
+		Field transactTime = msgObj.getField("transactTime");
+		msgObj.setEpochNanos(transactTime, NANOS);
+		Assert.assertEquals(1456835696789L, msgObj.getNumber(transactTime).longValue());
+		Assert.assertEquals(1456835696789000000L, msgObj.getEpochNanos(transactTime));
+		
+		// an integer of nanosecond by default
+		Field sendingTime = msgObj.getField("sendingTime");
+		msgObj.setEpochNanos(sendingTime, NANOS);
+		Assert.assertEquals(NANOS, msgObj.getNumber(sendingTime).longValue());
+		Assert.assertEquals(NANOS, msgObj.getEpochNanos(sendingTime));
+		
+		// an integer of second since 2000-01-01
+		Field tradeDate = msgObj.getField("tradeDate");
+		msgObj.setEpochNanos(tradeDate, NANOS);
+		Assert.assertEquals(1456835696L - 946684800L, msgObj.getNumber(tradeDate).longValue());
+		Assert.assertEquals(1456835696000000000L, msgObj.getEpochNanos(tradeDate));
+		
+		// a composite of a constant unit
+		Field expireTime = msgObj.getField("expireTime");
+		msgObj.setEpochNanos(expireTime, NANOS);
+		Assert.assertEquals(1456835696789L, msgObj.getNumber(((Group) expireTime).getField("time")).longValue());
+		Assert.assertEquals(1456835696789000000L, msgObj.getEpochNanos(expireTime));
+		
+		// a composite of a variable unit
+		Field localTime = msgObj.getField("localTime");
+		Field time = ((Group) localTime).getField("time");
+		Field unit = ((Group) localTime).getField("unit");
+		msgObj.setNumber(time, 1456835696L);
+		msgObj.setNumber(unit, (short) 0);
+		Assert.assertEquals(1456835696000000000L, msgObj.getEpochNanos(localTime));
+		msgObj.setEpochNanos(localTime, NANOS);
+		Assert.assertEquals(9, msgObj.getNumber(unit).intValue());
+		Assert.assertEquals(NANOS, msgObj.getEpochNanos(localTime));
+		
+		try {
+			msgObj.getEpochNanos(msgObj.getField("quantity"));
+			Assert.fail("not a timestamp field");
+		} catch( IllegalArgumentException e ) {
+		}
+	}
+	
+	@Test
+	public void testGroupTimestamps() {
+		GroupObject msgObj = factory.createSbeBuffer(1, sbeBuffer, 0);
+		Group fills = (Group) msgObj.getField("fills");
+		GroupObjectArray array = msgObj.getGroupArray(fills);
+		for( int i = 0; i < 3; i ++ ) {
+			array.addGroupObject();
+		}
+		
+		Field fillTime = fills.getField("fillTime");
+		long[] src = { NANOS, NANOS + 1000000L, NANOS + 2000000L };
+		Assert.assertEquals(3, array.setEpochNanos(fillTime, src, 0, src.length));
+		Assert.assertEquals(1456835696790L, array.getGroupObject(1).getNumber(((Group) fillTime).getField("time")).longValue());
+		
+		long[] dest = new long[4];
+		Assert.assertEquals(3, array.getEpochNanos(fillTime, dest, 1, dest.length));
+		Assert.assertEquals(1456835696789000000L, dest[1]);
+		Assert.assertEquals(1456835696790000000L, dest[2]);
+		Assert.assertEquals(1456835696791000000L, dest[3]);
+		Assert.assertEquals(dest[2], array.getGroupObject(1).getEpochNanos(fillTime));
+	}
+
+	@Test
+	public void testNullAndOverflow() {
+		GroupObject msgObj = factory.createSbeBuffer(1, sbeBuffer, 0);
+		
+		// an optional timestamp
+		Field cancelTime = msgObj.getField("cancelTime");
+		Assert.assertTrue(cancelTime.isTimestamp());
+		Assert.assertEquals(Long.MIN_VALUE, msgObj.getEpochNanos(cancelTime));
+		msgObj.setEpochNanos(cancelTime, NANOS);
+		Assert.assertEquals(1456835696789000000L, msgObj.getEpochNanos(cancelTime));
+		msgObj.setEpochNanos(cancelTime, Long.MIN_VALUE);
+		Assert.assertEquals(Long.MIN_VALUE, msgObj.getEpochNanos(cancelTime));
+		
+		// milliseconds that overflow a long of nanoseconds
+		Field transactTime = msgObj.getField("transactTime");
+		msgObj.setNumber(transactTime, Long.MAX_VALUE / 1000);
+		try {
+			msgObj.getEpochNanos(transactTime);
+			Assert.fail("the nanoseconds overflow a long");
+		} catch( ArithmeticException e ) {
+		}
+		
+		// a uint64 time is not negative
+		try {
+			msgObj.setEpochNanos(transactTime, -1000000L);
+			Assert.fail("a negative time does not fit a uint64");
+		} catch( ArithmeticException e ) {
+		}
+		
+		// seconds since 2000-01-01 in a uint32
+		try {
+			msgObj.setEpochNanos(msgObj.getField("tradeDate"), Long.MAX_VALUE);
+			Assert.fail("the seconds overflow a uint32");
+		} catch( ArithmeticException e ) {
+		}
+	}
+}
@@ -0,0 +1,234 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.message.sbe;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.rules.TestWatcher;
+import org.junit.runner.Description;
+
+import com.github.bwsoft.iris.message.Field;
+import com.github.bwsoft.iris.message.FieldAccessor;
+import com.github.bwsoft.iris.message.Group;
+import com.github.bwsoft.iris.message.GroupCursor;
+import com.github.bwsoft.iris.message.GroupObject;
+import com.github.bwsoft.iris.message.GroupObjectArray;
+import com.github.bwsoft.iris.message.MessageCursor;
+import com.github.bwsoft.iris.message.SBEMessageSchema;
+
+/**
+ * Test messages encoded in an earlier version of the schema
+ *    1.) Fields added in a later version are absent and read as null
+ *    2.) Groups and variable length fields added in a later version are skipped
+ *    3.) Group rows are laid out by the block length in the message
+ *    4.) Messages of different versions can be wrapped one after another
+ *    5.) Primitive getters of absent fields return the null value
+ *    6.) Setters of absent fields throw without writing beyond the block
+ * 
+ * @author yzhou
+ *
+ */
+public class SBEVersionTest {
+	private static SBEMessageSchema factory;
+	
+	private final static ByteBuffer v0Buffer = ByteBuffer.allocate(256).order(ByteOrder.LITTLE_ENDIAN);
+	private final static ByteBuffer v1Buffer = ByteBuffer.allocate(256);
+	private static int v0Size;
+	
+	@Rule
+	public TestRule watcher = new TestWatcher() {
+		@Override
+		protected void starting(Description description) {
+			System.out.format("\nCase: %s ...... started\n", description.getMethodName());
+		}
+
+		@Override
+		protected void succeeded(Description description) {
+			System.out.format("Case: %s ...... passed\n", description.getMethodName());
+		}
+
+		@Override
+		protected void failed(Throwable e, Description description) {
+			System.out.format("Case: %s ...... failed!!!!!!\n", description.getMethodName());
+		}
+	};
+	
+	@BeforeClass
+	public static void createSBEMessage() throws Exception {
+		factory = SBEMessageSchema.createSBESchema("src/test/resources/example-schema-versioned.xml");
+		
+		// a message encoded in version 0 of the schema
+		v0Buffer.putShort((short) 8).putShort((short) 1).putShort((short) 2).putShort((short) 0);
+		v0Buffer.putLong(1234);
+		v0Buffer.putShort((short) 2).put((byte) 2);
+		v0Buffer.putShort((short) 30).putShort((short) 55);
+		v0Buffer.put((byte) 5).put("Honda".getBytes());
+		v0Size = v0Buffer.position();
+		
+		// a message encoded in version 1 of the schema
+		GroupObject msgObj = factory.createSbeBuffer(1, v1Buffer, 0);
+		msgObj.setNumber(msgObj.getField("serialNumber"), 4321);
+		msgObj.setNumber(msgObj.getField("modelYear"), 2013);
+		GroupObject row = msgObj.getGroupArray(msgObj.getField("fuelFigures")).addGroupObject();
+		row.setNumber(row.getField("speed"), 75);
+		row.setNumber(row.getField("mpg"), 40.0f);
+		row = msgObj.getGroupArray(msgObj.getField("extras")).addGroupObject();
+		row.setNumber(row.getField("code"), 7);
+		msgObj.setBytes(msgObj.getField("make"), "Acura".getBytes(), 0, 5);
+		msgObj.setBytes(msgObj.getField("model"), "TLX".getBytes(), 0, 3);
+	}
+	
+	@Test
+	public void testAbsentFields() {
+		GroupObject msgObj = factory.wrapSbeBuffer(v0Buffer, 0);
+		Field modelYear = msgObj.getField("modelYear");
+		Assert.assertEquals(1234, msgObj.getNumber(msgObj.getField("serialNumber")).intValue());
+		Assert.assertFalse(msgObj.isPresent(modelYear));
+		Assert.assertNull(msgObj.getNumber(modelYear));
+		Assert.assertTrue(factory.getMsgLookup().get(1).getFieldAccessor(modelYear.getID()).isNull(msgObj));
+		
+		// rows of a version 0 message do not have mpg
+		GroupObjectArray fuelFigures = msgObj.getGroupArray(msgObj.getField("fuelFigures"));
+		Assert.assertEquals(2, fuelFigures.getNumOfGroups());
+		GroupObject row = fuelFigures.getGroupObject(1);
+		Assert.assertEquals(55, row.getNumber(row.getField("speed")).intValue());
+		Assert.assertFalse(row.isPresent(row.getField("mpg")));
+		Assert.assertNull(row.getNumber(row.getField("mpg")));
+		
+		// groups and variable length fields of version 1
+		Assert.assertNull(msgObj.getGroupArray(msgObj.getField("extras")));
+		Assert.assertEquals(0, msgObj.getSize(msgObj.getField("model")));
+		byte[] value = new byte[32];
+		Assert.assertEquals("Honda", new String(value, 0, msgObj.getBytes(msgObj.getField("make"), value, 0, value.length)));
+		
+		Assert.assertEquals(v0Size, factory.measure(v0Buffer, 0));
+		Assert.assertEquals(v0Size, msgObj.getSize() + factory.getMsgLookup().get(1).getHeader().getSize());
+	}
+	
+	@Test
+	public void testCursor() {
+		MessageCursor car = factory.createCursor(1);
+		Group carDef = car.getDefinition();
+		car.wrap(v0Buffer, 0);
+		Assert.assertEquals(1234, car.getLong(carDef.getField("serialNumber")));
+		
+		Group fuelFigures = (Group) carDef.getField("fuelFigures");
+		GroupCursor fuelFiguresCursor = car.getGroupCursor(fuelFigures);
+		int speedExpected[] = {30,55};
+		int i = 0;
+		while( fuelFiguresCursor.next() ) {
+			Assert.assertEquals(speedExpected[i++], fuelFiguresCursor.getU16(fuelFigures.getField("speed")));
+		}
+		Assert.assertEquals(2, i);
+		Assert.assertEquals(0, car.getGroupCursor((Group) carDef.getField("extras")).getNumOfRows());
+		Assert.assertEquals(0, car.getSize(carDef.getField("model")));
+		byte[] value = new byte[32];
+		Assert.assertEquals("Honda", new String(value, 0, car.getBytes(carDef.getField("make"), value, 0, value.length)));
+	}
+	
+	@Test
+	public void testMixedVersions() {
+		GroupObject v1 = factory.wrapSbeBuffer(v1Buffer, 0);
+		Assert.assertTrue(v1.isPresent(v1.getField("modelYear")));
+		Assert.assertEquals(2013, v1.getNumber(v1.getField("modelYear")).intValue());
+		
+		GroupObject v0 = factory.wrapSbeBuffer(v0Buffer, 0);
+		Assert.assertNull(v0.getNumber(v0.getField("modelYear")));
+		
+		// the block length of version 0 does not leak into version 1
+		v1 = factory.wrapSbeBuffer(v1Buffer, 0);
+		Assert.assertEquals(2013, v1.getNumber(v1.getField("modelYear")).intValue());
+		GroupObject row = v1.getGroupArray(v1.getField("fuelFigures")).getGroupObject(0);
+		Assert.assertEquals(40.0f, row.getNumber(row.getField("mpg")).floatValue(), 0.001f);
+		row = v1.getGroupArray(v1.getField("extras")).getGroupObject(0);
+		Assert.assertEquals(7, row.getNumber(row.getField("code")).intValue());
+		byte[] value = new byte[32];
+		Assert.assertEquals("TLX", new String(value, 0, v1.getBytes(v1.getField("model"), value, 0, value.length)));
+	}
+	
+	@Test
+	public void testAbsentPrimitiveGetters() {
+		GroupObject msgObj = factory.wrapSbeBuffer(v0Buffer, 0);
+		Field modelYear = msgObj.getField("modelYear");
+		Assert.assertEquals(0xffff, msgObj.getU16(modelYear));
+		Assert.assertEquals((short) 0xffff, msgObj.getI16(modelYear));
+		Assert.assertEquals(0xffff, msgObj.getLong(modelYear));
+		Assert.assertEquals(0, msgObj.getBytes(modelYear, new byte[2], 0, 2));
+		Assert.assertEquals(0, msgObj.getNumbers(modelYear, new Number[1], 0, 1));
+		FieldAccessor accessor = factory.getMsgLookup().get(1).getFieldAccessor(modelYear.getID());
+		Assert.assertEquals(0xffff, accessor.getLong(msgObj));
+		
+		GroupObject row = msgObj.getGroupArray(msgObj.getField("fuelFigures")).getGroupObject(0);
+		Field mpg = row.getField("mpg");
+		Assert.assertTrue(Float.isNaN(row.getFloat(mpg)));
+		Assert.assertTrue(Double.isNaN(row.getDouble(mpg)));
+		Assert.assertEquals(30, row.getU16(row.getField("speed")));
+		
+		MessageCursor car = factory.createCursor(1);
+		car.wrap(v0Buffer, 0);
+		Assert.assertEquals(0xffff, car.getU16(modelYear));
+		GroupCursor fuelFigures = car.getGroupCursor((Group) car.getDefinition().getField("fuelFigures"));
+		fuelFigures.next();
+		Assert.assertTrue(Float.isNaN(fuelFigures.getFloat(mpg)));
+	}
+	
+	@Test
+	public void testSettersOfAbsentFields() {
+		ByteBuffer copy = ByteBuffer.allocate(v0Buffer.capacity());
+		copy.put(v0Buffer.array());
+		GroupObject msgObj = factory.wrapSbeBuffer(copy, 0);
+		Field modelYear = msgObj.getField("modelYear");
+		try {
+			msgObj.setNumber(modelYear, 2013);
+			Assert.fail("an absent field is written");
+		} catch( IllegalStateException e ) {
+		}
+		try {
+			msgObj.setNull(modelYear);
+			Assert.fail("an absent field is written");
+		} catch( IllegalStateException e ) {
+		}
+		try {
+			msgObj.setBytes(modelYear, new byte[] {1, 2}, 0, 2);
+			Assert.fail("an absent field is written");
+		} catch( IllegalStateException e ) {
+		}
+		try {
+			factory.getMsgLookup().get(1).getFieldAccessor(modelYear.getID()).putLong(msgObj, 2013);
+			Assert.fail("an absent field is written");
+		} catch( IllegalStateException e ) {
+		}
+		GroupObjectArray fuelFigures = msgObj.getGroupArray(msgObj.getField("fuelFigures"));
+		try {
+			fuelFigures.setDoubles(fuelFigures.getGroupObject(0).getField("mpg"), new double[] {1.0, 2.0}, 0, 2);
+			Assert.fail("an absent field is written");
+		} catch( IllegalStateException e ) {
+		}
+		
+		// the group header following the block is intact
+		msgObj = factory.wrapSbeBuffer(copy, 0);
+		fuelFigures = msgObj.getGroupArray(msgObj.getField("fuelFigures"));
+		Assert.assertEquals(2, fuelFigures.getNumOfGroups());
+		Assert.assertEquals(55, fuelFigures.getGroupObject(1).getU16(fuelFigures.getGroupObject(1).getField("speed")));
+		Assert.assertEquals(v0Size, factory.measure(copy, 0));
+	}
+}
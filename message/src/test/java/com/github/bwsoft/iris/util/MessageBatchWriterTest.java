@@ -0,0 +1,242 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.rules.TestWatcher;
+import org.junit.runner.Description;
+
+import com.github.bwsoft.iris.message.GroupObject;
+import com.github.bwsoft.iris.message.SBEMessageSchema;
+import com.github.bwsoft.iris.message.sbe.SBEMessage;
+import com.github.bwsoft.iris.message.sbe.SBEMessageDecoderTest;
+
+/**
+ * Test the batch writer of messages
+ *    1.) Messages are written by one gathering write when the batch is full
+ *    2.) Consecutive messages share a view and partial writes are continued
+ *    3.) A batch is flushed after the delay of its first message
+ *    4.) A batch that fails to be written is kept for the next flush
+ * 
+ * @author yzhou
+ *
+ */
+public class MessageBatchWriterTest {
+	private static SBEMessageSchema factory;
+	
+	private final static ByteBuffer sbeBuffer = ByteBuffer.allocate(4096);
+	private final static long serialNumbers[] = {1001, 1002, 1003, 1004};
+	private final static int msgOffsets[] = new int[serialNumbers.length+1];
+	
+	@Rule
+	public TestRule watcher = new TestWatcher() {
+		@Override
+		protected void starting(Description description) {
+			System.out.format("\nCase: %s ...... started\n", description.getMethodName());
+		}
+
+		@Override
+		protected void succeeded(Description description) {
+			System.out.format("Case: %s ...... passed\n", description.getMethodName());
+		}
+
+		@Override
+		protected void failed(Throwable e, Description description) {
+			System.out.format("Case: %s ...... failed!!!!!!\n", description.getMethodName());
+		}
+	};
+	
+	/**
+	 * A channel that records its writes and writes at most a number of bytes in each call.
+	 * It fails the writes after a number of writes.
+	 */
+	private static class RecordingChannel implements GatheringByteChannel {
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		private final int maxBytesPerWrite;
+		private int numOfWrites;
+		private int maxWrites = Integer.MAX_VALUE;
+		
+		RecordingChannel(int maxBytesPerWrite) {
+			this.maxBytesPerWrite = maxBytesPerWrite;
+		}
+
+		@Override
+		public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+			if( numOfWrites >= maxWrites ) {
+				throw new IOException("the channel is broken");
+			}
+			numOfWrites ++;
+			long n = 0;
+			for( int i = offset; i < offset+length && n < maxBytesPerWrite; i ++ ) {
+				while( srcs[i].hasRemaining() && n < maxBytesPerWrite ) {
+					bytes.write(srcs[i].get());
+					n ++;
+				}
+			}
+			return n;
+		}
+
+		@Override
+		public long write(ByteBuffer[] srcs) throws IOException {
+			return write(srcs, 0, srcs.length);
+		}
+
+		@Override
+		public int write(ByteBuffer src) throws IOException {
+			return (int) write(new ByteBuffer[] {src});
+		}
+
+		@Override
+		public boolean isOpen() {
+			return true;
+		}
+
+		@Override
+		public void close() throws IOException {
+		}
+	}
+	
+	@BeforeClass
+	public static void createSBEMessages() throws Exception {
+		factory = SBEMessageSchema.createSBESchema("src/test/resources/example-schemav4.xml");
+		int offset = 0;
+		for( int i = 0; i < serialNumbers.length; i ++ ) {
+			msgOffsets[i] = offset;
+			GroupObject msgObj = factory.createSbeBuffer(1, sbeBuffer, offset);
+			SBEMessageDecoderTest.createMessageForDecoding(msgObj);
+			msgObj.setNumber(msgObj.getField("serialNumber"), serialNumbers[i]);
+			offset += msgObj.getSize() + ((SBEMessage) msgObj.getDefinition()).getHeader().getSize();
+		}
+		msgOffsets[serialNumbers.length] = offset;
+	}
+	
+	private void verify(RecordingChannel channel) throws Exception {
+		ByteBuffer written = ByteBuffer.wrap(channel.bytes.toByteArray());
+		MessageStreamReader reader = new MessageStreamReader(factory, written, 0);
+		for( int i = 0; i < serialNumbers.length; i ++ ) {
+			Assert.assertTrue(reader.next());
+			GroupObject msgObj = reader.getMessage();
+			Assert.assertEquals(serialNumbers[i], msgObj.getNumber(msgObj.getField("serialNumber")).longValue());
+		}
+		Assert.assertFalse(reader.next());
+	}
+	
+	@Test
+	public void testFlushByCount() throws Exception {
+		RecordingChannel channel = new RecordingChannel(Integer.MAX_VALUE);
+		MessageBatchWriter writer = new MessageBatchWriter(factory, channel, 2, 65536, 1, TimeUnit.HOURS);
+		
+		// the messages are added from two buffers to have one view per message
+		ByteBuffer copy = ByteBuffer.allocate(sbeBuffer.capacity());
+		ByteBuffer src = sbeBuffer.duplicate();
+		src.limit(msgOffsets[serialNumbers.length]);
+		src.position(0);
+		copy.put(src);
+		
+		writer.add(copy, msgOffsets[0]);
+		Assert.assertEquals(1, writer.getPendingMessages());
+		Assert.assertEquals(0, channel.numOfWrites);
+		writer.add(sbeBuffer, msgOffsets[1]);
+		Assert.assertEquals(0, writer.getPendingMessages());
+		Assert.assertEquals(1, channel.numOfWrites);
+		writer.add(copy, msgOffsets[2]);
+		writer.add(sbeBuffer, msgOffsets[3]);
+		Assert.assertEquals(2, channel.numOfWrites);
+		verify(channel);
+	}
+	
+	@Test
+	public void testConsecutiveMessagesAndPartialWrites() throws Exception {
+		RecordingChannel channel = new RecordingChannel(100);
+		MessageBatchWriter writer = new MessageBatchWriter(factory, channel);
+		int offset = 0;
+		for( int i = 0; i < serialNumbers.length; i ++ ) {
+			offset += writer.add(sbeBuffer, offset);
+		}
+		Assert.assertEquals(msgOffsets[serialNumbers.length], writer.getPendingBytes());
+		Assert.assertEquals(0, channel.numOfWrites);
+		writer.flush();
+		Assert.assertEquals(0, writer.getPendingBytes());
+		Assert.assertEquals((msgOffsets[serialNumbers.length]+99)/100, channel.numOfWrites);
+		verify(channel);
+		
+		// nothing is written for an empty batch
+		writer.flush();
+		Assert.assertEquals((msgOffsets[serialNumbers.length]+99)/100, channel.numOfWrites);
+	}
+	
+	@Test
+	public void testFlushByDelay() throws Exception {
+		RecordingChannel channel = new RecordingChannel(Integer.MAX_VALUE);
+		long[] now = {1000L};
+		MessageBatchWriter writer = new MessageBatchWriter(factory, channel, 1024, 65536, 200, TimeUnit.MILLISECONDS, () -> now[0]);
+		int offset = 0;
+		for( int i = 0; i < serialNumbers.length; i ++ ) {
+			offset += writer.add(sbeBuffer, offset);
+			now[0] += TimeUnit.MILLISECONDS.toNanos(10);
+		}
+		Assert.assertEquals(0, channel.numOfWrites);
+		now[0] = 1000L + TimeUnit.MILLISECONDS.toNanos(200) - 1;
+		Assert.assertFalse(writer.flushIfDue());
+		Assert.assertEquals(0, channel.numOfWrites);
+		now[0] ++;
+		Assert.assertTrue(writer.flushIfDue());
+		Assert.assertEquals(1, channel.numOfWrites);
+		Assert.assertFalse(writer.flushIfDue());
+		verify(channel);
+	}
+	
+	@Test
+	public void testFailedWrite() throws Exception {
+		RecordingChannel channel = new RecordingChannel(100);
+		MessageBatchWriter writer = new MessageBatchWriter(factory, channel, 2, 65536, 1, TimeUnit.HOURS);
+		
+		// the messages are added from two buffers to have one view per message
+		ByteBuffer copy = ByteBuffer.allocate(sbeBuffer.capacity());
+		ByteBuffer src = sbeBuffer.duplicate();
+		src.limit(msgOffsets[serialNumbers.length]);
+		src.position(0);
+		copy.put(src);
+		
+		writer.add(copy, msgOffsets[0]);
+		channel.maxWrites = 2;
+		try {
+			writer.add(sbeBuffer, msgOffsets[1]);
+			Assert.fail("the channel is broken");
+		} catch( IOException e ) {
+		}
+		Assert.assertEquals(2, writer.getPendingMessages());
+		Assert.assertEquals(msgOffsets[2]-200, writer.getPendingBytes());
+		
+		channel.maxWrites = Integer.MAX_VALUE;
+		writer.flush();
+		Assert.assertEquals(0, writer.getPendingMessages());
+		Assert.assertEquals(0, writer.getPendingBytes());
+		writer.add(copy, msgOffsets[2]);
+		writer.add(sbeBuffer, msgOffsets[3]);
+		verify(channel);
+	}
+}
@@ -0,0 +1,191 @@
+/*******************************************************************************
+ * Copyright 2016 bwsoft and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *******************************************************************************/
+package com.github.bwsoft.iris.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.rules.TestWatcher;
+import org.junit.runner.Description;
+
+import com.github.bwsoft.iris.buffer.IrisBuffer;
+import com.github.bwsoft.iris.message.GroupObject;
+import com.github.bwsoft.iris.message.MsgCodecRuntimeException;
+import com.github.bwsoft.iris.message.SBEMessageSchema;
+import com.github.bwsoft.iris.message.sbe.SBEMessage;
+import com.github.bwsoft.iris.message.sbe.SBEMessageDecoderTest;
+
+/**
+ * Test the reader of consecutive messages
+ *    0.) Measure a message without wrapping it
+ *    1.) Read messages in a ByteBuffer
+ *    2.) Read messages from a channel with a small internal buffer
+ *    3.) Detect a channel that ends with an incomplete message
+ *    4.) Detect a buffer that ends with an incomplete message and a message of a malformed length
+ * 
+ * @author yzhou
+ *
+ */
+public class MessageStreamReaderTest {
+	private static SBEMessageSchema factory;
+	
+	private final static ByteBuffer sbeBuffer = ByteBuffer.allocate(4096);
+	private final static int bufferOffset = 11;
+	private final static long serialNumbers[] = {1001, 1002, 1003};
+	private final static int msgOffsets[] = new int[serialNumbers.length+1];
+	
+	@Rule
+	public TestRule watcher = new TestWatcher() {
+		@Override
+		protected void starting(Description description) {
+			System.out.format("\nCase: %s ...... started\n", description.getMethodName());
+		}
+
+		@Override
+		protected void succeeded(Description description) {
+			System.out.format("Case: %s ...... passed\n", description.getMethodName());
+		}
+
+		@Override
+		protected void failed(Throwable e, Description description) {
+			System.out.format("Case: %s ...... failed!!!!!!\n", description.getMethodName());
+		}
+	};
+	
+	@BeforeClass
+	public static void createSBEMessages() throws Exception {
+		factory = SBEMessageSchema.createSBESchema("src/test/resources/example-schemav4.xml");
+		int offset = bufferOffset;
+		for( int i = 0; i < serialNumbers.length; i ++ ) {
+			msgOffsets[i] = offset;
+			GroupObject msgObj = factory.createSbeBuffer(1, sbeBuffer, offset);
+			SBEMessageDecoderTest.createMessageForDecoding(msgObj);
+			msgObj.setNumber(msgObj.getField("serialNumber"), serialNumbers[i]);
+			offset += msgObj.getSize() + ((SBEMessage) msgObj.getDefinition()).getHeader().getSize();
+		}
+		msgOffsets[serialNumbers.length] = offset;
+		sbeBuffer.limit(offset);
+	}
+	
+	private void verify(MessageStreamReader reader) throws Exception {
+		for( int i = 0; i < serialNumbers.length; i ++ ) {
+			Assert.assertTrue(reader.next());
+			Assert.assertEquals(1, reader.getTemplateId());
+			Assert.assertEquals(msgOffsets[i+1]-msgOffsets[i], reader.getLength());
+			GroupObject msgObj = reader.getMessage();
+			Assert.assertEquals(serialNumbers[i], msgObj.getNumber(msgObj.getField("serialNumber")).longValue());
+			Assert.assertEquals(3, msgObj.getGroupArray(msgObj.getField("fuelFigures")).getNumOfGroups());
+			
+			ByteBuffer slice = reader.slice();
+			Assert.assertEquals(reader.getLength(), slice.remaining());
+			for( int j = 0; j < slice.remaining(); j ++ ) {
+				Assert.assertEquals(sbeBuffer.get(msgOffsets[i]+j), slice.get(j));
+			}
+		}
+		Assert.assertFalse(reader.next());
+	}
+	
+	@Test
+	public void testMeasure() {
+		for( int i = 0; i < serialNumbers.length; i ++ ) {
+			Assert.assertEquals(msgOffsets[i+1]-msgOffsets[i], factory.measure(sbeBuffer, msgOffsets[i]));
+			Assert.assertEquals(msgOffsets[i+1]-msgOffsets[i], factory.getMsgLookup().get(1).measure(IrisBuffer.wrap(sbeBuffer), msgOffsets[i]));
+		}
+		
+		// unknown template
+		ByteBuffer buffer = ByteBuffer.allocate(64);
+		Assert.assertEquals(-1, factory.measure(buffer, 0));
+	}
+	
+	@Test
+	public void testReadBuffer() throws Exception {
+		MessageStreamReader reader = new MessageStreamReader(factory, sbeBuffer, bufferOffset);
+		verify(reader);
+		Assert.assertEquals(msgOffsets[serialNumbers.length], sbeBuffer.limit());
+		
+		reader = new MessageStreamReader(factory, sbeBuffer, msgOffsets[1]);
+		Assert.assertTrue(reader.next());
+		ByteBuffer dest = ByteBuffer.allocate(1024);
+		Assert.assertEquals(reader.getLength(), reader.copyTo(dest, 5));
+		GroupObject msgObj = factory.wrapSbeBuffer(dest, 5);
+		Assert.assertEquals(serialNumbers[1], msgObj.getNumber(msgObj.getField("serialNumber")).longValue());
+	}
+	
+	@Test
+	public void testReadChannel() throws Exception {
+		byte[] bytes = new byte[msgOffsets[serialNumbers.length]-bufferOffset];
+		ByteBuffer src = sbeBuffer.duplicate();
+		src.position(bufferOffset);
+		src.get(bytes);
+		
+		// an internal buffer smaller than a message
+		verify(new MessageStreamReader(factory, Channels.newChannel(new ByteArrayInputStream(bytes)), 16));
+		verify(new MessageStreamReader(factory, Channels.newChannel(new ByteArrayInputStream(bytes))));
+	}
+	
+	@Test(expected = EOFException.class)
+	public void testIncompleteMessage() throws Exception {
+		byte[] bytes = new byte[msgOffsets[1]-bufferOffset-1];
+		ByteBuffer src = sbeBuffer.duplicate();
+		src.position(bufferOffset);
+		src.get(bytes);
+		
+		ReadableByteChannel channel = Channels.newChannel(new ByteArrayInputStream(bytes));
+		new MessageStreamReader(factory, channel, 64).next();
+	}
+	
+	@Test
+	public void testTruncatedBuffer() throws Exception {
+		ByteBuffer buffer = sbeBuffer.duplicate();
+		buffer.limit(msgOffsets[2]-1);
+		MessageStreamReader reader = new MessageStreamReader(factory, buffer, bufferOffset);
+		Assert.assertTrue(reader.next());
+		try {
+			reader.next();
+			Assert.fail("the buffer ends with an incomplete message");
+		} catch( EOFException e ) {
+		}
+	}
+	
+	@Test
+	public void testMalformedLength() throws Exception {
+		ByteBuffer buffer = ByteBuffer.allocate(1024);
+		ByteBuffer src = sbeBuffer.duplicate();
+		src.position(msgOffsets[0]).limit(msgOffsets[1]);
+		buffer.put(src).flip();
+		
+		// the uint32 length of activationCode, the last field of 8 bytes
+		buffer.putInt(buffer.limit()-8-4, -1);
+		try {
+			new MessageStreamReader(factory, buffer, 0).next();
+			Assert.fail("the length of activationCode is malformed");
+		} catch( MsgCodecRuntimeException e ) {
+		}
+		try {
+			new MessageStreamReader(factory, Channels.newChannel(new ByteArrayInputStream(buffer.array(), 0, buffer.limit())), 64).next();
+			Assert.fail("the length of activationCode is malformed");
+		} catch( MsgCodecRuntimeException e ) {
+		}
+	}
+}